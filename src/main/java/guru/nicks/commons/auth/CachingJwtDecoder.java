@@ -0,0 +1,92 @@
+package guru.nicks.commons.auth;
+
+import guru.nicks.commons.auth.domain.AccessTokenChecksum;
+import guru.nicks.commons.cache.CacheStatisticsRegistry;
+import guru.nicks.commons.cache.CaffeineEntryExpirationCondition;
+import guru.nicks.commons.utils.auth.AuthUtils;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * Remembers successfully decoded (i.e. signature-verified and validated) JWTs, so repeated requests bearing the same
+ * token skip signature verification (RSA is expensive) entirely. Failures are never cached - each invalid token is
+ * passed to the delegate again.
+ * <p>
+ * Cache keys are {@link AuthUtils#calculateBinaryAccessTokenChecksum(String) token checksums}, not tokens themselves.
+ * Each entry expires at {@link Jwt#getExpiresAt()} (see {@link CaffeineEntryExpirationCondition}), after which the
+ * delegate decides whether the token is still acceptable (it may allow some clock skew). The number of entries is
+ * limited, so memory consumption is capped.
+ * <p>
+ * Concurrent calls for the same uncached token result in a single call to the delegate.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+
+    private final Cache<AccessTokenChecksum, Jwt> cache;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate        decoder that performs the actual signature verification and validation
+     * @param maxCachedTokens max. number of decoded tokens to keep in RAM
+     */
+    @ConstraintArguments
+    public CachingJwtDecoder(JwtDecoder delegate, int maxCachedTokens) {
+        this.delegate = checkNotNull(delegate, _CachingJwtDecoderArgumentsMeta.DELEGATE.name());
+        check(maxCachedTokens, _CachingJwtDecoderArgumentsMeta.MAXCACHEDTOKENS.name()).positive();
+
+        cache = CaffeineEntryExpirationCondition.<AccessTokenChecksum, Jwt>createCaffeineBuilder(Jwt::getExpiresAt)
+                .maximumSize(maxCachedTokens)
+                .recordStats()
+                .build();
+        CacheStatisticsRegistry.register(CachingJwtDecoder.class.getSimpleName(), cache);
+    }
+
+    /**
+     * Returns the cached JWT if the same token has already been decoded successfully and hasn't expired yet, otherwise
+     * calls the delegate.
+     *
+     * @param token JWT
+     * @return decoded JWT
+     * @throws JwtException token is invalid (thrown by the delegate)
+     */
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        // checksum can't be calculated for blank tokens; let the delegate report the error in its own way
+        if (StringUtils.isBlank(token)) {
+            return delegate.decode(token);
+        }
+
+        AccessTokenChecksum checksum = AuthUtils.calculateBinaryAccessTokenChecksum(token);
+        // 'get' method may return null as per Caffeine specs, but never does in this particular case
+        //noinspection DataFlowIssue
+        return cache.get(checksum, key -> delegate.decode(token));
+    }
+
+    /**
+     * Returns cache statistics, such as {@link CacheStats#hitRate()}.
+     *
+     * @return statistics
+     */
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Forgets all decoded tokens, for example after a signing key has been revoked.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+}
@@ -0,0 +1,301 @@
+package guru.nicks.commons.auth;
+
+import guru.nicks.commons.auth.domain.JwkInfo;
+import guru.nicks.commons.cache.AsyncCacheRefresher;
+import guru.nicks.commons.cache.RefreshAheadValue;
+import guru.nicks.commons.cache.domain.RefreshStatistics;
+import guru.nicks.commons.utils.json.JwkUtils;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.util.Base64URL;
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * Verifies JWTs with the key whose ID matches the {@code kid} header of the token. All keys of a JWKS are indexed by
+ * their IDs in an immutable map (each key has a pre-built {@link JwtDecoder}), so verification costs one map lookup,
+ * and the whole map is swapped atomically when a new JWKS is fetched.
+ * <p>
+ * The JWKS is fetched synchronously once, in the constructor. After that, it's re-fetched in the background at
+ * {@link AsyncCacheRefresher#getAsyncRefreshTtlPercent()} of its TTL by {@link RefreshAheadValue}, therefore the
+ * request path normally never waits for a fetch. The TTL is taken from the
+ * {@link JwkInfo#getExpirationDate() expiration date} (see {@link JwkUtils#fetchJwkSet(String, String,
+ * org.springframework.web.client.RestOperations)} - it honors {@code Cache-Control: max-age}); a JWKS having no
+ * expiration date is treated as having a TTL of {@link #DEFAULT_FALLBACK_REFRESH_INTERVAL}, otherwise rotated keys
+ * would never be picked up. A TTL shorter than {@link #MIN_TIME_TO_LIVE} (for example, {@code max-age=0}, or a
+ * {@code max-age} shorter than the fetch itself) is extended to it, otherwise the JWKS would expire before it's even
+ * used, and no background refresh would be scheduled. Failed background fetches are retried while the current keys
+ * remain in use.
+ * <p>
+ * A token signed with an unknown key (which is what a key rotation looks like before the next scheduled fetch), or a
+ * token arriving after the JWKS has expired without having been replaced, triggers a synchronous re-fetch, but not more
+ * often than once per {@link #DEFAULT_ON_DEMAND_REFRESH_INTERVAL}: tokens with made-up key IDs must not turn into a
+ * flood of JWKS requests. Tokens arriving while the re-fetch is rate-limited (or if it fails) are rejected
+ * immediately.
+ */
+@Slf4j
+public class JwkSetJwtDecoder implements JwtDecoder, AutoCloseable {
+
+    /**
+     * Treated as the TTL of a JWKS having no expiration date.
+     */
+    public static final Duration DEFAULT_FALLBACK_REFRESH_INTERVAL = Duration.ofMinutes(15);
+
+    /**
+     * Minimum interval between JWKS re-fetches triggered by decoding (unknown key IDs, expired JWKS).
+     */
+    public static final Duration DEFAULT_ON_DEMAND_REFRESH_INTERVAL = Duration.ofSeconds(30);
+
+    /**
+     * Shorter TTLs of a JWKS are extended to this one.
+     */
+    public static final Duration MIN_TIME_TO_LIVE = Duration.ofSeconds(5);
+
+    private final RefreshAheadValue<KeySnapshot> keySnapshot;
+
+    private final long onDemandRefreshIntervalNanos;
+
+    /**
+     * {@link System#nanoTime()} of the last re-fetch triggered by decoding.
+     */
+    private final AtomicLong lastOnDemandRefreshNanos;
+
+    /**
+     * Constructor. Fetches the JWKS immediately. Uses {@link #DEFAULT_FALLBACK_REFRESH_INTERVAL} and
+     * {@link #DEFAULT_ON_DEMAND_REFRESH_INTERVAL}.
+     *
+     * @param jwkSetFetcher JWKS fetcher, for example
+     *                      {@code () -> JwkUtils.fetchJwkSet(authProviderId, url, restClient)}
+     * @throws IllegalStateException initial fetch failed or timed out
+     */
+    public JwkSetJwtDecoder(Supplier<JwkInfo> jwkSetFetcher) {
+        this(jwkSetFetcher, DEFAULT_FALLBACK_REFRESH_INTERVAL, DEFAULT_ON_DEMAND_REFRESH_INTERVAL);
+    }
+
+    /**
+     * Constructor. Fetches the JWKS immediately.
+     *
+     * @param jwkSetFetcher           JWKS fetcher, for example
+     *                                {@code () -> JwkUtils.fetchJwkSet(authProviderId, url, restClient)}
+     * @param fallbackRefreshInterval treated as the TTL of a JWKS having no expiration date
+     * @param onDemandRefreshInterval minimum interval between re-fetches triggered by decoding (unknown key IDs,
+     *                                expired JWKS)
+     * @throws IllegalStateException initial fetch failed or timed out
+     */
+    @ConstraintArguments
+    public JwkSetJwtDecoder(Supplier<JwkInfo> jwkSetFetcher, Duration fallbackRefreshInterval,
+            Duration onDemandRefreshInterval) {
+        checkNotNull(jwkSetFetcher, _JwkSetJwtDecoderArgumentsMeta.JWKSETFETCHER.name());
+        check(fallbackRefreshInterval, _JwkSetJwtDecoderArgumentsMeta.FALLBACKREFRESHINTERVAL.name())
+                .constraint(Duration::isPositive, "must be positive");
+        check(onDemandRefreshInterval, _JwkSetJwtDecoderArgumentsMeta.ONDEMANDREFRESHINTERVAL.name())
+                .constraint(Duration::isPositive, "must be positive");
+
+        onDemandRefreshIntervalNanos = onDemandRefreshInterval.toNanos();
+        // the very first on-demand re-fetch may happen right away
+        lastOnDemandRefreshNanos = new AtomicLong(System.nanoTime() - onDemandRefreshIntervalNanos);
+
+        keySnapshot = new RefreshAheadValue<>(JwkSetJwtDecoder.class.getSimpleName(),
+                () -> KeySnapshot.of(jwkSetFetcher.get(), fallbackRefreshInterval),
+                KeySnapshot::refreshDate);
+
+        try {
+            keySnapshot.refresh();
+        } catch (RuntimeException e) {
+            // otherwise the executor would leak
+            keySnapshot.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Finds the decoder for the {@code kid} header of the token and delegates decoding to it. If there's no such key,
+     * or the JWKS has expired, possibly re-fetches the JWKS (see class-level comment).
+     *
+     * @param token JWT
+     * @return decoded JWT
+     * @throws BadJwtException token is malformed or signed with an unknown key
+     * @throws JwtException    JWKS has expired, or token is invalid
+     */
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        String keyId = parseKeyId(token);
+        KeySnapshot snapshot = keySnapshot.get();
+
+        if (snapshot.isExpired() && refreshOnDemand("it has expired", snapshot)) {
+            snapshot = keySnapshot.get();
+        }
+
+        if (snapshot.isExpired()) {
+            throw new JwtException("JWKS of auth provider '" + snapshot.authProviderId() + "' expired at "
+                    + snapshot.expirationDate());
+        }
+
+        JwtDecoder decoder = snapshot.decodersByKeyId().get(keyId);
+
+        if ((decoder == null) && refreshOnDemand("of unknown key ID '" + keyId + "'", snapshot)) {
+            snapshot = keySnapshot.get();
+            decoder = snapshot.decodersByKeyId().get(keyId);
+        }
+
+        if (decoder == null) {
+            throw new BadJwtException("Unknown key ID '" + keyId + "' for auth provider '"
+                    + snapshot.authProviderId() + "'");
+        }
+
+        return decoder.decode(token);
+    }
+
+    /**
+     * Returns IDs of the keys currently in use.
+     *
+     * @return key IDs ({@link JwkUtils#NO_KEY_ID} stands for a key having no ID)
+     */
+    public Iterable<String> getKeyIds() {
+        return keySnapshot.get().decodersByKeyId().keySet();
+    }
+
+    /**
+     * Re-fetches the JWKS synchronously and swaps the keys.
+     *
+     * @throws IllegalStateException fetch failed or timed out
+     */
+    public void refresh() {
+        keySnapshot.refresh();
+    }
+
+    /**
+     * Returns JWKS refresh metrics.
+     *
+     * @return statistics
+     */
+    public RefreshStatistics getRefreshStatistics() {
+        return keySnapshot.getStatistics();
+    }
+
+    /**
+     * Stops background refreshes.
+     */
+    @Override
+    public void close() {
+        keySnapshot.close();
+    }
+
+    /**
+     * Re-fetches the JWKS synchronously unless the previous on-demand re-fetch happened less than
+     * {@link #onDemandRefreshIntervalNanos} ago. Only one of the concurrent callers wins the right to re-fetch.
+     *
+     * @param reason   why the JWKS is re-fetched, for logging purposes
+     * @param snapshot current keys
+     * @return {@code true} if the JWKS has been re-fetched
+     */
+    private boolean refreshOnDemand(String reason, KeySnapshot snapshot) {
+        long now = System.nanoTime();
+        long last = lastOnDemandRefreshNanos.get();
+
+        if ((now - last < onDemandRefreshIntervalNanos) || !lastOnDemandRefreshNanos.compareAndSet(last, now)) {
+            return false;
+        }
+
+        log.info("Re-fetching JWKS of auth provider '{}' because {}", snapshot.authProviderId(), reason);
+
+        try {
+            keySnapshot.refresh();
+            return true;
+        }
+        // the current keys remain in use
+        catch (RuntimeException e) {
+            log.warn("Failed to re-fetch JWKS of auth provider '{}': {}", snapshot.authProviderId(), e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Extracts {@code kid} from the JWT header without parsing the rest of the token.
+     *
+     * @param token JWT
+     * @return key ID, or {@link JwkUtils#NO_KEY_ID} if there's none
+     * @throws BadJwtException token is malformed
+     */
+    private static String parseKeyId(String token) {
+        int headerEnd = StringUtils.indexOf(token, '.');
+        if (headerEnd <= 0) {
+            throw new BadJwtException("Malformed token");
+        }
+
+        try {
+            JWSHeader header = JWSHeader.parse(new Base64URL(token.substring(0, headerEnd)));
+            return Objects.requireNonNullElse(header.getKeyID(), JwkUtils.NO_KEY_ID);
+        } catch (ParseException e) {
+            throw new BadJwtException("Malformed token header: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Keys of a JWKS along with its metadata.
+     *
+     * @param authProviderId  {@link JwkInfo#getAuthProviderId()}
+     * @param decodersByKeyId immutable map of decoders
+     * @param expirationDate  {@link JwkInfo#getExpirationDate()}, but not earlier than {@link #MIN_TIME_TO_LIVE} after
+     *                        the fetch
+     * @param refreshDate     expiration date, or the fallback one if the JWKS doesn't expire
+     */
+    private record KeySnapshot(
+
+            @Nullable
+            String authProviderId,
+
+            Map<String, JwtDecoder> decodersByKeyId,
+
+            @Nullable
+            Instant expirationDate,
+
+            Instant refreshDate) {
+
+        static KeySnapshot of(JwkInfo jwkInfo, Duration fallbackRefreshInterval) {
+            Map<String, JwtDecoder> decodersByKeyId = JwkUtils.extractPublicKeysByKeyId(jwkInfo)
+                    .entrySet()
+                    .stream()
+                    .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey,
+                            entry -> JwkUtils.createJwtDecoder(entry.getValue())));
+
+            Instant now = Instant.now();
+            Instant expirationDate = jwkInfo.getExpirationDate();
+
+            if (expirationDate != null) {
+                Instant minExpirationDate = now.plus(MIN_TIME_TO_LIVE);
+
+                if (expirationDate.isBefore(minExpirationDate)) {
+                    expirationDate = minExpirationDate;
+                }
+            }
+
+            return new KeySnapshot(jwkInfo.getAuthProviderId(), decodersByKeyId, expirationDate,
+                    Objects.requireNonNullElseGet(expirationDate, () -> now.plus(fallbackRefreshInterval)));
+        }
+
+        boolean isExpired() {
+            return (expirationDate != null) && !expirationDate.isAfter(Instant.now());
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+package guru.nicks.commons.auth;
+
+import guru.nicks.commons.auth.domain.AccessTokenChecksum;
+import guru.nicks.commons.auth.domain.JwtClaimsProjection;
+import guru.nicks.commons.cache.CacheStatisticsRegistry;
+import guru.nicks.commons.cache.CaffeineEntryExpirationCondition;
+import guru.nicks.commons.utils.auth.AuthUtils;
+import guru.nicks.commons.utils.json.JwtUtils;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * Remembers {@link JwtUtils#projectClaims(org.springframework.security.oauth2.jwt.JwtClaimAccessor) claim projections}
+ * of decoded JWTs, so all the filters processing requests bearing the same token share one projection instead of
+ * parsing claims (roles, locale, etc.) over and over again.
+ * <p>
+ * Cache keys are {@link AuthUtils#calculateBinaryAccessTokenChecksum(String) token checksums}. Each entry expires at
+ * {@link JwtClaimsProjection#expiresAt()}, the number of entries is limited. Failed projections are not cached.
+ */
+public class JwtClaimsProjectionCache {
+
+    private final Cache<AccessTokenChecksum, JwtClaimsProjection> cache;
+
+    /**
+     * Constructor.
+     *
+     * @param maxCachedTokens max. number of projections to keep in RAM
+     */
+    @ConstraintArguments
+    public JwtClaimsProjectionCache(int maxCachedTokens) {
+        check(maxCachedTokens, _JwtClaimsProjectionCacheArgumentsMeta.MAXCACHEDTOKENS.name()).positive();
+
+        cache = CaffeineEntryExpirationCondition
+                .<AccessTokenChecksum, JwtClaimsProjection>createCaffeineBuilder(JwtClaimsProjection::expiresAt)
+                .maximumSize(maxCachedTokens)
+                .recordStats()
+                .build();
+        CacheStatisticsRegistry.register(JwtClaimsProjectionCache.class.getSimpleName(), cache);
+    }
+
+    /**
+     * Returns the cached projection of the given JWT or, if there's none, calculates and caches it.
+     *
+     * @param jwt decoded (already verified) JWT
+     * @return claims projection
+     * @throws BadJwtException see {@link JwtUtils#projectClaims}
+     */
+    @ConstraintArguments
+    public JwtClaimsProjection get(Jwt jwt) {
+        checkNotNull(jwt, _JwtClaimsProjectionCacheGetArgumentsMeta.JWT.name());
+
+        AccessTokenChecksum checksum = AuthUtils.calculateBinaryAccessTokenChecksum(jwt.getTokenValue());
+        // 'get' method may return null as per Caffeine specs, but never does in this particular case
+        //noinspection DataFlowIssue
+        return cache.get(checksum, key -> JwtUtils.projectClaims(jwt));
+    }
+
+    /**
+     * Returns cache statistics, such as {@link CacheStats#hitRate()}.
+     *
+     * @return statistics
+     */
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Forgets all projections.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+}
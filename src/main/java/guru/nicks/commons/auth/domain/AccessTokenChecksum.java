@@ -0,0 +1,60 @@
+package guru.nicks.commons.auth.domain;
+
+import guru.nicks.commons.utils.auth.AuthUtils;
+
+import java.util.HexFormat;
+
+/**
+ * Binary form of {@link AuthUtils#calculateAccessTokenChecksum(String)}: SHA-256 (split into four longs, most
+ * significant bits first) and XxHash3 checksums of the same token. Meant to be used as a map/cache key - it's cheaper
+ * to create and compare than a string, and its {@link #hashCode()} is the (well-dispersed) XxHash3 value itself.
+ *
+ * @param sha256Part1 SHA-256 bits 255..192
+ * @param sha256Part2 SHA-256 bits 191..128
+ * @param sha256Part3 SHA-256 bits 127..64
+ * @param sha256Part4 SHA-256 bits 63..0
+ * @param xxHash3     XxHash3 checksum
+ * @see AuthUtils#calculateBinaryAccessTokenChecksum(String)
+ */
+public record AccessTokenChecksum(
+
+        long sha256Part1,
+        long sha256Part2,
+        long sha256Part3,
+        long sha256Part4,
+
+        long xxHash3) {
+
+    /**
+     * Formats SHA-256 checksum the same way as {@link org.apache.commons.codec.binary.Hex#encodeHexString(byte[])}
+     * does.
+     *
+     * @return 64 lowercase hex characters
+     */
+    public String sha256Hex() {
+        HexFormat hexFormat = HexFormat.of();
+
+        return new StringBuilder(64)
+                .append(hexFormat.toHexDigits(sha256Part1))
+                .append(hexFormat.toHexDigits(sha256Part2))
+                .append(hexFormat.toHexDigits(sha256Part3))
+                .append(hexFormat.toHexDigits(sha256Part4))
+                .toString();
+    }
+
+    /**
+     * Formats XxHash3 checksum the same way as {@link org.apache.commons.codec.binary.Hex#encodeHexString(byte[])}
+     * does.
+     *
+     * @return 16 lowercase hex characters
+     */
+    public String xxHash3Hex() {
+        return HexFormat.of().toHexDigits(xxHash3);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(xxHash3);
+    }
+
+}
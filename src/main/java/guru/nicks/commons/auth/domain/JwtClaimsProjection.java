@@ -0,0 +1,38 @@
+package guru.nicks.commons.auth.domain;
+
+import guru.nicks.commons.utils.json.JwtUtils;
+
+import jakarta.annotation.Nullable;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Claims the request processing needs, extracted from a JWT once by {@link JwtUtils#projectClaims}.
+ *
+ * @param userId      {@link JwtUtils#retrieveUserId user ID}, already prefixed for external JWT providers
+ * @param jwtProvider JWT provider ({@code null} for a local one)
+ * @param username    {@link JwtUtils#retrieveUsername username}, if any
+ * @param authorities {@link JwtUtils#retrieveAuthorities authorities}, unmodifiable
+ * @param locale      {@link JwtUtils#retrieveUserLocale user locale}
+ * @param azpOrAud    {@link JwtUtils#retrieveAzpOrAud AZP or AUD}, unmodifiable
+ * @param expiresAt   JWT expiration date, if any
+ */
+public record JwtClaimsProjection(
+
+        String userId,
+
+        @Nullable
+        JwtProvider jwtProvider,
+
+        @Nullable
+        String username,
+
+        Set<String> authorities,
+        Locale locale,
+        Set<String> azpOrAud,
+
+        @Nullable
+        Instant expiresAt) {
+}
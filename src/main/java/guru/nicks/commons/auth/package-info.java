@@ -0,0 +1,4 @@
+@NonNullApi
+package guru.nicks.commons.auth;
+
+import org.springframework.lang.NonNullApi;
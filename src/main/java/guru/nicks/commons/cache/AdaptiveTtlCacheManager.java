@@ -0,0 +1,55 @@
+package guru.nicks.commons.cache;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.Duration;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+
+/**
+ * Caffeine cache manager whose caches pick TTL per entry with {@link AdaptiveTtlExpiry}, instead of one TTL for all
+ * entries (like the {@code memory-<ttl>} cache managers do). Each cache has its own frequency sketches, so popularity
+ * of keys in one cache doesn't affect TTLs in another.
+ */
+public class AdaptiveTtlCacheManager extends CaffeineCacheManager {
+
+    private final Duration minTimeToLive;
+    private final Duration maxTimeToLive;
+    private final long maxEntriesPerCache;
+
+    /**
+     * Constructor.
+     *
+     * @param minTimeToLive      TTL of cold or volatile entries
+     * @param maxTimeToLive      TTL of hot and stable entries
+     * @param maxEntriesPerCache capacity of each cache
+     */
+    @ConstraintArguments
+    public AdaptiveTtlCacheManager(Duration minTimeToLive, Duration maxTimeToLive, long maxEntriesPerCache) {
+        this.minTimeToLive = check(minTimeToLive, _AdaptiveTtlCacheManagerArgumentsMeta.MINTIMETOLIVE.name())
+                .constraint(Duration::isPositive, "must be positive")
+                .getValue();
+        this.maxTimeToLive = check(maxTimeToLive, _AdaptiveTtlCacheManagerArgumentsMeta.MAXTIMETOLIVE.name())
+                .constraint(ttl -> ttl.compareTo(minTimeToLive) >= 0, "must not be less than min. TTL")
+                .getValue();
+        this.maxEntriesPerCache = check(maxEntriesPerCache,
+                _AdaptiveTtlCacheManagerArgumentsMeta.MAXENTRIESPERCACHE.name())
+                .positive()
+                .getValue();
+    }
+
+    @Override
+    protected Cache<Object, Object> createNativeCaffeineCache(String name) {
+        return CacheStatisticsRegistry.recordStatsIfEnabled(Caffeine.newBuilder())
+                .maximumSize(maxEntriesPerCache)
+                .expireAfter(new AdaptiveTtlExpiry<>(minTimeToLive, maxTimeToLive, maxEntriesPerCache))
+                // remove expired entries asap (not only when the cache is accessed) to save memory
+                .scheduler(Scheduler.systemScheduler())
+                .build();
+    }
+
+}
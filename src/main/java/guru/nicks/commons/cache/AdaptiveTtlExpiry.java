@@ -0,0 +1,111 @@
+package guru.nicks.commons.cache;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+
+/**
+ * Per-entry TTL driven by access patterns of the key, within {@link #getMinTimeToLive()} ..
+ * {@link #getMaxTimeToLive()}:
+ * <ul>
+ *  <li>reads (and loads, which are reads that missed) make a key hot, so the next time its value is written, it gets
+ *      a longer TTL</li>
+ *  <li>updates (replacing a value with another one) make a key volatile, which shortens its TTL, because frequently
+ *      changing values get stale quickly</li>
+ *  <li>keys nobody reads get (nearly) {@link #getMinTimeToLive()}, so they don't waste memory</li>
+ * </ul>
+ * Reads and updates are tracked with two {@link FrequencySketch}es, so old activity is forgotten gradually. TTL is
+ * interpolated logarithmically: with bounds of 1 minute and 1 day, a key having half the max. score gets about
+ * 38 minutes (the geometric mean).
+ * <p>
+ * TTL is assigned on writes only (reads never extend it), therefore no entry lives longer than
+ * {@link #getMaxTimeToLive()} after its value was loaded.
+ *
+ * @param <K> cache key type
+ * @param <V> cache value type
+ */
+public class AdaptiveTtlExpiry<K, V> implements CaffeineEntryExpirationCondition<K, V> {
+
+    @Getter
+    private final Duration minTimeToLive;
+
+    @Getter
+    private final Duration maxTimeToLive;
+
+    private final double logTtlRatio;
+    private final FrequencySketch reads;
+    private final FrequencySketch updates;
+
+    /**
+     * Constructor.
+     *
+     * @param minTimeToLive TTL of cold or volatile entries
+     * @param maxTimeToLive TTL of hot and stable entries
+     * @param expectedKeys  expected number of distinct keys (for example, cache capacity) - sizes frequency sketches
+     */
+    @ConstraintArguments
+    public AdaptiveTtlExpiry(Duration minTimeToLive, Duration maxTimeToLive, long expectedKeys) {
+        this.minTimeToLive = check(minTimeToLive, _AdaptiveTtlExpiryArgumentsMeta.MINTIMETOLIVE.name())
+                .constraint(Duration::isPositive, "must be positive")
+                .getValue();
+        this.maxTimeToLive = check(maxTimeToLive, _AdaptiveTtlExpiryArgumentsMeta.MAXTIMETOLIVE.name())
+                .constraint(ttl -> ttl.compareTo(minTimeToLive) >= 0, "must not be less than min. TTL")
+                .getValue();
+
+        logTtlRatio = Math.log((double) maxTimeToLive.toMillis() / Math.max(1, minTimeToLive.toMillis()));
+        reads = new FrequencySketch(expectedKeys);
+        updates = new FrequencySketch(expectedKeys);
+    }
+
+    /**
+     * Calculates TTL for the key according to its current read and update frequencies.
+     *
+     * @param key cache key
+     * @return TTL within the configured bounds
+     */
+    public Duration calculateTimeToLive(K key) {
+        int readFrequency = reads.frequency(key);
+        int updateFrequency = updates.frequency(key);
+
+        // 0..1: popularity discounted by volatility
+        double score = (double) readFrequency * (FrequencySketch.MAX_FREQUENCY - updateFrequency)
+                / (FrequencySketch.MAX_FREQUENCY * FrequencySketch.MAX_FREQUENCY);
+
+        if (score <= 0) {
+            return minTimeToLive;
+        }
+
+        long millis = Math.round(minTimeToLive.toMillis() * Math.exp(logTtlRatio * score));
+        return Duration.ofMillis(Math.clamp(millis, minTimeToLive.toMillis(), maxTimeToLive.toMillis()));
+    }
+
+    @Override
+    public Optional<Instant> getExpirationInstant(K key, V value) {
+        return Optional.of(Instant.now().plus(calculateTimeToLive(key)));
+    }
+
+    @Override
+    public long expireAfterCreate(K key, V value, long nanosElapsedSinceJmvStart) {
+        reads.increment(key);
+        return CaffeineEntryExpirationCondition.super.expireAfterCreate(key, value, nanosElapsedSinceJmvStart);
+    }
+
+    @Override
+    public long expireAfterUpdate(K key, V value, long nanosElapsedSinceJmvStart, long currentTtlNanos) {
+        updates.increment(key);
+        // not 'this.expireAfterCreate' - an update is not a read
+        return CaffeineEntryExpirationCondition.super.expireAfterCreate(key, value, nanosElapsedSinceJmvStart);
+    }
+
+    @Override
+    public long expireAfterRead(K key, V value, long nanosElapsedSinceJmvStart, long currentTtlNanos) {
+        reads.increment(key);
+        return currentTtlNanos;
+    }
+
+}
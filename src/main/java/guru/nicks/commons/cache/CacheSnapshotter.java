@@ -0,0 +1,627 @@
+package guru.nicks.commons.cache;
+
+import guru.nicks.commons.serializer.NativeJavaSerializer;
+import guru.nicks.commons.serializer.OneNioSerializer;
+import guru.nicks.commons.utils.compressor.ZstdCompressorUtils;
+import guru.nicks.commons.utils.crypto.HashUtils;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import com.github.benmanes.caffeine.cache.Policy;
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * Persists the hottest entries of in-memory caches to local files and loads them back after a restart, so freshly
+ * started instances don't hammer the underlying data sources while their caches are empty.
+ * <ul>
+ *  <li>supports Caffeine-based caches ({@code CaffeineCacheManager}, the ones created by {@code InMemoryCacheUtils},
+ *      L1 of {@link TwoTierCache}), possibly wrapped by transaction-aware decorators; other caches are skipped</li>
+ *  <li>one file per cache: entries serialized with {@link OneNioSerializer} (see its caveats), compressed with
+ *      {@link ZstdCompressorUtils}, written atomically</li>
+ *  <li>each entry keeps its absolute expiration date, so the downtime counts, and restored entries don't outlive their
+ *      original TTL (in caches having fixed expiration, by more than {@link #MIN_SWEEP_DELAY}); entries that can't be
+ *      serialized (or deserialized after a class change) are skipped</li>
+ *  <li>as a {@link SmartLifecycle} bean, restores snapshots on startup (caches in parallel, in virtual threads) and
+ *      blocks startup - and therefore the readiness probe - for at most {@link #getWarmUpTimeout()}; saves snapshots
+ *      periodically (optionally) and on shutdown</li>
+ * </ul>
+ */
+@Slf4j
+public class CacheSnapshotter implements SmartLifecycle {
+
+    /**
+     * @see #getWarmUpTimeout()
+     */
+    public static final Duration DEFAULT_WARM_UP_TIMEOUT = Duration.ofMinutes(1);
+
+    private static final String FILE_SUFFIX = ".snapshot";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    /**
+     * Stands for 'never expires' in snapshot files.
+     */
+    private static final long NO_EXPIRATION = Long.MAX_VALUE;
+
+    /**
+     * Restored entries of caches having fixed expiration are removed in batches, not more often than this.
+     */
+    private static final Duration MIN_SWEEP_DELAY = Duration.ofMillis(100);
+
+    private static final NativeJavaSerializer SERIALIZER = new OneNioSerializer();
+
+    private final CacheManager cacheManager;
+    private final List<String> cacheNames;
+    private final Path directory;
+    private final int maxEntriesPerCache;
+
+    @Nullable
+    private final Duration saveInterval;
+
+    /**
+     * Runs periodic saves and removes restored entries when their original TTL elapses. Created in {@link #start()}.
+     */
+    @Nullable
+    private volatile ScheduledExecutorService scheduler;
+
+    /**
+     * Restored entries of caches having fixed expiration, one batch per restored cache. Accessed only in
+     * {@link #scheduler}, so there's only one pending removal task for all of them.
+     */
+    private final List<RestoredEntryBatch> restoredEntryBatches = new ArrayList<>();
+
+    /**
+     * Accessed only in {@link #scheduler}.
+     */
+    @Nullable
+    private ScheduledFuture<?> scheduledSweep;
+
+    /**
+     * {@link System#nanoTime()} when {@link #scheduledSweep} runs. Accessed only in {@link #scheduler}.
+     */
+    private long scheduledSweepNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param cacheManager       cache manager to take caches from
+     * @param cacheNames         names of caches to snapshot
+     * @param directory          directory to store snapshots in (created if needed)
+     * @param maxEntriesPerCache how many hottest entries of each cache to save
+     * @param saveInterval       how often to save snapshots in addition to shutdown ({@code null} means on shutdown
+     *                           only)
+     */
+    @ConstraintArguments
+    public CacheSnapshotter(CacheManager cacheManager, List<String> cacheNames, Path directory,
+            int maxEntriesPerCache, @Nullable Duration saveInterval) {
+        this.cacheManager = checkNotNull(cacheManager, _CacheSnapshotterArgumentsMeta.CACHEMANAGER.name());
+        this.cacheNames = List.copyOf(checkNotNull(cacheNames, _CacheSnapshotterArgumentsMeta.CACHENAMES.name()));
+        this.directory = checkNotNull(directory, _CacheSnapshotterArgumentsMeta.DIRECTORY.name());
+        this.maxEntriesPerCache = check(maxEntriesPerCache, _CacheSnapshotterArgumentsMeta.MAXENTRIESPERCACHE.name())
+                .positive()
+                .getValue();
+
+        if (saveInterval != null) {
+            check(saveInterval, _CacheSnapshotterArgumentsMeta.SAVEINTERVAL.name())
+                    .constraint(Duration::isPositive, "must be positive");
+        }
+
+        this.saveInterval = saveInterval;
+    }
+
+    /**
+     * Returns for how long {@link #start()} waits for snapshots to be restored. After that, restoring continues in the
+     * background.
+     *
+     * @return default implementation returns {@link #DEFAULT_WARM_UP_TIMEOUT}
+     */
+    public Duration getWarmUpTimeout() {
+        return DEFAULT_WARM_UP_TIMEOUT;
+    }
+
+    /**
+     * Restores snapshots (waiting for at most {@link #getWarmUpTimeout()}) and schedules periodic saves.
+     */
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("cache-snapshotter").factory());
+
+        try {
+            restore().get(getWarmUpTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Cache warm-up is taking longer than {}, continuing in background", getWarmUpTimeout());
+        } catch (ExecutionException e) {
+            log.warn("Cache warm-up failed: {}", e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (saveInterval != null) {
+            scheduler.scheduleWithFixedDelay(this::save,
+                    saveInterval.toMillis(), saveInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Cancels periodic saves and saves snapshots.
+     */
+    @Override
+    public void stop() {
+        ScheduledExecutorService theScheduler = scheduler;
+        if (theScheduler == null) {
+            return;
+        }
+
+        theScheduler.shutdownNow();
+        // waits for the running task, if any, so restored entries are no longer accessed concurrently
+        theScheduler.close();
+        scheduler = null;
+        restoredEntryBatches.clear();
+        scheduledSweep = null;
+        save();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    /**
+     * Saves snapshots of all caches. Failures are logged, one cache failing doesn't affect the others.
+     */
+    public void save() {
+        for (String cacheName : cacheNames) {
+            findCaffeineCache(cacheName).ifPresent(cache -> {
+                try {
+                    saveCache(cacheName, cache);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to save snapshot of cache '{}': {}", cacheName, e.getMessage(), e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Restores snapshots of all caches in parallel, in virtual threads. Entries already present in caches are not
+     * overwritten. Failures are logged, one cache failing doesn't affect the others.
+     *
+     * @return future which completes when all caches have been restored
+     */
+    public CompletableFuture<Void> restore() {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        try {
+            return CompletableFuture.allOf(cacheNames.stream()
+                    .map(cacheName -> CompletableFuture.runAsync(() -> restoreCache(cacheName), executor))
+                    .toArray(CompletableFuture[]::new));
+        } finally {
+            // already submitted tasks keep running
+            executor.shutdown();
+        }
+    }
+
+    private void saveCache(String cacheName, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+        long start = System.currentTimeMillis();
+        Policy<Object, Object> policy = cache.policy();
+
+        Map<Object, Object> hottest = policy.eviction()
+                .map(eviction -> eviction.hottest(maxEntriesPerCache))
+                .orElseGet(cache::asMap);
+
+        var bytes = new ByteArrayOutputStream();
+        int savedCount = 0;
+
+        try (var out = new DataOutputStream(bytes)) {
+            writeBytes(out, cacheName.getBytes(StandardCharsets.UTF_8));
+
+            for (Map.Entry<Object, Object> entry : hottest.entrySet()) {
+                if (savedCount >= maxEntriesPerCache) {
+                    break;
+                }
+
+                // NullValue relies on 'readResolve' to remain a singleton, which not all serializers honor
+                if (entry.getValue() == NullValue.INSTANCE) {
+                    continue;
+                }
+
+                OptionalLong expirationMillis = calculateExpirationMillis(policy, entry.getKey(), start);
+                if (expirationMillis.isEmpty()) {
+                    continue;
+                }
+
+                byte[] key;
+                byte[] value;
+
+                try {
+                    key = SERIALIZER.serialize(entry.getKey());
+                    value = SERIALIZER.serialize(entry.getValue());
+                } catch (RuntimeException e) {
+                    log.debug("Skipping non-serializable entry '{}' of cache '{}': {}",
+                            entry.getKey(), cacheName, e.getMessage());
+                    continue;
+                }
+
+                out.writeLong(expirationMillis.getAsLong());
+                writeBytes(out, key);
+                writeBytes(out, value);
+                savedCount++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        writeFile(resolveFile(cacheName), ZstdCompressorUtils.compress(bytes.toByteArray()));
+        log.info("Saved {} entries of cache '{}' in {} ms", savedCount, cacheName, System.currentTimeMillis() - start);
+    }
+
+    private void restoreCache(String cacheName) {
+        Optional<com.github.benmanes.caffeine.cache.Cache<Object, Object>> maybeCache = findCaffeineCache(cacheName);
+        if (maybeCache.isEmpty()) {
+            return;
+        }
+
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> cache = maybeCache.get();
+        Path file = resolveFile(cacheName);
+        long start = System.currentTimeMillis();
+        int restoredCount = 0;
+        List<RestoredEntry> entriesToExpire = new ArrayList<>();
+
+        byte[] content;
+        try {
+            content = ZstdCompressorUtils.decompress(Files.readAllBytes(file));
+        } catch (NoSuchFileException e) {
+            log.info("No snapshot of cache '{}' found", cacheName);
+            return;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read snapshot of cache '{}': {}", cacheName, e.getMessage());
+            return;
+        }
+
+        try (var in = new DataInputStream(new ByteArrayInputStream(content))) {
+            // file names are hashes, so make sure this is the right cache
+            if (!cacheName.equals(new String(readBytes(in), StandardCharsets.UTF_8))) {
+                log.warn("Snapshot file '{}' belongs to another cache", file);
+                return;
+            }
+
+            while (in.available() > 0) {
+                long expirationMillis = in.readLong();
+                byte[] key = readBytes(in);
+                byte[] value = readBytes(in);
+
+                long remainingMillis = expirationMillis - System.currentTimeMillis();
+                if (remainingMillis <= 0) {
+                    continue;
+                }
+
+                try {
+                    Object restoredKey = SERIALIZER.deserialize(key);
+                    Object restoredValue = SERIALIZER.deserialize(value);
+
+                    Duration remainingTtl = (expirationMillis == NO_EXPIRATION)
+                            ? null
+                            : Duration.ofMillis(remainingMillis);
+
+                    if (restoreEntry(cache, restoredKey, restoredValue, remainingTtl)) {
+                        entriesToExpire.add(new RestoredEntry(new WeakReference<>(restoredKey),
+                                new WeakReference<>(restoredValue),
+                                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(remainingMillis)));
+                    }
+
+                    restoredCount++;
+                } catch (RuntimeException e) {
+                    log.debug("Skipping non-deserializable entry of cache '{}': {}", cacheName, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Snapshot of cache '{}' is corrupted: {}", cacheName, e.getMessage());
+        }
+
+        if (!entriesToExpire.isEmpty()) {
+            expireRestoredEntries(cache, entriesToExpire);
+        }
+
+        log.info("Restored {} entries of cache '{}' in {} ms",
+                restoredCount, cacheName, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Puts the entry unless the key is already present. Variable expiration caches get the remaining TTL directly;
+     * caches having fixed expiration would restart the TTL, so such entries must be removed when their original TTL
+     * elapses (see {@link #expireRestoredEntries(com.github.benmanes.caffeine.cache.Cache, List)}).
+     *
+     * @param remainingTtl {@code null} means no expiration
+     * @return {@code true} if the entry has been put and must be removed when its original TTL elapses
+     */
+    private static boolean restoreEntry(com.github.benmanes.caffeine.cache.Cache<Object, Object> cache, Object key,
+            Object value, @Nullable Duration remainingTtl) {
+        Optional<Policy.VarExpiration<Object, Object>> varExpiration = cache.policy().expireVariably();
+
+        if ((remainingTtl != null) && varExpiration.isPresent()) {
+            varExpiration.get().putIfAbsent(key, value, remainingTtl);
+            return false;
+        }
+
+        return (cache.asMap().putIfAbsent(key, value) == null) && (remainingTtl != null);
+    }
+
+    /**
+     * Hands the entries over to {@link #scheduler}, which removes each of them when its original TTL elapses, unless
+     * it's been replaced meanwhile. Entries are referenced weakly, so the ones evicted from the cache can be
+     * garbage-collected before that.
+     *
+     * @param entries entries to remove
+     */
+    private void expireRestoredEntries(com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+            List<RestoredEntry> entries) {
+        ScheduledExecutorService theScheduler = scheduler;
+        if (theScheduler == null) {
+            return;
+        }
+
+        entries.sort(Comparator.comparingLong(RestoredEntry::deadlineNanos));
+        var batch = new RestoredEntryBatch(cache, entries);
+
+        try {
+            theScheduler.execute(() -> {
+                restoredEntryBatches.add(batch);
+                scheduleSweep();
+            });
+        }
+        // stopped concurrently
+        catch (RejectedExecutionException e) {
+            log.debug("Not expiring restored entries: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs in {@link #scheduler}. Schedules {@link #sweep()} at the earliest deadline of restored entries (but not
+     * sooner than {@link #MIN_SWEEP_DELAY}), replacing the pending sweep if it's due later.
+     */
+    private void scheduleSweep() {
+        ScheduledExecutorService theScheduler = scheduler;
+        if ((theScheduler == null) || restoredEntryBatches.isEmpty()) {
+            return;
+        }
+
+        long earliestNanos = Long.MAX_VALUE;
+        for (RestoredEntryBatch batch : restoredEntryBatches) {
+            earliestNanos = Math.min(earliestNanos, batch.nextDeadlineNanos());
+        }
+
+        long now = System.nanoTime();
+        long delayNanos = Math.max(earliestNanos - now, MIN_SWEEP_DELAY.toNanos());
+
+        if ((scheduledSweep != null) && (scheduledSweepNanos - (now + delayNanos) <= 0)) {
+            return;
+        }
+
+        if (scheduledSweep != null) {
+            scheduledSweep.cancel(false);
+        }
+
+        try {
+            scheduledSweep = theScheduler.schedule(this::sweep, delayNanos, TimeUnit.NANOSECONDS);
+            scheduledSweepNanos = now + delayNanos;
+        }
+        // stopped concurrently
+        catch (RejectedExecutionException e) {
+            scheduledSweep = null;
+        }
+    }
+
+    /**
+     * Runs in {@link #scheduler}. Removes restored entries whose original TTL has elapsed.
+     */
+    private void sweep() {
+        scheduledSweep = null;
+        long now = System.nanoTime();
+
+        try {
+            restoredEntryBatches.removeIf(batch -> batch.removeExpired(now));
+        } catch (RuntimeException e) {
+            log.warn("Failed to remove expired restored entries: {}", e.getMessage(), e);
+        }
+
+        scheduleSweep();
+    }
+
+    /**
+     * Calculates the absolute expiration date of a cache entry, taking all Caffeine expiration policies into account.
+     *
+     * @param nowMillis current time
+     * @return epoch millis, {@link #NO_EXPIRATION} if the entry never expires, or empty if it's already gone
+     */
+    private static OptionalLong calculateExpirationMillis(Policy<Object, Object> policy, Object key,
+            long nowMillis) {
+        long remainingNanos = Long.MAX_VALUE;
+
+        Optional<Policy.VarExpiration<Object, Object>> varExpiration = policy.expireVariably();
+        if (varExpiration.isPresent()) {
+            OptionalLong expiresAfter = varExpiration.get().getExpiresAfter(key, TimeUnit.NANOSECONDS);
+            if (expiresAfter.isEmpty()) {
+                return OptionalLong.empty();
+            }
+
+            remainingNanos = expiresAfter.getAsLong();
+        }
+
+        for (Optional<Policy.FixedExpiration<Object, Object>> fixedExpiration
+                : List.of(policy.expireAfterWrite(), policy.expireAfterAccess())) {
+            if (fixedExpiration.isPresent()) {
+                OptionalLong age = fixedExpiration.get().ageOf(key, TimeUnit.NANOSECONDS);
+                if (age.isEmpty()) {
+                    return OptionalLong.empty();
+                }
+
+                remainingNanos = Math.min(remainingNanos,
+                        fixedExpiration.get().getExpiresAfter(TimeUnit.NANOSECONDS) - age.getAsLong());
+            }
+        }
+
+        if (remainingNanos == Long.MAX_VALUE) {
+            return OptionalLong.of(NO_EXPIRATION);
+        }
+
+        return (remainingNanos > 0)
+                ? OptionalLong.of(nowMillis + TimeUnit.NANOSECONDS.toMillis(remainingNanos))
+                : OptionalLong.empty();
+    }
+
+    private Optional<com.github.benmanes.caffeine.cache.Cache<Object, Object>> findCaffeineCache(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+
+        if (cache instanceof TransactionAwareCacheDecorator decorator) {
+            cache = decorator.getTargetCache();
+        }
+
+        if (cache instanceof CaffeineCache caffeineCache) {
+            return Optional.of(caffeineCache.getNativeCache());
+        }
+
+        if (cache instanceof TwoTierCache twoTierCache) {
+            return Optional.of(twoTierCache.getNativeCache());
+        }
+
+        log.warn("Cache '{}' is not Caffeine-based, skipping its snapshot", cacheName);
+        return Optional.empty();
+    }
+
+    private Path resolveFile(String cacheName) {
+        return directory.resolve(HashUtils.XXHASH3.computeHex(cacheName.getBytes(StandardCharsets.UTF_8))
+                + FILE_SUFFIX);
+    }
+
+    /**
+     * Writes to a temporary file first and then moves it atomically, therefore readers never see partially written
+     * snapshots.
+     */
+    private void writeFile(Path file, byte[] content) {
+        Path tempFile = null;
+
+        try {
+            Files.createDirectories(directory);
+            tempFile = Files.createTempFile(directory, null, TEMP_FILE_SUFFIX);
+            Files.write(tempFile, content);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException deleteException) {
+                    e.addSuppressed(deleteException);
+                }
+            }
+
+            throw new UncheckedIOException("Failed to write snapshot file '" + file + "': " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Restored entry of a cache having fixed expiration.
+     *
+     * @param key           entry key
+     * @param value         entry value, to not remove the entry if it's been replaced
+     * @param deadlineNanos {@link System#nanoTime()} when the original TTL elapses
+     */
+    private record RestoredEntry(WeakReference<Object> key, WeakReference<Object> value, long deadlineNanos) {
+    }
+
+    /**
+     * Restored entries of one cache, sorted by deadline.
+     */
+    private static class RestoredEntryBatch {
+
+        private final com.github.benmanes.caffeine.cache.Cache<Object, Object> cache;
+        private final List<RestoredEntry> entries;
+        private int next;
+
+        RestoredEntryBatch(com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                List<RestoredEntry> entries) {
+            this.cache = cache;
+            this.entries = entries;
+        }
+
+        long nextDeadlineNanos() {
+            return entries.get(next).deadlineNanos();
+        }
+
+        /**
+         * Removes entries whose deadline has passed.
+         *
+         * @param nowNanos current {@link System#nanoTime()}
+         * @return {@code true} if there are no entries left to remove
+         */
+        boolean removeExpired(long nowNanos) {
+            while ((next < entries.size()) && (entries.get(next).deadlineNanos() - nowNanos <= 0)) {
+                RestoredEntry entry = entries.get(next);
+                // let the entry be garbage-collected even if the batch isn't over yet
+                entries.set(next++, null);
+
+                Object key = entry.key().get();
+                Object value = entry.value().get();
+
+                // the cache references both, so either is gone only if the entry has been evicted or replaced
+                if ((key != null) && (value != null)) {
+                    cache.asMap().remove(key, value);
+                }
+            }
+
+            return next == entries.size();
+        }
+
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if ((length < 0) || (length > in.available())) {
+            throw new IOException("Invalid length " + length);
+        }
+
+        return in.readNBytes(length);
+    }
+
+}
@@ -0,0 +1,72 @@
+package guru.nicks.commons.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.search.Search;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Exposes caches registered in {@link CacheStatisticsRegistry} (the ones registered after binding too) as Micrometer
+ * meters ({@code cache.gets}, {@code cache.evictions}, etc.) tagged with {@code cache=<name>}. Requires Micrometer,
+ * which is an optional dependency of this library. With Spring Boot Actuator, declaring this class as a bean is enough.
+ * <p>
+ * Meters of garbage-collected caches are removed, so a cache name taken over by a new cache reports the new cache.
+ * The registry references this binder's listeners weakly, so bound meter registries can be garbage-collected together
+ * with this binder.
+ */
+public class CacheStatisticsMeterBinder implements MeterBinder {
+
+    /**
+     * Micrometer's cache meters are all named {@code cache.*}.
+     */
+    private static final String METER_NAME_PREFIX = "cache.";
+
+    /**
+     * Tag added by Spring Boot Actuator to meters of cache manager caches.
+     */
+    private static final String CACHE_MANAGER_TAG = "cache.manager";
+
+    /**
+     * Strong references - {@link CacheStatisticsRegistry} references listeners weakly.
+     */
+    private final List<CacheStatisticsRegistry.Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        var listener = new MeterRegistryListener(registry);
+        listeners.add(listener);
+        CacheStatisticsRegistry.addListener(listener);
+    }
+
+    @RequiredArgsConstructor
+    private static class MeterRegistryListener implements CacheStatisticsRegistry.Listener {
+
+        private final MeterRegistry registry;
+
+        @Override
+        public void cacheRegistered(String cacheName, Cache<?, ?> cache) {
+            // drop meters left by a previous owner of the name, otherwise Micrometer would keep returning them
+            cacheUnregistered(cacheName);
+            CaffeineCacheMetrics.monitor(registry, cache, cacheName);
+        }
+
+        @Override
+        public void cacheUnregistered(String cacheName) {
+            Search.in(registry)
+                    .name(meterName -> meterName.startsWith(METER_NAME_PREFIX))
+                    .tag("cache", cacheName)
+                    .meters()
+                    .stream()
+                    // Spring Boot Actuator's meters of cache manager caches, which may have the same name
+                    .filter(meter -> meter.getId().getTag(CACHE_MANAGER_TAG) == null)
+                    .forEach(registry::remove);
+        }
+
+    }
+
+}
@@ -0,0 +1,298 @@
+package guru.nicks.commons.cache;
+
+import guru.nicks.commons.cache.domain.CacheStatisticsSnapshot;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.experimental.UtilityClass;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotBlank;
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * Central registry of Caffeine caches created by this library (and, optionally, by applications), so their hit rates
+ * and eviction churn can be observed: as {@link #snapshot() snapshots} or as Micrometer meters (see
+ * {@link CacheStatisticsMeterBinder}).
+ * <p>
+ * Statistics recording is opt-in because it's not free (every lookup updates counters): set the
+ * {@value #RECORD_STATS_PROPERTY} system property to {@code true} (static caches are created when their classes are
+ * loaded, so a system property is the only reliable way), or call {@link #setRecordingEnabled(boolean)} before caches
+ * are created. Caches are registered regardless, so {@link #snapshot()} shows their sizes anyway.
+ * <p>
+ * Caches are referenced weakly, so registering short-lived caches doesn't leak memory.
+ */
+@UtilityClass
+public class CacheStatisticsRegistry {
+
+    /**
+     * System property enabling statistics recording.
+     */
+    public static final String RECORD_STATS_PROPERTY = "guru.nicks.commons.cache.recordStats";
+
+    private static final ConcurrentMap<String, WeakReference<Cache<?, ?>>> CACHES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, WeakReference<CacheManager>> CACHE_MANAGERS = new ConcurrentHashMap<>();
+    /**
+     * Listeners are referenced weakly: they capture Micrometer registries which must not outlive their application
+     * contexts.
+     */
+    private static final List<WeakReference<Listener>> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private static volatile boolean recordingEnabled = Boolean.getBoolean(RECORD_STATS_PROPERTY);
+
+    /**
+     * Tells if statistics recording is enabled.
+     *
+     * @return {@code true} if caches created from now on will record statistics
+     */
+    public static boolean isRecordingEnabled() {
+        return recordingEnabled;
+    }
+
+    /**
+     * Enables or disables statistics recording for caches created from now on.
+     *
+     * @param enabled whether to record statistics
+     */
+    public static void setRecordingEnabled(boolean enabled) {
+        recordingEnabled = enabled;
+    }
+
+    /**
+     * Calls {@link Caffeine#recordStats()} if {@link #isRecordingEnabled()} is {@code true}.
+     *
+     * @param builder cache builder
+     * @param <K>     key type
+     * @param <V>     value type
+     * @return the same builder
+     */
+    public static <K, V> Caffeine<K, V> recordStatsIfEnabled(Caffeine<K, V> builder) {
+        return recordingEnabled
+                ? builder.recordStats()
+                : builder;
+    }
+
+    /**
+     * Builds a cache (recording statistics if {@link #isRecordingEnabled()} is {@code true}) and
+     * {@link #register(String, Cache) registers} it.
+     *
+     * @param cacheName cache name, for example {@code ReflectionUtils.classHierarchy}
+     * @param builder   cache builder
+     * @param <K>       builder key type
+     * @param <V>       builder value type
+     * @param <K1>      cache key type
+     * @param <V1>      cache value type
+     * @return cache
+     */
+    public static <K, V, K1 extends K, V1 extends V> Cache<K1, V1> build(String cacheName, Caffeine<K, V> builder) {
+        Cache<K1, V1> cache = recordStatsIfEnabled(builder).build();
+        register(cacheName, cache);
+        return cache;
+    }
+
+    /**
+     * Registers a cache. If the name is taken by another live cache (for example, by another instance of the same
+     * class), a numeric suffix is appended: {@code name#2}, {@code name#3}, etc.
+     *
+     * @param cacheName cache name
+     * @param cache     cache
+     * @return actual name under which the cache has been registered
+     */
+    public static String register(String cacheName, Cache<?, ?> cache) {
+        checkNotBlank(cacheName, "cacheName");
+        checkNotNull(cache, "cache");
+
+        // caches die with their owners, and nothing else is guaranteed to prune them (and their meters) in time
+        pruneCollectedCaches();
+
+        var reference = new WeakReference<Cache<?, ?>>(cache);
+        String actualName = cacheName;
+
+        for (int i = 2; ; i++) {
+            WeakReference<Cache<?, ?>> existing = CACHES.putIfAbsent(actualName, reference);
+            if (existing == null) {
+                break;
+            }
+
+            // the previous owner of the name has been garbage-collected
+            if ((existing.get() == null) && CACHES.replace(actualName, existing, reference)) {
+                String previousName = actualName;
+                forEachListener(listener -> listener.cacheUnregistered(previousName));
+                break;
+            }
+
+            actualName = cacheName + "#" + i;
+        }
+
+        String registeredName = actualName;
+        forEachListener(listener -> listener.cacheRegistered(registeredName, cache));
+        return registeredName;
+    }
+
+    /**
+     * Registers a Spring cache manager: its Caffeine-based caches (including L1 of {@link TwoTierCache} and the index
+     * of {@link OffHeapCache}) appear in {@link #snapshot()} as {@code cacheManagerName:cacheName}. They're not passed
+     * to {@link CacheStatisticsMeterBinder} because Spring Boot Actuator binds cache manager caches itself.
+     *
+     * @param cacheManagerName cache manager name, for example its bean name
+     * @param cacheManager     cache manager
+     */
+    public static void registerCacheManager(String cacheManagerName, CacheManager cacheManager) {
+        checkNotBlank(cacheManagerName, "cacheManagerName");
+        checkNotNull(cacheManager, "cacheManager");
+
+        CACHE_MANAGERS.put(cacheManagerName, new WeakReference<>(cacheManager));
+    }
+
+    /**
+     * Returns statistics of all registered caches, pruning the garbage-collected ones.
+     *
+     * @return statistics sorted by cache name
+     */
+    public static SortedMap<String, CacheStatisticsSnapshot> snapshot() {
+        SortedMap<String, CacheStatisticsSnapshot> snapshots = new TreeMap<>();
+
+        forEachCache((name, cache) -> snapshots.put(name, createSnapshot(name, cache)));
+
+        for (Map.Entry<String, WeakReference<CacheManager>> entry : CACHE_MANAGERS.entrySet()) {
+            CacheManager cacheManager = entry.getValue().get();
+
+            if (cacheManager == null) {
+                CACHE_MANAGERS.remove(entry.getKey(), entry.getValue());
+                continue;
+            }
+
+            for (String cacheName : cacheManager.getCacheNames()) {
+                String name = entry.getKey() + ":" + cacheName;
+
+                findNativeCache(cacheManager.getCache(cacheName))
+                        .ifPresent(cache -> snapshots.put(name, createSnapshot(name, cache)));
+            }
+        }
+
+        return snapshots;
+    }
+
+    /**
+     * Calls the listener for each cache registered so far and for each cache registered in the future, and tells it
+     * when a cache has been garbage-collected. The listener is referenced weakly, so the caller must keep it reachable
+     * for as long as it's needed.
+     *
+     * @param listener listener
+     */
+    static void addListener(Listener listener) {
+        LISTENERS.add(new WeakReference<>(listener));
+        forEachCache(listener::cacheRegistered);
+    }
+
+    private static void forEachCache(BiConsumer<String, Cache<?, ?>> consumer) {
+        for (Map.Entry<String, WeakReference<Cache<?, ?>>> entry : CACHES.entrySet()) {
+            Cache<?, ?> cache = entry.getValue().get();
+
+            if (cache == null) {
+                unregister(entry.getKey(), entry.getValue());
+            } else {
+                consumer.accept(entry.getKey(), cache);
+            }
+        }
+    }
+
+    private static void pruneCollectedCaches() {
+        for (Map.Entry<String, WeakReference<Cache<?, ?>>> entry : CACHES.entrySet()) {
+            if (entry.getValue().get() == null) {
+                unregister(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static void unregister(String cacheName, WeakReference<Cache<?, ?>> reference) {
+        if (CACHES.remove(cacheName, reference)) {
+            forEachListener(listener -> listener.cacheUnregistered(cacheName));
+        }
+    }
+
+    private static void forEachListener(Consumer<Listener> consumer) {
+        for (WeakReference<Listener> reference : LISTENERS) {
+            Listener listener = reference.get();
+
+            if (listener == null) {
+                LISTENERS.remove(reference);
+            } else {
+                consumer.accept(listener);
+            }
+        }
+    }
+
+    /**
+     * Finds the Caffeine cache behind a Spring cache.
+     *
+     * @param cache Spring cache, possibly wrapped by a transaction-aware decorator
+     * @return Caffeine cache, if any
+     */
+    static Optional<Cache<?, ?>> findNativeCache(org.springframework.cache.Cache cache) {
+        if (cache instanceof TransactionAwareCacheDecorator decorator) {
+            cache = decorator.getTargetCache();
+        }
+
+        return switch (cache) {
+            case CaffeineCache caffeineCache -> Optional.of(caffeineCache.getNativeCache());
+            case TwoTierCache twoTierCache -> Optional.of(twoTierCache.getNativeCache());
+            case OffHeapCache offHeapCache -> Optional.of(offHeapCache.getNativeCache());
+            case null, default -> Optional.empty();
+        };
+    }
+
+    private static CacheStatisticsSnapshot createSnapshot(String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+
+        return new CacheStatisticsSnapshot(name,
+                cache.policy().isRecordingStats(),
+                cache.estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.loadSuccessCount(),
+                stats.loadFailureCount(),
+                Duration.ofNanos(stats.totalLoadTime()),
+                stats.evictionCount(),
+                stats.evictionWeight());
+    }
+
+    /**
+     * Observes cache registration, see {@link #addListener(Listener)}.
+     */
+    interface Listener {
+
+        /**
+         * Called when a cache has been registered.
+         *
+         * @param cacheName name under which the cache has been registered
+         * @param cache     cache
+         */
+        void cacheRegistered(String cacheName, Cache<?, ?> cache);
+
+        /**
+         * Called when a cache has been garbage-collected, so its name may be taken by another cache.
+         *
+         * @param cacheName name under which the cache was registered
+         */
+        void cacheUnregistered(String cacheName);
+
+    }
+
+}
@@ -0,0 +1,409 @@
+package guru.nicks.commons.cache;
+
+import guru.nicks.commons.cache.domain.CompactCacheKey;
+
+import jakarta.annotation.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.interceptor.KeyGenerator;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Creates {@link CompactCacheKey}s without building strings (unlike {@link ToStringJoiningCacheKeyGenerator} and
+ * {@link ChecksumCacheKeyGenerator}). To be used as {@link Cacheable#keyGenerator()}.
+ * <ul>
+ *  <li>immutable scalar arguments (strings, boxed primitives, enums, UUIDs, {@code java.time} values, etc.) are
+ *      stored in the key as-is</li>
+ *  <li>complex arguments (collections, maps, arrays, optionals, records, and any nesting of the above) are replaced
+ *      with a SHA-256 {@link CompactCacheKey.Digest digest} of their canonical binary encoding, so keys don't retain
+ *      (possibly mutable) argument objects; sets and maps are encoded regardless of their iteration order</li>
+ *  <li>other arguments, or complex arguments containing them, are stored in the key as-is and therefore must
+ *      implement {@link Object#equals(Object)} and {@link Object#hashCode()} properly (just like for
+ *      {@code SimpleKeyGenerator})</li>
+ * </ul>
+ * WARNING: the key of a method having one argument doesn't equal that argument, and keys don't include method names,
+ * which means methods sharing a cache must have different argument lists (as with the other key generators).
+ */
+public class CompactCacheKeyGenerator implements KeyGenerator {
+
+    /**
+     * Any total order works - it only has to be the same for all encoders.
+     */
+    private static final Comparator<CompactCacheKey.Digest> DIGEST_ORDER = Comparator
+            .comparingLong(CompactCacheKey.Digest::sha256Part1)
+            .thenComparingLong(CompactCacheKey.Digest::sha256Part2)
+            .thenComparingLong(CompactCacheKey.Digest::sha256Part3)
+            .thenComparingLong(CompactCacheKey.Digest::sha256Part4);
+
+    /**
+     * Protects against cyclic object graphs.
+     */
+    private static final int MAX_NESTING_DEPTH = 32;
+
+    private static final Set<Class<?>> IMMUTABLE_SCALARS = Set.of(
+            String.class, Boolean.class, Character.class,
+            Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class,
+            BigInteger.class, BigDecimal.class, UUID.class, Class.class);
+
+    private static final ClassValue<Method[]> RECORD_ACCESSORS = new ClassValue<>() {
+        @Override
+        protected Method[] computeValue(Class<?> type) {
+            RecordComponent[] components = type.getRecordComponents();
+            var accessors = new Method[components.length];
+
+            for (int i = 0; i < components.length; i++) {
+                accessors[i] = components[i].getAccessor();
+                // record classes may be non-public; if this fails, invocation fails too, and the record is kept as-is
+                accessors[i].trySetAccessible();
+            }
+
+            return accessors;
+        }
+    };
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        if (params.length == 0) {
+            return CompactCacheKey.EMPTY;
+        }
+
+        var parts = new Object[params.length];
+
+        for (int i = 0; i < params.length; i++) {
+            parts[i] = toKeyPart(params[i]);
+        }
+
+        return new CompactCacheKey(parts);
+    }
+
+    /**
+     * Converts an argument to a key part.
+     *
+     * @param param method argument
+     * @return the argument itself or its digest
+     */
+    @Nullable
+    private static Object toKeyPart(@Nullable Object param) {
+        if ((param == null) || isImmutableScalar(param)) {
+            return param;
+        }
+
+        var encoder = new CanonicalEncoder();
+        return encoder.write(param, 0)
+                ? encoder.digest()
+                : param;
+    }
+
+    private static boolean isImmutableScalar(Object value) {
+        return IMMUTABLE_SCALARS.contains(value.getClass())
+                || (value instanceof Enum<?>)
+                || "java.time".equals(value.getClass().getPackageName());
+    }
+
+    /**
+     * Writes values to a growable byte array, each prefixed with a type tag, so values of different types never have
+     * the same encoding.
+     */
+    private static final class CanonicalEncoder {
+
+        private static final byte NULL = 0;
+        private static final byte STRING = 1;
+        private static final byte BOOLEAN = 2;
+        private static final byte CHARACTER = 3;
+        private static final byte BYTE = 4;
+        private static final byte SHORT = 5;
+        private static final byte INTEGER = 6;
+        private static final byte LONG = 7;
+        private static final byte FLOAT = 8;
+        private static final byte DOUBLE = 9;
+        private static final byte BIG_INTEGER = 10;
+        private static final byte BIG_DECIMAL = 11;
+        private static final byte UUID_TYPE = 12;
+        private static final byte ENUM = 13;
+        private static final byte JAVA_TIME = 14;
+        private static final byte BYTE_ARRAY = 15;
+        private static final byte INT_ARRAY = 16;
+        private static final byte LONG_ARRAY = 17;
+        private static final byte OBJECT_ARRAY = 18;
+        private static final byte LIST = 19;
+        private static final byte SET = 20;
+        private static final byte MAP = 21;
+        private static final byte OPTIONAL = 22;
+        private static final byte RECORD = 23;
+
+        private byte[] buffer = new byte[64];
+        private int length;
+
+        /**
+         * Writes the value.
+         *
+         * @param value value to write
+         * @param depth current nesting depth
+         * @return {@code false} if the value (or something inside it) can't be encoded
+         */
+        boolean write(@Nullable Object value, int depth) {
+            if (depth > MAX_NESTING_DEPTH) {
+                return false;
+            }
+
+            switch (value) {
+                case null -> writeByte(NULL);
+                case CharSequence string -> {
+                    writeByte(STRING);
+                    writeString(string);
+                }
+                case Boolean bool -> {
+                    writeByte(BOOLEAN);
+                    writeByte(bool ? (byte) 1 : 0);
+                }
+                case Character character -> {
+                    writeByte(CHARACTER);
+                    writeInt(character);
+                }
+                case Byte number -> {
+                    writeByte(BYTE);
+                    writeByte(number);
+                }
+                case Short number -> {
+                    writeByte(SHORT);
+                    writeInt(number);
+                }
+                case Integer number -> {
+                    writeByte(INTEGER);
+                    writeInt(number);
+                }
+                case Long number -> {
+                    writeByte(LONG);
+                    writeLong(number);
+                }
+                case Float number -> {
+                    writeByte(FLOAT);
+                    writeInt(Float.floatToIntBits(number));
+                }
+                case Double number -> {
+                    writeByte(DOUBLE);
+                    writeLong(Double.doubleToLongBits(number));
+                }
+                case BigInteger number -> {
+                    writeByte(BIG_INTEGER);
+                    writeBytes(number.toByteArray());
+                }
+                // as in BigDecimal.equals(), scale matters
+                case BigDecimal number -> {
+                    writeByte(BIG_DECIMAL);
+                    writeInt(number.scale());
+                    writeBytes(number.unscaledValue().toByteArray());
+                }
+                case UUID uuid -> {
+                    writeByte(UUID_TYPE);
+                    writeLong(uuid.getMostSignificantBits());
+                    writeLong(uuid.getLeastSignificantBits());
+                }
+                case Enum<?> enumValue -> {
+                    writeByte(ENUM);
+                    writeString(enumValue.getDeclaringClass().getName());
+                    writeString(enumValue.name());
+                }
+                case byte[] array -> {
+                    writeByte(BYTE_ARRAY);
+                    writeBytes(array);
+                }
+                case int[] array -> {
+                    writeByte(INT_ARRAY);
+                    writeInt(array.length);
+
+                    for (int element : array) {
+                        writeInt(element);
+                    }
+                }
+                case long[] array -> {
+                    writeByte(LONG_ARRAY);
+                    writeInt(array.length);
+
+                    for (long element : array) {
+                        writeLong(element);
+                    }
+                }
+                case Object[] array -> {
+                    writeByte(OBJECT_ARRAY);
+                    return writeOrdered(Arrays.asList(array), depth);
+                }
+                case List<?> list -> {
+                    writeByte(LIST);
+                    return writeOrdered(list, depth);
+                }
+                case Set<?> set -> {
+                    writeByte(SET);
+                    return writeUnordered(set, depth);
+                }
+                case Map<?, ?> map -> {
+                    writeByte(MAP);
+                    return writeUnordered(map.entrySet(), depth);
+                }
+                case Optional<?> optional -> {
+                    writeByte(OPTIONAL);
+                    return write(optional.orElse(null), depth + 1);
+                }
+                case Record recordValue -> {
+                    writeByte(RECORD);
+                    return writeRecord(recordValue, depth);
+                }
+                default -> {
+                    // immutable, and their string representation is canonical
+                    if (!"java.time".equals(value.getClass().getPackageName())) {
+                        return false;
+                    }
+
+                    writeByte(JAVA_TIME);
+                    writeString(value.getClass().getName());
+                    writeString(value.toString());
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Computes the digest of everything written so far.
+         *
+         * @return SHA-256 digest
+         */
+        CompactCacheKey.Digest digest() {
+            MessageDigest sha256 = DigestUtils.getSha256Digest();
+            sha256.update(buffer, 0, length);
+
+            // most significant bits first, as documented in Digest
+            var hash = ByteBuffer.wrap(sha256.digest());
+            return new CompactCacheKey.Digest(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+        }
+
+        private boolean writeOrdered(Collection<?> elements, int depth) {
+            writeInt(elements.size());
+
+            for (Object element : elements) {
+                if (!write(element, depth + 1)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Encodes each element separately and writes their digests sorted, so the encoding doesn't depend on the
+         * iteration order. Unlike combining the digests with a commutative operation (such as addition), this keeps
+         * the encoding as collision-resistant as the digest itself.
+         */
+        private boolean writeUnordered(Collection<?> elements, int depth) {
+            var digests = new ArrayList<CompactCacheKey.Digest>(elements.size());
+
+            for (Object element : elements) {
+                var elementEncoder = new CanonicalEncoder();
+                boolean written = (element instanceof Map.Entry<?, ?> entry)
+                        ? elementEncoder.write(entry.getKey(), depth + 1)
+                        && elementEncoder.write(entry.getValue(), depth + 1)
+                        : elementEncoder.write(element, depth + 1);
+
+                if (!written) {
+                    return false;
+                }
+
+                digests.add(elementEncoder.digest());
+            }
+
+            digests.sort(DIGEST_ORDER);
+            writeInt(digests.size());
+
+            for (CompactCacheKey.Digest digest : digests) {
+                writeLong(digest.sha256Part1());
+                writeLong(digest.sha256Part2());
+                writeLong(digest.sha256Part3());
+                writeLong(digest.sha256Part4());
+            }
+
+            return true;
+        }
+
+        private boolean writeRecord(Record recordValue, int depth) {
+            writeString(recordValue.getClass().getName());
+
+            for (Method accessor : RECORD_ACCESSORS.get(recordValue.getClass())) {
+                Object component;
+
+                try {
+                    component = accessor.invoke(recordValue);
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    return false;
+                }
+
+                if (!write(component, depth + 1)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private void writeString(CharSequence string) {
+            writeInt(string.length());
+            ensureCapacity(string.length() * Character.BYTES);
+
+            for (int i = 0; i < string.length(); i++) {
+                char character = string.charAt(i);
+                buffer[length++] = (byte) (character >>> 8);
+                buffer[length++] = (byte) character;
+            }
+        }
+
+        private void writeBytes(byte[] bytes) {
+            writeInt(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+        }
+
+        private void writeByte(byte value) {
+            ensureCapacity(1);
+            buffer[length++] = value;
+        }
+
+        private void writeInt(int value) {
+            ensureCapacity(Integer.BYTES);
+
+            for (int shift = Integer.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+                buffer[length++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeLong(long value) {
+            ensureCapacity(Long.BYTES);
+
+            for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+                buffer[length++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void ensureCapacity(int extraBytes) {
+            if (length + extraBytes > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(length + extraBytes, buffer.length * 2));
+            }
+        }
+
+    }
+
+}
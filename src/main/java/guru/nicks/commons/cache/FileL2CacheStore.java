@@ -0,0 +1,392 @@
+package guru.nicks.commons.cache;
+
+import guru.nicks.commons.utils.crypto.HashUtils;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import jakarta.annotation.Nullable;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * Default {@link L2CacheStore}: one file per entry in a local directory, so cached values survive restarts. File names
+ * are XxHash3 checksums of keys; the key itself is stored inside the file and compared on read, so hash collisions are
+ * harmless (colliding entries just overwrite each other).
+ * <p>
+ * File layout: expiration date (epoch millis, 8 bytes), key length (4 bytes), key (UTF-8), value. Files are written to
+ * a temporary file first and then moved atomically, therefore readers never see partially written entries.
+ * <p>
+ * Expired files are deleted when read and by {@link #sweep()}, which also keeps the total size of files within
+ * {@link #getMaxTotalBytes()} by deleting the least recently written files. Sweeps are started in the background by
+ * {@link #put(String, byte[], Duration)} every {@link #getSweepInterval()}, or as soon as the size limit is exceeded
+ * (judging by the sizes written since the previous sweep).
+ */
+@Slf4j
+public class FileL2CacheStore implements L2CacheStore {
+
+    public static final long DEFAULT_MAX_TOTAL_BYTES = 256L * 1024 * 1024;
+    public static final Duration DEFAULT_SWEEP_INTERVAL = Duration.ofMinutes(5);
+
+    private static final String FILE_SUFFIX = ".bin";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    /**
+     * Temporary files older than this are leftovers of crashed writes.
+     */
+    private static final Duration TEMP_FILE_MAX_AGE = Duration.ofHours(1);
+
+    /**
+     * Expiration date + key length.
+     */
+    private static final int HEADER_LENGTH = Long.BYTES + Integer.BYTES;
+
+    private final Path directory;
+
+    @Getter
+    private final long maxTotalBytes;
+
+    @Getter
+    private final Duration sweepInterval;
+
+    /**
+     * Total size of files found by the previous sweep plus the sizes written since then.
+     */
+    private final AtomicLong estimatedTotalBytes = new AtomicLong();
+
+    /**
+     * {@link System#nanoTime()} of the next background sweep. The first {@link #put(String, byte[], Duration)} starts
+     * a sweep right away, which takes the files left by the previous run into account.
+     */
+    private final AtomicLong nextSweepNanos = new AtomicLong(System.nanoTime());
+
+    private final AtomicBoolean backgroundSweepStarted = new AtomicBoolean();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+
+    /**
+     * Creates an instance with {@link #DEFAULT_MAX_TOTAL_BYTES} and {@link #DEFAULT_SWEEP_INTERVAL}.
+     *
+     * @param directory directory to store files in (should not be shared with anything else)
+     * @throws UncheckedIOException failed to create the directory
+     */
+    public FileL2CacheStore(Path directory) {
+        this(directory, DEFAULT_MAX_TOTAL_BYTES, DEFAULT_SWEEP_INTERVAL);
+    }
+
+    /**
+     * Constructor. Creates the directory if it doesn't exist.
+     *
+     * @param directory     directory to store files in (should not be shared with anything else)
+     * @param maxTotalBytes max. total size of files (may be exceeded until the next sweep)
+     * @param sweepInterval how often to delete expired files
+     * @throws UncheckedIOException failed to create the directory
+     */
+    @ConstraintArguments
+    public FileL2CacheStore(Path directory, long maxTotalBytes, Duration sweepInterval) {
+        this.directory = checkNotNull(directory, _FileL2CacheStoreArgumentsMeta.DIRECTORY.name());
+        this.maxTotalBytes = check(maxTotalBytes, _FileL2CacheStoreArgumentsMeta.MAXTOTALBYTES.name())
+                .positive()
+                .getValue();
+        this.sweepInterval = check(sweepInterval, _FileL2CacheStoreArgumentsMeta.SWEEPINTERVAL.name())
+                .constraint(Duration::isPositive, "must be positive")
+                .getValue();
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create L2 cache directory '" + directory + "': "
+                    + e.getMessage(), e);
+        }
+    }
+
+    @Nullable
+    @Override
+    public byte[] get(String key) {
+        Path file = resolveFile(key);
+        ByteBuffer buffer;
+
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read L2 cache file '" + file + "': " + e.getMessage(), e);
+        }
+
+        String storedKey = readKey(buffer);
+        if (!key.equals(storedKey)) {
+            return null;
+        }
+
+        // position is now right after the key
+        if (readExpirationMillis(buffer) <= System.currentTimeMillis()) {
+            deleteQuietly(file);
+            return null;
+        }
+
+        byte[] value = new byte[buffer.remaining()];
+        buffer.get(value);
+        return value;
+    }
+
+    @ConstraintArguments
+    @Override
+    public void put(String key, byte[] value, Duration ttl) {
+        checkNotNull(value, _FileL2CacheStorePutArgumentsMeta.VALUE.name());
+        check(ttl, _FileL2CacheStorePutArgumentsMeta.TTL.name()).constraint(Duration::isPositive, "must be positive");
+
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long expirationMillis;
+
+        try {
+            expirationMillis = Math.addExact(System.currentTimeMillis(), ttl.toMillis());
+        } catch (ArithmeticException e) {
+            expirationMillis = Long.MAX_VALUE;
+        }
+
+        byte[] content = ByteBuffer.allocate(HEADER_LENGTH + keyBytes.length + value.length)
+                .putLong(expirationMillis)
+                .putInt(keyBytes.length)
+                .put(keyBytes)
+                .put(value)
+                .array();
+
+        Path file = resolveFile(key);
+        Path tempFile = null;
+
+        try {
+            tempFile = Files.createTempFile(directory, null, TEMP_FILE_SUFFIX);
+            Files.write(tempFile, content);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if (tempFile != null) {
+                deleteQuietly(tempFile);
+            }
+
+            throw new UncheckedIOException("Failed to write L2 cache file '" + file + "': " + e.getMessage(), e);
+        }
+
+        long totalBytes = estimatedTotalBytes.addAndGet(content.length);
+
+        if ((totalBytes > maxTotalBytes) || (System.nanoTime() - nextSweepNanos.get() >= 0)) {
+            startBackgroundSweep();
+        }
+    }
+
+    @Override
+    public void evict(String key) {
+        Path file = resolveFile(key);
+
+        // don't delete a colliding entry belonging to another key
+        if (get(key) != null) {
+            deleteQuietly(file);
+        }
+    }
+
+    @Override
+    public void evictByPrefix(String keyPrefix) {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(FILE_SUFFIX))
+                    .filter(file -> keyStartsWith(file, keyPrefix))
+                    .forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list L2 cache directory '" + directory + "': "
+                    + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Deletes expired files (and leftovers of crashed writes), then, if the total size of the remaining files exceeds
+     * {@link #getMaxTotalBytes()}, deletes the least recently written files until the total size drops to 90% of the
+     * limit (so the next writes don't trigger another sweep right away).
+     *
+     * @throws UncheckedIOException failed to list the directory
+     */
+    public void sweep() {
+        sweepLock.lock();
+
+        try {
+            nextSweepNanos.set(System.nanoTime() + sweepInterval.toNanos());
+            long nowMillis = System.currentTimeMillis();
+            List<FileInfo> liveFiles = new ArrayList<>();
+            long totalBytes = 0;
+
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Iterator<Path> it = files.iterator(); it.hasNext(); ) {
+                    FileInfo fileInfo = sweepFile(it.next(), nowMillis);
+
+                    if (fileInfo != null) {
+                        liveFiles.add(fileInfo);
+                        totalBytes += fileInfo.size();
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to list L2 cache directory '" + directory + "': "
+                        + e.getMessage(), e);
+            }
+
+            if (totalBytes > maxTotalBytes) {
+                long targetBytes = maxTotalBytes - (maxTotalBytes / 10);
+                liveFiles.sort(Comparator.comparingLong(FileInfo::lastModifiedMillis));
+
+                for (int i = 0; (i < liveFiles.size()) && (totalBytes > targetBytes); i++) {
+                    deleteQuietly(liveFiles.get(i).file());
+                    totalBytes -= liveFiles.get(i).size();
+                }
+            }
+
+            estimatedTotalBytes.set(totalBytes);
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private void startBackgroundSweep() {
+        if (!backgroundSweepStarted.compareAndSet(false, true)) {
+            return;
+        }
+
+        Thread.ofVirtual().name("l2-cache-sweeper").start(() -> {
+            try {
+                sweep();
+            } catch (RuntimeException e) {
+                log.warn("Failed to sweep L2 cache directory '{}': {}", directory, e.getMessage(), e);
+            } finally {
+                backgroundSweepStarted.set(false);
+            }
+        });
+    }
+
+    /**
+     * Deletes the file if it has expired.
+     *
+     * @param file      file to check
+     * @param nowMillis current time
+     * @return file information, or {@code null} if the file is not a live entry
+     */
+    @Nullable
+    private FileInfo sweepFile(Path file, long nowMillis) {
+        String fileName = file.getFileName().toString();
+
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            long lastModifiedMillis = attributes.lastModifiedTime().toMillis();
+
+            if (fileName.endsWith(TEMP_FILE_SUFFIX)) {
+                if (lastModifiedMillis < nowMillis - TEMP_FILE_MAX_AGE.toMillis()) {
+                    deleteQuietly(file);
+                }
+
+                return null;
+            }
+
+            if (!fileName.endsWith(FILE_SUFFIX)) {
+                return null;
+            }
+
+            if (readExpirationMillis(file) <= nowMillis) {
+                deleteQuietly(file);
+                return null;
+            }
+
+            return new FileInfo(file, attributes.size(), lastModifiedMillis);
+        } catch (IOException e) {
+            // deleted concurrently or unreadable - nothing to sweep
+            return null;
+        }
+    }
+
+    private Path resolveFile(String key) {
+        return directory.resolve(HashUtils.XXHASH3.computeHex(key.getBytes(StandardCharsets.UTF_8)) + FILE_SUFFIX);
+    }
+
+    private boolean keyStartsWith(Path file, String keyPrefix) {
+        try {
+            String storedKey = readKey(ByteBuffer.wrap(Files.readAllBytes(file)));
+            return (storedKey == null) || storedKey.startsWith(keyPrefix);
+        } catch (IOException e) {
+            // deleted concurrently or unreadable - nothing to evict
+            return false;
+        }
+    }
+
+    /**
+     * Reads the key and leaves the buffer positioned right after it.
+     *
+     * @param buffer file content
+     * @return key, or {@code null} if the file is corrupted
+     */
+    @Nullable
+    private static String readKey(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_LENGTH) {
+            return null;
+        }
+
+        int keyLength = buffer.getInt(Long.BYTES);
+        if ((keyLength < 0) || (keyLength > buffer.remaining() - HEADER_LENGTH)) {
+            return null;
+        }
+
+        buffer.position(HEADER_LENGTH + keyLength);
+        return new String(buffer.array(), HEADER_LENGTH, keyLength, StandardCharsets.UTF_8);
+    }
+
+    private static long readExpirationMillis(ByteBuffer buffer) {
+        return buffer.getLong(0);
+    }
+
+    /**
+     * Reads the expiration date only, not the whole file.
+     *
+     * @param file file
+     * @return expiration date (0 if the file is corrupted)
+     * @throws IOException failed to read the file
+     */
+    private static long readExpirationMillis(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    return 0;
+                }
+            }
+
+            return readExpirationMillis(buffer);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete L2 cache file '{}': {}", file, e.getMessage());
+        }
+    }
+
+    private record FileInfo(Path file, long size, long lastModifiedMillis) {
+    }
+
+}
@@ -0,0 +1,147 @@
+package guru.nicks.commons.cache;
+
+import am.ik.yavi.meta.ConstraintArguments;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+
+/**
+ * Approximate popularity of keys within a time window: a Count-Min sketch of 4-bit counters (max. frequency is
+ * {@link #MAX_FREQUENCY}) - the same structure Caffeine uses for its TinyLFU admission policy, but thread-safe and
+ * public. Takes 8 bytes per expected key regardless of the key size. When the number of increments reaches 10 times
+ * the table size, all counters are halved, so the sketch forgets old popularity.
+ * <p>
+ * Counters are updated with CAS, without locks; concurrent halving may lose a few increments, which is fine for an
+ * estimate.
+ */
+public class FrequencySketch {
+
+    public static final int MAX_FREQUENCY = 15;
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    /**
+     * Clears the highest bit of each 4-bit counter after shifting the whole word right by 1 bit.
+     */
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private static final long COUNTER_MASK = 0xFL;
+
+    private static final int MAX_TABLE_SIZE = 1 << 24;
+
+    private final AtomicLongArray table;
+    private final int tableMask;
+    private final int sampleSize;
+    private final AtomicInteger incrementCount = new AtomicInteger();
+
+    /**
+     * Constructor.
+     *
+     * @param expectedKeys expected number of distinct keys (for example, cache capacity)
+     */
+    @ConstraintArguments
+    public FrequencySketch(long expectedKeys) {
+        check(expectedKeys, _FrequencySketchArgumentsMeta.EXPECTEDKEYS.name()).positive();
+
+        int tableSize = (int) Math.min(MAX_TABLE_SIZE, Long.highestOneBit(Math.max(8, expectedKeys - 1) << 1));
+        table = new AtomicLongArray(tableSize);
+        tableMask = tableSize - 1;
+        sampleSize = 10 * tableSize;
+    }
+
+    /**
+     * Returns the estimated number of occurrences of the key.
+     *
+     * @param key key
+     * @return frequency in range 0..{@link #MAX_FREQUENCY}
+     */
+    public int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = MAX_FREQUENCY;
+
+        for (int i = 0; i < SEEDS.length; i++) {
+            int offset = (start + i) << 2;
+            int count = (int) ((table.get(indexOf(hash, i)) >>> offset) & COUNTER_MASK);
+            frequency = Math.min(frequency, count);
+        }
+
+        return frequency;
+    }
+
+    /**
+     * Increments the popularity of the key (unless it's already at {@link #MAX_FREQUENCY}).
+     *
+     * @param key key
+     */
+    public void increment(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+
+        for (int i = 0; i < SEEDS.length; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+
+        // exactly one thread sees this value
+        if (added && (incrementCount.incrementAndGet() == sampleSize)) {
+            reset();
+        }
+    }
+
+    /**
+     * Increments the given counter unless it's saturated.
+     *
+     * @param index   table index
+     * @param counter counter number (0..15) within the table entry
+     * @return whether the counter has been incremented
+     */
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = COUNTER_MASK << offset;
+
+        while (true) {
+            long value = table.get(index);
+            if ((value & mask) == mask) {
+                return false;
+            }
+
+            if (table.compareAndSet(index, value, value + (1L << offset))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Halves all counters (aging).
+     */
+    private void reset() {
+        for (int i = 0; i < table.length(); i++) {
+            long value;
+            do {
+                value = table.get(i);
+            } while (!table.compareAndSet(i, value, (value >>> 1) & RESET_MASK));
+        }
+
+        incrementCount.addAndGet(-sampleSize / 2);
+    }
+
+    private int indexOf(int hash, int i) {
+        long indexHash = (hash + SEEDS[i]) * SEEDS[i];
+        indexHash += indexHash >>> 32;
+        return ((int) indexHash) & tableMask;
+    }
+
+    /**
+     * Protects against poor {@link Object#hashCode()} implementations.
+     */
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+
+}
@@ -0,0 +1,52 @@
+package guru.nicks.commons.cache;
+
+import jakarta.annotation.Nullable;
+
+import java.time.Duration;
+
+/**
+ * Second-level (slower, but surviving restarts and/or shared between app instances) store for
+ * {@link TwoTierCacheManager}. Keys are strings, values are already serialized (and possibly compressed) bytes. Remote
+ * stores (such as Redis) are plugged in via adapters implementing this interface.
+ * <p>
+ * Implementations must be thread-safe and must compare keys exactly (not just their hashes), so values of different
+ * keys are never mixed up. Failures are reported as runtime exceptions; {@link TwoTierCache} treats them as cache
+ * misses, so L2 unavailability never breaks the application.
+ *
+ * @see FileL2CacheStore
+ */
+public interface L2CacheStore {
+
+    /**
+     * Retrieves a value.
+     *
+     * @param key key
+     * @return value, or {@code null} if there's no such key or the value has expired
+     */
+    @Nullable
+    byte[] get(String key);
+
+    /**
+     * Stores a value, overwriting the previous one, if any.
+     *
+     * @param key   key
+     * @param value value
+     * @param ttl   time to live
+     */
+    void put(String key, byte[] value, Duration ttl);
+
+    /**
+     * Removes a value, if any.
+     *
+     * @param key key
+     */
+    void evict(String key);
+
+    /**
+     * Removes all values whose keys start with the given prefix.
+     *
+     * @param keyPrefix key prefix
+     */
+    void evictByPrefix(String keyPrefix);
+
+}
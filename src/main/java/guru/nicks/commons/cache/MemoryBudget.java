@@ -0,0 +1,191 @@
+package guru.nicks.commons.cache;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * Byte budget shared by all caches of several cache managers. Caffeine can only bound each cache separately, so the
+ * budget is enforced by {@link #rebalance() rebalancing} the max. weight ({@code maximumWeight}) of each
+ * weight-bounded Caffeine cache (including L1 of {@link TwoTierCache} and the index of {@link OffHeapCache}):
+ * <ul>
+ *  <li>the sum of max. weights never exceeds {@link #getMaxBytes()}, so the caches together can't exceed it either</li>
+ *  <li>unused bytes are split evenly among the caches as room to grow, so caches which keep growing get a bigger share
+ *      with each rebalancing</li>
+ *  <li>when less than 10% of the budget is unused, all caches shrink proportionally to free it, so cold caches give
+ *      memory up to hot ones</li>
+ *  <li>a cache never exceeds the max. weight it was registered with</li>
+ * </ul>
+ * Rebalancing happens every {@link #REBALANCE_INTERVAL} in a shared background thread. Caches created since the
+ * previous rebalancing are bounded only by their own max. weight until the next one. Cache managers are referenced
+ * weakly; rebalancing stops once they're all garbage-collected.
+ */
+@Slf4j
+public class MemoryBudget {
+
+    public static final Duration REBALANCE_INTERVAL = Duration.ofSeconds(1);
+
+    /**
+     * Shared by all instances. Rebalancing only reads cache sizes and sets limits, so one thread is enough.
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("memory-budget-rebalancer").daemon().factory());
+
+    /**
+     * Share of the budget kept unused, so caches have room to grow.
+     */
+    private static final int RESERVE_PERCENT = 10;
+
+    @Getter
+    private final long maxBytes;
+
+    private final List<Member> members = new CopyOnWriteArrayList<>();
+    private final ReentrantLock rebalanceLock = new ReentrantLock();
+
+    private volatile ScheduledFuture<?> scheduledRebalance;
+
+    /**
+     * Constructor.
+     *
+     * @param maxBytes budget
+     */
+    @ConstraintArguments
+    public MemoryBudget(long maxBytes) {
+        this.maxBytes = check(maxBytes, _MemoryBudgetArgumentsMeta.MAXBYTES.name()).positive().getValue();
+    }
+
+    /**
+     * Adds the caches of the cache manager (including those created later) to the budget and starts rebalancing, if
+     * it hasn't been started yet.
+     *
+     * @param cacheManager     cache manager
+     * @param maxBytesPerCache max. weight of each cache, regardless of the budget
+     */
+    public void register(CacheManager cacheManager, long maxBytesPerCache) {
+        checkNotNull(cacheManager, "cacheManager");
+        check(maxBytesPerCache, "maxBytesPerCache").positive();
+
+        members.add(new Member(new WeakReference<>(cacheManager), maxBytesPerCache));
+
+        rebalanceLock.lock();
+        try {
+            if (scheduledRebalance == null) {
+                long intervalMillis = REBALANCE_INTERVAL.toMillis();
+                scheduledRebalance = SCHEDULER.scheduleWithFixedDelay(this::rebalanceQuietly,
+                        intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            rebalanceLock.unlock();
+        }
+    }
+
+    /**
+     * Adjusts the max. weight of each cache as described in the class description. Called periodically, but can be
+     * called explicitly as well, for example after a bulk load.
+     */
+    public void rebalance() {
+        rebalanceLock.lock();
+
+        try {
+            List<CacheShare> shares = collectShares();
+            if (shares.isEmpty()) {
+                return;
+            }
+
+            long totalBytes = 0;
+            for (CacheShare share : shares) {
+                totalBytes += share.weightedSize();
+            }
+
+            // shrink all caches proportionally if there's no room to grow
+            long targetBytes = maxBytes - (maxBytes / 100 * RESERVE_PERCENT);
+            double scale = (totalBytes > targetBytes)
+                    ? (double) targetBytes / totalBytes
+                    : 1;
+
+            long[] baseBytes = new long[shares.size()];
+            long totalBaseBytes = 0;
+
+            for (int i = 0; i < shares.size(); i++) {
+                baseBytes[i] = Math.min((long) (shares.get(i).weightedSize() * scale), shares.get(i).maxBytes());
+                totalBaseBytes += baseBytes[i];
+            }
+
+            long growthBytes = Math.max(0, maxBytes - totalBaseBytes) / shares.size();
+
+            for (int i = 0; i < shares.size(); i++) {
+                CacheShare share = shares.get(i);
+                share.eviction().setMaximum(Math.min(baseBytes[i] + growthBytes, share.maxBytes()));
+            }
+        } finally {
+            rebalanceLock.unlock();
+        }
+    }
+
+    private List<CacheShare> collectShares() {
+        List<CacheShare> shares = new ArrayList<>();
+
+        for (Member member : members) {
+            CacheManager cacheManager = member.cacheManager().get();
+
+            if (cacheManager == null) {
+                members.remove(member);
+                continue;
+            }
+
+            for (String cacheName : cacheManager.getCacheNames()) {
+                CacheStatisticsRegistry.findNativeCache(cacheManager.getCache(cacheName))
+                        .flatMap(cache -> cache.policy().eviction())
+                        .filter(Policy.Eviction::isWeighted)
+                        .ifPresent(eviction -> shares.add(new CacheShare(eviction,
+                                eviction.weightedSize().orElse(0), member.maxBytesPerCache())));
+            }
+        }
+
+        if (members.isEmpty() && (scheduledRebalance != null)) {
+            scheduledRebalance.cancel(false);
+            scheduledRebalance = null;
+        }
+
+        return shares;
+    }
+
+    private void rebalanceQuietly() {
+        try {
+            rebalance();
+        } catch (RuntimeException e) {
+            log.warn("Failed to rebalance memory budget: {}", e.getMessage(), e);
+        }
+    }
+
+    private record Member(WeakReference<CacheManager> cacheManager, long maxBytesPerCache) {
+    }
+
+    /**
+     * Cache to rebalance.
+     *
+     * @param eviction     eviction policy of a {@link Cache}
+     * @param weightedSize current weight of the cache
+     * @param maxBytes     max. weight of the cache, regardless of the budget
+     */
+    private record CacheShare(Policy.Eviction<?, ?> eviction, long weightedSize, long maxBytes) {
+    }
+
+}
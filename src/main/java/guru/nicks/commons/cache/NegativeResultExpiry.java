@@ -0,0 +1,96 @@
+package guru.nicks.commons.cache;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import lombok.Getter;
+import org.springframework.cache.support.NullValue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+
+/**
+ * Gives negative results (for example, 'not found' lookups) a TTL of their own, usually much shorter than that of
+ * regular values: a key which doesn't exist now may appear soon, but hammering the backend with requests for it in the
+ * meantime is pointless. Negative results are:
+ * <ul>
+ *  <li>{@code null}s stored by Spring as {@link NullValue} ({@code @Cacheable} methods returning {@code null} or
+ *      {@link Optional#empty()}), which requires null values to be allowed (as they are by default)</li>
+ *  <li>{@link Optional#empty()} put into the cache directly</li>
+ * </ul>
+ *
+ * @param <K> cache key type
+ * @param <V> cache value type
+ */
+public class NegativeResultExpiry<K, V> implements CaffeineEntryExpirationCondition<K, V> {
+
+    @Getter
+    private final Duration timeToLive;
+
+    @Getter
+    private final Duration negativeResultTimeToLive;
+
+    private final long timeToLiveNanos;
+    private final long negativeResultTimeToLiveNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param timeToLive               TTL of regular values
+     * @param negativeResultTimeToLive TTL of negative results
+     */
+    @ConstraintArguments
+    public NegativeResultExpiry(Duration timeToLive, Duration negativeResultTimeToLive) {
+        this.timeToLive = check(timeToLive, _NegativeResultExpiryArgumentsMeta.TIMETOLIVE.name())
+                .constraint(Duration::isPositive, "must be positive")
+                .getValue();
+        this.negativeResultTimeToLive = check(negativeResultTimeToLive,
+                _NegativeResultExpiryArgumentsMeta.NEGATIVERESULTTIMETOLIVE.name())
+                .constraint(Duration::isPositive, "must be positive")
+                .getValue();
+
+        timeToLiveNanos = toNanos(timeToLive);
+        negativeResultTimeToLiveNanos = toNanos(negativeResultTimeToLive);
+    }
+
+    /**
+     * Checks if the value is a negative result.
+     *
+     * @param value cache value
+     * @return {@code true} for {@link NullValue} and {@link Optional#empty()}
+     */
+    public static boolean isNegativeResult(Object value) {
+        return (value == NullValue.INSTANCE)
+                || ((value instanceof Optional<?> optional) && optional.isEmpty());
+    }
+
+    @Override
+    public Optional<Instant> getExpirationInstant(K key, V value) {
+        return Optional.of(Instant.now().plus(isNegativeResult(value)
+                ? negativeResultTimeToLive
+                : timeToLive));
+    }
+
+    /**
+     * Same as {@link #getExpirationInstant(Object, Object)}, but without converting to/from {@link Instant}.
+     */
+    @Override
+    public long expireAfterCreate(K key, V value, long nanosElapsedSinceJmvStart) {
+        return isNegativeResult(value)
+                ? negativeResultTimeToLiveNanos
+                : timeToLiveNanos;
+    }
+
+    /**
+     * Converts duration to nanoseconds; durations exceeding {@code long} capacity (292 years) mean no expiration.
+     */
+    private static long toNanos(Duration duration) {
+        try {
+            return duration.toNanos();
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+}
@@ -0,0 +1,303 @@
+package guru.nicks.commons.cache;
+
+import guru.nicks.commons.serializer.NativeJavaSerializer;
+import guru.nicks.commons.utils.LockUtils;
+import guru.nicks.commons.utils.TransformUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.NullValue;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Cache whose values live outside the Java heap, in an {@link OffHeapSlabAllocator}, serialized with
+ * {@link NativeJavaSerializer}. Only a small on-heap index (key -> chunk numbers) is kept in Caffeine, which is in
+ * charge of TTL and size-based eviction (Window TinyLFU) and frees the chunks of the entries it removes. Therefore, big
+ * caches don't make GC pauses longer, at the cost of (de)serializing values on each write/read. Index entries count
+ * towards the memory budget too, with a nominal weight of {@value #INDEX_ENTRY_WEIGHT} bytes each.
+ * <p>
+ * Each read returns a new copy of the value, so mutating it doesn't affect the cache. Values that don't fit even after
+ * evicting the coldest entries are not cached (logged at debug level).
+ *
+ * @see OffHeapCacheManager
+ */
+@Slf4j
+public class OffHeapCache extends AbstractValueAdaptingCache {
+
+    /**
+     * How many coldest entries to evict at once when the allocator is out of free chunks.
+     */
+    private static final int EVICTION_BATCH_SIZE = 16;
+
+    /**
+     * How many eviction batches to try before giving up.
+     */
+    private static final int MAX_EVICTION_ATTEMPTS = 8;
+
+    /**
+     * Nominal weight of each index entry (Caffeine node, key, chunk numbers), added to the off-heap size of its value.
+     * Without it, cached {@code null}s would weigh nothing, and their keys could fill the heap.
+     */
+    private static final int INDEX_ENTRY_WEIGHT = SerializedSizeWeigher.ENTRY_OVERHEAD_BYTES;
+
+    private final String name;
+    private final OffHeapSlabAllocator allocator;
+    private final NativeJavaSerializer serializer;
+    private final Cache<Object, OffHeapEntry> index;
+
+    /**
+     * Freeing chunks takes the write lock, so readers which copy chunks under an optimistic read lock can detect that
+     * the chunks have been reused concurrently.
+     */
+    private final StampedLock chunksLock = new StampedLock();
+
+    /**
+     * Collapses concurrent {@link #get(Object, Callable)} calls for the same key.
+     */
+    private final ConcurrentMap<Object, CompletableFuture<Object>> loadsInFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param name            cache name
+     * @param ttl             entries TTL
+     * @param maxBytes        off-heap memory budget
+     * @param chunkSize       allocation unit, see {@link OffHeapSlabAllocator}
+     * @param serializer      serializer for values
+     * @param allowNullValues whether to cache {@code null} values
+     */
+    public OffHeapCache(String name, Duration ttl, long maxBytes, int chunkSize, NativeJavaSerializer serializer,
+            boolean allowNullValues) {
+        super(allowNullValues);
+        this.name = name;
+        this.serializer = serializer;
+        allocator = new OffHeapSlabAllocator(maxBytes, chunkSize);
+
+        index = CacheStatisticsRegistry.recordStatsIfEnabled(Caffeine.newBuilder())
+                .maximumWeight(maxBytes)
+                .weigher((Object key, OffHeapEntry entry) ->
+                        (entry.chunks().length * allocator.getChunkSize()) + INDEX_ENTRY_WEIGHT)
+                .expireAfterWrite(ttl)
+                // release off-heap memory asap (not only when the cache is accessed)
+                .scheduler(Scheduler.systemScheduler())
+                // free chunks synchronously, so eviction makes room for the value being written right away
+                .executor(Runnable::run)
+                .removalListener((Object key, OffHeapEntry entry, RemovalCause cause) -> free(entry))
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the on-heap index.
+     *
+     * @return Caffeine cache
+     */
+    @Override
+    public Cache<Object, OffHeapEntry> getNativeCache() {
+        return index;
+    }
+
+    /**
+     * Returns the amount of off-heap memory occupied by values.
+     *
+     * @return bytes (whole chunks)
+     */
+    public long getUsedBytes() {
+        return allocator.getUsedBytes();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object storeValue = lookup(key);
+        if (storeValue != null) {
+            return (T) fromStoreValue(storeValue);
+        }
+
+        var future = new CompletableFuture<Object>();
+        CompletableFuture<Object> existing = loadsInFlight.putIfAbsent(key, future);
+
+        if (existing != null) {
+            try {
+                return (T) fromStoreValue(existing.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+
+                throw (e.getCause() instanceof RuntimeException runtimeException)
+                        ? runtimeException
+                        : e;
+            }
+        }
+
+        try {
+            // the value may have been stored while this thread was registering its load
+            storeValue = lookup(key);
+
+            if (storeValue == null) {
+                try {
+                    storeValue = toStoreValue(valueLoader.call());
+                } catch (Exception e) {
+                    throw new ValueRetrievalException(key, valueLoader, e);
+                }
+
+                putStoreValue(key, storeValue);
+            }
+
+            future.complete(storeValue);
+            return (T) fromStoreValue(storeValue);
+        }
+        // Errors too (for example, 'OutOfMemoryError: Direct buffer memory'), otherwise the concurrent callers waiting
+        // for this load would hang forever
+        catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadsInFlight.remove(key, future);
+        }
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        putStoreValue(key, toStoreValue(value));
+    }
+
+    @Override
+    public void evict(Object key) {
+        index.invalidate(key);
+    }
+
+    @Override
+    public void clear() {
+        index.invalidateAll();
+    }
+
+    @Nullable
+    @Override
+    protected Object lookup(Object key) {
+        OffHeapEntry entry = index.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.isNullValue()) {
+            return NullValue.INSTANCE;
+        }
+
+        byte[] bytes = LockUtils.withOptimisticReadOrRetry(chunksLock, () -> entry.freed
+                // removed concurrently - treat as a cache miss
+                ? null
+                : allocator.load(entry.chunks(), entry.length()));
+
+        return (bytes == null)
+                ? null
+                : serializer.deserialize(bytes);
+    }
+
+    /**
+     * Serializes the value, copies it to off-heap memory (evicting the coldest entries if needed), and indexes it.
+     *
+     * @param key        cache key
+     * @param storeValue value in 'store' form (see {@link #toStoreValue(Object)})
+     */
+    private void putStoreValue(Object key, Object storeValue) {
+        // NullValue relies on 'readResolve' to remain a singleton, which not all serializers honor
+        if (storeValue == NullValue.INSTANCE) {
+            index.put(key, OffHeapEntry.NULL_VALUE);
+            return;
+        }
+
+        byte[] bytes = serializer.serialize(storeValue);
+        int[] chunks = allocator.store(bytes);
+
+        for (int attempt = 0; (chunks == null) && (attempt < MAX_EVICTION_ATTEMPTS); attempt++) {
+            evictColdest();
+            chunks = allocator.store(bytes);
+        }
+
+        if (chunks == null) {
+            log.debug("Value of '{}' ({} bytes) doesn't fit in off-heap cache '{}'", key, bytes.length, name);
+            // the previous value, if any, is stale now
+            index.invalidate(key);
+            return;
+        }
+
+        index.put(key, new OffHeapEntry(chunks, bytes.length));
+    }
+
+    private void evictColdest() {
+        index.cleanUp();
+
+        index.policy()
+                .eviction()
+                .map(eviction -> eviction.coldest(EVICTION_BATCH_SIZE).keySet())
+                .ifPresent(index::invalidateAll);
+    }
+
+    /**
+     * Called by Caffeine when an entry is removed for any reason, including replacement.
+     */
+    private void free(@Nullable OffHeapEntry entry) {
+        if ((entry == null) || entry.isNullValue()) {
+            return;
+        }
+
+        LockUtils.withExclusiveLock(chunksLock, TransformUtils.toSupplier(() -> {
+            entry.freed = true;
+            allocator.free(entry.chunks());
+        }));
+    }
+
+    /**
+     * Index entry. Not a record because of the mutable {@link #freed} flag.
+     */
+    public static final class OffHeapEntry {
+
+        private static final OffHeapEntry NULL_VALUE = new OffHeapEntry(new int[0], -1);
+
+        private final int[] chunks;
+        private final int length;
+
+        /**
+         * Set under the write lock of {@link #chunksLock} when the chunks are returned to the allocator.
+         */
+        private volatile boolean freed;
+
+        private OffHeapEntry(int[] chunks, int length) {
+            this.chunks = chunks;
+            this.length = length;
+        }
+
+        int[] chunks() {
+            return chunks;
+        }
+
+        int length() {
+            return length;
+        }
+
+        boolean isNullValue() {
+            return length < 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,69 @@
+package guru.nicks.commons.cache;
+
+import guru.nicks.commons.serializer.NativeJavaSerializer;
+import guru.nicks.commons.serializer.OneNioSerializer;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import jakarta.annotation.Nullable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * Creates {@link OffHeapCache}s on demand (like {@code CaffeineCacheManager} does). Values are serialized with
+ * {@link NativeJavaSerializer} (normally {@link OneNioSerializer}, see its caveats). Like the entry limit of
+ * {@code CaffeineCacheManager}, the memory budget applies to each cache separately; off-heap memory is allocated in
+ * {@link OffHeapSlabAllocator#SLAB_SIZE_BYTES} slabs as the cache grows.
+ */
+public class OffHeapCacheManager implements CacheManager {
+
+    /**
+     * Values are stored in chunks of this size, so the average waste per value is half of it.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 256;
+
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    private final Duration timeToLive;
+    private final long maxBytesPerCache;
+    private final NativeJavaSerializer serializer;
+
+    /**
+     * Constructor.
+     *
+     * @param timeToLive       entries TTL
+     * @param maxBytesPerCache off-heap memory budget of each cache
+     * @param serializer       serializer for values
+     */
+    @ConstraintArguments
+    public OffHeapCacheManager(Duration timeToLive, long maxBytesPerCache, NativeJavaSerializer serializer) {
+        this.timeToLive = check(timeToLive, _OffHeapCacheManagerArgumentsMeta.TIMETOLIVE.name())
+                .constraint(Duration::isPositive, "must be positive")
+                .getValue();
+        this.maxBytesPerCache = check(maxBytesPerCache, _OffHeapCacheManagerArgumentsMeta.MAXBYTESPERCACHE.name())
+                .greaterThanOrEqual((long) DEFAULT_CHUNK_SIZE)
+                .getValue();
+        this.serializer = checkNotNull(serializer, _OffHeapCacheManagerArgumentsMeta.SERIALIZER.name());
+    }
+
+    @Nullable
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, theName ->
+                new OffHeapCache(theName, timeToLive, maxBytesPerCache, DEFAULT_CHUNK_SIZE, serializer, true));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+}
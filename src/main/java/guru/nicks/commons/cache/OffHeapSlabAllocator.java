@@ -0,0 +1,191 @@
+package guru.nicks.commons.cache;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import jakarta.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+
+/**
+ * Stores byte arrays outside the Java heap, in direct {@link ByteBuffer} slabs divided into fixed-size chunks
+ * (memcached-style), so the GC never scans or copies the stored data. A stored value occupies
+ * {@code ceil(length / chunkSize)} chunks, not necessarily adjacent ones; freed chunks are reused.
+ * <p>
+ * Slabs are allocated lazily, when all the previously allocated chunks are in use, up to the capacity passed to the
+ * constructor, and are never released (only their chunks are reused). Direct memory is limited by
+ * {@code -XX:MaxDirectMemorySize} (defaults to max. heap size).
+ * <p>
+ * Thread-safe. Reading chunks that have been freed concurrently yields garbage - callers must prevent this.
+ */
+public class OffHeapSlabAllocator {
+
+    /**
+     * Size of a single slab (the last one may be smaller). Small enough for a nearly empty cache not to waste much
+     * direct memory.
+     */
+    public static final int SLAB_SIZE_BYTES = 16 * 1024 * 1024;
+
+    private final int chunkSize;
+    private final int chunksPerSlab;
+    private final int maxChunks;
+    private final ByteBuffer[] slabs;
+
+    /**
+     * Stack of freed chunk indexes, guarded by {@code this}. Grows on demand: its size is bounded by the number of
+     * chunks ever used, not by the capacity.
+     */
+    private int[] freeChunks = new int[1024];
+    private int freeChunkCount;
+
+    /**
+     * Chunks with indexes starting from this one have never been used. Guarded by {@code this}.
+     */
+    private int nextUnusedChunk;
+
+    /**
+     * Constructor.
+     *
+     * @param capacityBytes max. total size of all slabs (rounded down to whole chunks)
+     * @param chunkSize     chunk size in bytes - the smallest unit of allocation
+     */
+    @ConstraintArguments
+    public OffHeapSlabAllocator(long capacityBytes, int chunkSize) {
+        this.chunkSize = check(chunkSize, _OffHeapSlabAllocatorArgumentsMeta.CHUNKSIZE.name())
+                .betweenInclusive(64, SLAB_SIZE_BYTES)
+                .getValue();
+        check(capacityBytes, _OffHeapSlabAllocatorArgumentsMeta.CAPACITYBYTES.name())
+                .constraint(value -> (value >= chunkSize) && (value / chunkSize <= Integer.MAX_VALUE - 8),
+                        "must fit at least one chunk and at most " + (Integer.MAX_VALUE - 8) + " chunks");
+
+        chunksPerSlab = SLAB_SIZE_BYTES / chunkSize;
+        maxChunks = (int) (capacityBytes / chunkSize);
+        slabs = new ByteBuffer[(maxChunks + chunksPerSlab - 1) / chunksPerSlab];
+    }
+
+    /**
+     * Returns the chunk size.
+     *
+     * @return chunk size in bytes
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Returns the number of chunks needed to store the given number of bytes.
+     *
+     * @param length number of bytes
+     * @return number of chunks (at least 1)
+     */
+    public int countChunks(int length) {
+        return Math.max(1, (length + chunkSize - 1) / chunkSize);
+    }
+
+    /**
+     * Allocates chunks and copies the bytes into them.
+     *
+     * @param bytes bytes to store
+     * @return indexes of the chunks occupied, or {@code null} if there's not enough free space
+     */
+    @Nullable
+    public int[] store(byte[] bytes) {
+        int[] chunks = allocate(countChunks(bytes.length));
+        if (chunks == null) {
+            return null;
+        }
+
+        for (int i = 0, offset = 0; i < chunks.length; i++, offset += chunkSize) {
+            int length = Math.min(chunkSize, bytes.length - offset);
+
+            if (length > 0) {
+                slabOf(chunks[i]).put(offsetOf(chunks[i]), bytes, offset, length);
+            }
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Copies the bytes stored in the given chunks to the heap.
+     *
+     * @param chunks chunks returned by {@link #store(byte[])}
+     * @param length length passed to {@link #store(byte[])}
+     * @return bytes
+     */
+    public byte[] load(int[] chunks, int length) {
+        var bytes = new byte[length];
+
+        for (int i = 0, offset = 0; offset < length; i++, offset += chunkSize) {
+            slabOf(chunks[i]).get(offsetOf(chunks[i]), bytes, offset, Math.min(chunkSize, length - offset));
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Returns chunks to the pool.
+     *
+     * @param chunks chunks returned by {@link #store(byte[])}
+     */
+    public synchronized void free(int[] chunks) {
+        if (freeChunkCount + chunks.length > freeChunks.length) {
+            freeChunks = Arrays.copyOf(freeChunks, Math.max(freeChunkCount + chunks.length, freeChunks.length * 2));
+        }
+
+        for (int chunk : chunks) {
+            freeChunks[freeChunkCount++] = chunk;
+        }
+    }
+
+    /**
+     * Returns the number of bytes occupied by stored values (in whole chunks).
+     *
+     * @return used bytes
+     */
+    public synchronized long getUsedBytes() {
+        return (long) (nextUnusedChunk - freeChunkCount) * chunkSize;
+    }
+
+    @Nullable
+    private synchronized int[] allocate(int chunkCount) {
+        if (freeChunkCount + (maxChunks - nextUnusedChunk) < chunkCount) {
+            return null;
+        }
+
+        var chunks = new int[chunkCount];
+
+        for (int i = 0; i < chunkCount; i++) {
+            if (freeChunkCount > 0) {
+                chunks[i] = freeChunks[--freeChunkCount];
+                continue;
+            }
+
+            int chunk = nextUnusedChunk++;
+            int slabIndex = chunk / chunksPerSlab;
+
+            if (slabs[slabIndex] == null) {
+                int slabChunks = Math.min(chunksPerSlab, maxChunks - slabIndex * chunksPerSlab);
+                slabs[slabIndex] = ByteBuffer.allocateDirect(slabChunks * chunkSize);
+            }
+
+            chunks[i] = chunk;
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Slabs array is only written under {@code this} lock, before the chunk index is published to the caller, so
+     * reading it without the lock is safe as long as the caller has obtained the chunk index in a thread-safe way.
+     */
+    private ByteBuffer slabOf(int chunk) {
+        return slabs[chunk / chunksPerSlab];
+    }
+
+    private int offsetOf(int chunk) {
+        return (chunk % chunksPerSlab) * chunkSize;
+    }
+
+}
@@ -0,0 +1,325 @@
+package guru.nicks.commons.cache;
+
+import guru.nicks.commons.cache.domain.RefreshStatistics;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import jakarta.annotation.Nullable;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotBlank;
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * Reusable {@link AsyncCacheRefresher}: holds a single value (for example, a JWKS or a remote config) and reloads it
+ * <b>before</b> it expires, at {@link #getAsyncRefreshTtlPercent()} of its TTL (see
+ * {@link #calculateAsyncRefreshDate(Instant)}).
+ * <ul>
+ *  <li>{@link #get()} never waits for a refresh once the first value has been loaded - the current (possibly stale)
+ *      value is served while the new one is being loaded</li>
+ *  <li>concurrent refresh requests are collapsed into one in-flight {@link CompletableFuture} (single-flight), so the
+ *      loader never runs concurrently with itself</li>
+ *  <li>all instances share one scheduler thread, which only dispatches refreshes; loaders run in virtual
+ *      threads</li>
+ *  <li>failed refreshes are retried every {@link #getRetryDelay()} while the previous value remains in use</li>
+ *  <li>refresh latency, failures, and lateness relative to the schedule are available via
+ *      {@link #getStatistics()}</li>
+ * </ul>
+ *
+ * @param <T> value type
+ */
+@Slf4j
+public class RefreshAheadValue<T> implements AsyncCacheRefresher<T> {
+
+    /**
+     * @see #getRetryDelay()
+     */
+    public static final Duration DEFAULT_RETRY_DELAY = Duration.ofSeconds(30);
+
+    /**
+     * Shared by all instances. Only dispatches refreshes to {@link #cacheRefresherTask}, so one thread is enough.
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("refresh-ahead-scheduler").daemon().factory());
+
+    /**
+     * Label for logging purposes.
+     */
+    @Getter
+    private final String name;
+
+    private final Supplier<? extends T> loader;
+
+    private final Function<? super T, Instant> expirationDateGetter;
+
+    /**
+     * Runs loaders, one virtual thread per refresh.
+     */
+    @Getter
+    private final ExecutorService cacheRefresherTask = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicReference<CompletableFuture<T>> inFlightRefresh = new AtomicReference<>();
+    private final AtomicReference<ScheduledFuture<?>> scheduledRefresh = new AtomicReference<>();
+
+    private final LongAdder refreshCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final LongAdder totalRefreshNanos = new LongAdder();
+    private final AtomicLong lastRefreshNanos = new AtomicLong();
+    private final LongAccumulator maxRefreshNanos = new LongAccumulator(Long::max, 0);
+    private final AtomicLong lastLatenessNanos = new AtomicLong();
+    private final LongAccumulator maxLatenessNanos = new LongAccumulator(Long::max, 0);
+
+    @Nullable
+    private volatile T value;
+
+    /**
+     * Constructor. Doesn't load the value - it's loaded by the first {@link #get()} or {@link #refresh()}.
+     *
+     * @param name                 label for logging purposes
+     * @param loader               loads the value (must not return {@code null})
+     * @param expirationDateGetter returns the expiration date of the given value ({@code null} means the value never
+     *                             expires, so it's not refreshed in the background)
+     */
+    @ConstraintArguments
+    public RefreshAheadValue(String name, Supplier<? extends T> loader,
+            Function<? super T, Instant> expirationDateGetter) {
+        this.name = checkNotBlank(name, _RefreshAheadValueArgumentsMeta.NAME.name());
+        this.loader = checkNotNull(loader, _RefreshAheadValueArgumentsMeta.LOADER.name());
+        this.expirationDateGetter = checkNotNull(expirationDateGetter,
+                _RefreshAheadValueArgumentsMeta.EXPIRATIONDATEGETTER.name());
+    }
+
+    /**
+     * Returns the current value. Only the very first call (or the calls made while the first value hasn't been loaded
+     * yet) waits for the loader.
+     *
+     * @return current value, possibly stale
+     * @throws IllegalStateException the first load failed or timed out
+     */
+    public T get() {
+        T current = value;
+
+        if (current == null) {
+            refresh();
+            current = value;
+        }
+
+        // 'refresh' throws an exception if the value can't be loaded
+        return checkNotNull(current, "value");
+    }
+
+    /**
+     * Returns the current value without loading it.
+     *
+     * @return optional current value
+     */
+    public Optional<T> getIfPresent() {
+        return Optional.ofNullable(value);
+    }
+
+    /**
+     * Returns the delay before re-attempting a failed refresh.
+     *
+     * @return default implementation returns {@link #DEFAULT_RETRY_DELAY}
+     */
+    public Duration getRetryDelay() {
+        return DEFAULT_RETRY_DELAY;
+    }
+
+    /**
+     * Returns refresh metrics.
+     *
+     * @return statistics snapshot
+     */
+    public RefreshStatistics getStatistics() {
+        long refreshes = refreshCount.sum();
+
+        return new RefreshStatistics(
+                refreshes,
+                failureCount.sum(),
+                Duration.ofNanos(lastRefreshNanos.get()),
+                Duration.ofNanos(maxRefreshNanos.get()),
+                Duration.ofNanos((refreshes > 0)
+                        ? totalRefreshNanos.sum() / refreshes
+                        : 0),
+                Duration.ofNanos(lastLatenessNanos.get()),
+                Duration.ofNanos(maxLatenessNanos.get()));
+    }
+
+    /**
+     * Starts a new refresh unless one is already in progress, in which case the in-flight future is returned.
+     *
+     * @return future which completes when the refresh is over
+     */
+    @Override
+    public CompletableFuture<T> createCacheRefreshFuture() {
+        while (true) {
+            CompletableFuture<T> existing = inFlightRefresh.get();
+            if (existing != null) {
+                return existing;
+            }
+
+            var future = new CompletableFuture<T>();
+            if (!inFlightRefresh.compareAndSet(null, future)) {
+                continue;
+            }
+
+            try {
+                cacheRefresherTask.execute(() -> load(future));
+            } catch (RejectedExecutionException e) {
+                inFlightRefresh.compareAndSet(future, null);
+                future.completeExceptionally(e);
+            }
+
+            return future;
+        }
+    }
+
+    /**
+     * Schedules a refresh at {@link #calculateAsyncRefreshDate(Instant)}, replacing the previously scheduled one.
+     *
+     * @param expirationDate nullable expiration date of the current value
+     */
+    @Override
+    public void possiblyScheduleAsyncRefresh(@Nullable Instant expirationDate) {
+        calculateAsyncRefreshDate(expirationDate).ifPresent(this::scheduleRefresh);
+    }
+
+    /**
+     * Cancels the scheduled refresh and shuts down {@link #getCacheRefresherTask()}.
+     */
+    @Override
+    public void close() {
+        ScheduledFuture<?> scheduled = scheduledRefresh.getAndSet(null);
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+
+        AsyncCacheRefresher.super.close();
+    }
+
+    /**
+     * Runs in {@link #cacheRefresherTask}. Clears {@link #inFlightRefresh} <b>before</b> completing the future, so
+     * callbacks attached to the future may start a new refresh. This is done for {@link Error}s too, otherwise the
+     * failed future would be returned by {@link #createCacheRefreshFuture()} forever.
+     *
+     * @param future future to complete
+     */
+    private void load(CompletableFuture<T> future) {
+        long start = System.nanoTime();
+        T newValue;
+
+        try {
+            newValue = checkNotNull(loader.get(), "loaded value");
+            value = newValue;
+
+            long nanos = System.nanoTime() - start;
+            refreshCount.increment();
+            totalRefreshNanos.add(nanos);
+            lastRefreshNanos.set(nanos);
+            maxRefreshNanos.accumulate(nanos);
+
+            inFlightRefresh.compareAndSet(future, null);
+            future.complete(newValue);
+        } catch (RuntimeException | Error e) {
+            failureCount.increment();
+            inFlightRefresh.compareAndSet(future, null);
+            future.completeExceptionally(e);
+
+            // without a value, there's nothing to serve, so the next 'get' will retry synchronously
+            if (value != null) {
+                log.warn("Failed to refresh '{}', retrying in {}: {}", name, getRetryDelay(), e.getMessage(), e);
+                scheduleRefresh(Instant.now().plus(getRetryDelay()));
+            }
+
+            if (e instanceof Error error) {
+                throw error;
+            }
+
+            return;
+        }
+
+        scheduleNextRefresh(newValue);
+    }
+
+    /**
+     * Schedules the refresh of a successfully loaded value. A failure of {@link #expirationDateGetter} isn't a refresh
+     * failure - the value is in use already, so it's only logged, and the value is refreshed after
+     * {@link #getRetryDelay()}.
+     *
+     * @param newValue loaded value
+     */
+    private void scheduleNextRefresh(T newValue) {
+        Instant expirationDate;
+
+        try {
+            expirationDate = expirationDateGetter.apply(newValue);
+        } catch (RuntimeException e) {
+            log.warn("Failed to get expiration date of '{}', refreshing in {}: {}", name, getRetryDelay(),
+                    e.getMessage(), e);
+            scheduleRefresh(Instant.now().plus(getRetryDelay()));
+            return;
+        }
+
+        possiblyScheduleAsyncRefresh(expirationDate);
+    }
+
+    /**
+     * Schedules {@link #onScheduledRefresh(Instant)} in {@link #SCHEDULER}, cancels the previously scheduled one.
+     *
+     * @param refreshDate when to refresh
+     */
+    private void scheduleRefresh(Instant refreshDate) {
+        if (cacheRefresherTask.isShutdown()) {
+            return;
+        }
+
+        long delayMillis;
+        try {
+            delayMillis = Math.max(0, Duration.between(Instant.now(), refreshDate).toMillis());
+        }
+        // refresh date is too far in the future to be of any interest
+        catch (ArithmeticException e) {
+            return;
+        }
+
+        log.debug("Scheduling refresh of '{}' at {}", name, refreshDate);
+        ScheduledFuture<?> previous = scheduledRefresh.getAndSet(
+                SCHEDULER.schedule(() -> onScheduledRefresh(refreshDate), delayMillis, TimeUnit.MILLISECONDS));
+
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    /**
+     * Runs in {@link #SCHEDULER}, therefore only records lateness and dispatches the refresh.
+     *
+     * @param refreshDate when the refresh was supposed to start
+     */
+    private void onScheduledRefresh(Instant refreshDate) {
+        long latenessNanos = Math.max(0, Duration.between(refreshDate, Instant.now()).toNanos());
+        lastLatenessNanos.set(latenessNanos);
+        maxLatenessNanos.accumulate(latenessNanos);
+
+        createCacheRefreshFuture();
+    }
+
+}
@@ -0,0 +1,60 @@
+package guru.nicks.commons.cache;
+
+import guru.nicks.commons.serializer.NativeJavaSerializer;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import com.github.benmanes.caffeine.cache.Weigher;
+import lombok.extern.slf4j.Slf4j;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * Estimates heap consumption of cache entries as the size of their serialized values plus a fixed per-entry overhead,
+ * so {@code Caffeine.maximumWeight()} becomes a byte budget. Serialized size is not the exact heap size (object headers
+ * and references aren't serialized, strings may be stored more compactly), but it's proportional to it, which is what
+ * matters for eviction.
+ * <p>
+ * Values are serialized once per write (not per read). Values that can't be serialized weigh
+ * {@link #FALLBACK_WEIGHT}.
+ */
+@Slf4j
+public class SerializedSizeWeigher implements Weigher<Object, Object> {
+
+    /**
+     * Approximate size of Caffeine node, key, and value wrapper.
+     */
+    public static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    /**
+     * Weight of values that can't be serialized.
+     */
+    public static final int FALLBACK_WEIGHT = 1024;
+
+    private final NativeJavaSerializer serializer;
+
+    /**
+     * Constructor.
+     *
+     * @param serializer serializer to estimate value sizes with
+     */
+    @ConstraintArguments
+    public SerializedSizeWeigher(NativeJavaSerializer serializer) {
+        this.serializer = checkNotNull(serializer, _SerializedSizeWeigherArgumentsMeta.SERIALIZER.name());
+    }
+
+    @Override
+    public int weigh(Object key, Object value) {
+        long size;
+
+        try {
+            size = (long) serializer.serialize(value).length + ENTRY_OVERHEAD_BYTES;
+        } catch (RuntimeException e) {
+            log.debug("Failed to serialize {} for weighing - assuming {} bytes: {}",
+                    value.getClass().getName(), FALLBACK_WEIGHT, e.getMessage());
+            return FALLBACK_WEIGHT;
+        }
+
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+}
@@ -0,0 +1,205 @@
+package guru.nicks.commons.cache;
+
+import guru.nicks.commons.cache.domain.CacheConstants;
+import guru.nicks.commons.serializer.NativeJavaSerializer;
+import guru.nicks.commons.utils.compressor.ZstdCompressorUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import jakarta.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.NullValue;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.Callable;
+
+/**
+ * Near cache: Caffeine (L1) in front of an {@link L2CacheStore}. Reads go to L1 first, then to L2 (promoting the
+ * value to L1), then to the value loader; writes go to both tiers.
+ * <p>
+ * L2 keys are {@code <cache name length>:<cache name>::<serialized key in Base64>}. Serialized keys (unlike
+ * {@code toString()}, for example, that of {@code SimpleKey("a, b")} and {@code SimpleKey("a", "b")}) are never shared
+ * by different keys, and thanks to the length prefix, clearing cache {@code a} doesn't affect cache {@code a::b}.
+ * <p>
+ * {@code null} values (if allowed) are cached in L1 only. L2 is best-effort: its failures, as well as values that
+ * can't be deserialized (for example, after a class change), are logged and treated as cache misses.
+ *
+ * @see TwoTierCacheManager
+ */
+@Slf4j
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final Cache<Object, Object> l1Cache;
+    private final L2CacheStore l2Store;
+    private final NativeJavaSerializer serializer;
+    private final Duration l2TimeToLive;
+    private final boolean compress;
+    private final String l2KeyPrefix;
+
+    /**
+     * Constructor.
+     *
+     * @param name            cache name
+     * @param l1Cache         L1 cache
+     * @param l2Store         L2 store
+     * @param serializer      serializer for L2 values
+     * @param l2TimeToLive    L2 entries TTL
+     * @param compress        whether to compress L2 values with Zstd
+     * @param allowNullValues whether to cache {@code null} values
+     */
+    public TwoTierCache(String name, Cache<Object, Object> l1Cache, L2CacheStore l2Store,
+            NativeJavaSerializer serializer, Duration l2TimeToLive, boolean compress, boolean allowNullValues) {
+        super(allowNullValues);
+        this.name = name;
+        this.l1Cache = l1Cache;
+        this.l2Store = l2Store;
+        this.serializer = serializer;
+        this.l2TimeToLive = l2TimeToLive;
+        this.compress = compress;
+        l2KeyPrefix = name.length() + ":" + name + CacheConstants.TOPIC_DELIMITER;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns L1 cache.
+     *
+     * @return Caffeine cache
+     */
+    @Override
+    public Cache<Object, Object> getNativeCache() {
+        return l1Cache;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // Caffeine guarantees the loader is called once per key even under concurrent access
+        Object storeValue = l1Cache.get(key, theKey -> {
+            Object l2Value = readFromL2(theKey);
+            if (l2Value != null) {
+                return l2Value;
+            }
+
+            Object loadedValue;
+            try {
+                loadedValue = toStoreValue(valueLoader.call());
+            } catch (Exception e) {
+                throw new ValueRetrievalException(theKey, valueLoader, e);
+            }
+
+            writeToL2(theKey, loadedValue);
+            return loadedValue;
+        });
+
+        return (T) fromStoreValue(storeValue);
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        Object storeValue = toStoreValue(value);
+        l1Cache.put(key, storeValue);
+        writeToL2(key, storeValue);
+    }
+
+    @Override
+    public void evict(Object key) {
+        l1Cache.invalidate(key);
+
+        try {
+            l2Store.evict(createL2Key(key));
+        } catch (RuntimeException e) {
+            log.warn("Failed to evict '{}' from L2 cache '{}': {}", key, name, e.getMessage());
+        }
+    }
+
+    @Override
+    public void clear() {
+        l1Cache.invalidateAll();
+
+        try {
+            l2Store.evictByPrefix(l2KeyPrefix);
+        } catch (RuntimeException e) {
+            log.warn("Failed to clear L2 cache '{}': {}", name, e.getMessage());
+        }
+    }
+
+    @Nullable
+    @Override
+    protected Object lookup(Object key) {
+        Object storeValue = l1Cache.getIfPresent(key);
+        if (storeValue != null) {
+            return storeValue;
+        }
+
+        storeValue = readFromL2(key);
+        if (storeValue != null) {
+            l1Cache.put(key, storeValue);
+        }
+
+        return storeValue;
+    }
+
+    /**
+     * Reads and deserializes (and possibly decompresses) the value from L2.
+     *
+     * @param key cache key
+     * @return value in 'store' form (see {@link #toStoreValue(Object)}), or {@code null} on cache miss or failure
+     */
+    @Nullable
+    private Object readFromL2(Object key) {
+        try {
+            byte[] bytes = l2Store.get(createL2Key(key));
+            if (bytes == null) {
+                return null;
+            }
+
+            return serializer.deserialize(compress
+                    ? ZstdCompressorUtils.decompress(bytes)
+                    : bytes);
+        } catch (RuntimeException e) {
+            log.warn("Failed to read '{}' from L2 cache '{}': {}", key, name, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Serializes (and possibly compresses) the value and writes it to L2.
+     *
+     * @param key        cache key
+     * @param storeValue value in 'store' form (see {@link #toStoreValue(Object)})
+     */
+    private void writeToL2(Object key, Object storeValue) {
+        // NullValue relies on 'readResolve' to remain a singleton, which not all serializers honor
+        if (storeValue == NullValue.INSTANCE) {
+            return;
+        }
+
+        try {
+            byte[] bytes = serializer.serialize(storeValue);
+            l2Store.put(createL2Key(key), compress
+                    ? ZstdCompressorUtils.compress(bytes)
+                    : bytes, l2TimeToLive);
+        } catch (RuntimeException e) {
+            log.warn("Failed to write '{}' to L2 cache '{}': {}", key, name, e.getMessage());
+        }
+    }
+
+    /**
+     * Creates L2 key (see class description).
+     *
+     * @param key cache key
+     * @return L2 key
+     * @throws org.apache.commons.lang3.SerializationException key is not serializable
+     */
+    private String createL2Key(Object key) {
+        return l2KeyPrefix + Base64.getUrlEncoder().withoutPadding().encodeToString(serializer.serialize(key));
+    }
+
+}
@@ -0,0 +1,71 @@
+package guru.nicks.commons.cache;
+
+import guru.nicks.commons.serializer.NativeJavaSerializer;
+import guru.nicks.commons.serializer.OneNioSerializer;
+import guru.nicks.commons.utils.compressor.ZstdCompressorUtils;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.Nullable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * Creates {@link TwoTierCache}s on demand (like {@code CaffeineCacheManager} does): L1 hits cost as much as plain
+ * Caffeine lookups, and L2 (for example, {@link FileL2CacheStore}) shields the underlying data source after restarts,
+ * when L1 is empty. L2 values are serialized with {@link NativeJavaSerializer} (normally {@link OneNioSerializer}, see
+ * its caveats) and optionally compressed with {@link ZstdCompressorUtils}.
+ */
+public class TwoTierCacheManager implements CacheManager {
+
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    private final Caffeine<Object, Object> l1CacheBuilder;
+    private final L2CacheStore l2Store;
+    private final NativeJavaSerializer serializer;
+    private final Duration l2TimeToLive;
+    private final boolean compress;
+
+    /**
+     * Constructor.
+     *
+     * @param l1CacheBuilder L1 cache configuration (capacity, TTL, etc.), shared by all caches
+     * @param l2Store        L2 store, shared by all caches (cache names become key prefixes)
+     * @param serializer     serializer for L2 values
+     * @param l2TimeToLive   L2 entries TTL (usually the same as, or longer than, L1 TTL)
+     * @param compress       whether to compress L2 values with Zstd (worth it for big values only)
+     */
+    @ConstraintArguments
+    public TwoTierCacheManager(Caffeine<Object, Object> l1CacheBuilder, L2CacheStore l2Store,
+            NativeJavaSerializer serializer, Duration l2TimeToLive, boolean compress) {
+        this.l1CacheBuilder = checkNotNull(l1CacheBuilder, _TwoTierCacheManagerArgumentsMeta.L1CACHEBUILDER.name());
+        this.l2Store = checkNotNull(l2Store, _TwoTierCacheManagerArgumentsMeta.L2STORE.name());
+        this.serializer = checkNotNull(serializer, _TwoTierCacheManagerArgumentsMeta.SERIALIZER.name());
+        this.l2TimeToLive = check(l2TimeToLive, _TwoTierCacheManagerArgumentsMeta.L2TIMETOLIVE.name())
+                .constraint(Duration::isPositive, "must be positive")
+                .getValue();
+        this.compress = compress;
+    }
+
+    @Nullable
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, theName ->
+                new TwoTierCache(theName, l1CacheBuilder.build(), l2Store, serializer, l2TimeToLive, compress, true));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+}
@@ -0,0 +1,281 @@
+package guru.nicks.commons.cache;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.Nullable;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * Caffeine cache manager whose caches refresh entries early as decided by {@link XFetchExpiry}: the reader chosen to
+ * refresh an entry recomputes it, while other readers are served the cached value until the new one is put. Namely:
+ * <ul>
+ *  <li>{@code @Cacheable(sync = true)} - the reader calls the loader passed to the cache ({@code get(key, Callable)},
+ *      or {@code retrieve(key, Supplier)} for methods returning {@link CompletableFuture})</li>
+ *  <li>{@code @Cacheable} - the reader is told it's a miss ({@code get(key)}, or {@code retrieve(key)} for methods
+ *      returning {@link CompletableFuture}), so Spring calls the method and puts its result</li>
+ * </ul>
+ * If the chosen reader doesn't put a new value within {@link XFetchExpiry#MAX_RECOMPUTE_TIME} (for example, the method
+ * has failed), another reader may be chosen.
+ * <p>
+ * Recompute time is measured the same way: the loader passed to the cache is timed (until its future completes, if
+ * it's asynchronous), and so is the time between the first miss of a key and the subsequent put of the same key, in
+ * any thread (Spring puts results of asynchronous methods in the thread completing their futures). Misses which aren't
+ * followed by a put are forgotten after {@link XFetchExpiry#MAX_RECOMPUTE_TIME}.
+ * <p>
+ * Works in both regular and {@link #setAsyncCacheMode(boolean) async} modes.
+ */
+public class XFetchCacheManager extends CaffeineCacheManager {
+
+    /**
+     * Bounds the number of misses waiting for a put in each cache.
+     */
+    private static final int MAX_PENDING_LOADS = 10_000;
+
+    private final Supplier<Caffeine<Object, Object>> cacheBuilder;
+    private final Supplier<? extends CaffeineEntryExpirationCondition<Object, Object>> expirationConditionFactory;
+    private final double beta;
+
+    /**
+     * Expiry of each cache, passed from {@code create*CaffeineCache} to {@code adaptCaffeineCache}.
+     */
+    private final ConcurrentMap<String, XFetchExpiry<Object, Object>> expiries = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param cacheBuilder               creates a builder for each cache (without expiration - it's set here)
+     * @param expirationConditionFactory creates the nominal expiration condition for each cache
+     * @param beta                       aggressiveness of early refresh, see {@link XFetchExpiry#DEFAULT_BETA}
+     */
+    @ConstraintArguments
+    public XFetchCacheManager(Supplier<Caffeine<Object, Object>> cacheBuilder,
+            Supplier<? extends CaffeineEntryExpirationCondition<Object, Object>> expirationConditionFactory,
+            double beta) {
+        this.cacheBuilder = checkNotNull(cacheBuilder, _XFetchCacheManagerArgumentsMeta.CACHEBUILDER.name());
+        this.expirationConditionFactory = checkNotNull(expirationConditionFactory,
+                _XFetchCacheManagerArgumentsMeta.EXPIRATIONCONDITIONFACTORY.name());
+        this.beta = check(beta, _XFetchCacheManagerArgumentsMeta.BETA.name()).positive().getValue();
+    }
+
+    /**
+     * Returns the early expiration policy of the given cache.
+     *
+     * @param cacheName cache name
+     * @return {@code null} if the cache hasn't been created yet
+     */
+    @Nullable
+    public XFetchExpiry<Object, Object> getExpiry(String cacheName) {
+        return expiries.get(cacheName);
+    }
+
+    @Override
+    protected Cache<Object, Object> createNativeCaffeineCache(String name) {
+        return cacheBuilder.get()
+                .expireAfter(createExpiry(name))
+                .build();
+    }
+
+    @Override
+    protected AsyncCache<Object, Object> createAsyncCaffeineCache(String name) {
+        return cacheBuilder.get()
+                .expireAfter(createExpiry(name))
+                .buildAsync();
+    }
+
+    /**
+     * Custom caches (see {@link #registerCustomCache(String, Cache)}) have no {@link XFetchExpiry}, so they aren't
+     * timed.
+     */
+    @Override
+    protected org.springframework.cache.Cache adaptCaffeineCache(String name, Cache<Object, Object> cache) {
+        XFetchExpiry<Object, Object> expiry = expiries.get(name);
+
+        return (expiry == null)
+                ? super.adaptCaffeineCache(name, cache)
+                : new TimingCaffeineCache(name, cache, isAllowNullValues(), expiry);
+    }
+
+    @Override
+    protected org.springframework.cache.Cache adaptCaffeineCache(String name, AsyncCache<Object, Object> cache) {
+        XFetchExpiry<Object, Object> expiry = expiries.get(name);
+
+        return (expiry == null)
+                ? super.adaptCaffeineCache(name, cache)
+                : new TimingCaffeineCache(name, cache, isAllowNullValues(), expiry);
+    }
+
+    private XFetchExpiry<Object, Object> createExpiry(String name) {
+        var expiry = new XFetchExpiry<>(expirationConditionFactory.get(), beta);
+        expiries.put(name, expiry);
+        return expiry;
+    }
+
+    /**
+     * Refreshes entries early and reports recompute times to {@link XFetchExpiry}.
+     */
+    private static class TimingCaffeineCache extends CaffeineCache {
+
+        private final XFetchExpiry<Object, Object> expiry;
+
+        /**
+         * Keys being refreshed early, so only one reader recomputes each of them.
+         */
+        private final Cache<Object, Boolean> refreshingKeys = Caffeine.newBuilder()
+                .expireAfterWrite(XFetchExpiry.MAX_RECOMPUTE_TIME)
+                .build();
+
+        /**
+         * {@link System#nanoTime()} of the first miss of each key which hasn't been followed by a put yet.
+         */
+        private final Cache<Object, Long> pendingLoads = Caffeine.newBuilder()
+                .expireAfterWrite(XFetchExpiry.MAX_RECOMPUTE_TIME)
+                .maximumSize(MAX_PENDING_LOADS)
+                .build();
+
+        TimingCaffeineCache(String name, Cache<Object, Object> cache, boolean allowNullValues,
+                XFetchExpiry<Object, Object> expiry) {
+            super(name, cache, allowNullValues);
+            this.expiry = expiry;
+        }
+
+        TimingCaffeineCache(String name, AsyncCache<Object, Object> cache, boolean allowNullValues,
+                XFetchExpiry<Object, Object> expiry) {
+            super(name, cache, allowNullValues);
+            this.expiry = expiry;
+        }
+
+        @Nullable
+        @Override
+        protected Object lookup(Object key) {
+            Object value = super.lookup(key);
+
+            // pretend it's a miss, so the caller recomputes the value
+            if ((value == null) || claimEarlyRefresh(key)) {
+                startPendingLoad(key);
+                return null;
+            }
+
+            return value;
+        }
+
+        @Nullable
+        @Override
+        public CompletableFuture<?> retrieve(Object key) {
+            CompletableFuture<?> result = super.retrieve(key);
+
+            // pretend it's a miss, so the caller recomputes the value
+            if ((result == null) || claimEarlyRefresh(key)) {
+                startPendingLoad(key);
+                return null;
+            }
+
+            return result;
+        }
+
+        @Override
+        public void put(Object key, @Nullable Object value) {
+            Long startNanos = pendingLoads.asMap().remove(key);
+            if (startNanos != null) {
+                expiry.recordRecomputeTime(System.nanoTime() - startNanos);
+            }
+
+            super.put(key, value);
+            refreshingKeys.invalidate(key);
+        }
+
+        @Nullable
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            if (claimEarlyRefresh(key)) {
+                try {
+                    T value = loadTimed(valueLoader);
+                    put(key, value);
+                    return value;
+                }
+                // the current value hasn't expired yet, so it's still good to return
+                catch (Exception e) {
+                    refreshingKeys.invalidate(key);
+                }
+            }
+
+            return super.get(key, () -> loadTimed(valueLoader));
+        }
+
+        @Override
+        public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+            Supplier<CompletableFuture<T>> timedLoader = () -> loadTimedAsync(valueLoader);
+
+            if (claimEarlyRefresh(key)) {
+                return timedLoader.get()
+                        .thenApply(value -> {
+                            put(key, value);
+                            return value;
+                        })
+                        // the current value hasn't expired yet, so it's still good to return
+                        .exceptionallyCompose(e -> {
+                            refreshingKeys.invalidate(key);
+                            return super.retrieve(key, timedLoader);
+                        });
+            }
+
+            return super.retrieve(key, timedLoader);
+        }
+
+        /**
+         * Decides if the entry should be refreshed now and, if so, makes sure no other reader refreshes it.
+         *
+         * @param key cache key
+         * @return {@code true} if the caller should recompute the value
+         */
+        private boolean claimEarlyRefresh(Object key) {
+            Optional<Duration> timeLeft = getNativeCache().policy().expireVariably()
+                    .flatMap(expiration -> expiration.getExpiresAfter(key));
+
+            return timeLeft.isPresent()
+                    && expiry.shouldRefreshEarly(timeLeft.get().toNanos())
+                    && (refreshingKeys.asMap().putIfAbsent(key, Boolean.TRUE) == null);
+        }
+
+        /**
+         * Remembers the miss, unless there's an earlier one still waiting for a put.
+         *
+         * @param key cache key
+         */
+        private void startPendingLoad(Object key) {
+            pendingLoads.asMap().putIfAbsent(key, System.nanoTime());
+        }
+
+        private <T> T loadTimed(Callable<T> valueLoader) throws Exception {
+            long start = System.nanoTime();
+            T value = valueLoader.call();
+            expiry.recordRecomputeTime(System.nanoTime() - start);
+            return value;
+        }
+
+        private <T> CompletableFuture<T> loadTimedAsync(Supplier<CompletableFuture<T>> valueLoader) {
+            long start = System.nanoTime();
+
+            return valueLoader.get().whenComplete((value, e) -> {
+                if (e == null) {
+                    expiry.recordRecomputeTime(System.nanoTime() - start);
+                }
+            });
+        }
+
+    }
+
+}
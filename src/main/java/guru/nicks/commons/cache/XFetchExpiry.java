@@ -0,0 +1,149 @@
+package guru.nicks.commons.cache;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * Probabilistic early refresh (XFetch, see 'Optimal Probabilistic Cache Stampede Prevention' by Vattani et al.): a
+ * read should recompute the value ahead of expiration with probability {@code exp(-timeLeft / (recomputeTime * beta))},
+ * so the closer the expiration and the more expensive the value, the more likely one of the reads refreshes it. As a
+ * result, entries written together (for example, after a restart) aren't recomputed together, and hot keys are
+ * refreshed before they expire.
+ * <p>
+ * This class only decides ({@link #shouldRefreshEarly(long)}); entries are never expired early, because then every
+ * concurrent reader would miss and recompute the value - the stampede XFetch is meant to prevent. Refreshing is done by
+ * the caches of {@link XFetchCacheManager}: one reader per key recomputes the value, the others are served the cached
+ * one meanwhile.
+ * <p>
+ * The nominal expiration is defined by the wrapped {@link CaffeineEntryExpirationCondition}. Recompute time is an
+ * exponential moving average of the values passed to {@link #recordRecomputeTime(long)} (one per cache, not per key);
+ * while nothing has been recorded, entries are never refreshed early.
+ *
+ * @param <K> cache key type
+ * @param <V> cache value type
+ */
+public class XFetchExpiry<K, V> implements CaffeineEntryExpirationCondition<K, V> {
+
+    /**
+     * Values above 1 make early expiration more aggressive, values below 1 - less aggressive.
+     */
+    public static final double DEFAULT_BETA = 1.0;
+
+    /**
+     * Longer samples passed to {@link #recordRecomputeTime(long)} are capped, so one stuck computation (or a
+     * mismatched measurement) doesn't make every read refresh.
+     */
+    public static final Duration MAX_RECOMPUTE_TIME = Duration.ofSeconds(30);
+
+    /**
+     * Weight of the newest sample in the moving average of recompute time, as a power of 2 (1/8).
+     */
+    private static final int AVERAGE_SHIFT = 3;
+
+    private final CaffeineEntryExpirationCondition<K, V> delegate;
+
+    @Getter
+    private final double beta;
+
+    private final AtomicLong averageRecomputeNanos = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param delegate defines the nominal expiration
+     * @param beta     aggressiveness of early refresh, see {@link #DEFAULT_BETA}
+     */
+    @ConstraintArguments
+    public XFetchExpiry(CaffeineEntryExpirationCondition<K, V> delegate, double beta) {
+        this.delegate = checkNotNull(delegate, _XFetchExpiryArgumentsMeta.DELEGATE.name());
+        this.beta = check(beta, _XFetchExpiryArgumentsMeta.BETA.name()).positive().getValue();
+    }
+
+    /**
+     * Creates an instance with a fixed nominal TTL (like {@code expireAfterWrite}).
+     *
+     * @param timeToLive nominal TTL
+     * @param beta       aggressiveness of early refresh, see {@link #DEFAULT_BETA}
+     * @return expiry
+     */
+    @ConstraintArguments
+    public static <K, V> XFetchExpiry<K, V> ofTimeToLive(Duration timeToLive, double beta) {
+        check(timeToLive, _XFetchExpiryOfTimeToLiveArgumentsMeta.TIMETOLIVE.name())
+                .constraint(Duration::isPositive, "must be positive");
+        return new XFetchExpiry<>((key, value) -> Optional.of(Instant.now().plus(timeToLive)), beta);
+    }
+
+    /**
+     * Records how long it took to compute a value.
+     *
+     * @param nanos recompute time in nanoseconds, capped at {@link #MAX_RECOMPUTE_TIME}
+     */
+    public void recordRecomputeTime(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+
+        long cappedNanos = Math.min(nanos, MAX_RECOMPUTE_TIME.toNanos());
+
+        averageRecomputeNanos.accumulateAndGet(cappedNanos, (average, sample) -> (average == 0)
+                ? sample
+                : average + ((sample - average) >> AVERAGE_SHIFT));
+    }
+
+    /**
+     * Returns the moving average of recompute time.
+     *
+     * @return zero if nothing has been recorded yet
+     */
+    public Duration getAverageRecomputeTime() {
+        return Duration.ofNanos(averageRecomputeNanos.get());
+    }
+
+    /**
+     * Decides whether an entry having the given time left should be recomputed now.
+     *
+     * @param nanosLeft time left until nominal expiration
+     * @return {@code true} with probability growing as expiration nears and as recompute time grows
+     */
+    public boolean shouldRefreshEarly(long nanosLeft) {
+        long recomputeNanos = averageRecomputeNanos.get();
+
+        if ((recomputeNanos == 0) || (nanosLeft == Long.MAX_VALUE)) {
+            return false;
+        }
+
+        // -ln(U) is exponentially distributed; 1 - U avoids ln(0)
+        double gap = recomputeNanos * beta * -Math.log(1.0 - ThreadLocalRandom.current().nextDouble());
+        return gap >= nanosLeft;
+    }
+
+    @Override
+    public Optional<Instant> getExpirationInstant(K key, V value) {
+        return delegate.getExpirationInstant(key, value);
+    }
+
+    @Override
+    public long expireAfterCreate(K key, V value, long nanosElapsedSinceJmvStart) {
+        return delegate.expireAfterCreate(key, value, nanosElapsedSinceJmvStart);
+    }
+
+    @Override
+    public long expireAfterUpdate(K key, V value, long nanosElapsedSinceJmvStart, long currentTtlNanos) {
+        return delegate.expireAfterUpdate(key, value, nanosElapsedSinceJmvStart, currentTtlNanos);
+    }
+
+    @Override
+    public long expireAfterRead(K key, V value, long nanosElapsedSinceJmvStart, long currentTtlNanos) {
+        return delegate.expireAfterRead(key, value, nanosElapsedSinceJmvStart, currentTtlNanos);
+    }
+
+}
@@ -1,15 +1,18 @@
 package guru.nicks.commons.cache.domain;
 
+import jakarta.annotation.Nullable;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.Builder;
 import lombok.Value;
 import lombok.experimental.NonFinal;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
 import java.time.Duration;
@@ -95,12 +98,65 @@ public class CacheProperties {
                         .getValue());
 
         /**
-         * Each cache manager corresponds to a certain TTL.
+         * Each cache manager corresponds to a certain TTL. Ignored if a memory budget is set (see
+         * {@link #getMaxMemoryPerCacheManager()} and {@link #getMaxMemoryTotal()}).
          */
         @Positive
         @NotNull
         int maxEntriesPerCacheManager;
 
+        /**
+         * If set, cache managers are bounded by the estimated memory consumption (see
+         * {@code SerializedSizeWeigher}) instead of {@link #getMaxEntriesPerCacheManager()}, so caches holding big
+         * values can't blow the heap. Like the entry limit, Caffeine applies it to each cache of a cache manager.
+         */
+        @Nullable
+        DataSize maxMemoryPerCacheManager;
+
+        /**
+         * If set, shared by all caches of all in-memory cache managers (the default one and the ones for each TTL), see
+         * {@code MemoryBudget}. Each cache starts with an even share of it per cache manager (or with
+         * {@link #getMaxMemoryPerCacheManager()}, whichever is smaller), then the budget is redistributed every second,
+         * so busy caches get more memory than idle ones; on-heap caches may grow up to
+         * {@link #getMaxMemoryPerCacheManager()}, if it's set.
+         */
+        @Nullable
+        DataSize maxMemoryTotal;
+
+        /**
+         * If {@code true}, cache values are serialized and stored outside the Java heap (see {@code OffHeapCache}), so
+         * big caches don't make GC pauses longer; only keys and small index entries remain on the heap. Requires a
+         * memory budget (see {@link #getMaxMemoryPerCacheManager()} and {@link #getMaxMemoryTotal()}), which then
+         * limits off-heap memory. Mind {@code -XX:MaxDirectMemorySize}.
+         */
+        boolean offHeap;
+
+        /**
+         * If {@code true}, Caffeine-based cache managers record hit/miss/eviction statistics (exposed by Spring Boot
+         * Actuator and {@code CacheStatisticsRegistry}). Also enabled by {@code CacheStatisticsRegistry} settings.
+         */
+        boolean recordStats;
+
+        /**
+         * If set, negative results ({@code null}s and {@code Optional.empty()}, such as 'not found' lookups) are cached
+         * with this TTL (or with the TTL of the cache manager, whichever is shorter) instead of the regular one (see
+         * {@code NegativeResultExpiry}). Also switches Caffeine-based cache managers to {@code AsyncCache} mode, so
+         * concurrent loads of the same key are coalesced into a single backend call - for
+         * {@code @Cacheable(sync = true)} and {@code CompletableFuture}-returning methods. Ignored by off-heap caches
+         * (they coalesce loads anyway).
+         */
+        @Nullable
+        Duration negativeResultTimeToLive;
+
+        /**
+         * If positive, Caffeine-based cache managers let one reader recompute an entry ahead of its expiration, with a
+         * probability growing as expiration nears and as recompute time grows (see {@code XFetchExpiry}), so entries
+         * written together aren't recomputed together. Values above 1 make early refresh more aggressive. 0 (default)
+         * disables it.
+         */
+        @PositiveOrZero
+        double earlyExpirationBeta;
+
     }
 
     @Value
@@ -0,0 +1,51 @@
+package guru.nicks.commons.cache.domain;
+
+import guru.nicks.commons.cache.CacheStatisticsRegistry;
+
+import java.time.Duration;
+
+/**
+ * Snapshot of a cache registered in {@link CacheStatisticsRegistry}. Counters are zero if the cache doesn't record
+ * statistics (see {@link #recordingStats()}).
+ *
+ * @param name             cache name
+ * @param recordingStats   whether the cache records statistics
+ * @param estimatedSize    approximate number of entries
+ * @param hitCount         number of lookups which found a value
+ * @param missCount        number of lookups which found no value
+ * @param loadSuccessCount number of successful loads
+ * @param loadFailureCount number of failed loads (including loads which returned {@code null})
+ * @param totalLoadTime    time spent loading values
+ * @param evictionCount    number of entries evicted due to size or expiration
+ * @param evictionWeight   total weight of evicted entries (equals {@link #evictionCount()} for unweighted caches)
+ */
+public record CacheStatisticsSnapshot(
+
+        String name,
+        boolean recordingStats,
+        long estimatedSize,
+
+        long hitCount,
+        long missCount,
+
+        long loadSuccessCount,
+        long loadFailureCount,
+        Duration totalLoadTime,
+
+        long evictionCount,
+        long evictionWeight) {
+
+    /**
+     * Returns the ratio of hits to lookups.
+     *
+     * @return hit rate, 1 if there were no lookups (as in Caffeine)
+     */
+    public double hitRate() {
+        long requestCount = hitCount + missCount;
+
+        return (requestCount == 0)
+                ? 1.0
+                : (double) hitCount / requestCount;
+    }
+
+}
@@ -0,0 +1,101 @@
+package guru.nicks.commons.cache.domain;
+
+import guru.nicks.commons.cache.CompactCacheKeyGenerator;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable cache key created by {@link CompactCacheKeyGenerator}: method arguments (or their digests) with the hash
+ * code computed once, so lookups in hash-based caches don't recompute it. {@link #toString()} is only needed for
+ * logging and string-keyed stores, therefore it's computed lazily.
+ */
+public final class CompactCacheKey implements Serializable {
+
+    public static final CompactCacheKey EMPTY = new CompactCacheKey(new Object[0]);
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Object[] parts;
+    private final int hash;
+
+    /**
+     * Constructor. The array is not copied - the caller must not modify it afterwards.
+     *
+     * @param parts arguments or their digests
+     */
+    public CompactCacheKey(Object[] parts) {
+        this.parts = parts;
+        hash = Arrays.hashCode(parts);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+
+        return (other instanceof CompactCacheKey otherKey)
+                && (hash == otherKey.hash)
+                && Arrays.equals(parts, otherKey.parts);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Joins parts with {@link CacheConstants#TOPIC_DELIMITER}, like {@code ToStringJoiningCacheKeyGenerator} does.
+     *
+     * @return string representation
+     */
+    @Override
+    public String toString() {
+        return Arrays.stream(parts)
+                .map(part -> Objects.toString(part, ""))
+                .collect(Collectors.joining(CacheConstants.TOPIC_DELIMITER));
+    }
+
+    /**
+     * SHA-256 digest of a complex argument (split into four longs, most significant bits first). A cryptographic hash
+     * is used because arguments may come from untrusted input, and digests are compared instead of the arguments
+     * themselves: with a non-cryptographic hash, colliding arguments can be crafted to read each other's cached values.
+     *
+     * @param sha256Part1 SHA-256 bits 255..192
+     * @param sha256Part2 SHA-256 bits 191..128
+     * @param sha256Part3 SHA-256 bits 127..64
+     * @param sha256Part4 SHA-256 bits 63..0
+     */
+    public record Digest(
+
+            long sha256Part1,
+            long sha256Part2,
+            long sha256Part3,
+            long sha256Part4) implements Serializable {
+
+        /**
+         * Formats the digest the same way as {@link org.apache.commons.codec.binary.Hex#encodeHexString(byte[])} does.
+         *
+         * @return 64 lowercase hex characters
+         */
+        @Override
+        public String toString() {
+            HexFormat hexFormat = HexFormat.of();
+
+            return new StringBuilder(64)
+                    .append(hexFormat.toHexDigits(sha256Part1))
+                    .append(hexFormat.toHexDigits(sha256Part2))
+                    .append(hexFormat.toHexDigits(sha256Part3))
+                    .append(hexFormat.toHexDigits(sha256Part4))
+                    .toString();
+        }
+
+    }
+
+}
@@ -0,0 +1,30 @@
+package guru.nicks.commons.cache.domain;
+
+import guru.nicks.commons.cache.RefreshAheadValue;
+
+import java.time.Duration;
+
+/**
+ * Snapshot of {@link RefreshAheadValue} metrics. Under high concurrency, the values may be slightly inconsistent with
+ * each other because they're read one by one, without locking.
+ *
+ * @param refreshCount        number of successful refreshes
+ * @param failureCount        number of failed refreshes
+ * @param lastRefreshDuration duration of the most recent successful refresh ({@link Duration#ZERO} if none)
+ * @param maxRefreshDuration  maximum duration of successful refreshes
+ * @param avgRefreshDuration  average duration of successful refreshes
+ * @param lastLateness        how late (relative to its schedule) the most recent scheduled refresh started
+ * @param maxLateness         maximum lateness of scheduled refreshes
+ */
+public record RefreshStatistics(
+
+        long refreshCount,
+        long failureCount,
+
+        Duration lastRefreshDuration,
+        Duration maxRefreshDuration,
+        Duration avgRefreshDuration,
+
+        Duration lastLateness,
+        Duration maxLateness) {
+}
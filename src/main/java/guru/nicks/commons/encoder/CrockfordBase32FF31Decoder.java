@@ -0,0 +1,161 @@
+package guru.nicks.commons.encoder;
+
+import guru.nicks.commons.cache.CacheStatisticsRegistry;
+import guru.nicks.commons.utils.crypto.FpeUtils;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * Decrypts values generated by {@link CrockfordBase32FF31Supplier} back to original sequence numbers. Decryption means
+ * running FF3-1 (several AES rounds) and Crockford's Base32 decoding, so results for hot IDs (usually a small fraction
+ * of all IDs dominates the traffic) are kept in an optional bounded in-memory cache. Its eviction policy (W-TinyLFU)
+ * retains frequently requested IDs and is resistant to one-off scans.
+ * <p>
+ * Check digits (if any) added by {@link CrockfordBase32FF31Supplier} subclasses must be stripped by the caller before
+ * decoding.
+ *
+ * @see CrockfordBase32FF31Supplier#createDecoder(int)
+ */
+public class CrockfordBase32FF31Decoder {
+
+    private final FpeUtils.SequenceEncryptor sequenceEncryptor;
+
+    /**
+     * Keys are encrypted values, values are decrypted sequence numbers. {@code null} if caching is disabled.
+     */
+    @Nullable
+    private final Cache<String, Long> cache;
+
+    /**
+     * Constructor.
+     *
+     * @param sequenceEncryptor encryptor that has produced the values to decode
+     * @param maxCachedIds      max. number of decoded IDs to keep in RAM; 0 disables caching
+     */
+    @ConstraintArguments
+    public CrockfordBase32FF31Decoder(FpeUtils.SequenceEncryptor sequenceEncryptor, int maxCachedIds) {
+        this.sequenceEncryptor = checkNotNull(sequenceEncryptor,
+                _CrockfordBase32FF31DecoderArgumentsMeta.SEQUENCEENCRYPTOR.name());
+        check(maxCachedIds, _CrockfordBase32FF31DecoderArgumentsMeta.MAXCACHEDIDS.name()).positiveOrZero();
+
+        if (maxCachedIds > 0) {
+            cache = Caffeine.newBuilder()
+                    .maximumSize(maxCachedIds)
+                    .recordStats()
+                    .build();
+            CacheStatisticsRegistry.register(CrockfordBase32FF31Decoder.class.getSimpleName(), cache);
+        } else {
+            cache = null;
+        }
+    }
+
+    /**
+     * Decrypts and decodes the given value, possibly taking the result from cache.
+     *
+     * @param encryptedValue value created by {@link CrockfordBase32FF31Supplier#get()} (without check digits)
+     * @return original sequence number
+     * @throws IllegalArgumentException blank value or value not belonging to the alphabet
+     */
+    public long decode(String encryptedValue) {
+        if (cache == null) {
+            return decodeWithoutCache(encryptedValue);
+        }
+
+        // 'get' method may return null as per Caffeine specs, but never does in this particular case
+        //noinspection DataFlowIssue
+        return cache.get(encryptedValue, this::decodeWithoutCache);
+    }
+
+    /**
+     * Bulk version of {@link #decode(String)} meant for list endpoints which resolve many IDs at once. Cache misses are
+     * decoded in one batch, so the cache is accessed once for all the values instead of once per value.
+     *
+     * @param encryptedValues values to decode ({@code null} items are skipped, duplicates are decoded once)
+     * @return map (in the order of the input values) whose keys are encrypted values and values are sequence numbers
+     * @throws IllegalArgumentException any of the values is blank or doesn't belong to the alphabet
+     */
+    @ConstraintArguments
+    public Map<String, Long> decodeAll(Collection<String> encryptedValues) {
+        checkNotNull(encryptedValues, _CrockfordBase32FF31DecoderDecodeAllArgumentsMeta.ENCRYPTEDVALUES.name());
+
+        // pre-size to avoid rehashing (load factor is 0.75)
+        var result = LinkedHashMap.<String, Long>newLinkedHashMap(encryptedValues.size());
+
+        if (cache == null) {
+            for (String encryptedValue : encryptedValues) {
+                if (encryptedValue != null) {
+                    result.computeIfAbsent(encryptedValue, this::decodeWithoutCache);
+                }
+            }
+
+            return result;
+        }
+
+        var keys = encryptedValues.stream()
+                .filter(Objects::nonNull)
+                .toList();
+        Map<String, Long> cached = cache.getAll(keys, missingKeys -> {
+            var decoded = LinkedHashMap.<String, Long>newLinkedHashMap(missingKeys.size());
+
+            for (String missingKey : missingKeys) {
+                decoded.put(missingKey, decodeWithoutCache(missingKey));
+            }
+
+            return decoded;
+        });
+
+        // restore the original order - Caffeine doesn't promise to retain it
+        for (String key : keys) {
+            result.putIfAbsent(key, cached.get(key));
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns cache hit/miss/eviction statistics.
+     *
+     * @return statistics, or {@link CacheStats#empty()} if caching is disabled
+     */
+    public CacheStats getCacheStats() {
+        return (cache == null)
+                ? CacheStats.empty()
+                : cache.stats();
+    }
+
+    /**
+     * Returns the approximate number of cached IDs.
+     *
+     * @return number of cached IDs (0 if caching is disabled)
+     */
+    public long getCachedIdCount() {
+        return (cache == null)
+                ? 0
+                : cache.estimatedSize();
+    }
+
+    /**
+     * Decrypts the value (which yields a left-padded Crockford's Base32 string) and decodes it to a number.
+     *
+     * @param encryptedValue encrypted value
+     * @return sequence number
+     */
+    private long decodeWithoutCache(String encryptedValue) {
+        String decrypted = sequenceEncryptor.decrypt(encryptedValue);
+        // leading zeroes (padding) are skipped by the decoder
+        return CrockfordBase32SequenceEncoder.INSTANCE.decode(decrypted);
+    }
+
+}
@@ -68,4 +68,14 @@ public abstract class CrockfordBase32FF31Supplier implements Supplier<String> {
         return sequenceEncryptor.getNextEncrypted();
     }
 
+    /**
+     * Creates a decoder sharing the encryption parameters of this supplier.
+     *
+     * @param maxCachedIds max. number of decoded IDs to keep in RAM; 0 disables caching
+     * @return decoder
+     */
+    public CrockfordBase32FF31Decoder createDecoder(int maxCachedIds) {
+        return new CrockfordBase32FF31Decoder(sequenceEncryptor, maxCachedIds);
+    }
+
 }
@@ -0,0 +1,362 @@
+package guru.nicks.commons.utils;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import lombok.Getter;
+
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * Concurrency limit which adapts to the downstream (in the style of Netflix concurrency-limits) instead of being
+ * guessed: each completed call is a sample of latency and outcome, and the limit grows while the downstream copes and
+ * shrinks when it doesn't (see {@link Algorithm}). As a result, throughput approaches the real capacity of the
+ * downstream without overloading it.
+ * <p>
+ * Usage:
+ * <ul>
+ *  <li>as a guard around calls - {@link #get(Supplier)} (exceptions count as drops, except for interruption)</li>
+ *  <li>with explicit outcomes - {@link #acquire()} / {@link #tryAcquire()}, then one of the {@link Permit} methods,
+ *      for example {@link Permit#ignore()} for client errors which say nothing about the downstream's health</li>
+ *  <li>as the permit source of
+ *      {@link FutureUtils#getInParallel(java.util.Collection, AdaptiveConcurrencyLimiter,
+ *      FutureUtils.FailurePolicy, java.time.Duration)}</li>
+ * </ul>
+ * Thread-safe. Share one instance per downstream.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+    public static final int DEFAULT_MAX_LIMIT = 1000;
+
+    /**
+     * {@link Algorithm#AIMD} multiplies the limit by this value on drops.
+     */
+    private static final double AIMD_BACKOFF_RATIO = 0.9;
+
+    /**
+     * {@link Algorithm#VEGAS} forgets the min. latency after this many samples, so a permanent change of the
+     * downstream's latency (for example, after a deployment) is eventually accepted as the new normal.
+     */
+    private static final int VEGAS_PROBE_INTERVAL = 1000;
+
+    @Getter
+    private final Algorithm algorithm;
+
+    @Getter
+    private final int maxLimit;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+
+    // guarded by lock
+    private int limit;
+    private int inFlight;
+    private long minLatencyNanos;
+    private int samplesSinceProbe;
+
+    /**
+     * Creates an instance with {@link #DEFAULT_INITIAL_LIMIT} and {@link #DEFAULT_MAX_LIMIT}.
+     *
+     * @param algorithm how the limit is adjusted
+     */
+    public AdaptiveConcurrencyLimiter(Algorithm algorithm) {
+        this(algorithm, DEFAULT_INITIAL_LIMIT, DEFAULT_MAX_LIMIT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param algorithm    how the limit is adjusted
+     * @param initialLimit limit to start with
+     * @param maxLimit     the limit never exceeds this value (and never goes below 1)
+     */
+    @ConstraintArguments
+    public AdaptiveConcurrencyLimiter(Algorithm algorithm, int initialLimit, int maxLimit) {
+        this.algorithm = checkNotNull(algorithm, _AdaptiveConcurrencyLimiterArgumentsMeta.ALGORITHM.name());
+        this.maxLimit = check(maxLimit, _AdaptiveConcurrencyLimiterArgumentsMeta.MAXLIMIT.name())
+                .positive()
+                .getValue();
+        limit = check(initialLimit, _AdaptiveConcurrencyLimiterArgumentsMeta.INITIALLIMIT.name())
+                .betweenInclusive(1, maxLimit)
+                .getValue();
+    }
+
+    /**
+     * Returns the current limit.
+     *
+     * @return limit
+     */
+    public int getLimit() {
+        lock.lock();
+
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of permits currently acquired.
+     *
+     * @return number of calls in flight
+     */
+    public int getInFlight() {
+        lock.lock();
+
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for a permit.
+     *
+     * @return permit, must be released with one of its methods
+     * @throws InterruptedException interrupted while waiting
+     */
+    public Permit acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+
+        try {
+            while (inFlight >= limit) {
+                permitAvailable.await();
+            }
+
+            return new Permit(++inFlight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Acquires a permit if available right away - for callers which prefer rejecting calls (for example, with HTTP
+     * status 429) to queueing them.
+     *
+     * @return permit, must be released with one of its methods; empty if the limit has been reached
+     */
+    public Optional<Permit> tryAcquire() {
+        lock.lock();
+
+        try {
+            return (inFlight < limit)
+                    ? Optional.of(new Permit(++inFlight))
+                    : Optional.empty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for a permit, performs the call, and reports its latency and outcome: exceptions are drops, everything
+     * else is a success. Exceptions caused by interruption or cancellation (for example, of the sibling tasks of a
+     * failed one in {@link FutureUtils}) say nothing about the downstream, so they're ignored.
+     *
+     * @param call call to perform
+     * @param <T>  call result type
+     * @return call result
+     * @throws IllegalStateException interrupted while waiting for a permit
+     */
+    public <T> T get(Supplier<T> call) {
+        Permit permit;
+
+        try {
+            permit = acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Thread interrupted while acquiring permit: " + e.getMessage(), e);
+        }
+
+        T result;
+
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            if (isInterruption(e)) {
+                permit.ignore();
+            } else {
+                permit.drop();
+            }
+
+            throw e;
+        }
+
+        permit.succeed();
+        return result;
+    }
+
+    /**
+     * Tells if the call has failed because its thread was interrupted: the interruption flag may have been cleared by
+     * the exception thrower, therefore the causes are checked too.
+     */
+    private static boolean isInterruption(Throwable t) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+
+        return org.apache.commons.lang3.exception.ExceptionUtils.getThrowableList(t).stream()
+                .anyMatch(cause -> (cause instanceof InterruptedException)
+                        || (cause instanceof InterruptedIOException)
+                        || (cause instanceof ClosedByInterruptException)
+                        || (cause instanceof CancellationException));
+    }
+
+    private void release(Permit permit, long latencyNanos, Outcome outcome) {
+        lock.lock();
+
+        try {
+            inFlight--;
+            int oldLimit = limit;
+
+            if (outcome != Outcome.IGNORED) {
+                limit = Math.clamp(adjustLimit(permit.inFlightAtStart, latencyNanos, outcome == Outcome.DROPPED),
+                        1, maxLimit);
+            }
+
+            if (limit > oldLimit) {
+                permitAvailable.signalAll();
+            } else {
+                permitAvailable.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int adjustLimit(int inFlightAtStart, long latencyNanos, boolean dropped) {
+        return switch (algorithm) {
+            case AIMD -> adjustLimitAimd(inFlightAtStart, dropped);
+            case VEGAS -> adjustLimitVegas(inFlightAtStart, latencyNanos, dropped);
+        };
+    }
+
+    private int adjustLimitAimd(int inFlightAtStart, boolean dropped) {
+        if (dropped) {
+            return (int) (limit * AIMD_BACKOFF_RATIO);
+        }
+
+        // grow only if the limit is actually being used, otherwise it'd grow forever
+        return (inFlightAtStart * 2 >= limit)
+                ? limit + 1
+                : limit;
+    }
+
+    private int adjustLimitVegas(int inFlightAtStart, long latencyNanos, boolean dropped) {
+        if (++samplesSinceProbe >= VEGAS_PROBE_INTERVAL) {
+            samplesSinceProbe = 0;
+            minLatencyNanos = 0;
+        }
+
+        if ((minLatencyNanos == 0) || (latencyNanos < minLatencyNanos)) {
+            minLatencyNanos = Math.max(1, latencyNanos);
+        }
+
+        int step = Math.max(1, (int) Math.log10(limit));
+
+        if (dropped) {
+            return limit - step;
+        }
+
+        if (inFlightAtStart * 2 < limit) {
+            return limit;
+        }
+
+        // estimated number of calls queued in the downstream: the share of latency beyond the min. one
+        double queueSize = limit * (1 - ((double) minLatencyNanos / Math.max(1, latencyNanos)));
+
+        if (queueSize <= step) {
+            return limit + (6 * step);
+        }
+
+        if (queueSize < 3 * step) {
+            return limit + step;
+        }
+
+        return (queueSize > 6 * step)
+                ? limit - step
+                : limit;
+    }
+
+    /**
+     * How the limit is adjusted.
+     */
+    public enum Algorithm {
+
+        /**
+         * Additive increase, multiplicative decrease: +1 on each success (while the limit is in use), -10% on each
+         * drop. Reacts to errors only, so suits downstreams which shed load explicitly (timeouts, 503, 429).
+         */
+        AIMD,
+
+        /**
+         * TCP Vegas: estimates the downstream queue from how much the latency exceeds the min. one observed, grows the
+         * limit while the queue is short and shrinks it when the queue is long or calls fail. Reacts to latency before
+         * errors appear.
+         */
+        VEGAS
+
+    }
+
+    private enum Outcome {
+        SUCCEEDED,
+        DROPPED,
+        IGNORED
+    }
+
+    /**
+     * Acquired permit. Exactly one of its methods must be called once the call completes; subsequent calls are
+     * ignored.
+     */
+    public final class Permit {
+
+        private final int inFlightAtStart;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * Releases the permit reporting that the call has succeeded; its latency is taken into account.
+         */
+        public void succeed() {
+            release(Outcome.SUCCEEDED);
+        }
+
+        /**
+         * Releases the permit reporting that the call has failed due to overload (for example, timed out or rejected
+         * by the downstream).
+         */
+        public void drop() {
+            release(Outcome.DROPPED);
+        }
+
+        /**
+         * Releases the permit without adjusting the limit (for example, the call failed due to invalid input).
+         */
+        public void ignore() {
+            release(Outcome.IGNORED);
+        }
+
+        private void release(Outcome outcome) {
+            // not 'synchronized': the limiter's lock is taken inside, which would pin virtual threads
+            if (released.compareAndSet(false, true)) {
+                AdaptiveConcurrencyLimiter.this.release(this, System.nanoTime() - startNanos, outcome);
+            }
+        }
+
+    }
+
+}
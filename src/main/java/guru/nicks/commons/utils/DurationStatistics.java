@@ -1,59 +1,242 @@
 package guru.nicks.commons.utils;
 
+import guru.nicks.commons.cache.CacheStatisticsRegistry;
 import guru.nicks.commons.utils.text.TextUtils;
 import guru.nicks.commons.utils.text.TimeUtils;
 
 import am.ik.yavi.meta.ConstraintArguments;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.base.Suppliers;
 import jakarta.annotation.Nullable;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
 
 /**
- * Accumulates the total number of calls and execution time in a lock-free thread-safe manner. Under high concurrency,
- * the updates may be deferred, i.e. {@link #accumulateMillis(String, long)} may report outdated values.
+ * Accumulates the total number of calls, execution time, and its percentiles (see {@link LogLinearHistogram}) in a
+ * lock-free thread-safe manner. Under high concurrency, the updates may be deferred, i.e.
+ * {@link #accumulateMillis(String, long)} may report outdated values.
+ * <p>
+ * Totals and percentiles cover the whole retention period of a key, which blends old and current behavior. To see
+ * recent behavior, enable sliding windows (see {@link SlidingWindowStatistics}) and use
+ * {@link DurationAccumulator#getRecent(Duration)}.
+ * <p>
+ * Keys such as {@code GET /users/123} make the number of keys unbounded. To keep it under control, pass a key
+ * normalizer (for example, {@link UriTemplateNormalizer}) and optionally track the most frequent keys with
+ * {@link SpaceSavingSketch} - unlike accumulators, it doesn't lose them when {@code maxKeys} is exceeded or the
+ * retention period passes (see {@link #getHeavyHitters()}). Accumulators of the keys it reports aren't evicted when
+ * {@code maxKeys} is exceeded (only when the retention period passes), so the statistics of the most frequent keys are
+ * kept while a flood of rare keys comes and goes.
  */
-@RequiredArgsConstructor
 @Slf4j
 public class DurationStatistics {
 
     /**
-     * Keys are request URIs.
+     * Windows reported by {@link #accumulateMillis(String, long)} if sliding windows are enabled.
+     */
+    public static final List<Duration> RECENT_WINDOWS = List.of(
+            Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofMinutes(15));
+
+    /**
+     * Each {@link Recorder} looks its accumulator up once per this many calls: otherwise Caffeine would see the key as
+     * unused and evict it first, and the expiration of the accumulator would be noticed only after the removal
+     * listener has run (which happens asynchronously, possibly much later). The calls made in between are offered to
+     * the heavy hitters sketch at the same time, as one weighted occurrence.
+     */
+    private static final int RECORDER_LOOKUP_INTERVAL = 16;
+
+    /**
+     * How long the keys reported by {@link SpaceSavingSketch} are reused by the eviction listener before they're merged
+     * from its stripes again.
+     */
+    private static final long HEAVY_HITTER_KEYS_TTL_MILLIS = 1000;
+
+    /**
+     * Keys are normalized request URIs.
      */
     private final Cache<String, DurationAccumulator> cache;
 
     private final String ttlAsWords;
 
+    private final boolean slidingWindows;
+
+    private final Function<String, DurationAccumulator> accumulatorCreator;
+
+    private final UnaryOperator<String> keyNormalizer;
+
+    @Nullable
+    private final SpaceSavingSketch<String> heavyHitters;
+
+    /**
+     * Keys whose accumulators survive size-based eviction; empty if there are as many heavy hitters as {@code maxKeys}
+     * (otherwise they'd keep evicting each other forever).
+     */
+    private final Supplier<Set<String>> protectedKeys;
+
     /**
      * To resist DoS attacks and a big number of legitimate {@code GET /something/ID} request URIs, the number of
      * request URIs whose statistics is retained (in RAM) and the retention period are limited. Storing more entries
-     * means evicting old (presumably least frequently * used) ones.
+     * means evicting old (presumably least frequently used) ones. See also
+     * {@link #DurationStatistics(int, Duration, boolean, UnaryOperator, int)}.
      *
      * @param maxKeys         the maximum number of, for example, unique request URIs to retain in RAM
      * @param retentionPeriod time period for keeping the statistics in RAM
      */
-    @ConstraintArguments
     public DurationStatistics(int maxKeys, Duration retentionPeriod) {
+        this(maxKeys, retentionPeriod, false);
+    }
+
+    /**
+     * Same as {@link #DurationStatistics(int, Duration)}, but optionally also keeps statistics of the last
+     * {@link #RECENT_WINDOWS} for each key. Sliding windows take much more memory per key (up to
+     * {@link SlidingWindowStatistics#DEFAULT_SLOT_COUNT} histograms), so consider a lower {@code maxKeys}.
+     *
+     * @param maxKeys         the maximum number of, for example, unique request URIs to retain in RAM
+     * @param retentionPeriod time period for keeping the statistics in RAM
+     * @param slidingWindows  whether to keep statistics of recent calls
+     */
+    public DurationStatistics(int maxKeys, Duration retentionPeriod, boolean slidingWindows) {
+        this(maxKeys, retentionPeriod, slidingWindows, UnaryOperator.identity(), 0);
+    }
+
+    /**
+     * Same as {@link #DurationStatistics(int, Duration, boolean)}, but also normalizes keys and optionally tracks the
+     * most frequent ones.
+     *
+     * @param maxKeys             the maximum number of, for example, unique request URIs to retain in RAM
+     * @param retentionPeriod     time period for keeping the statistics in RAM
+     * @param slidingWindows      whether to keep statistics of recent calls
+     * @param keyNormalizer       applied to each key before anything else, for example
+     *                            {@link UriTemplateNormalizer#INSTANCE}
+     * @param heavyHitterCapacity how many most frequent keys to track (see {@link SpaceSavingSketch}), 0 to disable
+     */
+    @ConstraintArguments
+    public DurationStatistics(int maxKeys, Duration retentionPeriod, boolean slidingWindows,
+            UnaryOperator<String> keyNormalizer, int heavyHitterCapacity) {
         check(maxKeys, _DurationStatisticsArgumentsMeta.MAXKEYS.name()).positiveOrZero();
         check(retentionPeriod, _DurationStatisticsArgumentsMeta.RETENTIONPERIOD.name())
                 .constraint(Duration::isPositive, "must be positive");
+        this.keyNormalizer = checkNotNull(keyNormalizer, _DurationStatisticsArgumentsMeta.KEYNORMALIZER.name());
+        check(heavyHitterCapacity, _DurationStatisticsArgumentsMeta.HEAVYHITTERCAPACITY.name()).positiveOrZero();
 
-        cache = Caffeine.newBuilder()
+        cache = CacheStatisticsRegistry.build(DurationStatistics.class.getSimpleName(), Caffeine.newBuilder()
                 .maximumSize(maxKeys)
-                .expireAfterWrite(retentionPeriod)
-                .build();
+                // counted from the creation of an accumulator, so putting it back (see onRemoval) doesn't prolong it
+                .<String, DurationAccumulator>expireAfter(Expiry.creating((key, accumulator) -> {
+                    Duration timeLeft = retentionPeriod.minusNanos(System.nanoTime() - accumulator.createdNanos);
+                    return timeLeft.isNegative()
+                            ? Duration.ZERO
+                            : timeLeft;
+                }))
+                .removalListener(this::onRemoval));
 
         ttlAsWords = TimeUtils.humanFormatDuration(retentionPeriod);
+        this.slidingWindows = slidingWindows;
+        accumulatorCreator = key -> new DurationAccumulator(slidingWindows);
+        heavyHitters = (heavyHitterCapacity > 0)
+                ? new SpaceSavingSketch<>(heavyHitterCapacity)
+                : null;
+        protectedKeys = ((heavyHitterCapacity > 0) && (heavyHitterCapacity < maxKeys))
+                ? Suppliers.memoizeWithExpiration(this::findHeavyHitterKeys, HEAVY_HITTER_KEYS_TTL_MILLIS,
+                        TimeUnit.MILLISECONDS)
+                : Set::of;
+    }
+
+    /**
+     * Returns the most frequent (normalized) keys recorded since the creation of this object, if tracking them is
+     * enabled (see {@link #DurationStatistics(int, Duration, boolean, UnaryOperator, int)}).
+     *
+     * @return keys with their numbers of calls, the most frequent first; empty list if tracking is disabled
+     */
+    public List<SpaceSavingSketch.HeavyHitter<String>> getHeavyHitters() {
+        return (heavyHitters == null)
+                ? List.of()
+                : heavyHitters.getHeavyHitters();
+    }
+
+    /**
+     * Returns the accumulator of the given key without creating it.
+     *
+     * @param key for example, a request URI ({@code null} is treated as an empty string)
+     * @return optional accumulator
+     */
+    public Optional<DurationAccumulator> findAccumulator(@Nullable String key) {
+        return Optional.ofNullable(cache.getIfPresent(normalize(key)));
+    }
+
+    /**
+     * Returns a handle for recording durations of the given key without looking it up on every call. The handle is
+     * thread-safe and may be kept, for example, in a field; if the key is evicted from the statistics or its retention
+     * period passes (see {@link #DurationStatistics(int, Duration)}), the handle starts a new accumulator.
+     *
+     * @param key for example, a request URI ({@code null} is treated as an empty string)
+     * @return recorder
+     */
+    public Recorder recorder(@Nullable String key) {
+        String normalizedKey = normalize(key);
+        return new Recorder(normalizedKey, getOrCreateAccumulator(normalizedKey));
     }
 
     /**
-     * Updates statistics for the given request URI.
+     * Updates statistics for the given key without formatting them (unlike {@link #accumulateMillis(String, long)}).
+     * For frequently used keys, {@link #recorder(String)} is even cheaper.
+     *
+     * @param key    for example, a request URI ({@code null} is treated as an empty string)
+     * @param millis milliseconds to add to the accumulator (ignored if negative)
+     */
+    public void recordMillis(@Nullable String key, long millis) {
+        String normalizedKey = normalize(key);
+        countCall(normalizedKey);
+        getOrCreateAccumulator(normalizedKey).record(millis);
+    }
+
+    /**
+     * Returns statistics of the given key.
+     *
+     * @param key for example, a request URI ({@code null} is treated as an empty string)
+     * @return empty if nothing has been recorded for the key (or it has been evicted)
+     */
+    public Optional<Snapshot> snapshot(@Nullable String key) {
+        return findAccumulator(key)
+                .map(DurationAccumulator::snapshot)
+                .filter(snapshot -> snapshot.totalCalls() > 0);
+    }
+
+    /**
+     * Formats statistics of the given key, for example for logging.
+     *
+     * @param key for example, a request URI ({@code null} is treated as an empty string)
+     * @return statistics in a readable form, or '' if no statistics are available at the moment
+     */
+    public String format(@Nullable String key) {
+        return findAccumulator(key)
+                .map(this::format)
+                .orElse("");
+    }
+
+    /**
+     * Updates statistics for the given request URI and formats them. If the result is not always needed, consider
+     * {@link #recordMillis(String, long)} or {@link #recorder(String)} plus {@link #format(String)}.
+     * <p>
+     * WARNING: unlike recording, formatting isn't cheap. It reads every histogram bucket up to the max. value (about 32
+     * per power of 2, see {@link LogLinearHistogram#getUsedBucketCount()}), and with sliding windows - those of every
+     * slot, once per each of {@link #RECENT_WINDOWS}. For keys called at a high rate, record on each call and format
+     * only occasionally.
      *
      * @param key    for example, a request URI ({@code null} is treated as an empty string)
      * @param millis milliseconds to add to the accumulator (ignored if negative)
@@ -61,51 +244,248 @@ public class DurationStatistics {
      *         statistics are available at the moment
      */
     public String accumulateMillis(@Nullable String key, long millis) {
-        // strictly speaking, blank values must be checked too, but it takes more time and it's not worth it
-        if (key == null) {
-            key = "";
+        String normalizedKey = normalize(key);
+        countCall(normalizedKey);
+        DurationAccumulator accumulator = getOrCreateAccumulator(normalizedKey);
+        accumulator.record(millis);
+        return format(accumulator);
+    }
+
+    /**
+     * Puts accumulators of heavy hitters back if they've been evicted due to {@code maxKeys} (another key is evicted
+     * instead), and lets recorders know they need a new accumulator otherwise.
+     */
+    private void onRemoval(@Nullable String key, @Nullable DurationAccumulator accumulator, RemovalCause cause) {
+        if ((key == null) || (accumulator == null)) {
+            return;
         }
 
-        DurationAccumulator accumulator = cache.get(key, theKey -> new DurationAccumulator());
-        double averageMillis = accumulator.accumulateMillis(millis);
+        if ((cause == RemovalCause.SIZE) && protectedKeys.get().contains(key)
+                && (cache.asMap().putIfAbsent(key, accumulator) == null)) {
+            return;
+        }
+
+        accumulator.evicted = true;
+    }
+
+    private Set<String> findHeavyHitterKeys() {
+        return getHeavyHitters()
+                .stream()
+                .map(SpaceSavingSketch.HeavyHitter::item)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private DurationAccumulator getOrCreateAccumulator(String key) {
+        // not a lambda - capturing 'this' in it would allocate on each call
+        return cache.get(key, accumulatorCreator);
+    }
+
+    private void countCall(String normalizedKey) {
+        if (heavyHitters != null) {
+            heavyHitters.offer(normalizedKey);
+        }
+    }
+
+    private void countCalls(String normalizedKey, int calls) {
+        if (heavyHitters != null) {
+            heavyHitters.offer(normalizedKey, calls);
+        }
+    }
+
+    private String format(DurationAccumulator accumulator) {
+        Snapshot snapshot = accumulator.snapshot();
 
-        // nothing to format because no data accumulated (despite the increment above; accumulation is asynchronous)
-        if (averageMillis < 0) {
+        // nothing to format because no data accumulated (accumulation is asynchronous)
+        if (snapshot.totalCalls() <= 0) {
             return "";
         }
 
         // use StringBuilder with pre-allocated capacity instead of String.format for better performance under high load
-        // (max. capacity: max. long (19) + fixed text (30) + magnitude text (30) + ttlAsWords length)
-        return new StringBuilder(80)
-                .append(Math.round(averageMillis))
-                .append("ms average after ")
-                .append(TextUtils.getMagnitudeOfCount(accumulator.getTotalCalls()))
+        // (max. capacity: 6 longs (6 * 19) + fixed text (70) + magnitude text (30) + ttlAsWords length + recent stats)
+        var builder = new StringBuilder(300)
+                .append(Math.round(snapshot.averageMillis()))
+                .append("ms average (p50 ")
+                .append(snapshot.p50Millis())
+                .append("ms, p90 ")
+                .append(snapshot.p90Millis())
+                .append("ms, p99 ")
+                .append(snapshot.p99Millis())
+                .append("ms, p99.9 ")
+                .append(snapshot.p999Millis())
+                .append("ms, max ")
+                .append(snapshot.maxMillis())
+                .append("ms) after ")
+                .append(TextUtils.getMagnitudeOfCount(snapshot.totalCalls()))
                 .append(" calls during past ")
-                .append(ttlAsWords)
-                .toString();
+                .append(ttlAsWords);
+
+        if (slidingWindows) {
+            appendRecent(builder, accumulator);
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Appends, for example, '; last 1/5/15 minutes: 12/15/14ms average, 80/95/90ms p99'.
+     */
+    private static void appendRecent(StringBuilder builder, DurationAccumulator accumulator) {
+        var snapshots = new SlidingWindowStatistics.Snapshot[RECENT_WINDOWS.size()];
+        builder.append("; last ");
+
+        for (int i = 0; i < snapshots.length; i++) {
+            snapshots[i] = accumulator.getRecent(RECENT_WINDOWS.get(i)).orElseThrow();
+            builder.append((i == 0) ? "" : "/").append(RECENT_WINDOWS.get(i).toMinutes());
+        }
+
+        builder.append(" minutes: ");
+
+        for (int i = 0; i < snapshots.length; i++) {
+            builder.append((i == 0) ? "" : "/").append(Math.round(snapshots[i].average()));
+        }
+
+        builder.append("ms average, ");
+
+        for (int i = 0; i < snapshots.length; i++) {
+            builder.append((i == 0) ? "" : "/").append(snapshots[i].p99());
+        }
+
+        builder.append("ms p99");
+    }
+
+    private String normalize(@Nullable String key) {
+        // strictly speaking, blank values must be checked too, but it takes more time and it's not worth it
+        return (key == null)
+                ? ""
+                : keyNormalizer.apply(key);
     }
 
     /**
-     * Accumulates the total number of calls and the total time spent in a lock-free thread-safe manner. For further
-     * information, see {@link #accumulateMillis(long)}.
+     * Statistics of a key.
+     *
+     * @param totalCalls    number of calls
+     * @param totalMillis   total time spent
+     * @param averageMillis average time, -1 if there were no calls
+     * @param p50Millis     median time
+     * @param p90Millis     90th percentile
+     * @param p99Millis     99th percentile
+     * @param p999Millis    99.9th percentile
+     * @param maxMillis     max. time
+     */
+    public record Snapshot(long totalCalls, long totalMillis, double averageMillis,
+            long p50Millis, long p90Millis, long p99Millis, long p999Millis, long maxMillis) {
+    }
+
+    /**
+     * Records durations of one key (see {@link #recorder(String)}): an accumulator lookup and a heavy hitters update
+     * only once per {@link #RECORDER_LOOKUP_INTERVAL} calls, and no allocations unless the key has been evicted. Hence
+     * the heavy hitters sketch doesn't see the last (fewer than {@link #RECORDER_LOOKUP_INTERVAL}) calls yet.
+     */
+    public final class Recorder {
+
+        private final String key;
+        private volatile DurationAccumulator accumulator;
+
+        /**
+         * Not synchronized: a lost update only shifts the next lookup a bit and undercounts the key in the heavy
+         * hitters sketch by a call.
+         */
+        private int callsSinceLookup;
+
+        private Recorder(String key, DurationAccumulator accumulator) {
+            this.key = key;
+            this.accumulator = accumulator;
+        }
+
+        /**
+         * Updates statistics.
+         *
+         * @param millis milliseconds to add to the accumulator (ignored if negative)
+         */
+        public void recordMillis(long millis) {
+            DurationAccumulator current = accumulator;
+
+            int calls = ++callsSinceLookup;
+
+            // the lookup also tells Caffeine the key is in use, and returns a new accumulator if the old one expired
+            if (current.evicted || (calls >= RECORDER_LOOKUP_INTERVAL)) {
+                callsSinceLookup = 0;
+                countCalls(key, calls);
+                current = getOrCreateAccumulator(key);
+                accumulator = current;
+            }
+
+            current.record(millis);
+        }
+
+        /**
+         * Formats statistics, see {@link DurationStatistics#format(String)}.
+         *
+         * @return statistics in a readable form, or '' if no statistics are available at the moment
+         */
+        public String format() {
+            return DurationStatistics.this.format(accumulator);
+        }
+
+    }
+
+    /**
+     * Accumulates the total number of calls, the total time spent, and the distribution of times (for percentiles) in a
+     * lock-free thread-safe manner. For further information, see {@link #accumulateMillis(long)}.
      */
-    @RequiredArgsConstructor
     public static class DurationAccumulator {
 
         /**
-         * Number of calls. The only way to update and read it is {@link #accumulateMillis(long)}. Should NOT be treated
-         * as an exact value because the underlying framework defers updates under a high concurrent load. See also edge
-         * cases described in {@link #accumulateWithLongLimit(long, long)}.
+         * Number of calls. The only way to update it is {@link #record(long)}. Should NOT be treated as an exact value
+         * because the underlying framework defers updates under a high concurrent load. See also edge cases described
+         * in {@link #accumulateWithLongLimit(long, long)}.
          */
         private final LongAccumulator totalCalls = new LongAccumulator(this::accumulateWithLongLimit, 0);
 
         /**
-         * Total time spent. The only way to update and read it is {@link #accumulateMillis(long)}. Should NOT be
+         * Total time spent. The only way to update it is {@link #record(long)}. Should NOT be
          * treated as an exact value because the underlying framework defers updates under a high concurrent load.  See
          * also edge cases described in {@link #accumulateWithLongLimit(long, long)}.
          */
         private final LongAccumulator totalMillis = new LongAccumulator(this::accumulateWithLongLimit, 0);
 
+        /**
+         * Distribution of times, for percentiles. Takes at most {@link LogLinearHistogram#BUCKET_COUNT} buckets, which
+         * matters because there may be up to {@code maxKeys} accumulators.
+         */
+        private final LogLinearHistogram histogram = new LogLinearHistogram();
+
+        @Nullable
+        private final SlidingWindowStatistics recent;
+
+        /**
+         * {@link System#nanoTime()} of creation; the retention period in {@link DurationStatistics} starts then.
+         */
+        private final long createdNanos = System.nanoTime();
+
+        /**
+         * Set when the accumulator is evicted from {@link DurationStatistics}, so {@link Recorder}s stop using it.
+         */
+        private volatile boolean evicted;
+
+        /**
+         * Creates an accumulator without sliding windows.
+         */
+        public DurationAccumulator() {
+            this(false);
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param slidingWindows whether to keep statistics of recent calls (see {@link SlidingWindowStatistics})
+         */
+        public DurationAccumulator(boolean slidingWindows) {
+            recent = slidingWindows
+                    ? new SlidingWindowStatistics()
+                    : null;
+        }
+
         /**
          * Returns the total number of calls accumulated. Should NOT be treated as an exact value because the underlying
          * framework defers updates under a high concurrent load.
@@ -126,6 +506,38 @@ public class DurationStatistics {
             return totalMillis.get();
         }
 
+        /**
+         * Returns the time which the given percent of calls took less than or equal to. Its relative error is at most
+         * {@code 1 / LogLinearHistogram.SUB_BUCKET_COUNT}.
+         *
+         * @param percentile percentile, for example 99.9
+         * @return time in milliseconds, 0 if no calls have been accumulated
+         */
+        public long getPercentileMillis(double percentile) {
+            return histogram.getValueAtPercentile(percentile);
+        }
+
+        /**
+         * Returns the longest time accumulated.
+         *
+         * @return time in milliseconds, 0 if no calls have been accumulated
+         */
+        public long getMaxMillis() {
+            return histogram.getMax();
+        }
+
+        /**
+         * Returns statistics of recent calls.
+         *
+         * @param window window duration, for example one of {@link #RECENT_WINDOWS}; rounded up to whole minutes, plus
+         *               the current minute
+         * @return empty if sliding windows are disabled
+         */
+        public Optional<SlidingWindowStatistics.Snapshot> getRecent(Duration window) {
+            return Optional.ofNullable(recent)
+                    .map(statistics -> statistics.getSnapshot(window));
+        }
+
         /**
          * Calculates the average execution time per call based on the accumulated total time and total number of
          * calls.
@@ -155,12 +567,45 @@ public class DurationStatistics {
          * @return the result of {@link #getAverageMillis()} with caveats described above
          */
         public double accumulateMillis(long millis) {
+            record(millis);
+            return getAverageMillis();
+        }
+
+        /**
+         * Same as {@link #accumulateMillis(long)}, but doesn't calculate the average.
+         *
+         * @param millis milliseconds to add (ignored if negative)
+         */
+        public void record(long millis) {
             if (millis >= 0) {
                 totalCalls.accumulate(1L);
                 totalMillis.accumulate(millis);
+                histogram.record(millis);
+
+                if (recent != null) {
+                    recent.record(millis);
+                }
             }
+        }
 
-            return getAverageMillis();
+        /**
+         * Collects the current statistics. Percentiles are calculated from one pass over the histogram buckets up to
+         * the max. value (see {@link LogLinearHistogram#getUsedBucketCount()}), so the cost depends on the magnitude
+         * of the max. value rather than on {@link LogLinearHistogram#BUCKET_COUNT}.
+         *
+         * @return statistics
+         */
+        public Snapshot snapshot() {
+            long max = histogram.getMax();
+            var bucketCounts = new long[histogram.getUsedBucketCount()];
+            histogram.addBucketCountsTo(bucketCounts);
+
+            return new Snapshot(getTotalCalls(), getTotalMillis(), getAverageMillis(),
+                    LogLinearHistogram.getValueAtPercentile(bucketCounts, max, 50),
+                    LogLinearHistogram.getValueAtPercentile(bucketCounts, max, 90),
+                    LogLinearHistogram.getValueAtPercentile(bucketCounts, max, 99),
+                    LogLinearHistogram.getValueAtPercentile(bucketCounts, max, 99.9),
+                    max);
         }
 
         /**
@@ -1,20 +1,42 @@
 package guru.nicks.commons.utils;
 
+import jakarta.annotation.Nullable;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.slf4j.MDC;
 
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Future-related utility methods.
@@ -109,6 +131,214 @@ public class FutureUtils {
         return TransformUtils.toList(futures, CompletableFuture::join);
     }
 
+    /**
+     * Structured variant of {@link #getInParallel(Collection, int)}: the tasks run in virtual threads owned by this
+     * call, each one acquiring its permit in its own thread (so submission doesn't block), and no task outlives the
+     * call. Depending on the policy, the first failure may cancel the remaining tasks (by interrupting them) instead of
+     * waiting for them. When the timeout expires, the remaining tasks are cancelled too.
+     * <p>
+     * Cancelled tasks are awaited until they react to interruption, so tasks ignoring it delay the return.
+     *
+     * @param tasks              tasks to run
+     * @param maxConcurrentTasks max. number of concurrent (parallel) tasks
+     * @param failurePolicy      what to do when a task fails
+     * @param timeout            max. time to wait for all the tasks
+     * @param <T>                task result type
+     * @return results of the tasks - in the same order as in the input collection
+     * @throws IllegalArgumentException the task limit or the timeout is not positive (only if the task list is not
+     *                                  empty)
+     * @throws CompletionException      a task has failed (it's the cause; failures of other tasks, if collected, are
+     *                                  suppressed exceptions), or the timeout has expired ({@link TimeoutException} is
+     *                                  the cause)
+     */
+    public static <T> List<T> getInParallel(Collection<Supplier<T>> tasks, int maxConcurrentTasks,
+            FailurePolicy failurePolicy, Duration timeout) {
+        // early return for speedup
+        if (CollectionUtils.isEmpty(tasks)) {
+            return List.of();
+        }
+
+        if (maxConcurrentTasks <= 0) {
+            throw new IllegalArgumentException("Max. number of concurrent tasks should be positive");
+        }
+
+        var semaphore = new Semaphore(maxConcurrentTasks);
+
+        return getInParallel(tasks, task -> {
+            semaphore.acquire();
+
+            try {
+                return task.get();
+            } finally {
+                semaphore.release();
+            }
+        }, failurePolicy, timeout);
+    }
+
+    /**
+     * Same as {@link #getInParallel(Collection, int, FailurePolicy, Duration)}, but the number of concurrent tasks is
+     * limited by an {@link AdaptiveConcurrencyLimiter} (task failures count as drops, but tasks cancelled due to
+     * {@link FailurePolicy#FAIL_FAST} or the timeout don't), so it doesn't have to be guessed for each downstream.
+     * Share the limiter between calls to the same downstream to let it learn.
+     *
+     * @param tasks         tasks to run
+     * @param limiter       concurrency limiter
+     * @param failurePolicy what to do when a task fails
+     * @param timeout       max. time to wait for all the tasks
+     * @param <T>           task result type
+     * @return results of the tasks - in the same order as in the input collection
+     * @throws IllegalArgumentException the timeout is not positive (only if the task list is not empty)
+     * @throws CompletionException      see {@link #getInParallel(Collection, int, FailurePolicy, Duration)}
+     */
+    public static <T> List<T> getInParallel(Collection<Supplier<T>> tasks, AdaptiveConcurrencyLimiter limiter,
+            FailurePolicy failurePolicy, Duration timeout) {
+        // early return for speedup
+        if (CollectionUtils.isEmpty(tasks)) {
+            return List.of();
+        }
+
+        Objects.requireNonNull(limiter, "limiter");
+        return getInParallel(tasks, limiter::get, failurePolicy, timeout);
+    }
+
+    private static <T> List<T> getInParallel(Collection<Supplier<T>> tasks, Guard<T> guard,
+            FailurePolicy failurePolicy, Duration timeout) {
+        Objects.requireNonNull(failurePolicy, "failurePolicy");
+        long deadlineNanos = toDeadlineNanos(timeout);
+
+        try (ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                var completionService = new ExecutorCompletionService<T>(scope);
+                List<Future<T>> futures = submitAll(completionService, tasks, guard);
+                CompletionException failure = null;
+
+                for (int i = 0; i < futures.size(); i++) {
+                    Future<T> future = takeCompleted(completionService, deadlineNanos);
+
+                    if (future.state() != Future.State.SUCCESS) {
+                        failure = addFailure(failure, future);
+
+                        if (failurePolicy == FailurePolicy.FAIL_FAST) {
+                            throw failure;
+                        }
+                    }
+                }
+
+                if (failure != null) {
+                    throw failure;
+                }
+
+                // collect results in the order of task submission (caller may depend on that)
+                return TransformUtils.toList(futures, Future::resultNow);
+            } catch (RuntimeException e) {
+                // cancel the remaining tasks; close() then awaits their termination
+                scope.shutdownNow();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Runs the tasks in parallel and returns the result of the first one to succeed, cancelling the others (by
+     * interrupting them) - for example, to query several replicas and take the fastest response. Cancelled tasks are
+     * awaited until they react to interruption.
+     *
+     * @param tasks   tasks to run
+     * @param timeout max. time to wait for a successful result
+     * @param <T>     task result type
+     * @return result of the first successful task
+     * @throws IllegalArgumentException the task list is empty or the timeout is not positive
+     * @throws CompletionException      all tasks have failed (the first failure is the cause, the others are suppressed
+     *                                  exceptions), or the timeout has expired ({@link TimeoutException} is the cause)
+     */
+    public static <T> T getFirstSuccessful(Collection<Supplier<T>> tasks, Duration timeout) {
+        if (CollectionUtils.isEmpty(tasks)) {
+            throw new IllegalArgumentException("Tasks should not be empty");
+        }
+
+        long deadlineNanos = toDeadlineNanos(timeout);
+
+        try (ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                var completionService = new ExecutorCompletionService<T>(scope);
+                List<Future<T>> futures = submitAll(completionService, tasks, Supplier::get);
+                CompletionException failure = null;
+
+                for (int i = 0; i < futures.size(); i++) {
+                    Future<T> future = takeCompleted(completionService, deadlineNanos);
+
+                    if (future.state() == Future.State.SUCCESS) {
+                        scope.shutdownNow();
+                        return future.resultNow();
+                    }
+
+                    failure = addFailure(failure, future);
+                }
+
+                throw (failure != null)
+                        ? failure
+                        : new IllegalArgumentException("Tasks should contain non-null elements");
+            } catch (RuntimeException e) {
+                // cancel the remaining tasks; close() then awaits their termination
+                scope.shutdownNow();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #parallelMap(Iterator, Function, int, boolean)}, but for a stream, which is consumed lazily too
+     * and closed when the returned stream is closed.
+     *
+     * @param source         elements to map
+     * @param mapper         mapping function
+     * @param maxConcurrency max. number of elements mapped at a time
+     * @param preserveOrder  whether to return results in the order of input elements
+     * @param <T>            element type
+     * @param <R>            result type
+     * @return lazy sequential stream of results
+     */
+    public static <T, R> Stream<R> parallelMap(Stream<T> source, Function<? super T, ? extends R> mapper,
+            int maxConcurrency, boolean preserveOrder) {
+        return parallelMap(source.iterator(), mapper, maxConcurrency, preserveOrder)
+                .onClose(source::close);
+    }
+
+    /**
+     * Maps elements in parallel (no more than {@code maxConcurrency} at a time) in virtual threads inheriting the
+     * caller's {@link MDC} (see {@link #captureMdcForChildThreads()}). Unlike {@link #getInParallel(Collection, int)},
+     * the source is pulled lazily as results are consumed, so memory is bounded by {@code maxConcurrency} regardless of
+     * the input size - suitable for huge and unbounded inputs.
+     * <p>
+     * If order is preserved, results wait in a reorder buffer (of {@code maxConcurrency} elements, including those
+     * still being mapped) until the preceding ones are consumed, so a slow element delays the following ones.
+     * Otherwise, results are returned as soon as they're ready, which gives the best throughput.
+     * <p>
+     * Results not consumed (for example, if the stream is closed early) are discarded, but the mappings already
+     * started run to completion.
+     *
+     * @param source         elements to map; only accessed by the thread consuming the returned stream
+     * @param mapper         mapping function
+     * @param maxConcurrency max. number of elements mapped at a time
+     * @param preserveOrder  whether to return results in the order of input elements
+     * @param <T>            element type
+     * @param <R>            result type
+     * @return lazy sequential stream of results; consuming the result of a failed mapping throws
+     *         {@link CompletionException}
+     * @throws IllegalArgumentException the concurrency limit is not positive
+     */
+    public static <T, R> Stream<R> parallelMap(Iterator<T> source, Function<? super T, ? extends R> mapper,
+            int maxConcurrency, boolean preserveOrder) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Max. concurrency should be positive");
+        }
+
+        var iterator = new ParallelMapIterator<T, R>(source, mapper, maxConcurrency, preserveOrder);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, preserveOrder
+                ? Spliterator.ORDERED
+                : 0), false);
+    }
+
     /**
      * Same as {@link #runInParallel(Collection, int)}, just the batch size equals the number of tasks.
      *
@@ -133,10 +363,10 @@ public class FutureUtils {
 
     /**
      * Wraps {@link #VIRTUAL_THREAD_EXECUTOR} executor to automatically propagate a snapshot of caller thread's
-     * {@link MDC} context to child threads and clear it upon task completion. The context variables can be logged using
-     * the {@code %X} placeholder.
+     * {@link MDC} context to child threads. The context variables can be logged using the {@code %X} placeholder.
      * <p>
-     * The MDC <b>context is captured only once</b> - when this method is called.
+     * The MDC <b>context is captured only once</b> - when this method is called - and shared by all tasks. Each task
+     * runs in a new virtual thread, so it doesn't need to clear MDC after itself.
      * <p>
      * Usage example:
      * <pre>
@@ -152,20 +382,216 @@ public class FutureUtils {
         var parentMdc = MDC.getCopyOfContextMap();
 
         return (Runnable task) -> VIRTUAL_THREAD_EXECUTOR.execute(() -> {
-            try {
-                // SLF4j should clear MDC if null is passed, but this isn't guaranteed across all implementations,
-                // hence manual clearing
-                if (parentMdc != null) {
-                    MDC.setContextMap(parentMdc);
+            setMdc(parentMdc);
+            task.run();
+        });
+    }
+
+    /**
+     * Replaces MDC of a new thread with the caller's one. If the latter is empty, MDC is cleared anyway: with an MDC
+     * adapter based on {@link InheritableThreadLocal}, new (including virtual) threads start with a copy of the
+     * submitter's current MDC.
+     */
+    private static void setMdc(@Nullable Map<String, String> mdc) {
+        // SLF4j should clear MDC if null is passed, but this isn't guaranteed across all implementations,
+        // hence manual clearing
+        if (mdc != null) {
+            MDC.setContextMap(mdc);
+        } else {
+            MDC.clear();
+        }
+    }
+
+    /**
+     * Submits non-null tasks; each one runs through the guard (which acquires a permit in the task's own thread) and
+     * inherits the caller's {@link MDC}.
+     */
+    private static <T> List<Future<T>> submitAll(CompletionService<T> completionService,
+            Collection<Supplier<T>> tasks, Guard<T> guard) {
+        var parentMdc = MDC.getCopyOfContextMap();
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+
+        for (Supplier<T> task : tasks) {
+            if (task == null) {
+                continue;
+            }
+
+            // each task runs in a new virtual thread, so there's no need to clear MDC afterwards
+            futures.add(completionService.submit(() -> {
+                setMdc(parentMdc);
+                return guard.call(task);
+            }));
+        }
+
+        return futures;
+    }
+
+    private static <T> Future<T> takeCompleted(CompletionService<T> completionService, long deadlineNanos) {
+        Future<T> future;
+
+        try {
+            future = completionService.poll(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Thread interrupted while awaiting tasks: " + e.getMessage(), e);
+        }
+
+        if (future == null) {
+            throw new CompletionException(new TimeoutException("Tasks have not completed in time"));
+        }
+
+        return future;
+    }
+
+    /**
+     * Makes the failure of the given future the cause of a new exception, or adds it to the existing one as a
+     * suppressed exception.
+     */
+    private static CompletionException addFailure(@Nullable CompletionException failure, Future<?> future) {
+        Throwable cause = future.exceptionNow();
+
+        if (failure == null) {
+            return new CompletionException(cause);
+        }
+
+        failure.addSuppressed(cause);
+        return failure;
+    }
+
+    /**
+     * Converts timeout to a {@link System#nanoTime()} deadline; timeouts exceeding {@code long} capacity (292 years)
+     * are capped.
+     */
+    private static long toDeadlineNanos(Duration timeout) {
+        if (!timeout.isPositive()) {
+            throw new IllegalArgumentException("Timeout should be positive");
+        }
+
+        long timeoutNanos;
+
+        try {
+            timeoutNanos = timeout.toNanos();
+        } catch (ArithmeticException e) {
+            timeoutNanos = Long.MAX_VALUE;
+        }
+
+        // overflow is fine: only the difference with nanoTime() is used
+        return System.nanoTime() + timeoutNanos;
+    }
+
+    /**
+     * Runs a task once concurrency limits allow.
+     *
+     * @param <T> task result type
+     */
+    @FunctionalInterface
+    private interface Guard<T> {
+
+        T call(Supplier<T> task) throws InterruptedException;
+
+    }
+
+    /**
+     * Pulls source elements on demand to keep {@code maxConcurrency} mappings in flight.
+     *
+     * @param <T> element type
+     * @param <R> result type
+     */
+    private static class ParallelMapIterator<T, R> implements Iterator<R> {
+
+        private final Iterator<T> source;
+        private final Function<? super T, ? extends R> mapper;
+        private final int maxConcurrency;
+        private final boolean preserveOrder;
+        private final Executor executor = captureMdcForChildThreads();
+
+        /**
+         * Mappings in the order of submission, used if order is preserved (it's the reorder buffer).
+         */
+        private final Queue<CompletableFuture<R>> submitted = new ArrayDeque<>();
+
+        /**
+         * Mappings in the order of completion, used if order is not preserved.
+         */
+        private final BlockingQueue<CompletableFuture<R>> completed = new LinkedBlockingQueue<>();
+
+        /**
+         * Mappings submitted, but not consumed yet.
+         */
+        private int pending;
+
+        ParallelMapIterator(Iterator<T> source, Function<? super T, ? extends R> mapper, int maxConcurrency,
+                boolean preserveOrder) {
+            this.source = source;
+            this.mapper = mapper;
+            this.maxConcurrency = maxConcurrency;
+            this.preserveOrder = preserveOrder;
+        }
+
+        @Override
+        public boolean hasNext() {
+            fill();
+            return pending > 0;
+        }
+
+        @Override
+        public R next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            CompletableFuture<R> future;
+
+            if (preserveOrder) {
+                future = submitted.remove();
+            } else {
+                try {
+                    future = completed.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Thread interrupted while awaiting mapping: " + e.getMessage(),
+                            e);
+                }
+            }
+
+            pending--;
+            return future.join();
+        }
+
+        private void fill() {
+            while ((pending < maxConcurrency) && source.hasNext()) {
+                T element = source.next();
+                CompletableFuture<R> future = CompletableFuture.supplyAsync(() -> mapper.apply(element), executor);
+
+                if (preserveOrder) {
+                    submitted.add(future);
                 } else {
-                    MDC.clear();
+                    future.whenComplete((result, throwable) -> completed.add(future));
                 }
 
-                task.run();
-            } finally {
-                MDC.clear();
+                pending++;
             }
-        });
+        }
+
+    }
+
+    /**
+     * What {@link #getInParallel(Collection, int, FailurePolicy, Duration)} does when a task fails.
+     */
+    public enum FailurePolicy {
+
+        /**
+         * Cancel the remaining tasks and throw the failure right away. Saves capacity and returns faster when
+         * results are useless without each other.
+         */
+        FAIL_FAST,
+
+        /**
+         * Let the remaining tasks complete, then throw the first failure with the others suppressed - for example, to
+         * report all invalid inputs at once.
+         */
+        COLLECT_ALL_ERRORS
+
     }
 
 }
@@ -1,5 +1,7 @@
 package guru.nicks.commons.utils;
 
+import guru.nicks.commons.cache.CacheStatisticsRegistry;
+
 import am.ik.yavi.meta.ConstraintArguments;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
@@ -53,9 +55,9 @@ public class HttpRequestUtils {
      *
      * @see #resolveHttpStatus(int)
      */
-    private static final Cache<Integer, Optional<HttpStatus>> HTTP_STATUS_CACHE = Caffeine.newBuilder()
-            .expireAfterAccess(14, TimeUnit.DAYS)
-            .build();
+    private static final Cache<Integer, Optional<HttpStatus>> HTTP_STATUS_CACHE = CacheStatisticsRegistry.build(
+            "HttpRequestUtils.httpStatuses", Caffeine.newBuilder()
+                    .expireAfterAccess(14, TimeUnit.DAYS));
 
     /**
      * Sets response header if its value composed of (comma-separated) parts is not blank.
@@ -1,13 +1,28 @@
 package guru.nicks.commons.utils;
 
+import guru.nicks.commons.cache.AdaptiveTtlCacheManager;
+import guru.nicks.commons.cache.AdaptiveTtlExpiry;
+import guru.nicks.commons.cache.CacheStatisticsRegistry;
+import guru.nicks.commons.cache.FileL2CacheStore;
+import guru.nicks.commons.cache.L2CacheStore;
+import guru.nicks.commons.cache.MemoryBudget;
+import guru.nicks.commons.cache.NegativeResultExpiry;
+import guru.nicks.commons.cache.OffHeapCacheManager;
+import guru.nicks.commons.cache.SerializedSizeWeigher;
+import guru.nicks.commons.cache.TwoTierCacheManager;
+import guru.nicks.commons.cache.XFetchCacheManager;
 import guru.nicks.commons.cache.domain.CacheConstants;
 import guru.nicks.commons.cache.domain.CacheProperties;
+import guru.nicks.commons.serializer.NativeJavaSerializer;
+import guru.nicks.commons.serializer.OneNioSerializer;
 import guru.nicks.commons.utils.text.TimeUtils;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.Scheduler;
+import jakarta.annotation.Nullable;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.config.BeanDefinitionCustomizer;
 import org.springframework.cache.CacheManager;
@@ -18,6 +33,10 @@ import org.springframework.context.support.GenericApplicationContext;
 
 import java.time.Duration;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.WeakHashMap;
 import java.util.function.IntFunction;
 
 /**
@@ -33,6 +52,25 @@ import java.util.function.IntFunction;
 @Slf4j
 public class InMemoryCacheUtils {
 
+    /**
+     * Serializes values of off-heap caches (see {@link CacheProperties.InMemory#isOffHeap()}) and estimates the size of
+     * on-heap ones.
+     */
+    private static final NativeJavaSerializer SERIALIZER = new OneNioSerializer();
+
+    /**
+     * Used if {@link CacheProperties.InMemory#getMaxMemoryPerCacheManager()} or
+     * {@link CacheProperties.InMemory#getMaxMemoryTotal()} is set.
+     */
+    private static final SerializedSizeWeigher MEMORY_WEIGHER = new SerializedSizeWeigher(SERIALIZER);
+
+    /**
+     * Budgets set by {@link CacheProperties.InMemory#getMaxMemoryTotal()}, one per application context, because cache
+     * managers of one context are created by several calls.
+     */
+    private static final Map<GenericApplicationContext, MemoryBudget> MEMORY_BUDGETS =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
     /**
      * Replaces the default cache manager with a custom in-memory cache manager configured according to
      * {@link CacheProperties.InMemory#getDefaultTimeToLive()}. It will be used when no explicit cache manager is
@@ -63,14 +101,76 @@ public class InMemoryCacheUtils {
     public static void configureAdditionalCacheManagers(CacheProperties cacheProperties,
             GenericApplicationContext appContext) {
         createMemoryCacheManagers(cacheProperties, appContext,
-                cacheProperties.getDurations().getMinutes(), Duration::ofMinutes,
-                cacheProperties.getInMemory().getMaxEntriesPerCacheManager());
+                cacheProperties.getDurations().getMinutes(), Duration::ofMinutes);
         createMemoryCacheManagers(cacheProperties, appContext,
-                cacheProperties.getDurations().getHours(), Duration::ofHours,
-                cacheProperties.getInMemory().getMaxEntriesPerCacheManager());
+                cacheProperties.getDurations().getHours(), Duration::ofHours);
         createMemoryCacheManagers(cacheProperties, appContext,
-                cacheProperties.getDurations().getDays(), Duration::ofDays,
-                cacheProperties.getInMemory().getMaxEntriesPerCacheManager());
+                cacheProperties.getDurations().getDays(), Duration::ofDays);
+    }
+
+    /**
+     * Calculates the initial memory budget of each cache of in-memory cache managers according to
+     * {@link CacheProperties.InMemory#getMaxMemoryPerCacheManager()} and
+     * {@link CacheProperties.InMemory#getMaxMemoryTotal()}. If the latter is set, budgets of on-heap caches are
+     * {@link MemoryBudget#rebalance() rebalanced} later on, so that all caches together fit in it.
+     *
+     * @param cacheProperties cache configuration properties
+     * @return max. bytes per cache; empty if no memory budget is configured (then the number of entries is limited
+     *         instead)
+     */
+    public static OptionalLong calculateMaxBytesPerCacheManager(CacheProperties cacheProperties) {
+        CacheProperties.InMemory inMemory = cacheProperties.getInMemory();
+        long maxBytes = (inMemory.getMaxMemoryPerCacheManager() == null)
+                ? Long.MAX_VALUE
+                : inMemory.getMaxMemoryPerCacheManager().toBytes();
+
+        if (inMemory.getMaxMemoryTotal() != null) {
+            CacheProperties.Durations durations = cacheProperties.getDurations();
+            // +1 for the default cache manager
+            int cacheManagerCount = durations.getMinutes().size() + durations.getHours().size()
+                    + durations.getDays().size() + 1;
+            maxBytes = Math.min(maxBytes, inMemory.getMaxMemoryTotal().toBytes() / cacheManagerCount);
+        }
+
+        return (maxBytes == Long.MAX_VALUE)
+                ? OptionalLong.empty()
+                : OptionalLong.of(maxBytes);
+    }
+
+    /**
+     * Creates a near-cache manager: Caffeine (L1) configured the same way as the in-memory cache managers created by
+     * this class, backed by a slower L2 store which survives restarts. The result is not registered as a bean - for
+     * example, return it from a {@code @Bean} method.
+     *
+     * @param ttl        TTL of both L1 and L2 entries
+     * @param maxEntries L1 capacity (per cache)
+     * @param l2Store    L2 store, for example {@link FileL2CacheStore}
+     * @param serializer serializer for L2 values
+     * @param compress   whether to compress L2 values with Zstd
+     * @return cache manager
+     */
+    public static CacheManager createTwoTierCacheManager(Duration ttl, int maxEntries, L2CacheStore l2Store,
+            NativeJavaSerializer serializer, boolean compress) {
+        log.info("Creating two-tier cache manager with TTL '{}' and L1 capacity {} entries",
+                TimeUtils.humanFormatDuration(ttl), maxEntries);
+        return new TwoTierCacheManager(CacheStatisticsRegistry.recordStatsIfEnabled(configureCache(ttl, maxEntries)),
+                l2Store, serializer, ttl, compress);
+    }
+
+    /**
+     * Creates a cache manager whose TTL adapts to access patterns of each key (see {@link AdaptiveTtlExpiry}), so
+     * callers don't have to pick a fixed TTL bucket. The result is not registered as a bean - for example, return it
+     * from a {@code @Bean} method.
+     *
+     * @param minTtl     TTL of cold or volatile entries
+     * @param maxTtl     TTL of hot and stable entries
+     * @param maxEntries capacity (per cache)
+     * @return cache manager
+     */
+    public static CacheManager createAdaptiveTtlCacheManager(Duration minTtl, Duration maxTtl, int maxEntries) {
+        log.info("Creating adaptive TTL cache manager with TTL '{}' .. '{}' and capacity {} entries",
+                TimeUtils.humanFormatDuration(minTtl), TimeUtils.humanFormatDuration(maxTtl), maxEntries);
+        return new AdaptiveTtlCacheManager(minTtl, maxTtl, maxEntries);
     }
 
     /**
@@ -80,8 +180,7 @@ public class InMemoryCacheUtils {
      * @param durationCreator  creates {@link Duration} out of {@link CacheProperties.CacheDefinition#getValue()}
      */
     private static void createMemoryCacheManagers(CacheProperties cacheProperties, GenericApplicationContext appContext,
-            Collection<CacheProperties.CacheDefinition> cacheDefinitions,
-            IntFunction<Duration> durationCreator, int maxEntriesPerCacheManager) {
+            Collection<CacheProperties.CacheDefinition> cacheDefinitions, IntFunction<Duration> durationCreator) {
         for (var cacheDefinition : cacheDefinitions) {
             var cacheManagerNameBuilder = new StringBuilder()
                     .append(CacheConstants.MEMORY_CACHE_MANAGER_PREFIX)
@@ -93,7 +192,7 @@ public class InMemoryCacheUtils {
 
             createMemoryCacheManager(cacheProperties, appContext,
                     cacheManagerNameBuilder.toString(),
-                    durationCreator.apply(cacheDefinition.getValue()), maxEntriesPerCacheManager);
+                    durationCreator.apply(cacheDefinition.getValue()));
         }
     }
 
@@ -104,13 +203,99 @@ public class InMemoryCacheUtils {
      * @param ttl              cache TTL
      */
     private static void createMemoryCacheManager(CacheProperties cacheProperties, GenericApplicationContext appContext,
-            String cacheManagerName, Duration ttl, int maxEntries) {
-        log.info("Creating in-memory cache manager with TTL '{}' and capacity {} entries. Usage: "
+            String cacheManagerName, Duration ttl) {
+        log.info("Creating in-memory cache manager with TTL '{}' and capacity {}. Usage: "
                         + "@Cacheable(cacheNames = \"someCache\", key = \"#someArg\", cacheManager = \"{}\").",
-                TimeUtils.humanFormatDuration(ttl), maxEntries, cacheManagerName);
+                TimeUtils.humanFormatDuration(ttl), describeCapacity(cacheProperties), cacheManagerName);
+
+        registerCacheManagerBean(cacheProperties, appContext, cacheManagerName,
+                createCacheManager(ttl, cacheProperties));
+    }
+
+    /**
+     * Creates an off-heap cache manager if {@link CacheProperties.InMemory#isOffHeap()} is {@code true}, otherwise a
+     * Caffeine one.
+     *
+     * @throws IllegalStateException off-heap storage is requested without a memory budget
+     */
+    private static CacheManager createCacheManager(Duration ttl, CacheProperties cacheProperties) {
+        CacheProperties.InMemory inMemory = cacheProperties.getInMemory();
+
+        if (!inMemory.isOffHeap()) {
+            CaffeineCacheManager cacheManager;
+
+            if (inMemory.getEarlyExpirationBeta() > 0) {
+                // each cache needs its own expiry, because recompute time is measured per cache
+                cacheManager = new XFetchCacheManager(
+                        () -> recordStatsIfConfigured(configureCacheCapacity(cacheProperties), cacheProperties),
+                        () -> createExpiry(ttl, inMemory.getNegativeResultTimeToLive()),
+                        inMemory.getEarlyExpirationBeta());
+            } else {
+                cacheManager = new CaffeineCacheManager();
+                cacheManager.setCaffeine(recordStatsIfConfigured(configureCache(ttl, cacheProperties),
+                        cacheProperties));
+            }
 
-        var cache = configureCache(ttl, maxEntries);
-        registerCacheManagerBean(cacheProperties, appContext, cacheManagerName, cache);
+            // concurrent loads of the same key wait for a single shared future instead of calling the backend
+            if (inMemory.getNegativeResultTimeToLive() != null) {
+                cacheManager.setAsyncCacheMode(true);
+            }
+
+            return cacheManager;
+        }
+
+        long maxBytes = calculateMaxBytesPerCacheManager(cacheProperties)
+                .orElseThrow(() -> new IllegalStateException("Off-heap in-memory cache requires a memory budget"));
+        return new OffHeapCacheManager(ttl, maxBytes, SERIALIZER);
+    }
+
+    /**
+     * Configures Caffeine according to {@link CacheProperties.InMemory}: bounded by memory budget if it's set (see
+     * {@link #calculateMaxBytesPerCacheManager(CacheProperties)}), otherwise by the number of entries; negative results
+     * expire according to {@link CacheProperties.InMemory#getNegativeResultTimeToLive()}, if it's set.
+     */
+    private static Caffeine<Object, Object> configureCache(Duration ttl, CacheProperties cacheProperties) {
+        Duration negativeResultTtl = cacheProperties.getInMemory().getNegativeResultTimeToLive();
+
+        return (negativeResultTtl == null)
+                ? configureCacheCapacity(cacheProperties).expireAfterWrite(ttl)
+                : configureCacheCapacity(cacheProperties).expireAfter(createExpiry(ttl, negativeResultTtl));
+    }
+
+    /**
+     * Configures Caffeine capacity: bounded by memory budget if it's set (see
+     * {@link #calculateMaxBytesPerCacheManager(CacheProperties)}), otherwise by the number of entries. Expiration is
+     * not configured.
+     */
+    private static Caffeine<Object, Object> configureCacheCapacity(CacheProperties cacheProperties) {
+        OptionalLong maxBytes = calculateMaxBytesPerCacheManager(cacheProperties);
+
+        Caffeine<Object, Object> builder = maxBytes.isEmpty()
+                ? Caffeine.newBuilder().maximumSize(cacheProperties.getInMemory().getMaxEntriesPerCacheManager())
+                : Caffeine.newBuilder().maximumWeight(maxBytes.getAsLong()).weigher(MEMORY_WEIGHER);
+
+        // remove expired entries asap (not only when the cache is accessed) to save memory
+        return builder.scheduler(Scheduler.systemScheduler());
+    }
+
+    /**
+     * Creates an expiration condition giving negative results the smaller of the two TTLs.
+     *
+     * @param ttl               TTL of regular values
+     * @param negativeResultTtl TTL of negative results; if {@code null}, they live as long as regular values
+     */
+    private static NegativeResultExpiry<Object, Object> createExpiry(Duration ttl,
+            @Nullable Duration negativeResultTtl) {
+        return new NegativeResultExpiry<>(ttl, ((negativeResultTtl == null) || (negativeResultTtl.compareTo(ttl) > 0))
+                ? ttl
+                : negativeResultTtl);
+    }
+
+    private static Caffeine<Object, Object> recordStatsIfConfigured(Caffeine<Object, Object> builder,
+            CacheProperties cacheProperties) {
+        return (cacheProperties.getInMemory().isRecordStats() || CacheStatisticsRegistry.isRecordingEnabled())
+                ? builder.recordStats()
+                : builder;
     }
 
     private static Caffeine<Object, Object> configureCache(Duration ttl, int maxEntries) {
@@ -121,15 +306,26 @@ public class InMemoryCacheUtils {
                 .scheduler(Scheduler.systemScheduler());
     }
 
+    private static String describeCapacity(CacheProperties cacheProperties) {
+        OptionalLong maxBytes = calculateMaxBytesPerCacheManager(cacheProperties);
+
+        if (maxBytes.isEmpty()) {
+            return cacheProperties.getInMemory().getMaxEntriesPerCacheManager() + " entries";
+        }
+
+        return FileUtils.byteCountToDisplaySize(maxBytes.getAsLong())
+                + (cacheProperties.getInMemory().isOffHeap()
+                ? " off-heap"
+                : "");
+    }
+
     private static void registerCacheManagerBean(CacheProperties cacheProperties,
             GenericApplicationContext appContext, String beanName,
-            Caffeine<Object, Object> cache, BeanDefinitionCustomizer... customizers) {
-        var cacheManager = new CaffeineCacheManager();
-        cacheManager.setCaffeine(cache);
+            CacheManager cacheManager, BeanDefinitionCustomizer... customizers) {
         CacheManager bean;
 
-        // Synchronize put/evict operations with ongoing Spring-managed transactions. Caffeine isn't transaction-aware
-        // natively, so wrap it in a special proxy that handles transactions.
+        // Synchronize put/evict operations with ongoing Spring-managed transactions. In-memory caches aren't
+        // transaction-aware natively, so wrap it in a special proxy that handles transactions.
         if (cacheProperties.isTransactionAware()) {
             log.warn("In-memory cache is now transaction-aware - counter-intuitive side effects may arise");
             bean = new TransactionAwareCacheManagerProxy(cacheManager);
@@ -137,9 +333,38 @@ public class InMemoryCacheUtils {
             bean = cacheManager;
         }
 
+        CacheStatisticsRegistry.registerCacheManager(beanName, cacheManager);
+        possiblyAddToMemoryBudget(cacheProperties, appContext, cacheManager);
         appContext.registerBean(beanName, CacheManager.class, () -> bean, customizers);
     }
 
+    /**
+     * Adds the cache manager to the budget shared by all in-memory cache managers of the application context, if
+     * {@link CacheProperties.InMemory#getMaxMemoryTotal()} is set.
+     */
+    private static void possiblyAddToMemoryBudget(CacheProperties cacheProperties,
+            GenericApplicationContext appContext, CacheManager cacheManager) {
+        CacheProperties.InMemory inMemory = cacheProperties.getInMemory();
+        if (inMemory.getMaxMemoryTotal() == null) {
+            return;
+        }
+
+        long totalBytes = inMemory.getMaxMemoryTotal().toBytes();
+        long maxBytesPerCache;
+
+        // off-heap caches can't grow beyond the capacity of their allocators, they can only shrink
+        if (inMemory.isOffHeap()) {
+            maxBytesPerCache = calculateMaxBytesPerCacheManager(cacheProperties).orElse(totalBytes);
+        } else if (inMemory.getMaxMemoryPerCacheManager() != null) {
+            maxBytesPerCache = Math.min(totalBytes, inMemory.getMaxMemoryPerCacheManager().toBytes());
+        } else {
+            maxBytesPerCache = totalBytes;
+        }
+
+        MEMORY_BUDGETS.computeIfAbsent(appContext, theAppContext -> new MemoryBudget(totalBytes))
+                .register(cacheManager, maxBytesPerCache);
+    }
+
     /**
      * Creates/overrides primary bean called {@link CacheConstants#DEFAULT_CACHE_MANAGER_BEAN} - needed if no explicit
      * cache manager is mentioned (as {@link Cacheable#cacheManager()}).
@@ -151,16 +376,15 @@ public class InMemoryCacheUtils {
         //            appContext.removeBeanDefinition(CacheProperties.DEFAULT_CACHE_MANAGER_BEAN);
         //        }
 
-        log.info("Overriding default in-memory cache manager bean '{}' with TTL '{}' and capacity {} entries. Usage: "
+        log.info("Overriding default in-memory cache manager bean '{}' with TTL '{}' and capacity {}. Usage: "
                         + "@Cacheable(cacheNames = \"someCache\", key = \"#someArg\").",
                 CacheConstants.DEFAULT_CACHE_MANAGER_BEAN,
                 TimeUtils.humanFormatDuration(cacheProperties.getInMemory().getDefaultTimeToLive()),
-                cacheProperties.getInMemory().getMaxEntriesPerCacheManager());
+                describeCapacity(cacheProperties));
 
-        var cache = configureCache(cacheProperties.getInMemory().getDefaultTimeToLive(),
-                cacheProperties.getInMemory().getMaxEntriesPerCacheManager());
         registerCacheManagerBean(cacheProperties, appContext,
-                CacheConstants.DEFAULT_CACHE_MANAGER_BEAN + "Overridden", cache,
+                CacheConstants.DEFAULT_CACHE_MANAGER_BEAN + "Overridden",
+                createCacheManager(cacheProperties.getInMemory().getDefaultTimeToLive(), cacheProperties),
                 beanDef -> beanDef.setPrimary(true));
     }
 
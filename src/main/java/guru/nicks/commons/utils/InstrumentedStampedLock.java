@@ -0,0 +1,43 @@
+package guru.nicks.commons.utils;
+
+import lombok.Getter;
+
+import java.io.Serial;
+import java.util.concurrent.locks.StampedLock;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * {@link StampedLock} whose use via {@link LockUtils} is counted in {@link LockStatistics}. Direct calls of the lock
+ * methods are not counted. To count the use of {@link KeyedStampedLocks}, create {@link StripedStampedLocks} or
+ * {@link WeakStampedLocks} with a lock name or statistics: their locks are instances of this class then.
+ */
+public class InstrumentedStampedLock extends StampedLock {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Getter
+    private final transient LockStatistics statistics;
+
+    /**
+     * Creates a lock updating the statistics {@link LockStatisticsRegistry#getOrCreate(String) registered} under the
+     * given name (shared with other locks having the same name).
+     *
+     * @param name lock name, for example {@code UserService.balance}
+     */
+    public InstrumentedStampedLock(String name) {
+        this(LockStatisticsRegistry.getOrCreate(name));
+    }
+
+    /**
+     * Creates a lock sharing statistics with other locks, for example with other stripes of
+     * {@link StripedStampedLocks} or with other locks of {@link WeakStampedLocks}.
+     *
+     * @param statistics statistics to update
+     */
+    public InstrumentedStampedLock(LockStatistics statistics) {
+        this.statistics = checkNotNull(statistics, "statistics");
+    }
+
+}
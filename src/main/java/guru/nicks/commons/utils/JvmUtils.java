@@ -1,5 +1,7 @@
 package guru.nicks.commons.utils;
 
+import guru.nicks.commons.cache.CacheStatisticsRegistry;
+
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.annotations.VisibleForTesting;
@@ -18,9 +20,9 @@ public class JvmUtils {
 
     public static final int CACHE_TTL_SECONDS = 120;
 
-    private static final Cache<String, DataSize> CACHE = Caffeine.newBuilder()
-            .expireAfterWrite(CACHE_TTL_SECONDS, TimeUnit.SECONDS)
-            .build();
+    private static final Cache<String, DataSize> CACHE = CacheStatisticsRegistry.build(
+            "JvmUtils.memory", Caffeine.newBuilder()
+                    .expireAfterWrite(CACHE_TTL_SECONDS, TimeUnit.SECONDS));
 
     /**
      * Returns the maximum memory available to the JVM. Theoretically, this value may change during runtime. The result
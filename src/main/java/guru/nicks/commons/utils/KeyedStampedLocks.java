@@ -0,0 +1,66 @@
+package guru.nicks.commons.utils;
+
+import jakarta.annotation.Nullable;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Per-key {@link StampedLock}s, for example to serialize writes per user ID, with the same API as {@link LockUtils}.
+ *
+ * @param <K> key type
+ * @see StripedStampedLocks
+ * @see WeakStampedLocks
+ */
+public interface KeyedStampedLocks<K> {
+
+    /**
+     * Returns the lock guarding the key. The same key always yields the same lock (for as long as the caller holds
+     * it), but different keys may share a lock - depending on the implementation.
+     *
+     * @param key key ({@code null} is allowed)
+     * @return lock
+     */
+    StampedLock getLock(@Nullable K key);
+
+    /**
+     * Calls {@link LockUtils#withOptimisticReadOrRetry(StampedLock, Supplier)} with the lock of the key.
+     *
+     * @param key            key
+     * @param resultSupplier code to execute
+     * @param <T>            return value type
+     * @return result of the code execution
+     */
+    @Nullable
+    default <T> T withOptimisticReadOrRetry(@Nullable K key, Supplier<T> resultSupplier) {
+        return LockUtils.withOptimisticReadOrRetry(getLock(key), resultSupplier);
+    }
+
+    /**
+     * Calls {@link LockUtils#withOptimisticReadOrRetry(StampedLock, int, Supplier)} with the lock of the key.
+     *
+     * @param key                   key
+     * @param maxOptimisticAttempts max. number of optimistic attempts
+     * @param resultSupplier        code to execute
+     * @param <T>                   return value type
+     * @return result of the code execution
+     */
+    @Nullable
+    default <T> T withOptimisticReadOrRetry(@Nullable K key, int maxOptimisticAttempts, Supplier<T> resultSupplier) {
+        return LockUtils.withOptimisticReadOrRetry(getLock(key), maxOptimisticAttempts, resultSupplier);
+    }
+
+    /**
+     * Calls {@link LockUtils#withExclusiveLock(StampedLock, Supplier)} with the lock of the key.
+     *
+     * @param key            key
+     * @param resultSupplier code to execute
+     * @param <T>            return value type
+     * @return result of the code execution
+     */
+    @Nullable
+    default <T> T withExclusiveLock(@Nullable K key, Supplier<T> resultSupplier) {
+        return LockUtils.withExclusiveLock(getLock(key), resultSupplier);
+    }
+
+}
@@ -0,0 +1,91 @@
+package guru.nicks.commons.utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention counters of one or more {@link InstrumentedStampedLock}s, updated by {@link LockUtils}. A high share of
+ * retries and fallbacks among reads means the lock is hot: writers often interrupt readers.
+ * <p>
+ * Counters are {@link LongAdder}s, so updating them from many threads is cheap. Obtain them from
+ * {@link LockStatisticsRegistry#getOrCreate(String)} to have them reported.
+ */
+public class LockStatistics {
+
+    private final LongAdder optimisticReads = new LongAdder();
+    private final LongAdder optimisticRetries = new LongAdder();
+    private final LongAdder pessimisticReads = new LongAdder();
+    private final LongAdder exclusiveLocks = new LongAdder();
+
+    /**
+     * Returns the number of reads which succeeded without locking (possibly after retries).
+     *
+     * @return count
+     */
+    public long getOptimisticReads() {
+        return optimisticReads.sum();
+    }
+
+    /**
+     * Returns the number of optimistic read attempts repeated because a writer interfered.
+     *
+     * @return count
+     */
+    public long getOptimisticRetries() {
+        return optimisticRetries.sum();
+    }
+
+    /**
+     * Returns the number of reads which fell back to a read lock after all optimistic attempts had failed.
+     *
+     * @return count
+     */
+    public long getPessimisticReads() {
+        return pessimisticReads.sum();
+    }
+
+    /**
+     * Returns the number of exclusive lock acquisitions.
+     *
+     * @return count
+     */
+    public long getExclusiveLocks() {
+        return exclusiveLocks.sum();
+    }
+
+    /**
+     * Collects the current values.
+     *
+     * @return snapshot
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(getOptimisticReads(), getOptimisticRetries(), getPessimisticReads(), getExclusiveLocks());
+    }
+
+    void recordOptimisticRead() {
+        optimisticReads.increment();
+    }
+
+    void recordOptimisticRetry() {
+        optimisticRetries.increment();
+    }
+
+    void recordPessimisticRead() {
+        pessimisticReads.increment();
+    }
+
+    void recordExclusiveLock() {
+        exclusiveLocks.increment();
+    }
+
+    /**
+     * Values of the counters.
+     *
+     * @param optimisticReads   reads which succeeded without locking
+     * @param optimisticRetries optimistic read attempts repeated
+     * @param pessimisticReads  reads which fell back to a read lock
+     * @param exclusiveLocks    exclusive lock acquisitions
+     */
+    public record Snapshot(long optimisticReads, long optimisticRetries, long pessimisticReads, long exclusiveLocks) {
+    }
+
+}
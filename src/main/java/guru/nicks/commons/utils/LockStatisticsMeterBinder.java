@@ -0,0 +1,57 @@
+package guru.nicks.commons.utils;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exposes locks registered in {@link LockStatisticsRegistry} (the ones registered after binding too) as Micrometer
+ * counters tagged with {@code lock=<name>}:
+ * <ul>
+ *  <li>{@code lock.reads} with {@code mode=optimistic|pessimistic}</li>
+ *  <li>{@code lock.optimistic.retries}</li>
+ *  <li>{@code lock.exclusive}</li>
+ * </ul>
+ * Requires Micrometer, which is an optional dependency of this library. With Spring Boot Actuator, declaring this class
+ * as a bean is enough.
+ * <p>
+ * {@link LockStatisticsRegistry} references this binder's listeners weakly, so bound meter registries can be
+ * garbage-collected together with this binder.
+ */
+public class LockStatisticsMeterBinder implements MeterBinder {
+
+    /**
+     * Strong references - {@link LockStatisticsRegistry} references listeners weakly.
+     */
+    private final List<BiConsumer<String, LockStatistics>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        BiConsumer<String, LockStatistics> listener = (lockName, statistics) -> {
+            register(registry, "lock.reads", lockName, statistics, LockStatistics::getOptimisticReads,
+                    "mode", "optimistic");
+            register(registry, "lock.reads", lockName, statistics, LockStatistics::getPessimisticReads,
+                    "mode", "pessimistic");
+            register(registry, "lock.optimistic.retries", lockName, statistics, LockStatistics::getOptimisticRetries);
+            register(registry, "lock.exclusive", lockName, statistics, LockStatistics::getExclusiveLocks);
+        };
+
+        listeners.add(listener);
+        LockStatisticsRegistry.addListener(listener);
+    }
+
+    private static void register(MeterRegistry registry, String meterName, String lockName, LockStatistics statistics,
+            ToDoubleFunction<LockStatistics> counter, String... tags) {
+        // the counter references statistics weakly, but the registry keeps them for the application lifetime
+        FunctionCounter.builder(meterName, statistics, counter)
+                .tag("lock", lockName)
+                .tags(tags)
+                .register(registry);
+    }
+
+}
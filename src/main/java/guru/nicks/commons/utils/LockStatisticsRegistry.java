@@ -0,0 +1,92 @@
+package guru.nicks.commons.utils;
+
+import lombok.experimental.UtilityClass;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotBlank;
+
+/**
+ * Central registry of {@link LockStatistics}, so hot locks can be spotted: as {@link #snapshot() snapshots} or as
+ * Micrometer meters (see {@link LockStatisticsMeterBinder}).
+ * <p>
+ * There's one statistics instance per name, shared by all locks with that name (for example, by all instances of the
+ * same class), and kept for the application lifetime - so meters never outlive their statistics or switch to another
+ * instance. Therefore, names should denote lock roles, such as {@code UserService.balance}, and never include
+ * per-instance parts like IDs.
+ */
+@UtilityClass
+public class LockStatisticsRegistry {
+
+    private static final ConcurrentMap<String, LockStatistics> STATISTICS = new ConcurrentHashMap<>();
+
+    /**
+     * Listeners are referenced weakly: they capture Micrometer registries which must not outlive their application
+     * contexts.
+     */
+    private static final List<WeakReference<BiConsumer<String, LockStatistics>>> LISTENERS =
+            new CopyOnWriteArrayList<>();
+
+    /**
+     * Returns statistics registered under the given name, registering new ones if there are none.
+     *
+     * @param name lock name
+     * @return statistics
+     */
+    public static LockStatistics getOrCreate(String name) {
+        checkNotBlank(name, "name");
+
+        LockStatistics statistics = STATISTICS.get(name);
+        if (statistics != null) {
+            return statistics;
+        }
+
+        var created = new LockStatistics();
+        LockStatistics existing = STATISTICS.putIfAbsent(name, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        for (WeakReference<BiConsumer<String, LockStatistics>> reference : LISTENERS) {
+            BiConsumer<String, LockStatistics> listener = reference.get();
+
+            if (listener == null) {
+                LISTENERS.remove(reference);
+            } else {
+                listener.accept(name, created);
+            }
+        }
+
+        return created;
+    }
+
+    /**
+     * Returns statistics of all registered locks.
+     *
+     * @return statistics sorted by lock name
+     */
+    public static SortedMap<String, LockStatistics.Snapshot> snapshot() {
+        SortedMap<String, LockStatistics.Snapshot> snapshots = new TreeMap<>();
+        STATISTICS.forEach((name, statistics) -> snapshots.put(name, statistics.snapshot()));
+        return snapshots;
+    }
+
+    /**
+     * Calls the listener for each statistics registered so far and for each statistics registered in the future. The
+     * listener is referenced weakly, so the caller must keep it reachable for as long as it's needed.
+     *
+     * @param listener accepts lock name and statistics
+     */
+    static void addListener(BiConsumer<String, LockStatistics> listener) {
+        LISTENERS.add(new WeakReference<>(listener));
+        STATISTICS.forEach(listener);
+    }
+
+}
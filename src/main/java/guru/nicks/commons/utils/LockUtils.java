@@ -6,14 +6,29 @@ import lombok.experimental.UtilityClass;
 import java.util.concurrent.locks.StampedLock;
 import java.util.function.Supplier;
 
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
 import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
 
 /**
- * Lock-related utility methods.
+ * Lock-related utility methods. For per-key locks, see {@link KeyedStampedLocks}. To see how often readers are
+ * interrupted by writers, use {@link InstrumentedStampedLock}.
  */
 @UtilityClass
 public class LockUtils {
 
+    /**
+     * A reasonable number of optimistic read attempts for
+     * {@link #withOptimisticReadOrRetry(StampedLock, int, Supplier)} when writes are moderately frequent.
+     */
+    public static final int DEFAULT_OPTIMISTIC_READ_ATTEMPTS = 3;
+
+    /**
+     * Before repeating an optimistic read, wait (spinning, not blocking) this many times for the writer to finish. If
+     * it doesn't, a read lock is acquired right away: the writer is slow, so more optimistic attempts are unlikely to
+     * succeed.
+     */
+    private static final int MAX_SPINS_BEFORE_RETRY = 100;
+
     /**
      * Executes the given resultSupplier using the optimistic read lock mode. If this mode fails (someone acquired a
      * write lock meanwhile, for example with {@link #withExclusiveLock(StampedLock, Supplier)}), the
@@ -28,18 +43,64 @@ public class LockUtils {
      */
     @Nullable
     public static <T> T withOptimisticReadOrRetry(StampedLock lock, Supplier<T> resultSupplier) {
+        return withOptimisticReadOrRetry(lock, 1, resultSupplier);
+    }
+
+    /**
+     * Same as {@link #withOptimisticReadOrRetry(StampedLock, Supplier)}, but makes up to {@code maxOptimisticAttempts}
+     * optimistic attempts before acquiring a real read lock. Between attempts, it spins (see
+     * {@link Thread#onSpinWait()}) while the lock is held by a writer, which is much cheaper than blocking if writes
+     * are short. This keeps reads lock-free under moderate write rates, at the cost of executing the resultSupplier up
+     * to {@code maxOptimisticAttempts + 1} times.
+     * <p>
+     * For {@link InstrumentedStampedLock}s, optimistic reads, retries, and pessimistic reads are counted.
+     *
+     * @param lock                  lock to use
+     * @param maxOptimisticAttempts max. number of optimistic attempts, for example
+     *                              {@link #DEFAULT_OPTIMISTIC_READ_ATTEMPTS}
+     * @param resultSupplier        code to execute (see also {@link TransformUtils#toSupplier(Runnable)})
+     * @param <T>                   return value type
+     * @return result of the code execution
+     */
+    @Nullable
+    public static <T> T withOptimisticReadOrRetry(StampedLock lock, int maxOptimisticAttempts,
+            Supplier<T> resultSupplier) {
         checkNotNull(lock, "lock");
         checkNotNull(resultSupplier, "resultSupplier");
+        check(maxOptimisticAttempts, "maxOptimisticAttempts").positive();
+
+        LockStatistics statistics = (lock instanceof InstrumentedStampedLock instrumentedLock)
+                ? instrumentedLock.getStatistics()
+                : null;
+
+        for (int attempt = 1; ; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            T result = resultSupplier.get();
 
-        long stamp = lock.tryOptimisticRead();
-        T result = resultSupplier.get();
+            if (lock.validate(stamp)) {
+                if (statistics != null) {
+                    statistics.recordOptimisticRead();
+                }
 
-        if (lock.validate(stamp)) {
-            return result;
+                return result;
+            }
+
+            // someone acquired write (i.e. exclusive) lock meanwhile
+            if ((attempt >= maxOptimisticAttempts) || !awaitWriteUnlock(lock)) {
+                break;
+            }
+
+            if (statistics != null) {
+                statistics.recordOptimisticRetry();
+            }
+        }
+
+        // retry with a real lock
+        if (statistics != null) {
+            statistics.recordPessimisticRead();
         }
 
-        // someone acquired write (i.e. exclusive) lock meanwhile - retry with a real lock
-        stamp = lock.readLock();
+        long stamp = lock.readLock();
         try {
             return resultSupplier.get();
         } finally {
@@ -62,6 +123,10 @@ public class LockUtils {
 
         long stamp = lock.writeLock();
 
+        if (lock instanceof InstrumentedStampedLock instrumentedLock) {
+            instrumentedLock.getStatistics().recordExclusiveLock();
+        }
+
         try {
             return resultSupplier.get();
         } finally {
@@ -69,4 +134,21 @@ public class LockUtils {
         }
     }
 
+    /**
+     * Spins while the lock is held by a writer.
+     *
+     * @return {@code true} if the lock isn't write-locked anymore
+     */
+    private static boolean awaitWriteUnlock(StampedLock lock) {
+        for (int i = 0; i < MAX_SPINS_BEFORE_RETRY; i++) {
+            if (!lock.isWriteLocked()) {
+                return true;
+            }
+
+            Thread.onSpinWait();
+        }
+
+        return !lock.isWriteLocked();
+    }
+
 }
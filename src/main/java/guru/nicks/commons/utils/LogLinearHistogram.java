@@ -0,0 +1,248 @@
+package guru.nicks.commons.utils;
+
+import am.ik.yavi.meta.ConstraintArguments;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+
+/**
+ * Log-linear histogram of non-negative values (the same bucketing as in HdrHistogram): values below
+ * {@link #SUB_BUCKET_COUNT} are counted exactly, bigger ones fall into one of {@link #SUB_BUCKET_COUNT} equal
+ * sub-buckets of their power-of-2 range, therefore percentiles are reported with a relative error of at most
+ * {@code 1 / SUB_BUCKET_COUNT} (about 3%). Values above {@link #MAX_TRACKABLE_VALUE} are counted in the highest
+ * bucket; the max. value is tracked exactly.
+ * <p>
+ * Lock-free: each bucket is a {@link LongAdder} (striped under contention) created on first use, in a group of
+ * {@link #SUB_BUCKET_COUNT} buckets (one power-of-2 range) also created on first use, so a histogram takes memory for
+ * the magnitudes actually seen, but never more than {@link #BUCKET_COUNT} buckets. Reading percentiles only visits the
+ * buckets up to the max. value (see {@link #getUsedBucketCount()}).
+ */
+public class LogLinearHistogram {
+
+    public static final int SUB_BUCKET_BITS = 5;
+    public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * For milliseconds, it's about a year.
+     */
+    public static final long MAX_TRACKABLE_VALUE = (1L << 35) - 1;
+
+    public static final int BUCKET_COUNT = bucketIndex(MAX_TRACKABLE_VALUE) + 1;
+
+    /**
+     * The first group holds the values counted exactly, each of the others - one power-of-2 range.
+     */
+    private static final int BUCKET_GROUP_COUNT = (BUCKET_COUNT + SUB_BUCKET_COUNT - 1) >>> SUB_BUCKET_BITS;
+
+    private final AtomicReferenceArray<AtomicReferenceArray<LongAdder>> bucketGroups =
+            new AtomicReferenceArray<>(BUCKET_GROUP_COUNT);
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    /**
+     * Counts the value.
+     *
+     * @param value value to count (ignored if negative)
+     */
+    public void record(long value) {
+        if (value < 0) {
+            return;
+        }
+
+        getOrCreateBucket(bucketIndex(Math.min(value, MAX_TRACKABLE_VALUE))).increment();
+        max.accumulate(value);
+    }
+
+    /**
+     * Returns the number of values counted. Not an exact value under concurrent updates.
+     *
+     * @return count
+     */
+    public long getCount() {
+        long count = 0;
+
+        for (int i = 0; i < BUCKET_GROUP_COUNT; i++) {
+            AtomicReferenceArray<LongAdder> group = bucketGroups.get(i);
+
+            if (group != null) {
+                for (int j = 0; j < SUB_BUCKET_COUNT; j++) {
+                    LongAdder bucket = group.get(j);
+
+                    if (bucket != null) {
+                        count += bucket.sum();
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the max. value counted.
+     *
+     * @return max. value, 0 if nothing has been counted
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the number of leading buckets which may be non-empty: the ones above the bucket of {@link #getMax()} are
+     * always empty (but for values being counted concurrently).
+     *
+     * @return number of buckets, at most {@link #BUCKET_COUNT}
+     */
+    public int getUsedBucketCount() {
+        return bucketIndex(Math.min(max.get(), MAX_TRACKABLE_VALUE)) + 1;
+    }
+
+    /**
+     * Returns the value which the given percent of values are less than or equal to (within the precision of the
+     * histogram, but never more than {@link #getMax()}).
+     *
+     * @param percentile percentile, for example 99.9
+     * @return value at percentile, 0 if nothing has been counted
+     */
+    @ConstraintArguments
+    public long getValueAtPercentile(double percentile) {
+        check(percentile, _LogLinearHistogramGetValueAtPercentileArgumentsMeta.PERCENTILE.name())
+                .betweenInclusive(0.0, 100.0);
+
+        long maxValue = max.get();
+        var bucketCounts = new long[bucketIndex(Math.min(maxValue, MAX_TRACKABLE_VALUE)) + 1];
+        addBucketCountsTo(bucketCounts);
+        return getValueAtPercentile(bucketCounts, maxValue, percentile);
+    }
+
+    /**
+     * Adds the count of each bucket to the array, for example to merge several histograms and then call
+     * {@link #getValueAtPercentile(long[], long, double)}. Only the buckets fitting in the array are visited, so an
+     * array of {@link #getUsedBucketCount()} elements (or the max. of it among the histograms being merged) is enough.
+     *
+     * @param bucketCounts array of at most {@link #BUCKET_COUNT} elements
+     */
+    public void addBucketCountsTo(long[] bucketCounts) {
+        int groupCount = Math.min(BUCKET_GROUP_COUNT, (bucketCounts.length + SUB_BUCKET_COUNT - 1) >>> SUB_BUCKET_BITS);
+
+        for (int i = 0; i < groupCount; i++) {
+            AtomicReferenceArray<LongAdder> group = bucketGroups.get(i);
+
+            if (group == null) {
+                continue;
+            }
+
+            int firstIndex = i << SUB_BUCKET_BITS;
+            int bucketCount = Math.min(SUB_BUCKET_COUNT, bucketCounts.length - firstIndex);
+
+            for (int j = 0; j < bucketCount; j++) {
+                LongAdder bucket = group.get(j);
+
+                if (bucket != null) {
+                    bucketCounts[firstIndex + j] += bucket.sum();
+                }
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #getValueAtPercentile(double)}, but for bucket counts collected with
+     * {@link #addBucketCountsTo(long[])}. Takes time proportional to the array length.
+     *
+     * @param bucketCounts bucket counts
+     * @param max          max. value counted
+     * @param percentile   percentile, for example 99.9
+     * @return value at percentile, 0 if nothing has been counted
+     */
+    public static long getValueAtPercentile(long[] bucketCounts, long max, double percentile) {
+        long count = 0;
+
+        for (long bucketCount : bucketCounts) {
+            count += bucketCount;
+        }
+
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+
+        for (int i = 0; i < bucketCounts.length; i++) {
+            seen += bucketCounts[i];
+
+            if (seen >= rank) {
+                return Math.min(highestValueInBucket(i), max);
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * Calculates the bucket index for the value.
+     *
+     * @param value non-negative value
+     * @return bucket index
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return SUB_BUCKET_COUNT + ((exponent - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT) + subBucket;
+    }
+
+    /**
+     * Calculates the highest value falling into the bucket.
+     *
+     * @param index bucket index
+     * @return highest value
+     */
+    static long highestValueInBucket(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        int exponent = ((index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT) + SUB_BUCKET_BITS;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        long subBucketWidth = 1L << (exponent - SUB_BUCKET_BITS);
+
+        return (1L << exponent) + (subBucket * subBucketWidth) + subBucketWidth - 1;
+    }
+
+    private LongAdder getOrCreateBucket(int index) {
+        AtomicReferenceArray<LongAdder> group = getOrCreateBucketGroup(index >>> SUB_BUCKET_BITS);
+        int offset = index & (SUB_BUCKET_COUNT - 1);
+        LongAdder bucket = group.get(offset);
+
+        if (bucket == null) {
+            bucket = new LongAdder();
+
+            if (!group.compareAndSet(offset, null, bucket)) {
+                bucket = group.get(offset);
+            }
+        }
+
+        return bucket;
+    }
+
+    private AtomicReferenceArray<LongAdder> getOrCreateBucketGroup(int groupIndex) {
+        AtomicReferenceArray<LongAdder> group = bucketGroups.get(groupIndex);
+
+        if (group == null) {
+            group = new AtomicReferenceArray<>(SUB_BUCKET_COUNT);
+
+            if (!bucketGroups.compareAndSet(groupIndex, null, group)) {
+                group = bucketGroups.get(groupIndex);
+            }
+        }
+
+        return group;
+    }
+
+}
@@ -1,5 +1,6 @@
 package guru.nicks.commons.utils;
 
+import guru.nicks.commons.cache.CacheStatisticsRegistry;
 import guru.nicks.commons.cache.domain.CacheConstants;
 
 import am.ik.yavi.meta.ConstraintArguments;
@@ -45,26 +46,26 @@ public class ReflectionUtils {
     /**
      * @see #getClassHierarchy(Class)
      */
-    private static final Cache<Class<?>, Set<Class<?>>> CLASS_HIERARCHY_CACHE = Caffeine.newBuilder()
-            .maximumSize(CacheConstants.DEFAULT_CAFFEINE_CACHE_CAPACITY)
-            .expireAfterAccess(Duration.ofHours(24))
-            .build();
+    private static final Cache<Class<?>, Set<Class<?>>> CLASS_HIERARCHY_CACHE = CacheStatisticsRegistry.build(
+            "ReflectionUtils.classHierarchy", Caffeine.newBuilder()
+                    .maximumSize(CacheConstants.DEFAULT_CAFFEINE_CACHE_CAPACITY)
+                    .expireAfterAccess(Duration.ofHours(24)));
 
     /**
      * @see #getClassHierarchyMethods(Class)
      */
-    private static final Cache<Class<?>, Set<Method>> CLASS_HIERARCHY_METHODS_CACHE = Caffeine.newBuilder()
-            .maximumSize(CacheConstants.DEFAULT_CAFFEINE_CACHE_CAPACITY)
-            .expireAfterAccess(Duration.ofHours(24))
-            .build();
+    private static final Cache<Class<?>, Set<Method>> CLASS_HIERARCHY_METHODS_CACHE = CacheStatisticsRegistry.build(
+            "ReflectionUtils.classHierarchyMethods", Caffeine.newBuilder()
+                    .maximumSize(CacheConstants.DEFAULT_CAFFEINE_CACHE_CAPACITY)
+                    .expireAfterAccess(Duration.ofHours(24)));
 
     /**
      * @see #findMaterializedGenericType(Class, Class, Class)
      */
-    private static final Cache<String, Class<?>> MATERIALIZED_GENERIC_TYPE_CACHE = Caffeine.newBuilder()
-            .maximumSize(CacheConstants.DEFAULT_CAFFEINE_CACHE_CAPACITY)
-            .expireAfterAccess(Duration.ofHours(24))
-            .build();
+    private static final Cache<String, Class<?>> MATERIALIZED_GENERIC_TYPE_CACHE = CacheStatisticsRegistry.build(
+            "ReflectionUtils.materializedGenericType", Caffeine.newBuilder()
+                    .maximumSize(CacheConstants.DEFAULT_CAFFEINE_CACHE_CAPACITY)
+                    .expireAfterAccess(Duration.ofHours(24)));
 
     /**
      * Traverses class hierarchy graph (once; leverages caching) - collects all superclasses and superinterfaces.
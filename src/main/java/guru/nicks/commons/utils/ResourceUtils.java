@@ -1,6 +1,7 @@
 package guru.nicks.commons.utils;
 
 import guru.nicks.commons.ApplicationContextHolder;
+import guru.nicks.commons.cache.CacheStatisticsRegistry;
 import guru.nicks.commons.utils.crypto.ChecksumUtils;
 
 import com.github.benmanes.caffeine.cache.Cache;
@@ -66,14 +67,14 @@ public class ResourceUtils {
      * Last access (i.e. write or read) extends the cache TTL, so frequently needed keys never expire. It's OK because
      * the values never change.
      */
-    private static final Cache<String, CacheEntry> RESOURCE_CACHE = Caffeine.newBuilder()
-            .expireAfterAccess(CACHE_TTL)
-            // remove expired entries asap (not only when the cache is accessed) to save memory
-            .scheduler(Scheduler.systemScheduler())
-            // here, max. weight is the total size of all entries' content, in bytes
-            .maximumWeight(MAX_TOTAL_CACHE_SIZE.toBytes())
-            .weigher(ResourceUtils::computeCacheEntryWeight)
-            .build();
+    private static final Cache<String, CacheEntry> RESOURCE_CACHE = CacheStatisticsRegistry.build(
+            "ResourceUtils.resources", Caffeine.newBuilder()
+                    .expireAfterAccess(CACHE_TTL)
+                    // remove expired entries asap (not only when the cache is accessed) to save memory
+                    .scheduler(Scheduler.systemScheduler())
+                    // here, max. weight is the total size of all entries' content, in bytes
+                    .maximumWeight(MAX_TOTAL_CACHE_SIZE.toBytes())
+                    .weigher(ResourceUtils::computeCacheEntryWeight));
 
     /**
      * Cache for build tag - computed once and never expires. The reason to not use atomics is that they don't have a
@@ -0,0 +1,198 @@
+package guru.nicks.commons.utils;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+
+/**
+ * Statistics of recent values only: a ring buffer of time slots (by default, {@link #DEFAULT_SLOT_COUNT} slots of
+ * {@link #DEFAULT_SLOT_DURATION}), each having its own count, sum, and {@link LogLinearHistogram}. A window
+ * consists of the current (partial) slot and the preceding full ones, so {@link #getSnapshot(Duration)} reflects
+ * changes in behavior within one slot duration.
+ * <p>
+ * Lock-free: when a slot of the ring belongs to a past period, the first writer of the new period replaces it with a
+ * new slot via CAS; a few values recorded concurrently into the replaced slot may be lost, which is fine for
+ * statistics.
+ * Memory is bounded by the number of slots, and slots of periods without values are never created.
+ */
+public class SlidingWindowStatistics {
+
+    public static final Duration DEFAULT_SLOT_DURATION = Duration.ofMinutes(1);
+
+    /**
+     * Enough for a 15-minute window plus the current slot.
+     */
+    public static final int DEFAULT_SLOT_COUNT = 16;
+
+    /**
+     * Common origin for all instances, so slot numbers are non-negative.
+     */
+    private static final long ORIGIN_NANOS = System.nanoTime();
+
+    private static final long NANOS_PER_SECOND = Duration.ofSeconds(1).toNanos();
+
+    @Getter
+    private final Duration slotDuration;
+
+    private final long slotNanos;
+    private final AtomicReferenceArray<Slot> slots;
+
+    /**
+     * Creates an instance with {@link #DEFAULT_SLOT_COUNT} slots of {@link #DEFAULT_SLOT_DURATION}.
+     */
+    public SlidingWindowStatistics() {
+        this(DEFAULT_SLOT_DURATION, DEFAULT_SLOT_COUNT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param slotDuration slot duration (granularity of windows)
+     * @param slotCount    number of slots; the longest window is {@code slotCount - 1} slots plus the current slot
+     */
+    @ConstraintArguments
+    public SlidingWindowStatistics(Duration slotDuration, int slotCount) {
+        this.slotDuration = check(slotDuration, _SlidingWindowStatisticsArgumentsMeta.SLOTDURATION.name())
+                .constraint(Duration::isPositive, "must be positive")
+                .getValue();
+        check(slotCount, _SlidingWindowStatisticsArgumentsMeta.SLOTCOUNT.name()).greaterThanOrEqual(2);
+
+        slotNanos = slotDuration.toNanos();
+        slots = new AtomicReferenceArray<>(slotCount);
+    }
+
+    /**
+     * Records the value in the current slot.
+     *
+     * @param value value to record (ignored if negative)
+     */
+    public void record(long value) {
+        if (value < 0) {
+            return;
+        }
+
+        long slotNumber = currentSlotNumber();
+        int index = (int) (slotNumber % slots.length());
+        Slot slot = slots.get(index);
+
+        while ((slot == null) || (slot.number != slotNumber)) {
+            // the ring is stale (or a clock anomaly) - don't overwrite newer data
+            if ((slot != null) && (slot.number > slotNumber)) {
+                return;
+            }
+
+            var newSlot = new Slot(slotNumber);
+            slot = slots.compareAndSet(index, slot, newSlot)
+                    ? newSlot
+                    : slots.get(index);
+        }
+
+        slot.count.increment();
+        slot.sum.add(value);
+        slot.histogram.record(value);
+    }
+
+    /**
+     * Collects statistics of the given window: the current slot and as many preceding ones as needed to cover the
+     * window (but not more than the ring holds). Only histogram buckets up to the max. value of the window are merged.
+     *
+     * @param window window duration, rounded up to whole slots
+     * @return statistics
+     */
+    @ConstraintArguments
+    public Snapshot getSnapshot(Duration window) {
+        check(window, _SlidingWindowStatisticsGetSnapshotArgumentsMeta.WINDOW.name())
+                .constraint(Duration::isPositive, "must be positive");
+
+        long nowNanos = System.nanoTime() - ORIGIN_NANOS;
+        long currentSlotNumber = nowNanos / slotNanos;
+        long fullSlots = Math.min(slots.length() - 1, (window.toNanos() + slotNanos - 1) / slotNanos);
+
+        var windowSlots = new Slot[slots.length()];
+        int windowSlotCount = 0;
+        int usedBucketCount = 0;
+
+        for (int i = 0; i < slots.length(); i++) {
+            Slot slot = slots.get(i);
+
+            if ((slot != null) && (slot.number <= currentSlotNumber)
+                    && (slot.number >= currentSlotNumber - fullSlots)) {
+                windowSlots[windowSlotCount++] = slot;
+                usedBucketCount = Math.max(usedBucketCount, slot.histogram.getUsedBucketCount());
+            }
+        }
+
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+        // buckets above the max. value of all slots are empty, no need to merge them
+        var bucketCounts = new long[usedBucketCount];
+
+        for (int i = 0; i < windowSlotCount; i++) {
+            Slot slot = windowSlots[i];
+            count += slot.count.sum();
+            sum += slot.sum.sum();
+            max = Math.max(max, slot.histogram.getMax());
+            slot.histogram.addBucketCountsTo(bucketCounts);
+        }
+
+        // full slots plus the elapsed part of the current one
+        double seconds = (double) ((fullSlots * slotNanos) + (nowNanos % slotNanos)) / NANOS_PER_SECOND;
+
+        return new Snapshot(window, count,
+                (count > 0)
+                        ? (double) sum / count
+                        : 0,
+                (seconds > 0)
+                        ? count / seconds
+                        : 0,
+                LogLinearHistogram.getValueAtPercentile(bucketCounts, max, 50),
+                LogLinearHistogram.getValueAtPercentile(bucketCounts, max, 90),
+                LogLinearHistogram.getValueAtPercentile(bucketCounts, max, 99),
+                LogLinearHistogram.getValueAtPercentile(bucketCounts, max, 99.9),
+                max);
+    }
+
+    private long currentSlotNumber() {
+        return (System.nanoTime() - ORIGIN_NANOS) / slotNanos;
+    }
+
+    /**
+     * Statistics of a window.
+     *
+     * @param window        window duration requested
+     * @param count         number of values
+     * @param average       average value, 0 if there were no values
+     * @param ratePerSecond number of values per second
+     * @param p50           median
+     * @param p90           90th percentile
+     * @param p99           99th percentile
+     * @param p999          99.9th percentile
+     * @param max           max. value
+     */
+    public record Snapshot(Duration window, long count, double average, double ratePerSecond,
+            long p50, long p90, long p99, long p999, long max) {
+    }
+
+    /**
+     * Values of one period.
+     */
+    private static class Slot {
+
+        private final long number;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LogLinearHistogram histogram = new LogLinearHistogram();
+
+        Slot(long number) {
+            this.number = number;
+        }
+
+    }
+
+}
@@ -0,0 +1,317 @@
+package guru.nicks.commons.utils;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+
+/**
+ * Finds the most frequent items (heavy hitters) in a stream with the Space-Saving algorithm (see 'Efficient
+ * Computation of Frequent and Top-k Elements in Data Streams' by Metwally et al.): only {@link #getCapacity()}
+ * counters are kept; when a new item arrives and all counters are taken, the item replaces the least frequent one and
+ * inherits its count (which becomes the error bound of the new item).
+ * <p>
+ * To let many threads offer items without contending for one lock, there are several independent sketches (stripes),
+ * chosen by the offering thread, and {@link #getHeavyHitters()} merges them: counts of the same item are summed, and
+ * if a full stripe doesn't track the item, the stripe's min. count is added to both its count and error (an untracked
+ * item can't have occurred there more often than that). Each stripe has {@link #getCapacity()} counters, so memory is
+ * proportional to {@code capacity * stripeCount}.
+ * <p>
+ * Guarantees:
+ * <ul>
+ *  <li>any item occurring more than {@code totalCount / capacity} times is tracked by at least one stripe</li>
+ *  <li>counts are overestimated by at most {@link HeavyHitter#error()}</li>
+ * </ul>
+ * Counters of each stripe form a min-heap and are also looked up in a hash map, so {@link #offer(Object, long)} takes
+ * {@code O(log capacity)} and allocates nothing for items already tracked. Thread-safe (each stripe is synchronized).
+ *
+ * @param <T> item type
+ */
+public class SpaceSavingSketch<T> {
+
+    /**
+     * Enough stripes for all processors to offer items at the same time.
+     */
+    public static final int DEFAULT_STRIPE_COUNT = Integer.highestOneBit(
+            (Runtime.getRuntime().availableProcessors() * 2) - 1);
+
+    /**
+     * Multiplier of Fibonacci hashing: golden ratio times 2^64.
+     */
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    @Getter
+    private final int capacity;
+
+    private final Stripe<T>[] stripes;
+
+    /**
+     * Creates an instance with {@link #DEFAULT_STRIPE_COUNT} stripes.
+     *
+     * @param capacity number of counters per stripe, i.e. how many items are tracked
+     */
+    public SpaceSavingSketch(int capacity) {
+        this(capacity, DEFAULT_STRIPE_COUNT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity    number of counters per stripe, i.e. how many items are tracked
+     * @param stripeCount number of independent sketches, rounded up to a power of 2
+     */
+    @ConstraintArguments
+    @SuppressWarnings("unchecked")
+    public SpaceSavingSketch(int capacity, int stripeCount) {
+        this.capacity = check(capacity, _SpaceSavingSketchArgumentsMeta.CAPACITY.name()).positive().getValue();
+        check(stripeCount, _SpaceSavingSketchArgumentsMeta.STRIPECOUNT.name()).betweenInclusive(1, 1 << 10);
+
+        stripes = new Stripe[Integer.highestOneBit((stripeCount * 2) - 1)];
+
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe<>(capacity);
+        }
+    }
+
+    /**
+     * Counts an occurrence of the item.
+     *
+     * @param item item
+     */
+    public void offer(T item) {
+        offerToStripe(item, 1);
+    }
+
+    /**
+     * Counts several occurrences of the item at once, which is cheaper than offering it that many times.
+     *
+     * @param item  item
+     * @param count number of occurrences
+     */
+    public void offer(T item, long count) {
+        check(count, "count").positive();
+        offerToStripe(item, count);
+    }
+
+    private void offerToStripe(T item, long count) {
+        // Fibonacci hashing spreads sequential thread IDs evenly
+        long hash = Thread.currentThread().threadId() * GOLDEN_RATIO;
+        Stripe<T> stripe = stripes[(int) (hash >>> 32) & (stripes.length - 1)];
+
+        synchronized (stripe) {
+            stripe.offer(item, count);
+        }
+    }
+
+    /**
+     * Tells if the item is tracked by any stripe, i.e. may be a heavy hitter.
+     *
+     * @param item item
+     * @return {@code true} if the item is tracked
+     */
+    public boolean contains(T item) {
+        for (Stripe<T> stripe : stripes) {
+            synchronized (stripe) {
+                if (stripe.counters.containsKey(item)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the number of occurrences counted, including those of the items no longer tracked.
+     *
+     * @return total count
+     */
+    public long getTotalCount() {
+        long totalCount = 0;
+
+        for (Stripe<T> stripe : stripes) {
+            synchronized (stripe) {
+                totalCount += stripe.totalCount;
+            }
+        }
+
+        return totalCount;
+    }
+
+    /**
+     * Returns the tracked items merged from all stripes, the most frequent first.
+     *
+     * @return at most {@link #getCapacity()} heavy hitters
+     */
+    public List<HeavyHitter<T>> getHeavyHitters() {
+        // count, error, and the sum of min. counts of the stripes tracking the item
+        Map<T, long[]> merged = new LinkedHashMap<>();
+        // sum of min. counts of full stripes, to be added to the items they don't track
+        long totalMinCount = 0;
+
+        for (Stripe<T> stripe : stripes) {
+            synchronized (stripe) {
+                long minCount = (stripe.size == capacity)
+                        ? stripe.heap[0].count
+                        : 0;
+                totalMinCount += minCount;
+
+                for (int i = 0; i < stripe.size; i++) {
+                    Counter<T> counter = stripe.heap[i];
+                    long[] merging = merged.computeIfAbsent(counter.item, item -> new long[3]);
+                    merging[0] += counter.count;
+                    merging[1] += counter.error;
+                    merging[2] += minCount;
+                }
+            }
+        }
+
+        List<HeavyHitter<T>> heavyHitters = new ArrayList<>(merged.size());
+
+        for (Map.Entry<T, long[]> entry : merged.entrySet()) {
+            long[] merging = entry.getValue();
+            long untrackedCount = totalMinCount - merging[2];
+            heavyHitters.add(new HeavyHitter<>(entry.getKey(), merging[0] + untrackedCount,
+                    merging[1] + untrackedCount));
+        }
+
+        heavyHitters.sort(Comparator.comparingLong(HeavyHitter<T>::count).reversed());
+
+        return (heavyHitters.size() > capacity)
+                ? new ArrayList<>(heavyHitters.subList(0, capacity))
+                : heavyHitters;
+    }
+
+    /**
+     * Independent sketch, guarded by its own monitor.
+     */
+    private static class Stripe<T> {
+
+        /**
+         * Min-heap by count.
+         */
+        private final Counter<T>[] heap;
+
+        private final Map<T, Counter<T>> counters;
+
+        private int size;
+        private long totalCount;
+
+        @SuppressWarnings("unchecked")
+        Stripe(int capacity) {
+            heap = new Counter[capacity];
+            counters = HashMap.newHashMap(capacity);
+        }
+
+        private void offer(T item, long count) {
+            totalCount += count;
+            Counter<T> counter = counters.get(item);
+
+            if (counter != null) {
+                counter.count += count;
+                siftDown(counter.position);
+                return;
+            }
+
+            if (size < heap.length) {
+                counter = new Counter<>(item, count, size);
+                heap[size++] = counter;
+                counters.put(item, counter);
+                siftUp(counter.position);
+                return;
+            }
+
+            // the least frequent item is replaced, and the new one inherits its count
+            counter = heap[0];
+            counters.remove(counter.item);
+            counter.item = item;
+            counter.error = counter.count;
+            counter.count += count;
+            counters.put(item, counter);
+            siftDown(0);
+        }
+
+        private void siftUp(int position) {
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+
+                if (heap[parent].count <= heap[position].count) {
+                    return;
+                }
+
+                swap(position, parent);
+                position = parent;
+            }
+        }
+
+        private void siftDown(int position) {
+            while (true) {
+                int smallest = position;
+                int left = (2 * position) + 1;
+                int right = left + 1;
+
+                if ((left < size) && (heap[left].count < heap[smallest].count)) {
+                    smallest = left;
+                }
+
+                if ((right < size) && (heap[right].count < heap[smallest].count)) {
+                    smallest = right;
+                }
+
+                if (smallest == position) {
+                    return;
+                }
+
+                swap(position, smallest);
+                position = smallest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            Counter<T> counter = heap[i];
+            heap[i] = heap[j];
+            heap[j] = counter;
+
+            heap[i].position = i;
+            heap[j].position = j;
+        }
+
+    }
+
+    /**
+     * Tracked item.
+     *
+     * @param item  item
+     * @param count estimated number of occurrences (never less than the actual one)
+     * @param error max. overestimation of {@code count}: the item occurred at least {@code count - error} times
+     * @param <T>   item type
+     */
+    public record HeavyHitter<T>(T item, long count, long error) {
+    }
+
+    /**
+     * Mutable counter, reused when its item is replaced.
+     */
+    private static class Counter<T> {
+
+        private T item;
+        private long count;
+        private long error;
+        private int position;
+
+        Counter(T item, long count, int position) {
+            this.item = item;
+            this.count = count;
+            this.position = position;
+        }
+
+    }
+
+}
@@ -0,0 +1,128 @@
+package guru.nicks.commons.utils;
+
+import am.ik.yavi.meta.ConstraintArguments;
+import jakarta.annotation.Nullable;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.check;
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * Fixed number of {@link StampedLock}s (stripes) shared by all keys: a key is mapped to a stripe by its spread hash
+ * code. Memory is constant regardless of the number of keys, but unrelated keys sharing a stripe block each other, so
+ * the number of stripes should be well above the number of threads competing for locks.
+ * <p>
+ * Never acquire locks of several keys at a time: they may share a stripe, and {@link StampedLock} is not reentrant.
+ * <p>
+ * If a lock name or {@link LockStatistics} are passed to the constructor, stripes are {@link InstrumentedStampedLock}s
+ * sharing the statistics.
+ *
+ * @param <K> key type
+ */
+public class StripedStampedLocks<K> implements KeyedStampedLocks<K> {
+
+    public static final int DEFAULT_STRIPE_COUNT = 256;
+
+    /**
+     * Multiplier of Fibonacci hashing: golden ratio times 2^32.
+     */
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    private final StampedLock[] locks;
+
+    /**
+     * Number of bits to shift the spread hash code by to get a stripe index.
+     */
+    private final int indexShift;
+
+    /**
+     * Creates an instance with {@link #DEFAULT_STRIPE_COUNT} stripes.
+     */
+    public StripedStampedLocks() {
+        this(DEFAULT_STRIPE_COUNT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param stripeCount number of locks, rounded up to a power of 2
+     */
+    public StripedStampedLocks(int stripeCount) {
+        this(stripeCount, StampedLock::new);
+    }
+
+    /**
+     * Creates an instance whose stripes update the statistics
+     * {@link LockStatisticsRegistry#getOrCreate(String) registered} under the given name.
+     *
+     * @param stripeCount number of locks, rounded up to a power of 2
+     * @param name        lock name, for example {@code UserService.balance}
+     */
+    public StripedStampedLocks(int stripeCount, String name) {
+        this(stripeCount, LockStatisticsRegistry.getOrCreate(name));
+    }
+
+    /**
+     * Creates an instance whose stripes update the given statistics.
+     *
+     * @param stripeCount number of locks, rounded up to a power of 2
+     * @param statistics  statistics to update
+     */
+    public StripedStampedLocks(int stripeCount, LockStatistics statistics) {
+        this(stripeCount, createInstrumentedLockFactory(statistics));
+    }
+
+    @ConstraintArguments
+    private StripedStampedLocks(int stripeCount, Supplier<StampedLock> lockFactory) {
+        check(stripeCount, _StripedStampedLocksArgumentsMeta.STRIPECOUNT.name()).betweenInclusive(1, 1 << 30);
+
+        int bits = Integer.SIZE - Integer.numberOfLeadingZeros(stripeCount - 1);
+        locks = new StampedLock[1 << bits];
+        // shifting an int by 32 is a no-op in Java, therefore a single stripe is a special case
+        indexShift = (bits == 0)
+                ? -1
+                : Integer.SIZE - bits;
+
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = lockFactory.get();
+        }
+    }
+
+    /**
+     * Returns the number of stripes.
+     *
+     * @return power of 2
+     */
+    public int getStripeCount() {
+        return locks.length;
+    }
+
+    @Override
+    public StampedLock getLock(@Nullable K key) {
+        return locks[stripeIndex(key)];
+    }
+
+    private static Supplier<StampedLock> createInstrumentedLockFactory(LockStatistics statistics) {
+        checkNotNull(statistics, "statistics");
+        return () -> new InstrumentedStampedLock(statistics);
+    }
+
+    /**
+     * Fibonacci hashing: the high bits of {@code hashCode * golden ratio} depend on all bits of the hash code, so even
+     * poor hash codes (such as those of sequential numeric IDs) are spread evenly.
+     */
+    private int stripeIndex(@Nullable K key) {
+        if (indexShift < 0) {
+            return 0;
+        }
+
+        int hash = (key == null)
+                ? 0
+                : key.hashCode();
+
+        return (hash * GOLDEN_RATIO) >>> indexShift;
+    }
+
+}
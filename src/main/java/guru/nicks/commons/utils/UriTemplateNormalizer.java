@@ -0,0 +1,197 @@
+package guru.nicks.commons.utils;
+
+import guru.nicks.commons.utils.text.TextUtils;
+
+import jakarta.annotation.Nullable;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Turns request URIs (optionally prefixed with an HTTP method, like {@code GET /users/123}) into templates by
+ * replacing ID-like path segments with placeholders:
+ * <ul>
+ *  <li>{@link #NUMBER_PLACEHOLDER} - decimal numbers</li>
+ *  <li>{@link #UUID_PLACEHOLDER} - UUIDs: canonical (36 characters with hyphens), without hyphens (32 hex digits), and
+ *      encoded with {@link UuidUtils#encodeToCrockfordBase32(java.util.UUID)} (26 characters)</li>
+ *  <li>{@link #ID_PLACEHOLDER} - {@link guru.nicks.commons.sortableid.TimeSortableId}s (10 to 22 Crockford Base32
+ *      characters) and hashes / object IDs (16 or more hex digits)</li>
+ * </ul>
+ * To tell IDs from words, Crockford Base32 and hex segments must contain at least one digit; Crockford Base32 ones must
+ * also be in upper case (as the encoders produce them). Query strings and fragments are dropped.
+ * <p>
+ * No regular expressions: each character is classified with a precomputed lookup table in a single pass, and the
+ * original string is returned as is (without allocations) if there's nothing to replace.
+ */
+public class UriTemplateNormalizer implements UnaryOperator<String> {
+
+    public static final UriTemplateNormalizer INSTANCE = new UriTemplateNormalizer();
+
+    public static final String NUMBER_PLACEHOLDER = "{number}";
+    public static final String UUID_PLACEHOLDER = "{uuid}";
+    public static final String ID_PLACEHOLDER = "{id}";
+
+    private static final int UUID_LENGTH = 36;
+    private static final int UUID_HEX_LENGTH = 32;
+    private static final int CROCKFORD_BASE32_UUID_LENGTH = 26;
+    private static final int MIN_TIME_SORTABLE_ID_LENGTH = 10;
+    private static final int MAX_TIME_SORTABLE_ID_LENGTH = 22;
+    private static final int MIN_HEX_ID_LENGTH = 16;
+
+    private static final int DIGIT = 1;
+    private static final int HEX = 1 << 1;
+    private static final int CROCKFORD_BASE32 = 1 << 2;
+
+    /**
+     * Character classes of ASCII characters, as bit masks.
+     */
+    private static final byte[] CHARACTER_CLASSES = new byte[128];
+
+    static {
+        for (char c : TextUtils.DECIMAL_ALPHABET.toCharArray()) {
+            CHARACTER_CLASSES[c] |= DIGIT;
+        }
+
+        for (char c : "0123456789abcdefABCDEF".toCharArray()) {
+            CHARACTER_CLASSES[c] |= HEX;
+        }
+
+        for (char c : TextUtils.CROCKFORD_BASE32_ALPHABET.toCharArray()) {
+            CHARACTER_CLASSES[c] |= CROCKFORD_BASE32;
+        }
+    }
+
+    private UriTemplateNormalizer() {
+    }
+
+    /**
+     * Replaces ID-like path segments with placeholders and drops the query string and the fragment.
+     *
+     * @param uri for example, {@code GET /users/123?details=true}
+     * @return for example, {@code GET /users/{number}}
+     */
+    @Override
+    public String apply(String uri) {
+        int pathEnd = findPathEnd(uri);
+        StringBuilder builder = null;
+        int copiedUpTo = 0;
+        int segmentStart = 0;
+
+        for (int i = 0; i <= pathEnd; i++) {
+            if ((i < pathEnd) && (uri.charAt(i) != '/')) {
+                continue;
+            }
+
+            String placeholder = findPlaceholder(uri, segmentStart, i);
+
+            if (placeholder != null) {
+                if (builder == null) {
+                    builder = new StringBuilder(pathEnd);
+                }
+
+                builder.append(uri, copiedUpTo, segmentStart).append(placeholder);
+                copiedUpTo = i;
+            }
+
+            segmentStart = i + 1;
+        }
+
+        if (builder != null) {
+            return builder.append(uri, copiedUpTo, pathEnd).toString();
+        }
+
+        return (pathEnd == uri.length())
+                ? uri
+                : uri.substring(0, pathEnd);
+    }
+
+    private static int findPathEnd(String uri) {
+        for (int i = 0; i < uri.length(); i++) {
+            char c = uri.charAt(i);
+
+            if ((c == '?') || (c == '#')) {
+                return i;
+            }
+        }
+
+        return uri.length();
+    }
+
+    /**
+     * Classifies the segment.
+     *
+     * @param uri   URI
+     * @param start segment start (inclusive)
+     * @param end   segment end (exclusive)
+     * @return placeholder, {@code null} if the segment is not an ID
+     */
+    @Nullable
+    private static String findPlaceholder(String uri, int start, int end) {
+        int length = end - start;
+
+        if (length == 0) {
+            return null;
+        }
+
+        if ((length == UUID_LENGTH) && isCanonicalUuid(uri, start)) {
+            return UUID_PLACEHOLDER;
+        }
+
+        // bits present in all characters
+        int commonClasses = DIGIT | HEX | CROCKFORD_BASE32;
+        boolean hasDigit = false;
+
+        for (int i = start; (i < end) && (commonClasses != 0); i++) {
+            int classes = characterClasses(uri.charAt(i));
+            commonClasses &= classes;
+            hasDigit |= (classes & DIGIT) != 0;
+        }
+
+        if ((commonClasses & DIGIT) != 0) {
+            return NUMBER_PLACEHOLDER;
+        }
+
+        if (!hasDigit) {
+            return null;
+        }
+
+        boolean hex = (commonClasses & HEX) != 0;
+        boolean crockfordBase32 = (commonClasses & CROCKFORD_BASE32) != 0;
+
+        if ((hex && (length == UUID_HEX_LENGTH)) || (crockfordBase32 && (length == CROCKFORD_BASE32_UUID_LENGTH))) {
+            return UUID_PLACEHOLDER;
+        }
+
+        if ((crockfordBase32 && (length >= MIN_TIME_SORTABLE_ID_LENGTH) && (length <= MAX_TIME_SORTABLE_ID_LENGTH))
+                || (hex && (length >= MIN_HEX_ID_LENGTH))) {
+            return ID_PLACEHOLDER;
+        }
+
+        return null;
+    }
+
+    /**
+     * Checks the 8-4-4-4-12 format.
+     */
+    private static boolean isCanonicalUuid(String uri, int start) {
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            char c = uri.charAt(start + i);
+
+            if ((i == 8) || (i == 13) || (i == 18) || (i == 23)) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if ((characterClasses(c) & HEX) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int characterClasses(char c) {
+        return (c < CHARACTER_CLASSES.length)
+                ? CHARACTER_CLASSES[c]
+                : 0;
+    }
+
+}
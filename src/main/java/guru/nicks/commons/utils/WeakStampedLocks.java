@@ -0,0 +1,84 @@
+package guru.nicks.commons.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.Nullable;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNull;
+
+/**
+ * One {@link StampedLock} per distinct key (by {@link Object#equals(Object)}), so unrelated keys never block each
+ * other - unlike {@link StripedStampedLocks}. Locks are weakly referenced: once no thread holds the lock of a key, it's
+ * garbage-collected, so memory is proportional to the number of keys being locked at the moment, not to the number of
+ * keys ever locked.
+ * <p>
+ * Costs a map lookup (and sometimes a lock allocation) per call, and more memory per lock than
+ * {@link StripedStampedLocks}.
+ * <p>
+ * If a lock name or {@link LockStatistics} are passed to the constructor, locks are {@link InstrumentedStampedLock}s
+ * sharing the statistics.
+ *
+ * @param <K> key type
+ */
+public class WeakStampedLocks<K> implements KeyedStampedLocks<K> {
+
+    /**
+     * Stands for {@code null} keys, which the map doesn't support.
+     */
+    private static final Object NULL_KEY = new Object();
+
+    private final Cache<Object, StampedLock> locks = Caffeine.newBuilder()
+            .weakValues()
+            .build();
+
+    private final Supplier<StampedLock> lockFactory;
+
+    /**
+     * Creates an instance with plain locks.
+     */
+    public WeakStampedLocks() {
+        lockFactory = StampedLock::new;
+    }
+
+    /**
+     * Creates an instance whose locks update the statistics
+     * {@link LockStatisticsRegistry#getOrCreate(String) registered} under the given name.
+     *
+     * @param name lock name, for example {@code UserService.balance}
+     */
+    public WeakStampedLocks(String name) {
+        this(LockStatisticsRegistry.getOrCreate(name));
+    }
+
+    /**
+     * Creates an instance whose locks update the given statistics.
+     *
+     * @param statistics statistics to update
+     */
+    public WeakStampedLocks(LockStatistics statistics) {
+        checkNotNull(statistics, "statistics");
+        lockFactory = () -> new InstrumentedStampedLock(statistics);
+    }
+
+    @Override
+    public StampedLock getLock(@Nullable K key) {
+        Object nonNullKey = (key == null)
+                ? NULL_KEY
+                : key;
+
+        return locks.get(nonNullKey, ignored -> lockFactory.get());
+    }
+
+    /**
+     * Returns the approximate number of locks not garbage-collected yet.
+     *
+     * @return number of locks
+     */
+    public long getLockCount() {
+        return locks.estimatedSize();
+    }
+
+}
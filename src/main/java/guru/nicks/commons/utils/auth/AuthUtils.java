@@ -1,12 +1,15 @@
 package guru.nicks.commons.utils.auth;
 
+import guru.nicks.commons.auth.domain.AccessTokenChecksum;
 import guru.nicks.commons.auth.domain.BasicAuthCredentials;
 import guru.nicks.commons.utils.crypto.HashUtils;
 
 import am.ik.yavi.meta.ConstraintArguments;
+import com.google.common.primitives.Longs;
 import lombok.experimental.UtilityClass;
 import org.apache.commons.lang3.Strings;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.Locale;
@@ -44,15 +47,37 @@ public class AuthUtils {
      * @return checksum
      * @throws NullPointerException     {@code accessTokenValue} is null
      * @throws IllegalArgumentException {@code accessTokenValue} is empty or whitespace-only
+     * @see #calculateBinaryAccessTokenChecksum(String)
      */
     @ConstraintArguments
     public static String calculateAccessTokenChecksum(String accessTokenValue) {
         checkNotBlank(accessTokenValue, _AuthUtilsCalculateAccessTokenChecksumArgumentsMeta.ACCESSTOKENVALUE.name());
-        byte[] bytes = accessTokenValue.getBytes(StandardCharsets.UTF_8);
+        AccessTokenChecksum checksum = calculateBinaryAccessTokenChecksum(accessTokenValue);
 
         return String.format(Locale.US, ACCESS_TOKEN_CHECKSUM_TEMPLATE,
-                HashUtils.SHA_256.computeHex(bytes),
-                HashUtils.XXHASH3.computeHex(bytes));
+                checksum.sha256Hex(),
+                checksum.xxHash3Hex());
+    }
+
+    /**
+     * Same as {@link #calculateAccessTokenChecksum(String)}, but returns checksums as primitives, with no string
+     * formatting. Suitable for map/cache keys on hot paths.
+     *
+     * @return checksum
+     * @throws NullPointerException     {@code accessTokenValue} is null
+     * @throws IllegalArgumentException {@code accessTokenValue} is empty or whitespace-only
+     */
+    @ConstraintArguments
+    public static AccessTokenChecksum calculateBinaryAccessTokenChecksum(String accessTokenValue) {
+        checkNotBlank(accessTokenValue,
+                _AuthUtilsCalculateBinaryAccessTokenChecksumArgumentsMeta.ACCESSTOKENVALUE.name());
+        byte[] bytes = accessTokenValue.getBytes(StandardCharsets.UTF_8);
+
+        // big-endian, same as Longs.fromByteArray()
+        var sha256 = ByteBuffer.wrap(HashUtils.SHA_256.compute(bytes));
+
+        return new AccessTokenChecksum(sha256.getLong(), sha256.getLong(), sha256.getLong(), sha256.getLong(),
+                Longs.fromByteArray(HashUtils.XXHASH3.compute(bytes)));
     }
 
     /**
@@ -1,5 +1,11 @@
 package guru.nicks.commons.utils.crypto;
 
+import guru.nicks.commons.cache.CacheStatisticsRegistry;
+import guru.nicks.commons.cache.domain.CacheConstants;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.primitives.Longs;
 import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
@@ -10,10 +16,12 @@ import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
 
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.security.PrivateKey;
 import java.security.PublicKey;
-import java.util.regex.Pattern;
+import java.time.Duration;
+import java.util.function.Function;
 
 import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotBlank;
 
@@ -23,21 +31,36 @@ import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotBlank;
 @UtilityClass
 public class PemUtils {
 
+    private static final String PEM_BEGIN = "-----BEGIN";
+    private static final String PEM_END = "-----END";
+    private static final String PEM_KEY_SUFFIX = "KEY-----";
+    private static final String PRIVATE_KEY_TYPE = "PRIVATE";
+    private static final String PUBLIC_KEY_TYPE = "PUBLIC";
+
     /**
-     * Matches {@code -----BEGIN [RSA|...]? [PRIVATE|PUBLIC KEY]-----} not ending with a linebreak. The point is to fix
-     * such definitions by adding a linebreak after such lines, otherwise they remain unparseable.
+     * Keys are {@link HashUtils#XXHASH3} hashes of PEM strings passed to
+     * {@link #retrievePrivateKeyFromKeyPair(String)}.
      */
-    private static final Pattern PEM_START_NO_LINEBREAK_PATTERN = Pattern.compile(
-            "(?x)           (-----BEGIN \\s+ \\S*?\\s* (?:PRIVATE|PUBLIC) \\s+ KEY-----)([^\\r\\n])");
+    private static final Cache<Long, ParsedKey<PrivateKey>> KEY_PAIR_PRIVATE_KEY_CACHE =
+            createParsedKeyCache("PemUtils.keyPairPrivateKeys");
+
     /**
-     * Matches {@code -----END [RSA|...]? [PRIVATE|PUBLIC KEY]-----} not starting with a linebreak. The point is to fix
-     * such definitions by adding a linebreak before such lines, otherwise they remain unparseable.
+     * Keys are {@link HashUtils#XXHASH3} hashes of PEM strings passed to {@link #retrievePublicKeyFromKeyPair(String)}.
      */
-    private static final Pattern PEM_END_NO_LINEBREAK_PATTERN = Pattern.compile(
-            "(?x)([^\\r\\n])(-----END   \\s+ \\S*?\\s* (?:PRIVATE|PUBLIC) \\s+ KEY-----)");
+    private static final Cache<Long, ParsedKey<PublicKey>> KEY_PAIR_PUBLIC_KEY_CACHE =
+            createParsedKeyCache("PemUtils.keyPairPublicKeys");
 
     /**
-     * Fixes PEM, with regard to linebreaks, to make it parseable by {@link PEMParser}.
+     * Keys are {@link HashUtils#XXHASH3} hashes of PEM strings passed to {@link #parsePublicKey(String)}.
+     */
+    private static final Cache<Long, ParsedKey<PublicKey>> PUBLIC_KEY_CACHE =
+            createParsedKeyCache("PemUtils.publicKeys");
+
+    /**
+     * Fixes PEM, with regard to linebreaks, to make it parseable by {@link PEMParser}. Namely, ensures a linebreak
+     * after the first {@code -----BEGIN [RSA|...]? [PRIVATE|PUBLIC] KEY-----} declaration and before the first
+     * {@code -----END [RSA|...]? [PRIVATE|PUBLIC] KEY-----} declaration. Declarations are found with a plain character
+     * scan (no regular expressions), and if nothing needs to be fixed, the original string is returned as-is.
      *
      * @param pem key pair in PEM format
      * @throws IllegalArgumentException PEM is blank
@@ -47,8 +70,8 @@ public class PemUtils {
 
         // ensure linebreak after BEGIN declaration and before END declaration, otherwise parser complains of not being
         // able to decode a Base64 string (which is between those markers)
-        String fixed = PEM_START_NO_LINEBREAK_PATTERN.matcher(pem).replaceFirst("$1\n$2");
-        fixed = PEM_END_NO_LINEBREAK_PATTERN.matcher(fixed).replaceFirst("$1\n$2");
+        String fixed = insertLinebreakAfterBegin(pem);
+        fixed = insertLinebreakBeforeEnd(fixed);
 
         return fixed;
     }
@@ -59,12 +82,8 @@ public class PemUtils {
      * @param pem key pair in PEM format
      * @return private key
      */
-    @SneakyThrows
     public static PrivateKey retrievePrivateKeyFromKeyPair(String pem) {
-        try (PEMParser pemParser = createPemParser(pem)) {
-            PEMKeyPair keyPair = (PEMKeyPair) pemParser.readObject();
-            return new JcaPEMKeyConverter().getPrivateKey(keyPair.getPrivateKeyInfo());
-        }
+        return parseWithCache(KEY_PAIR_PRIVATE_KEY_CACHE, pem, WithoutCache::retrievePrivateKeyFromKeyPair);
     }
 
     /**
@@ -73,12 +92,8 @@ public class PemUtils {
      * @param pem key pair in PEM format
      * @return public key
      */
-    @SneakyThrows
     public static PublicKey retrievePublicKeyFromKeyPair(String pem) {
-        try (PEMParser pemParser = createPemParser(pem)) {
-            PEMKeyPair keyPair = (PEMKeyPair) pemParser.readObject();
-            return new JcaPEMKeyConverter().getPublicKey(keyPair.getPublicKeyInfo());
-        }
+        return parseWithCache(KEY_PAIR_PUBLIC_KEY_CACHE, pem, WithoutCache::retrievePublicKeyFromKeyPair);
     }
 
     /**
@@ -87,12 +102,8 @@ public class PemUtils {
      * @param pem public key alone, in PEM format (Base64-encoded)
      * @return public key
      */
-    @SneakyThrows
     public static PublicKey parsePublicKey(String pem) {
-        try (PEMParser pemParser = createPemParser(pem)) {
-            SubjectPublicKeyInfo keyInfo = (SubjectPublicKeyInfo) pemParser.readObject();
-            return new JcaPEMKeyConverter().getPublicKey(keyInfo);
-        }
+        return parseWithCache(PUBLIC_KEY_CACHE, pem, WithoutCache::parsePublicKey);
     }
 
     /**
@@ -111,6 +122,178 @@ public class PemUtils {
         return fixPem(result.toString());
     }
 
+    /**
+     * Drops all parsed keys from the in-memory cache, for example after key rotation (although rotated keys have
+     * different PEM strings and are therefore cached separately anyway).
+     */
+    public static void invalidateCache() {
+        KEY_PAIR_PRIVATE_KEY_CACHE.invalidateAll();
+        KEY_PAIR_PUBLIC_KEY_CACHE.invalidateAll();
+        PUBLIC_KEY_CACHE.invalidateAll();
+    }
+
+    private static <K extends Key> Cache<Long, ParsedKey<K>> createParsedKeyCache(String cacheName) {
+        return CacheStatisticsRegistry.build(cacheName, Caffeine.newBuilder()
+                .maximumSize(CacheConstants.DEFAULT_CAFFEINE_CACHE_CAPACITY)
+                .expireAfterAccess(Duration.ofHours(24)));
+    }
+
+    /**
+     * Looks up the key parsed previously out of the same PEM string. As {@link HashUtils#XXHASH3} is not
+     * collision-proof, the PEM string itself is compared too, so a collision merely causes re-parsing (and replacing
+     * the cached key) - a wrong key is never returned.
+     *
+     * @param cache  cache to use
+     * @param pem    PEM string
+     * @param parser parses the key if it's not in the cache yet
+     * @param <K>    key type
+     * @return parsed key
+     */
+    private static <K extends Key> K parseWithCache(Cache<Long, ParsedKey<K>> cache, String pem,
+            Function<String, K> parser) {
+        checkNotBlank(pem, "pem");
+        long hash = Longs.fromByteArray(
+                HashUtils.XXHASH3.compute(pem.getBytes(StandardCharsets.UTF_8)));
+
+        ParsedKey<K> cached = cache.getIfPresent(hash);
+        if ((cached != null) && cached.pem().equals(pem)) {
+            return cached.key();
+        }
+
+        K key = parser.apply(pem);
+        cache.put(hash, new ParsedKey<>(pem, key));
+        return key;
+    }
+
+    /**
+     * Inserts a linebreak after the first (counting from the left) BEGIN declaration not followed by a linebreak.
+     *
+     * @param pem PEM
+     * @return fixed PEM, or the original string if it needs no fixing
+     */
+    private static String insertLinebreakAfterBegin(String pem) {
+        for (int start = pem.indexOf(PEM_BEGIN); start >= 0; start = pem.indexOf(PEM_BEGIN, start + 1)) {
+            int declarationEnd = findKeyDeclarationEnd(pem, start + PEM_BEGIN.length());
+
+            if ((declarationEnd >= 0) && (declarationEnd < pem.length()) && !isLinebreak(pem.charAt(declarationEnd))) {
+                return pem.substring(0, declarationEnd) + '\n' + pem.substring(declarationEnd);
+            }
+        }
+
+        return pem;
+    }
+
+    /**
+     * Inserts a linebreak before the first (counting from the left) END declaration not preceded by a linebreak.
+     *
+     * @param pem PEM
+     * @return fixed PEM, or the original string if it needs no fixing
+     */
+    private static String insertLinebreakBeforeEnd(String pem) {
+        for (int start = pem.indexOf(PEM_END); start >= 0; start = pem.indexOf(PEM_END, start + 1)) {
+            if ((start > 0) && !isLinebreak(pem.charAt(start - 1))
+                    && (findKeyDeclarationEnd(pem, start + PEM_END.length()) >= 0)) {
+                return pem.substring(0, start) + '\n' + pem.substring(start);
+            }
+        }
+
+        return pem;
+    }
+
+    /**
+     * Parses the part of a BEGIN/END declaration following {@value #PEM_BEGIN}/{@value #PEM_END}: one or more
+     * whitespaces, optional algorithm name (such as {@code RSA}) possibly glued to the key type, key type
+     * ({@value #PRIVATE_KEY_TYPE} or {@value #PUBLIC_KEY_TYPE}), one or more whitespaces, {@value #PEM_KEY_SUFFIX}.
+     *
+     * @param pem   PEM
+     * @param index index right after {@value #PEM_BEGIN}/{@value #PEM_END}
+     * @return index right after {@value #PEM_KEY_SUFFIX}, or -1 if the declaration doesn't match the above format
+     */
+    private static int findKeyDeclarationEnd(String pem, int index) {
+        int wordStart = skipWhitespaces(pem, index);
+        // at least one whitespace is required
+        if (wordStart == index) {
+            return -1;
+        }
+
+        int wordEnd = skipNonWhitespaces(pem, wordStart);
+
+        // key type may be glued to the algorithm name (or be the only word)
+        if (endsWithKeyType(pem, wordStart, wordEnd)) {
+            int declarationEnd = findKeySuffixEnd(pem, wordEnd);
+
+            if (declarationEnd >= 0) {
+                return declarationEnd;
+            }
+        }
+
+        // otherwise, the word must be an algorithm name followed by whitespaces and the key type
+        int keyTypeStart = skipWhitespaces(pem, wordEnd);
+        int keyTypeEnd = skipNonWhitespaces(pem, keyTypeStart);
+
+        return ((keyTypeStart > wordEnd) && equalsKeyType(pem, keyTypeStart, keyTypeEnd))
+                ? findKeySuffixEnd(pem, keyTypeEnd)
+                : -1;
+    }
+
+    /**
+     * Parses one or more whitespaces followed by {@value #PEM_KEY_SUFFIX}.
+     *
+     * @param pem   PEM
+     * @param index index right after the key type
+     * @return index right after {@value #PEM_KEY_SUFFIX}, or -1 if there's no such suffix
+     */
+    private static int findKeySuffixEnd(String pem, int index) {
+        int suffixStart = skipWhitespaces(pem, index);
+
+        // at least one whitespace is required
+        return ((suffixStart > index) && pem.startsWith(PEM_KEY_SUFFIX, suffixStart))
+                ? suffixStart + PEM_KEY_SUFFIX.length()
+                : -1;
+    }
+
+    private static boolean endsWithKeyType(String str, int start, int end) {
+        return endsWith(str, start, end, PRIVATE_KEY_TYPE) || endsWith(str, start, end, PUBLIC_KEY_TYPE);
+    }
+
+    private static boolean equalsKeyType(String str, int start, int end) {
+        int length = end - start;
+
+        return ((length == PRIVATE_KEY_TYPE.length()) && str.startsWith(PRIVATE_KEY_TYPE, start))
+                || ((length == PUBLIC_KEY_TYPE.length()) && str.startsWith(PUBLIC_KEY_TYPE, start));
+    }
+
+    private static boolean endsWith(String str, int start, int end, String suffix) {
+        return ((end - start) >= suffix.length()) && str.startsWith(suffix, end - suffix.length());
+    }
+
+    private static int skipWhitespaces(String str, int index) {
+        while ((index < str.length()) && isWhitespace(str.charAt(index))) {
+            index++;
+        }
+
+        return index;
+    }
+
+    private static int skipNonWhitespaces(String str, int index) {
+        while ((index < str.length()) && !isWhitespace(str.charAt(index))) {
+            index++;
+        }
+
+        return index;
+    }
+
+    /**
+     * Same set of characters as in the {@code \s} regex class.
+     */
+    private static boolean isWhitespace(char chr) {
+        return (chr == ' ') || (chr == '\t') || isLinebreak(chr) || (chr == '\u000B') || (chr == '\f');
+    }
+
+    private static boolean isLinebreak(char chr) {
+        return (chr == '\n') || (chr == '\r');
+    }
+
     /**
      * Creates parser for PEM-encoded public key or private+public key pair.
      *
@@ -121,4 +304,51 @@ public class PemUtils {
         return new PEMParser(new StringReader(fixPem(pem)));
     }
 
+    /**
+     * Parsed key along with the PEM string it was parsed from.
+     *
+     * @param pem PEM string
+     * @param key parsed key
+     * @param <K> key type
+     */
+    private record ParsedKey<K extends Key>(String pem, K key) {
+    }
+
+    private static class WithoutCache {
+
+        /**
+         * Called on cache miss from {@link #KEY_PAIR_PRIVATE_KEY_CACHE}.
+         */
+        @SneakyThrows
+        private static PrivateKey retrievePrivateKeyFromKeyPair(String pem) {
+            try (PEMParser pemParser = createPemParser(pem)) {
+                PEMKeyPair keyPair = (PEMKeyPair) pemParser.readObject();
+                return new JcaPEMKeyConverter().getPrivateKey(keyPair.getPrivateKeyInfo());
+            }
+        }
+
+        /**
+         * Called on cache miss from {@link #KEY_PAIR_PUBLIC_KEY_CACHE}.
+         */
+        @SneakyThrows
+        private static PublicKey retrievePublicKeyFromKeyPair(String pem) {
+            try (PEMParser pemParser = createPemParser(pem)) {
+                PEMKeyPair keyPair = (PEMKeyPair) pemParser.readObject();
+                return new JcaPEMKeyConverter().getPublicKey(keyPair.getPublicKeyInfo());
+            }
+        }
+
+        /**
+         * Called on cache miss from {@link #PUBLIC_KEY_CACHE}.
+         */
+        @SneakyThrows
+        private static PublicKey parsePublicKey(String pem) {
+            try (PEMParser pemParser = createPemParser(pem)) {
+                SubjectPublicKeyInfo keyInfo = (SubjectPublicKeyInfo) pemParser.readObject();
+                return new JcaPEMKeyConverter().getPublicKey(keyInfo);
+            }
+        }
+
+    }
+
 }
@@ -1,5 +1,7 @@
 package guru.nicks.commons.utils.json;
 
+import guru.nicks.commons.auth.CachingJwtDecoder;
+import guru.nicks.commons.auth.JwkSetJwtDecoder;
 import guru.nicks.commons.auth.domain.JwkInfo;
 import guru.nicks.commons.utils.TransformUtils;
 import guru.nicks.commons.utils.crypto.PemUtils;
@@ -28,7 +30,10 @@ import java.security.interfaces.RSAPublicKey;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -43,6 +48,11 @@ import static guru.nicks.commons.validation.dsl.ValiDsl.checkNotNullNested;
 @Slf4j
 public class JwkUtils {
 
+    /**
+     * Stands for a missing key ID in {@link #extractPublicKeysByKeyId(JwkInfo)}.
+     */
+    public static final String NO_KEY_ID = "";
+
     /**
      * Finds the smallest {@link JwkInfo#getExpirationDate()} - it can even be in the past.
      *
@@ -72,6 +82,34 @@ public class JwkUtils {
         return TransformUtils.toList(jwkInfo.getKeys().toPublicJWKSet().getKeys(), JwkUtils::convertToRsaPublicKey);
     }
 
+    /**
+     * Same as {@link #extractPublicKeys(JwkInfo)}, but indexes the keys by their {@link JWK#getKeyID() key IDs}. Keys
+     * having no key ID are stored under {@link #NO_KEY_ID} (at most one such key is allowed).
+     *
+     * @param jwkInfo JWKS
+     * @return immutable map whose keys are key IDs (in the order of the keys in the JWKS)
+     * @throws JwtException if the JWK does not contain a valid RSA key, or key IDs are not unique
+     */
+    @ConstraintArguments
+    public static Map<String, RSAPublicKey> extractPublicKeysByKeyId(JwkInfo jwkInfo) {
+        checkNotNullNested(jwkInfo, _JwkUtilsExtractPublicKeysByKeyIdArgumentsMeta.JWKINFO.name(),
+                JwkInfo::getKeys, "keys");
+
+        List<JWK> jwks = jwkInfo.getKeys().toPublicJWKSet().getKeys();
+        var result = LinkedHashMap.<String, RSAPublicKey>newLinkedHashMap(jwks.size());
+
+        for (JWK jwk : jwks) {
+            String keyId = Objects.requireNonNullElse(jwk.getKeyID(), NO_KEY_ID);
+
+            if (result.putIfAbsent(keyId, convertToRsaPublicKey(jwk)) != null) {
+                throw new JwtException("Duplicate key ID '" + keyId + "' in JWKS of auth provider '"
+                        + jwkInfo.getAuthProviderId() + "'");
+            }
+        }
+
+        return Collections.unmodifiableMap(result);
+    }
+
     /**
      * Creates JWT decoder which verifies JWTs with the given public key.
      *
@@ -93,6 +131,36 @@ public class JwkUtils {
                 .build();
     }
 
+    /**
+     * Same as {@link #createJwtDecoder(RSAPublicKey)}, but the decoder remembers successfully verified tokens until
+     * they expire, so repeated requests bearing the same token skip signature verification.
+     *
+     * @param publicKey       public key
+     * @param maxCachedTokens max. number of verified tokens to keep in RAM
+     * @return JWT decoder
+     * @see CachingJwtDecoder
+     */
+    public static CachingJwtDecoder createCachingJwtDecoder(RSAPublicKey publicKey, int maxCachedTokens) {
+        return new CachingJwtDecoder(createJwtDecoder(publicKey), maxCachedTokens);
+    }
+
+    /**
+     * Creates JWT decoder which fetches JWKS from the given URL (see
+     * {@link #fetchJwkSet(String, String, RestOperations)}), picks the key by the {@code kid} JWT header, and
+     * re-fetches JWKS in the background before it expires.
+     *
+     * @param authProviderId ID to assign to the JWKS ({@link JwkInfo#getAuthProviderId()})
+     * @param url            URL to fetch JWKS from
+     * @param restClient     REST client
+     * @return JWT decoder (should be closed on shutdown to stop background refreshes)
+     * @throws IllegalStateException initial fetch failed
+     * @see JwkSetJwtDecoder
+     */
+    public static JwkSetJwtDecoder createJwkSetJwtDecoder(String authProviderId, String url,
+            RestOperations restClient) {
+        return new JwkSetJwtDecoder(() -> fetchJwkSet(authProviderId, url, restClient));
+    }
+
     /**
      * Fetches JWKS from the given URL. Honors {@code Cache-Control} header set, for example, by Google - assigns
      * {@link JwkInfo#getExpirationDate()}.
@@ -1,7 +1,10 @@
 package guru.nicks.commons.utils.json;
 
+import guru.nicks.commons.auth.JwtClaimsProjectionCache;
 import guru.nicks.commons.auth.domain.CustomJwtClaim;
+import guru.nicks.commons.auth.domain.JwtClaimsProjection;
 import guru.nicks.commons.auth.domain.JwtProvider;
+import guru.nicks.commons.cache.CacheStatisticsRegistry;
 import guru.nicks.commons.utils.auth.KeycloakUtils;
 import guru.nicks.commons.utils.text.TextUtils;
 
@@ -31,13 +34,12 @@ import org.springframework.security.oauth2.jwt.JwtException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
-import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.SortedSet;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -55,10 +57,10 @@ public class JwtUtils {
     /**
      * @see #retrieveUserLocale(JwtClaimAccessor)
      */
-    private static final Cache<String, Locale> LOCALE_CACHE = Caffeine.newBuilder()
-            .maximumSize(50)
-            .expireAfterAccess(1, TimeUnit.HOURS)
-            .build();
+    private static final Cache<String, Locale> LOCALE_CACHE = CacheStatisticsRegistry.build(
+            "JwtUtils.locales", Caffeine.newBuilder()
+                    .maximumSize(50)
+                    .expireAfterAccess(1, TimeUnit.HOURS));
 
     /**
      * Retrieves and post-processes external user IDs according to {@link JwtProvider#getCustomUserIdPrefix()}.
@@ -124,20 +126,11 @@ public class JwtUtils {
             return Collections.emptySet();
         }
 
-        // attempt to read authorities from JWT in this order
-        List<Function<JwtClaimAccessor, Optional<?>>> guessers = List.of(
-                KeycloakUtils::tryParseRoles,
-                jwt1 -> Optional.ofNullable(CustomJwtClaim.COGNITO_GROUPS.getClaimAsString(jwt1)),
-                // fallback for 'no roles found in JWT'
-                jwt1 -> Optional.empty());
-
-        // stop as soon as one of the guessers returns a non-empty Optional
-        Object result = guessers.stream()
-                .map(func -> func.apply(jwt))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .findFirst()
-                .orElse(null);
+        // attempt to read authorities from JWT in this order; null means 'no roles found in JWT'
+        Optional<SortedSet<String>> keycloakRoles = KeycloakUtils.tryParseRoles(jwt);
+        Object result = keycloakRoles.isPresent()
+                ? keycloakRoles.get()
+                : CustomJwtClaim.COGNITO_GROUPS.getClaimAsString(jwt);
 
         return switch (result) {
             case null -> Collections.emptySet();
@@ -145,11 +138,12 @@ public class JwtUtils {
             // parse comma-separated list, retain unique items only
             case String str -> new LinkedHashSet<>(TextUtils.splitByComma(str));
 
+            // retain the order, for example that of sorted Keycloak roles
             case Collection<?> collection -> collection.stream()
                     .filter(Objects::nonNull)
                     .map(Object::toString)
                     .filter(StringUtils::isNotBlank)
-                    .collect(Collectors.toSet());
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
 
             default -> throw new BadJwtException("JWT authorities must be either string or array");
         };
@@ -214,6 +208,31 @@ public class JwtUtils {
                 .collect(Collectors.toSet());
     }
 
+    /**
+     * Calls all the {@code retrieve*} methods of this class at once and collects the results in an immutable record.
+     * Meant to be calculated once per token, see {@link JwtClaimsProjectionCache}.
+     *
+     * @param jwt JWT
+     * @return claims projection
+     * @throws IllegalArgumentException JWT is {@code null}
+     * @throws BadJwtException          missing/empty SUB claim, or authorities can't be parsed
+     */
+    @ConstraintArguments
+    public static JwtClaimsProjection projectClaims(JwtClaimAccessor jwt) {
+        checkNotNull(jwt, _JwtUtilsProjectClaimsArgumentsMeta.JWT.name());
+        Pair<String, JwtProvider> userIdAndProvider = retrieveUserId(jwt);
+
+        return new JwtClaimsProjection(
+                userIdAndProvider.getLeft(),
+                userIdAndProvider.getRight(),
+                retrieveUsername(jwt).orElse(null),
+                // Set.copyOf would lose the order of authorities
+                Collections.unmodifiableSet(retrieveAuthorities(jwt, userIdAndProvider.getRight())),
+                retrieveUserLocale(jwt),
+                Set.copyOf(retrieveAzpOrAud(jwt)),
+                jwt.getExpiresAt());
+    }
+
     /**
      * Retrieves a JWT claim as a collection, handling both single values and collections.
      *
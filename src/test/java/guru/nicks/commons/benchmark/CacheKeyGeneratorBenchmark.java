@@ -0,0 +1,103 @@
+package guru.nicks.commons.benchmark;
+
+import guru.nicks.commons.cache.ChecksumCacheKeyGenerator;
+import guru.nicks.commons.cache.CompactCacheKeyGenerator;
+import guru.nicks.commons.cache.ToStringJoiningCacheKeyGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmark for {@link CompactCacheKeyGenerator} vs. {@link ToStringJoiningCacheKeyGenerator} and
+ * {@link ChecksumCacheKeyGenerator}. Each benchmark creates a key and looks it up in a map, because the cost of
+ * {@link Object#hashCode()} and {@link Object#equals(Object)} is part of the key price.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@Threads(1)
+public class CacheKeyGeneratorBenchmark {
+
+    public static final int LIST_SIZE = 20;
+
+    private final ToStringJoiningCacheKeyGenerator toStringJoiningGenerator = new ToStringJoiningCacheKeyGenerator();
+    private final ChecksumCacheKeyGenerator checksumGenerator = new ChecksumCacheKeyGenerator();
+    private final CompactCacheKeyGenerator compactGenerator = new CompactCacheKeyGenerator();
+
+    private Object[] simpleArguments;
+    private Object[] complexArguments;
+
+    private Map<Object, Object> toStringJoiningKeys;
+    private Map<Object, Object> checksumKeys;
+    private Map<Object, Object> compactKeys;
+
+    @Setup
+    public void setup() {
+        simpleArguments = new Object[]{"user", 12345L, UUID.randomUUID(), TimeUnit.SECONDS};
+        complexArguments = new Object[]{
+                new Filter("name", List.of("a", "b", "c"), Map.of("sort", "asc", "page", "1")),
+                IntStream.range(0, LIST_SIZE).boxed().toList()};
+
+        toStringJoiningKeys = Map.of(
+                toStringJoiningGenerator.generate(this, null, simpleArguments), 1,
+                toStringJoiningGenerator.generate(this, null, complexArguments), 2);
+        checksumKeys = Map.of(
+                checksumGenerator.generate(this, null, simpleArguments), 1,
+                checksumGenerator.generate(this, null, complexArguments), 2);
+        compactKeys = Map.of(
+                compactGenerator.generate(this, null, simpleArguments), 1,
+                compactGenerator.generate(this, null, complexArguments), 2);
+    }
+
+    @Benchmark
+    public Object toStringJoiningSimple() {
+        return toStringJoiningKeys.get(toStringJoiningGenerator.generate(this, null, simpleArguments));
+    }
+
+    @Benchmark
+    public Object checksumSimple() {
+        return checksumKeys.get(checksumGenerator.generate(this, null, simpleArguments));
+    }
+
+    @Benchmark
+    public Object compactSimple() {
+        return compactKeys.get(compactGenerator.generate(this, null, simpleArguments));
+    }
+
+    @Benchmark
+    public Object toStringJoiningComplex() {
+        return toStringJoiningKeys.get(toStringJoiningGenerator.generate(this, null, complexArguments));
+    }
+
+    @Benchmark
+    public Object checksumComplex() {
+        return checksumKeys.get(checksumGenerator.generate(this, null, complexArguments));
+    }
+
+    @Benchmark
+    public Object compactComplex() {
+        return compactKeys.get(compactGenerator.generate(this, null, complexArguments));
+    }
+
+    public record Filter(String name, List<String> tags, Map<String, String> options) {
+    }
+
+}
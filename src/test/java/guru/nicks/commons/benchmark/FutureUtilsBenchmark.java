@@ -0,0 +1,110 @@
+package guru.nicks.commons.benchmark;
+
+import guru.nicks.commons.utils.FutureUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark for {@link FutureUtils#getInParallel(java.util.Collection, int)} vs. its structured variant with
+ * {@link FutureUtils.FailurePolicy#FAIL_FAST} on a fan-out where one downstream call fails quickly and the others are
+ * slow. Sample time mode reports percentiles, i.e. tail latency.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@Threads(1)
+public class FutureUtilsBenchmark {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Param({"10"})
+    private int fanOut;
+
+    /**
+     * Percent of fan-outs having a failing downstream call.
+     */
+    @Param({"0", "10", "50"})
+    private int failurePercent;
+
+    private List<Supplier<Integer>> failingTasks;
+    private List<Supplier<Integer>> successfulTasks;
+
+    @Setup
+    public void setup() {
+        successfulTasks = new ArrayList<>();
+        failingTasks = new ArrayList<>();
+
+        for (int i = 0; i < fanOut; i++) {
+            successfulTasks.add(FutureUtilsBenchmark::slowCall);
+            failingTasks.add((i == 0)
+                    ? FutureUtilsBenchmark::failingCall
+                    : FutureUtilsBenchmark::slowCall);
+        }
+    }
+
+    @Benchmark
+    public int getInParallel() {
+        try {
+            return FutureUtils.getInParallel(pickTasks(), fanOut).size();
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    @Benchmark
+    public int getInParallel_FailFast() {
+        try {
+            return FutureUtils.getInParallel(pickTasks(), fanOut, FutureUtils.FailurePolicy.FAIL_FAST, TIMEOUT)
+                    .size();
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private List<Supplier<Integer>> pickTasks() {
+        return (ThreadLocalRandom.current().nextInt(100) < failurePercent)
+                ? failingTasks
+                : successfulTasks;
+    }
+
+    private static int slowCall() {
+        sleep(Duration.ofMillis(20 + ThreadLocalRandom.current().nextInt(10)));
+        return 1;
+    }
+
+    private static int failingCall() {
+        sleep(Duration.ofMillis(2));
+        throw new IllegalStateException("Downstream failure");
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        }
+    }
+
+}
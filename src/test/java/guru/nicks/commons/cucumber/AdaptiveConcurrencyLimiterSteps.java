@@ -0,0 +1,125 @@
+package guru.nicks.commons.cucumber;
+
+import guru.nicks.commons.cucumber.world.TextWorld;
+import guru.nicks.commons.utils.AdaptiveConcurrencyLimiter;
+
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Step definitions for testing {@link AdaptiveConcurrencyLimiter}.
+ */
+@RequiredArgsConstructor
+public class AdaptiveConcurrencyLimiterSteps {
+
+    // DI
+    private final TextWorld textWorld;
+
+    private AdaptiveConcurrencyLimiter limiter;
+    private List<AdaptiveConcurrencyLimiter.Permit> permits;
+    private int previousLimit;
+
+    @Given("adaptive concurrency limiter {word} with initial limit {int} and max. limit {int}")
+    public void adaptiveConcurrencyLimiter(String algorithm, int initialLimit, int maxLimit) {
+        limiter = new AdaptiveConcurrencyLimiter(AdaptiveConcurrencyLimiter.Algorithm.valueOf(algorithm),
+                initialLimit, maxLimit);
+    }
+
+    @When("permits are acquired up to the limit")
+    public void permitsAreAcquiredUpToTheLimit() {
+        previousLimit = limiter.getLimit();
+        permits = new ArrayList<>();
+        Optional<AdaptiveConcurrencyLimiter.Permit> permit;
+
+        while ((permit = limiter.tryAcquire()).isPresent()) {
+            permits.add(permit.get());
+        }
+    }
+
+    @When("permits are acquired up to the limit, held for {int} milliseconds, and then {word}")
+    public void permitsAreAcquiredHeldAndReleased(int millis, String outcome) throws InterruptedException {
+        permitsAreAcquiredUpToTheLimit();
+        Thread.sleep(Duration.ofMillis(millis));
+
+        Consumer<AdaptiveConcurrencyLimiter.Permit> release = switch (outcome) {
+            case "succeed" -> AdaptiveConcurrencyLimiter.Permit::succeed;
+            case "dropped" -> AdaptiveConcurrencyLimiter.Permit::drop;
+            case "ignored" -> AdaptiveConcurrencyLimiter.Permit::ignore;
+            default -> throw new IllegalArgumentException("Unknown outcome: " + outcome);
+        };
+
+        permits.forEach(release);
+    }
+
+    @When("a failing call is guarded by the adaptive concurrency limiter")
+    public void failingCallIsGuardedByTheAdaptiveConcurrencyLimiter() {
+        Throwable thrown = catchThrowable(() -> limiter.get(() -> {
+            throw new IllegalStateException("Test exception");
+        }));
+
+        textWorld.setLastException(thrown);
+    }
+
+    @When("an interrupted call is guarded by the adaptive concurrency limiter")
+    public void interruptedCallIsGuardedByTheAdaptiveConcurrencyLimiter() {
+        Throwable thrown = catchThrowable(() -> limiter.get(() -> {
+            throw new IllegalStateException("Test interruption", new InterruptedException());
+        }));
+
+        textWorld.setLastException(thrown);
+    }
+
+    @Then("one more permit should not be available")
+    public void oneMorePermitShouldNotBeAvailable() {
+        assertThat(limiter.tryAcquire())
+                .as("permit")
+                .isEmpty();
+    }
+
+    @Then("the adaptive concurrency limit should be {int}")
+    public void theAdaptiveConcurrencyLimitShouldBe(int expected) {
+        assertThat(limiter.getLimit())
+                .as("limit")
+                .isEqualTo(expected);
+    }
+
+    @Then("the adaptive concurrency limit should be greater than {int}")
+    public void theAdaptiveConcurrencyLimitShouldBeGreaterThan(int value) {
+        assertThat(limiter.getLimit())
+                .as("limit")
+                .isGreaterThan(value);
+    }
+
+    @Then("the adaptive concurrency limit should be less than {int}")
+    public void theAdaptiveConcurrencyLimitShouldBeLessThan(int value) {
+        assertThat(limiter.getLimit())
+                .as("limit")
+                .isLessThan(value);
+    }
+
+    @Then("the adaptive concurrency limit should have decreased")
+    public void theAdaptiveConcurrencyLimitShouldHaveDecreased() {
+        assertThat(limiter.getLimit())
+                .as("limit")
+                .isLessThan(previousLimit);
+    }
+
+    @Then("the adaptive concurrency limiter should have {int} calls in flight")
+    public void theAdaptiveConcurrencyLimiterShouldHaveCallsInFlight(int expected) {
+        assertThat(limiter.getInFlight())
+                .as("inFlight")
+                .isEqualTo(expected);
+    }
+
+}
@@ -0,0 +1,142 @@
+package guru.nicks.commons.cucumber;
+
+import guru.nicks.commons.utils.DurationStatistics;
+import guru.nicks.commons.utils.UriTemplateNormalizer;
+
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Step definitions for testing {@link DurationStatistics}.
+ */
+public class DurationStatisticsSteps {
+
+    private DurationStatistics statistics;
+    private DurationStatistics.Recorder recorder;
+    private String message;
+
+    @Given("duration statistics for {int} keys retained for {int} hour with sliding windows {booleanValue}")
+    public void durationStatisticsForKeysRetainedForHour(int maxKeys, int hours, boolean slidingWindows) {
+        statistics = new DurationStatistics(maxKeys, Duration.ofHours(hours), slidingWindows);
+    }
+
+    @Given("duration statistics for {int} keys retained for {int} milliseconds")
+    public void durationStatisticsForKeysRetainedForMilliseconds(int maxKeys, int millis) {
+        statistics = new DurationStatistics(maxKeys, Duration.ofMillis(millis));
+    }
+
+    @Given("duration statistics for {int} keys retained for {int} hour normalizing URIs and tracking {int} heavy "
+            + "hitters")
+    public void durationStatisticsNormalizingUrisAndTrackingHeavyHitters(int maxKeys, int hours, int heavyHitters) {
+        statistics = new DurationStatistics(maxKeys, Duration.ofHours(hours), false, UriTemplateNormalizer.INSTANCE,
+                heavyHitters);
+    }
+
+    @When("durations {long}, {long}, and {long} milliseconds are accumulated for key {string}")
+    public void durationsAreAccumulatedForKey(long millis1, long millis2, long millis3, String key) {
+        statistics.accumulateMillis(key, millis1);
+        statistics.accumulateMillis(key, millis2);
+        message = statistics.accumulateMillis(key, millis3);
+    }
+
+    @When("durations {long}, {long}, and {long} milliseconds are recorded for key {string} via a recorder")
+    public void durationsAreRecordedForKeyViaARecorder(long millis1, long millis2, long millis3, String key) {
+        DurationStatistics.Recorder recorder = statistics.recorder(key);
+        recorder.recordMillis(millis1);
+        recorder.recordMillis(millis2);
+        recorder.recordMillis(millis3);
+    }
+
+    @When("a duration statistics recorder is kept for key {string}")
+    public void aDurationStatisticsRecorderIsKeptForKey(String key) {
+        recorder = statistics.recorder(key);
+    }
+
+    @When("the kept duration statistics recorder records {int} durations of {long} milliseconds")
+    public void theKeptDurationStatisticsRecorderRecordsDurations(int times, long millis) {
+        for (int i = 0; i < times; i++) {
+            recorder.recordMillis(millis);
+        }
+    }
+
+    @When("durations {long}, {long}, and {long} milliseconds are recorded for key {string} without formatting")
+    public void durationsAreRecordedForKeyWithoutFormatting(long millis1, long millis2, long millis3, String key) {
+        statistics.recordMillis(key, millis1);
+        statistics.recordMillis(key, millis2);
+        statistics.recordMillis(key, millis3);
+    }
+
+    @Then("duration statistics snapshot for key {string} should have {long} calls, {long} total milliseconds, "
+            + "and max. {long}")
+    public void durationStatisticsSnapshotForKeyShouldHave(String key, long calls, long totalMillis, long max) {
+        assertThat(statistics.snapshot(key))
+                .as("snapshot")
+                .hasValueSatisfying(snapshot -> {
+                    assertThat(snapshot.totalCalls())
+                            .as("totalCalls")
+                            .isEqualTo(calls);
+                    assertThat(snapshot.totalMillis())
+                            .as("totalMillis")
+                            .isEqualTo(totalMillis);
+                    assertThat(snapshot.maxMillis())
+                            .as("maxMillis")
+                            .isEqualTo(max);
+                });
+    }
+
+    @Then("duration statistics snapshot for key {string} should have between {long} and {long} calls")
+    public void durationStatisticsSnapshotForKeyShouldHaveBetweenCalls(String key, long min, long max) {
+        assertThat(statistics.snapshot(key))
+                .as("snapshot")
+                .hasValueSatisfying(snapshot -> assertThat(snapshot.totalCalls())
+                        .as("totalCalls")
+                        .isBetween(min, max));
+    }
+
+    @Then("formatted duration statistics for key {string} should contain {string}")
+    public void formattedDurationStatisticsForKeyShouldContain(String key, String text) {
+        assertThat(statistics.format(key))
+                .as("formatted statistics")
+                .contains(text);
+    }
+
+    @Then("the last duration statistics message should contain {string}")
+    public void theLastDurationStatisticsMessageShouldContain(String text) {
+        assertThat(message)
+                .as("message")
+                .contains(text);
+    }
+
+    @Then("the last duration statistics message should contain {string}: {booleanValue}")
+    public void theLastDurationStatisticsMessageShouldContainConditionally(String text, boolean contains) {
+        assertThat(message.contains(text))
+                .as("message '%s' contains '%s'", message, text)
+                .isEqualTo(contains);
+    }
+
+    @Then("duration statistics for key {string} should be absent")
+    public void durationStatisticsForKeyShouldBeAbsent(String key) {
+        assertThat(statistics.findAccumulator(key))
+                .as("accumulator")
+                .isEmpty();
+    }
+
+    @Then("duration statistics heavy hitters should be {string}")
+    public void durationStatisticsHeavyHittersShouldBe(String expected) {
+        String actual = statistics.getHeavyHitters()
+                .stream()
+                .map(heavyHitter -> heavyHitter.item() + "=" + heavyHitter.count())
+                .collect(Collectors.joining(","));
+
+        assertThat(actual)
+                .as("heavy hitters")
+                .isEqualTo(expected);
+    }
+
+}
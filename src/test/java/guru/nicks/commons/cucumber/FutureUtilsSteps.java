@@ -1,6 +1,7 @@
 package guru.nicks.commons.cucumber;
 
 import guru.nicks.commons.cucumber.world.TextWorld;
+import guru.nicks.commons.utils.AdaptiveConcurrencyLimiter;
 import guru.nicks.commons.utils.FutureUtils;
 
 import io.cucumber.java.After;
@@ -10,12 +11,19 @@ import io.cucumber.java.en.When;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.MDC;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
@@ -28,10 +36,16 @@ public class FutureUtilsSteps {
 
     private final List<Integer> executionOrder = new CopyOnWriteArrayList<>();
     private final AtomicBoolean mdcCheckPassed = new AtomicBoolean(false);
+    private final AtomicInteger concurrentMappings = new AtomicInteger();
+    private final AtomicInteger maxConcurrentMappings = new AtomicInteger();
+    private final AtomicInteger pulledElements = new AtomicInteger();
 
     private List<Supplier<Integer>> suppliers;
     private List<Runnable> runnables;
     private List<Integer> results;
+    private Integer firstSuccessfulResult;
+    private int mappedCount;
+    private long elapsedMillis;
 
     private String mdcKey;
     private String mdcValue;
@@ -103,6 +117,30 @@ public class FutureUtilsSteps {
         MDC.put(key, value);
     }
 
+    @When("a child thread executor is captured with empty MDC context and then MDC key {string} is set to {string}")
+    public void aChildThreadExecutorIsCapturedWithEmptyMdcContextAndThenMdcKeyIsSet(String key, String value) {
+        MDC.clear();
+        Executor executor = FutureUtils.captureMdcForChildThreads();
+        // with an MDC adapter based on InheritableThreadLocal, the child thread starts with this value
+        MDC.put(key, value);
+
+        CompletableFuture
+                .runAsync(() -> mdcCheckPassed.set(MDC.get(key) == null), executor)
+                .join();
+    }
+
+    @Then("the child thread should not see the MDC context set after capturing")
+    public void theChildThreadShouldNotSeeTheMdcContextSetAfterCapturing() {
+        assertThat(mdcCheckPassed.get())
+                .as("mdcCheckPassed")
+                .isTrue();
+    }
+
+    @Given("MDC context is cleared before the supplier is executed")
+    public void mdcContextIsClearedBeforeTheSupplierIsExecuted() {
+        MDC.clear();
+    }
+
     @When("the suppliers are executed in parallel with {int} threads")
     public void suppliersAreExecutedInParallel(int threadLimit) {
         Throwable thrown = catchThrowable(() ->
@@ -135,6 +173,175 @@ public class FutureUtilsSteps {
         textWorld.setLastException(thrown);
     }
 
+    @Given("{int} suppliers that fail after {int} milliseconds and {int} suppliers that sleep for {int} seconds")
+    public void suppliersThatFailAndSuppliersThatSleep(int failingCount, int failAfterMillis, int sleepingCount,
+            int sleepSeconds) {
+        suppliers = new ArrayList<>();
+
+        for (int i = 0; i < failingCount; i++) {
+            suppliers.add(() -> {
+                sleep(Duration.ofMillis(failAfterMillis));
+                throw new IllegalStateException("Test exception");
+            });
+        }
+
+        for (int i = 0; i < sleepingCount; i++) {
+            suppliers.add(() -> {
+                sleep(Duration.ofSeconds(sleepSeconds));
+                return 0;
+            });
+        }
+    }
+
+    @Given("a supplier that returns {int} after {int} milliseconds")
+    public void supplierThatReturnsValueAfterMilliseconds(int value, int millis) {
+        suppliers.add(() -> {
+            sleep(Duration.ofMillis(millis));
+            return value;
+        });
+    }
+
+    @When("the suppliers are executed in parallel with policy {word} and timeout of {int} seconds")
+    public void suppliersAreExecutedInParallelWithPolicy(String policy, int timeoutSeconds) {
+        long start = System.currentTimeMillis();
+
+        Throwable thrown = catchThrowable(() ->
+                results = FutureUtils.getInParallel(suppliers, suppliers.size(),
+                        FutureUtils.FailurePolicy.valueOf(policy), Duration.ofSeconds(timeoutSeconds)));
+
+        elapsedMillis = System.currentTimeMillis() - start;
+        textWorld.setLastException(thrown);
+    }
+
+    @When("the suppliers are executed in parallel with an adaptive concurrency limit")
+    public void suppliersAreExecutedInParallelWithAnAdaptiveConcurrencyLimit() {
+        var limiter = new AdaptiveConcurrencyLimiter(AdaptiveConcurrencyLimiter.Algorithm.VEGAS, 2, 10);
+
+        Throwable thrown = catchThrowable(() ->
+                results = FutureUtils.getInParallel(suppliers, limiter, FutureUtils.FailurePolicy.FAIL_FAST,
+                        Duration.ofSeconds(10)));
+
+        textWorld.setLastException(thrown);
+    }
+
+    @When("the first successful supplier result is awaited with timeout of {int} seconds")
+    public void firstSuccessfulSupplierResultIsAwaited(int timeoutSeconds) {
+        long start = System.currentTimeMillis();
+
+        Throwable thrown = catchThrowable(() ->
+                firstSuccessfulResult = FutureUtils.getFirstSuccessful(suppliers, Duration.ofSeconds(timeoutSeconds)));
+
+        elapsedMillis = System.currentTimeMillis() - start;
+        textWorld.setLastException(thrown);
+    }
+
+    @When("{int} numbers are doubled by streaming parallel map with concurrency {int} preserving order "
+            + "{booleanValue}")
+    public void numbersAreDoubledByStreamingParallelMap(int count, int maxConcurrency, boolean preserveOrder) {
+        mappedCount = count;
+
+        Throwable thrown = catchThrowable(() -> {
+            try (Stream<Integer> stream = FutureUtils.parallelMap(IntStream.range(0, count).boxed(), i -> {
+                int concurrency = concurrentMappings.incrementAndGet();
+                maxConcurrentMappings.accumulateAndGet(concurrency, Math::max);
+                sleep(Duration.ofMillis(ThreadLocalRandom.current().nextInt(1, 10)));
+                concurrentMappings.decrementAndGet();
+                return i * 2;
+            }, maxConcurrency, preserveOrder)) {
+                results = stream.toList();
+            }
+        });
+
+        textWorld.setLastException(thrown);
+    }
+
+    @When("the first {int} results are taken from streaming parallel map of an infinite source with concurrency "
+            + "{int}")
+    public void firstResultsAreTakenFromStreamingParallelMapOfInfiniteSource(int count, int maxConcurrency) {
+        Stream<Integer> source = Stream.iterate(0, i -> i + 1)
+                .peek(i -> pulledElements.incrementAndGet());
+
+        Throwable thrown = catchThrowable(() ->
+                results = FutureUtils.parallelMap(source, i -> i, maxConcurrency, true)
+                        .limit(count)
+                        .toList());
+
+        textWorld.setLastException(thrown);
+    }
+
+    @When("{int} numbers are mapped by streaming parallel map failing on number {int}")
+    public void numbersAreMappedByStreamingParallelMapFailingOnNumber(int count, int failingNumber) {
+        Throwable thrown = catchThrowable(() ->
+                results = FutureUtils.parallelMap(IntStream.range(0, count).boxed(), i -> {
+                    if (i == failingNumber) {
+                        throw new IllegalStateException("Test exception");
+                    }
+
+                    return i;
+                }, 2, true).toList());
+
+        textWorld.setLastException(thrown);
+    }
+
+    @Then("the streaming parallel map results should be the doubled numbers in order {booleanValue}")
+    public void streamingParallelMapResultsShouldBeDoubledNumbers(boolean inOrder) {
+        List<Integer> expected = IntStream.range(0, mappedCount)
+                .mapToObj(i -> i * 2)
+                .toList();
+
+        if (inOrder) {
+            assertThat(results)
+                    .as("results")
+                    .containsExactlyElementsOf(expected);
+        } else {
+            assertThat(results)
+                    .as("results")
+                    .containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Then("no more than {int} numbers should have been mapped at a time")
+    public void noMoreThanNumbersShouldHaveBeenMappedAtATime(int maxConcurrency) {
+        assertThat(maxConcurrentMappings.get())
+                .as("maxConcurrentMappings")
+                .isLessThanOrEqualTo(maxConcurrency);
+    }
+
+    @Then("no more than {int} source elements should have been pulled")
+    public void noMoreThanSourceElementsShouldHaveBeenPulled(int max) {
+        assertThat(pulledElements.get())
+                .as("pulledElements")
+                .isLessThanOrEqualTo(max);
+    }
+
+    @Then("the exception should have {int} suppressed exceptions")
+    public void exceptionShouldHaveSuppressedExceptions(int count) {
+        assertThat(textWorld.getLastException().getSuppressed())
+                .as("suppressed exceptions")
+                .hasSize(count);
+    }
+
+    @Then("the exception cause should be a timeout")
+    public void exceptionCauseShouldBeATimeout() {
+        assertThat(textWorld.getLastException())
+                .as("exception")
+                .hasCauseInstanceOf(TimeoutException.class);
+    }
+
+    @Then("the suppliers should have taken less than {int} seconds")
+    public void suppliersShouldHaveTakenLessThanSeconds(int seconds) {
+        assertThat(elapsedMillis)
+                .as("elapsedMillis")
+                .isLessThan(Duration.ofSeconds(seconds).toMillis());
+    }
+
+    @Then("the first successful supplier result should be {int}")
+    public void firstSuccessfulSupplierResultShouldBe(int expected) {
+        assertThat(firstSuccessfulResult)
+                .as("firstSuccessfulResult")
+                .isEqualTo(expected);
+    }
+
     @Then("{int} results should be collected in the original order")
     public void resultsShouldBeCollectedInOriginalOrder(int count) {
         assertThat(results)
@@ -168,6 +375,13 @@ public class FutureUtilsSteps {
                 .isTrue();
     }
 
+    @Then("the supplier should not have access to the MDC context")
+    public void supplierShouldNotHaveAccessToMdcContext() {
+        assertThat(mdcCheckPassed.get())
+                .as("mdcCheckPassed")
+                .isFalse();
+    }
+
     @Then("the runnable should have access to the MDC context")
     public void runnableShouldHaveAccessToMdcContext() {
         assertThat(mdcCheckPassed.get())
@@ -175,4 +389,13 @@ public class FutureUtilsSteps {
                 .isTrue();
     }
 
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        }
+    }
+
 }
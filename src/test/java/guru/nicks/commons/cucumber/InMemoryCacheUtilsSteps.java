@@ -0,0 +1,172 @@
+package guru.nicks.commons.cucumber;
+
+import guru.nicks.commons.cache.OffHeapCacheManager;
+import guru.nicks.commons.cache.domain.CacheConstants;
+import guru.nicks.commons.cache.domain.CacheProperties;
+import guru.nicks.commons.cucumber.world.TextWorld;
+import guru.nicks.commons.utils.InMemoryCacheUtils;
+
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Step definitions for testing {@link InMemoryCacheUtils}.
+ */
+@RequiredArgsConstructor
+public class InMemoryCacheUtilsSteps {
+
+    // DI
+    private final TextWorld textWorld;
+
+    private final AtomicInteger loaderCalls = new AtomicInteger();
+
+    private CacheProperties cacheProperties;
+    private OptionalLong maxBytes;
+    private GenericApplicationContext appContext;
+
+    @Given("in-memory cache properties with memory per cache manager {string} and total memory {string}")
+    public void inMemoryCachePropertiesWithMemoryPerCacheManagerAndTotalMemory(String perManager, String total) {
+        // 3 TTLs + the default cache manager = 4 cache managers
+        cacheProperties = CacheProperties.builder()
+                .inMemory(CacheProperties.InMemory.builder()
+                        .maxEntriesPerCacheManager(100)
+                        .maxMemoryPerCacheManager(parseDataSize(perManager))
+                        .maxMemoryTotal(parseDataSize(total))
+                        .build())
+                .durations(CacheProperties.Durations.builder()
+                        .minutes(CacheProperties.CacheDefinition.of(CacheConstants.TTL_1MIN))
+                        .hours(CacheProperties.CacheDefinition.of(CacheConstants.TTL_1HR))
+                        .days(CacheProperties.CacheDefinition.of(CacheConstants.TTL_1D))
+                        .build())
+                .build();
+    }
+
+    @Given("off-heap in-memory storage is enabled")
+    public void offHeapInMemoryStorageIsEnabled() {
+        cacheProperties = cacheProperties.toBuilder()
+                .inMemory(cacheProperties.getInMemory().toBuilder()
+                        .offHeap(true)
+                        .build())
+                .build();
+    }
+
+    @Given("negative results of in-memory caches expire in {int} milliseconds")
+    public void negativeResultsOfInMemoryCachesExpireInMilliseconds(int millis) {
+        cacheProperties = cacheProperties.toBuilder()
+                .inMemory(cacheProperties.getInMemory().toBuilder()
+                        .negativeResultTimeToLive(Duration.ofMillis(millis))
+                        .build())
+                .build();
+    }
+
+    @When("additional in-memory cache managers are configured")
+    public void additionalInMemoryCacheManagersAreConfigured() {
+        appContext = new GenericApplicationContext();
+        textWorld.setLastException(catchThrowable(() ->
+                InMemoryCacheUtils.configureAdditionalCacheManagers(cacheProperties, appContext)));
+    }
+
+    @When("the memory budget per cache manager is calculated")
+    public void theMemoryBudgetPerCacheManagerIsCalculated() {
+        maxBytes = InMemoryCacheUtils.calculateMaxBytesPerCacheManager(cacheProperties);
+    }
+
+    @Then("the memory budget per cache manager should be {string}")
+    public void theMemoryBudgetPerCacheManagerShouldBe(String expected) {
+        if (StringUtils.isBlank(expected)) {
+            assertThat(maxBytes)
+                    .as("maxBytes")
+                    .isEmpty();
+        } else {
+            assertThat(maxBytes)
+                    .as("maxBytes")
+                    .hasValue(Long.parseLong(expected));
+        }
+    }
+
+    @Then("in-memory cache manager {string} should be off-heap")
+    public void inMemoryCacheManagerShouldBeOffHeap(String beanName) {
+        appContext.refresh();
+        assertThat(appContext.getBean(beanName, CacheManager.class))
+                .as("cacheManager")
+                .isInstanceOf(OffHeapCacheManager.class);
+        appContext.close();
+    }
+
+    @When("{int} threads concurrently load key {string} as null from in-memory cache manager {string}")
+    public void threadsConcurrentlyLoadKeyAsNullFromInMemoryCacheManager(int threadCount, String key,
+            String beanName) throws InterruptedException {
+        Cache cache = getCache(beanName);
+        var startLatch = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < threadCount; i++) {
+                executor.submit(() -> {
+                    startLatch.await();
+                    return cache.get(key, () -> {
+                        loaderCalls.incrementAndGet();
+                        // let other threads arrive while the load is in progress
+                        Thread.sleep(100);
+                        return null;
+                    });
+                });
+            }
+
+            startLatch.countDown();
+        }
+    }
+
+    @When("key {string} is loaded as {string} from in-memory cache manager {string}")
+    public void keyIsLoadedAsFromInMemoryCacheManager(String key, String value, String beanName) {
+        getCache(beanName).get(key, () -> {
+            loaderCalls.incrementAndGet();
+            return value;
+        });
+    }
+
+    @Then("the in-memory cache loader should have been called {int} times")
+    public void theInMemoryCacheLoaderShouldHaveBeenCalledTimes(int times) {
+        assertThat(loaderCalls.get())
+                .as("loaderCalls")
+                .isEqualTo(times);
+    }
+
+    @Then("in-memory cache manager {string} should contain key {string}: {booleanValue}")
+    public void inMemoryCacheManagerShouldContainKey(String beanName, String key, boolean contains) {
+        assertThat(getCache(beanName).get(key) != null)
+                .as("contains")
+                .isEqualTo(contains);
+    }
+
+    private Cache getCache(String beanName) {
+        if (!appContext.isActive()) {
+            appContext.refresh();
+        }
+
+        return appContext.getBean(beanName, CacheManager.class).getCache("test");
+    }
+
+    private static DataSize parseDataSize(String value) {
+        return StringUtils.isBlank(value)
+                ? null
+                : DataSize.parse(value);
+    }
+
+}
@@ -0,0 +1,139 @@
+package guru.nicks.commons.cucumber;
+
+import guru.nicks.commons.utils.InstrumentedStampedLock;
+import guru.nicks.commons.utils.KeyedStampedLocks;
+import guru.nicks.commons.utils.LockStatisticsRegistry;
+import guru.nicks.commons.utils.StripedStampedLocks;
+import guru.nicks.commons.utils.WeakStampedLocks;
+
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Step definitions for testing {@link KeyedStampedLocks} implementations.
+ */
+public class KeyedStampedLocksSteps {
+
+    private KeyedStampedLocks<Object> locks;
+    private int[] counters;
+
+    @Given("striped stamped locks with {int} stripes")
+    public void stripedStampedLocksWithStripes(int stripeCount) {
+        locks = new StripedStampedLocks<>(stripeCount);
+    }
+
+    @Given("{word} stamped locks")
+    public void stampedLocks(String type) {
+        locks = switch (type) {
+            case "striped" -> new StripedStampedLocks<>();
+            case "weak" -> new WeakStampedLocks<>();
+            default -> throw new IllegalArgumentException("Unknown lock type: " + type);
+        };
+    }
+
+    @Given("{word} stamped locks named {string}")
+    public void stampedLocksNamed(String type, String name) {
+        locks = switch (type) {
+            case "striped" -> new StripedStampedLocks<>(StripedStampedLocks.DEFAULT_STRIPE_COUNT, name);
+            case "weak" -> new WeakStampedLocks<>(name);
+            default -> throw new IllegalArgumentException("Unknown lock type: " + type);
+        };
+    }
+
+    @When("{int} threads increment counters of {int} keys {int} times each under exclusive per-key locks")
+    public void threadsIncrementCountersUnderExclusivePerKeyLocks(int threadCount, int keyCount, int times)
+            throws InterruptedException {
+        counters = new int[keyCount];
+        List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < threadCount; t++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < times; i++) {
+                    int key = i % keyCount;
+                    locks.withExclusiveLock(key, () -> counters[key]++);
+                }
+            }));
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    @Then("the per-key locks should be instrumented, and lock statistics {string} should count {long} exclusive locks")
+    public void thePerKeyLocksShouldBeInstrumented(String name, long exclusiveLocks) {
+        assertThat(locks.getLock("user-1"))
+                .as("lock")
+                .isInstanceOf(InstrumentedStampedLock.class);
+        assertThat(LockStatisticsRegistry.getOrCreate(name).getExclusiveLocks())
+                .as("exclusiveLocks")
+                .isEqualTo(exclusiveLocks);
+    }
+
+    @Then("the striped stamped locks should have {int} stripes")
+    public void theStripedStampedLocksShouldHaveStripes(int expected) {
+        assertThat(((StripedStampedLocks<Object>) locks).getStripeCount())
+                .as("stripeCount")
+                .isEqualTo(expected);
+    }
+
+    @Then("the lock of key {string} should be the same on each call")
+    public void theLockOfKeyShouldBeTheSameOnEachCall(String key) {
+        StampedLock lock = locks.getLock(key);
+
+        assertThat(locks.getLock(new String(key)))
+                .as("lock")
+                .isSameAs(lock);
+    }
+
+    @Then("the lock of a null key should be the same on each call")
+    public void theLockOfANullKeyShouldBeTheSameOnEachCall() {
+        StampedLock lock = locks.getLock(null);
+
+        assertThat(locks.getLock(null))
+                .as("lock")
+                .isSameAs(lock);
+    }
+
+    @Then("{int} sequential numeric keys should use all {int} stripes")
+    public void sequentialNumericKeysShouldUseAllStripes(int keyCount, int stripeCount) {
+        Set<StampedLock> used = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (long key = 0; key < keyCount; key++) {
+            used.add(locks.getLock(key));
+        }
+
+        assertThat(used)
+                .as("stripes used")
+                .hasSize(stripeCount);
+    }
+
+    @Then("the locks of keys {string} and {string} should be different")
+    public void theLocksOfKeysShouldBeDifferent(String key1, String key2) {
+        StampedLock lock = locks.getLock(key1);
+
+        assertThat(locks.getLock(key2))
+                .as("lock")
+                .isNotSameAs(lock);
+    }
+
+    @Then("each of the {int} per-key counters should be {int}")
+    public void eachOfThePerKeyCountersShouldBe(int keyCount, int expected) {
+        for (int key = 0; key < keyCount; key++) {
+            assertThat(counters[key])
+                    .as("counter of key %d", key)
+                    .isEqualTo(expected);
+        }
+    }
+
+}
@@ -1,6 +1,9 @@
 package guru.nicks.commons.cucumber;
 
 import guru.nicks.commons.cucumber.world.TextWorld;
+import guru.nicks.commons.utils.InstrumentedStampedLock;
+import guru.nicks.commons.utils.LockStatistics;
+import guru.nicks.commons.utils.LockStatisticsRegistry;
 import guru.nicks.commons.utils.LockUtils;
 
 import io.cucumber.java.en.Given;
@@ -39,6 +42,7 @@ public class LockUtilsSteps {
 
     int threadCount;
     private StampedLock lock;
+    private InstrumentedStampedLock instrumentedLock;
     private CountDownLatch writeLockHeldLatch;
     private CountDownLatch readStartedLatch;
     private CountDownLatch completionLatch;
@@ -106,6 +110,61 @@ public class LockUtilsSteps {
         }
     }
 
+    @Given("an instrumented StampedLock named {string}")
+    public void anInstrumentedStampedLockNamed(String name) {
+        instrumentedLock = new InstrumentedStampedLock(name);
+    }
+
+    @When("the instrumented lock is read {int} times allowing {int} optimistic attempts")
+    public void theInstrumentedLockIsReadTimesAllowingOptimisticAttempts(int times, int maxOptimisticAttempts) {
+        textWorld.setLastException(catchThrowable(() -> {
+            for (int i = 0; i < times; i++) {
+                result.set(LockUtils.withOptimisticReadOrRetry(instrumentedLock, maxOptimisticAttempts, () -> 42));
+            }
+        }));
+    }
+
+    @When("the instrumented lock is written {int} times")
+    public void theInstrumentedLockIsWrittenTimes(int times) {
+        textWorld.setLastException(catchThrowable(() -> {
+            for (int i = 0; i < times; i++) {
+                result.set(LockUtils.withExclusiveLock(instrumentedLock, () -> 42));
+            }
+        }));
+    }
+
+    @When("the instrumented lock is read allowing {int} optimistic attempts while a slow writer holds it")
+    public void theInstrumentedLockIsReadWhileASlowWriterHoldsIt(int maxOptimisticAttempts) {
+        // not via LockUtils.withExclusiveLock - that would count an exclusive lock
+        long writeStamp = instrumentedLock.writeLock();
+
+        // the writer is much slower than the spin budget, so the reader has to fall back to a read lock
+        Thread writerThread = Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                instrumentedLock.unlockWrite(writeStamp);
+            }
+        });
+
+        textWorld.setLastException(catchThrowable(() ->
+                result.set(LockUtils.withOptimisticReadOrRetry(instrumentedLock, maxOptimisticAttempts, () -> 42))));
+
+        try {
+            writerThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @When("the optimistic read lock is used allowing {int} optimistic attempts")
+    public void theOptimisticReadLockIsUsedAllowingOptimisticAttempts(int maxOptimisticAttempts) {
+        textWorld.setLastException(catchThrowable(() ->
+                LockUtils.withOptimisticReadOrRetry(lock, maxOptimisticAttempts, () -> 42)));
+    }
+
     @When("the optimistic read lock is used with no write contention")
     public void theOptimisticReadLockIsUsedWithNoWriteContention() {
         // create custom implementation to track if retry happens
@@ -287,6 +346,27 @@ public class LockUtilsSteps {
         assertThat(optimisticReadRetried.get()).as("optimisticReadRetried").isTrue();
     }
 
+    @Then("the instrumented lock should report {long} optimistic reads, {long} pessimistic reads "
+            + "and {long} exclusive locks")
+    public void theInstrumentedLockShouldReport(long optimisticReads, long pessimisticReads, long exclusiveLocks) {
+        assertThat(textWorld.getLastException()).as("lastException").isNull();
+        LockStatistics statistics = instrumentedLock.getStatistics();
+
+        assertThat(statistics.getOptimisticReads()).as("optimisticReads").isEqualTo(optimisticReads);
+        assertThat(statistics.getPessimisticReads()).as("pessimisticReads").isEqualTo(pessimisticReads);
+        assertThat(statistics.getExclusiveLocks()).as("exclusiveLocks").isEqualTo(exclusiveLocks);
+    }
+
+    @Then("the lock statistics registry should contain the instrumented lock under {string}")
+    public void theLockStatisticsRegistryShouldContainTheInstrumentedLockUnder(String name) {
+        assertThat(LockStatisticsRegistry.snapshot())
+                .as("lock statistics")
+                .containsEntry(name, instrumentedLock.getStatistics().snapshot());
+        assertThat(LockStatisticsRegistry.getOrCreate(name))
+                .as("statistics registered under the same name")
+                .isSameAs(instrumentedLock.getStatistics());
+    }
+
     @Then("the write lock should be released after completion")
     public void theWriteLockShouldBeReleasedAfterCompletion() {
         assertThat(writeLockAcquired.get()).as("writeLockAcquired").isTrue();
@@ -0,0 +1,80 @@
+package guru.nicks.commons.cucumber;
+
+import guru.nicks.commons.utils.LogLinearHistogram;
+
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Step definitions for testing {@link LogLinearHistogram}.
+ */
+public class LogLinearHistogramSteps {
+
+    private LogLinearHistogram histogram;
+
+    @Given("an empty log-linear histogram")
+    public void anEmptyLogLinearHistogram() {
+        histogram = new LogLinearHistogram();
+    }
+
+    @When("values from {int} to {int} are recorded in the histogram")
+    public void valuesFromToAreRecordedInTheHistogram(int from, int to) {
+        for (int value = from; value <= to; value++) {
+            histogram.record(value);
+        }
+    }
+
+    @When("value {long} is recorded in the histogram")
+    public void valueIsRecordedInTheHistogram(long value) {
+        histogram.record(value);
+    }
+
+    @When("{int} threads record {int} values each in the histogram")
+    public void threadsRecordValuesEachInTheHistogram(int threadCount, int valueCount) {
+        try (ExecutorService executor = Executors.newFixedThreadPool(threadCount)) {
+            for (int i = 0; i < threadCount; i++) {
+                executor.execute(() -> {
+                    for (int j = 0; j < valueCount; j++) {
+                        histogram.record(ThreadLocalRandom.current().nextLong(100_000));
+                    }
+                });
+            }
+        }
+    }
+
+    @Then("histogram count should be {long}")
+    public void histogramCountShouldBe(long count) {
+        assertThat(histogram.getCount())
+                .as("count")
+                .isEqualTo(count);
+    }
+
+    @Then("histogram max. should be {long}")
+    public void histogramMaxShouldBe(long max) {
+        assertThat(histogram.getMax())
+                .as("max")
+                .isEqualTo(max);
+    }
+
+    @Then("histogram used bucket count should be {int}")
+    public void histogramUsedBucketCountShouldBe(int bucketCount) {
+        assertThat(histogram.getUsedBucketCount())
+                .as("usedBucketCount")
+                .isEqualTo(bucketCount);
+    }
+
+    @Then("histogram value at percentile {double} should be between {long} and {long}")
+    public void histogramValueAtPercentileShouldBeBetween(double percentile, long min, long max) {
+        assertThat(histogram.getValueAtPercentile(percentile))
+                .as("value at percentile")
+                .isBetween(min, max);
+    }
+
+}
@@ -0,0 +1,66 @@
+package guru.nicks.commons.cucumber;
+
+import guru.nicks.commons.utils.SlidingWindowStatistics;
+
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Step definitions for testing {@link SlidingWindowStatistics}.
+ */
+public class SlidingWindowStatisticsSteps {
+
+    private SlidingWindowStatistics statistics;
+
+    @Given("sliding window statistics with {int} slots of {int} milliseconds")
+    public void slidingWindowStatisticsWithSlotsOfMilliseconds(int slotCount, int slotMillis) {
+        statistics = new SlidingWindowStatistics(Duration.ofMillis(slotMillis), slotCount);
+    }
+
+    @When("value {long} is recorded {int} times in the sliding window")
+    public void valueIsRecordedTimesInTheSlidingWindow(long value, int times) {
+        for (int i = 0; i < times; i++) {
+            statistics.record(value);
+        }
+    }
+
+    @Then("sliding window of {int} milliseconds should have {long} values with average between {double} and {double}")
+    public void slidingWindowShouldHaveValuesWithAverageBetween(int windowMillis, long count, double min, double max) {
+        SlidingWindowStatistics.Snapshot snapshot = statistics.getSnapshot(Duration.ofMillis(windowMillis));
+
+        assertThat(snapshot.count())
+                .as("count")
+                .isEqualTo(count);
+        assertThat(snapshot.average())
+                .as("average")
+                .isBetween(min, max);
+    }
+
+    @Then("sliding window of {int} milliseconds should have p50 {long}, p99 {long}, and max. {long}")
+    public void slidingWindowShouldHavePercentilesAndMax(int windowMillis, long p50, long p99, long max) {
+        SlidingWindowStatistics.Snapshot snapshot = statistics.getSnapshot(Duration.ofMillis(windowMillis));
+
+        assertThat(snapshot.p50())
+                .as("p50")
+                .isEqualTo(p50);
+        assertThat(snapshot.p99())
+                .as("p99")
+                .isEqualTo(p99);
+        assertThat(snapshot.max())
+                .as("max")
+                .isEqualTo(max);
+    }
+
+    @Then("sliding window of {int} milliseconds should have a positive rate")
+    public void slidingWindowShouldHaveAPositiveRate(int windowMillis) {
+        assertThat(statistics.getSnapshot(Duration.ofMillis(windowMillis)).ratePerSecond())
+                .as("ratePerSecond")
+                .isPositive();
+    }
+
+}
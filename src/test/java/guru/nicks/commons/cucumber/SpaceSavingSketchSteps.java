@@ -0,0 +1,115 @@
+package guru.nicks.commons.cucumber;
+
+import guru.nicks.commons.utils.SpaceSavingSketch;
+
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Step definitions for testing {@link SpaceSavingSketch}.
+ */
+public class SpaceSavingSketchSteps {
+
+    private SpaceSavingSketch<String> sketch;
+
+    @Given("Space-Saving sketch with capacity {int}")
+    public void spaceSavingSketchWithCapacity(int capacity) {
+        sketch = new SpaceSavingSketch<>(capacity);
+    }
+
+    @Given("Space-Saving sketch with capacity {int} and {int} stripes")
+    public void spaceSavingSketchWithCapacityAndStripes(int capacity, int stripeCount) {
+        sketch = new SpaceSavingSketch<>(capacity, stripeCount);
+    }
+
+    @When("item {string} is offered to the sketch {int} times interleaved with {int} unique items by each of {int} "
+            + "threads")
+    public void itemIsOfferedToTheSketchByEachOfThreads(String item, int times, int uniqueItems, int threadCount)
+            throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < threadCount; t++) {
+            String prefix = "thread-" + t + "-unique-";
+
+            threads.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < Math.max(times, uniqueItems); i++) {
+                    if (i < times) {
+                        sketch.offer(item);
+                    }
+
+                    if (i < uniqueItems) {
+                        sketch.offer(prefix + i);
+                    }
+                }
+            }));
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    @When("item {string} is offered to the sketch with count {long}")
+    public void itemIsOfferedToTheSketchWithCount(String item, long count) {
+        sketch.offer(item, count);
+    }
+
+    @When("items {string} are offered to the sketch")
+    public void itemsAreOfferedToTheSketch(String items) {
+        for (String item : items.split(",")) {
+            sketch.offer(item);
+        }
+    }
+
+    @When("item {string} is offered to the sketch {int} times interleaved with {int} unique items")
+    public void itemIsOfferedToTheSketchTimesInterleavedWithUniqueItems(String item, int times, int uniqueItems) {
+        for (int i = 0; i < Math.max(times, uniqueItems); i++) {
+            if (i < times) {
+                sketch.offer(item);
+            }
+
+            if (i < uniqueItems) {
+                sketch.offer("unique-" + i);
+            }
+        }
+    }
+
+    @Then("heavy hitters should be {string}")
+    public void heavyHittersShouldBe(String expected) {
+        String actual = sketch.getHeavyHitters()
+                .stream()
+                .map(heavyHitter -> heavyHitter.item() + "=" + heavyHitter.count() + "+" + heavyHitter.error())
+                .collect(Collectors.joining(","));
+
+        assertThat(actual)
+                .as("heavy hitters")
+                .isEqualTo(expected);
+    }
+
+    @Then("total count of the sketch should be {long}")
+    public void totalCountOfTheSketchShouldBe(long expected) {
+        assertThat(sketch.getTotalCount())
+                .as("totalCount")
+                .isEqualTo(expected);
+    }
+
+    @Then("the most frequent heavy hitter should be {string} with at least {long} occurrences")
+    public void theMostFrequentHeavyHitterShouldBe(String item, long minCount) {
+        SpaceSavingSketch.HeavyHitter<String> heavyHitter = sketch.getHeavyHitters().getFirst();
+
+        assertThat(heavyHitter.item())
+                .as("item")
+                .isEqualTo(item);
+        assertThat(heavyHitter.count())
+                .as("count")
+                .isGreaterThanOrEqualTo(minCount);
+    }
+
+}
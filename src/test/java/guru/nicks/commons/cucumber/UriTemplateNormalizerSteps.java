@@ -0,0 +1,29 @@
+package guru.nicks.commons.cucumber;
+
+import guru.nicks.commons.utils.UriTemplateNormalizer;
+
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Step definitions for testing {@link UriTemplateNormalizer}.
+ */
+public class UriTemplateNormalizerSteps {
+
+    private String template;
+
+    @When("URI {string} is normalized to a template")
+    public void uriIsNormalizedToATemplate(String uri) {
+        template = UriTemplateNormalizer.INSTANCE.apply(uri);
+    }
+
+    @Then("the URI template should be {string}")
+    public void theUriTemplateShouldBe(String expected) {
+        assertThat(template)
+                .as("template")
+                .isEqualTo(expected);
+    }
+
+}
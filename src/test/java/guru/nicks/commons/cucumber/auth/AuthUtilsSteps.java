@@ -1,5 +1,6 @@
 package guru.nicks.commons.cucumber.auth;
 
+import guru.nicks.commons.auth.domain.AccessTokenChecksum;
 import guru.nicks.commons.auth.domain.BasicAuthCredentials;
 import guru.nicks.commons.cucumber.world.TextWorld;
 import guru.nicks.commons.utils.auth.AuthUtils;
@@ -37,6 +38,7 @@ public class AuthUtilsSteps {
 
     private String accessToken;
     private String checksum;
+    private AccessTokenChecksum binaryChecksum;
 
     private String basicAuthHeader;
     private BasicAuthCredentials basicAuthCredentials;
@@ -70,6 +72,12 @@ public class AuthUtilsSteps {
                 checksum = AuthUtils.calculateAccessTokenChecksum(accessToken)));
     }
 
+    @When("the binary access token checksum is calculated")
+    public void theBinaryAccessTokenChecksumIsCalculated() {
+        textWorld.setLastException(catchThrowable(() ->
+                binaryChecksum = AuthUtils.calculateBinaryAccessTokenChecksum(accessToken)));
+    }
+
     @When("the access token checksum is calculated multiple times")
     public void theAccessTokenChecksumIsCalculatedMultipleTimes() {
         checksums.clear();
@@ -128,6 +136,24 @@ public class AuthUtilsSteps {
                 .doesNotContain("=", ":", "/", "\\", "?", "*", "\"", "<", ">", "|");
     }
 
+    @Then("the binary checksum SHA-256 should be {string}")
+    public void theBinaryChecksumSha256ShouldBe(String expectedHex) {
+        assertThat(textWorld.getLastException())
+                .as("lastException")
+                .isNull();
+
+        assertThat(binaryChecksum.sha256Hex())
+                .as("binaryChecksum.sha256Hex()")
+                .isEqualTo(expectedHex);
+    }
+
+    @Then("the binary checksum xxHash3 should be {string}")
+    public void theBinaryChecksumXxHash3ShouldBe(String expectedHex) {
+        assertThat(binaryChecksum.xxHash3Hex())
+                .as("binaryChecksum.xxHash3Hex()")
+                .isEqualTo(expectedHex);
+    }
+
     @Then("all checksums should be identical")
     public void allChecksumsShouldBeIdentical() {
         assertThat(checksums)
@@ -0,0 +1,113 @@
+package guru.nicks.commons.cucumber.auth;
+
+import guru.nicks.commons.auth.CachingJwtDecoder;
+import guru.nicks.commons.cucumber.world.TextWorld;
+
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import lombok.RequiredArgsConstructor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Step definitions for testing {@link CachingJwtDecoder}.
+ */
+@RequiredArgsConstructor
+public class CachingJwtDecoderSteps {
+
+    // DI
+    private final TextWorld textWorld;
+
+    @Mock
+    private JwtDecoder delegateMock;
+    private AutoCloseable closeableMocks;
+
+    private CachingJwtDecoder cachingJwtDecoder;
+
+    @Before
+    public void beforeEachScenario() {
+        closeableMocks = MockitoAnnotations.openMocks(this);
+    }
+
+    @After
+    public void afterEachScenario() throws Exception {
+        closeableMocks.close();
+    }
+
+    @Given("a caching JWT decoder with capacity {int}")
+    public void aCachingJwtDecoderWithCapacity(int capacity) {
+        cachingJwtDecoder = new CachingJwtDecoder(delegateMock, capacity);
+    }
+
+    @When("a caching JWT decoder with capacity {int} is created")
+    public void aCachingJwtDecoderWithCapacityIsCreated(int capacity) {
+        textWorld.setLastException(catchThrowable(() ->
+                cachingJwtDecoder = new CachingJwtDecoder(delegateMock, capacity)));
+    }
+
+    @Given("the delegate JWT decoder accepts tokens expiring in {int} seconds")
+    public void theDelegateJwtDecoderAcceptsTokensExpiringInSeconds(int seconds) {
+        Instant now = Instant.now();
+
+        when(delegateMock.decode(anyString()))
+                .thenAnswer(invocation -> Jwt.withTokenValue(invocation.getArgument(0))
+                        .header("alg", "RS256")
+                        .subject("user")
+                        .issuedAt(now.minusSeconds(1))
+                        .expiresAt(now.plusSeconds(seconds))
+                        .build());
+    }
+
+    @Given("the delegate JWT decoder rejects tokens")
+    public void theDelegateJwtDecoderRejectsTokens() {
+        when(delegateMock.decode(anyString()))
+                .thenThrow(new BadJwtException("Invalid signature"));
+    }
+
+    @When("the token {string} is decoded {int} times")
+    public void theTokenIsDecodedTimes(String token, int times) {
+        for (int i = 0; i < times; i++) {
+            textWorld.setLastException(catchThrowable(() -> {
+                Jwt jwt = cachingJwtDecoder.decode(token);
+
+                assertThat(jwt.getTokenValue())
+                        .as("jwt.getTokenValue()")
+                        .isEqualTo(token);
+            }));
+        }
+    }
+
+    @When("the caching JWT decoder cache is invalidated")
+    public void theCachingJwtDecoderCacheIsInvalidated() {
+        cachingJwtDecoder.invalidateAll();
+    }
+
+    @Then("the delegate JWT decoder should be called {int} times")
+    public void theDelegateJwtDecoderShouldBeCalledTimes(int times) {
+        verify(delegateMock, times(times))
+                .decode(anyString());
+    }
+
+    @Then("the caching JWT decoder hit count should be {int}")
+    public void theCachingJwtDecoderHitCountShouldBe(int hitCount) {
+        assertThat(cachingJwtDecoder.getCacheStats().hitCount())
+                .as("hitCount")
+                .isEqualTo(hitCount);
+    }
+
+}
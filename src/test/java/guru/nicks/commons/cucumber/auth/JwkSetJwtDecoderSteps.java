@@ -0,0 +1,195 @@
+package guru.nicks.commons.cucumber.auth;
+
+import guru.nicks.commons.auth.JwkSetJwtDecoder;
+import guru.nicks.commons.auth.domain.JwkInfo;
+import guru.nicks.commons.cucumber.world.TextWorld;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.cucumber.java.After;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Step definitions for testing {@link JwkSetJwtDecoder}.
+ */
+@RequiredArgsConstructor
+public class JwkSetJwtDecoderSteps {
+
+    // DI
+    private final TextWorld textWorld;
+
+    private final Map<String, RSAKey> keysById = new HashMap<>();
+    private final AtomicInteger fetchCount = new AtomicInteger();
+
+    private volatile List<String> currentKeyIds;
+    private Integer ttlSeconds;
+
+    private JwkSetJwtDecoder decoder;
+    private Jwt decodedJwt;
+
+    @After
+    public void afterEachScenario() {
+        if (decoder != null) {
+            decoder.close();
+        }
+    }
+
+    @Given("JWKS with key IDs {string} expiring in {int} seconds")
+    public void jwksWithKeyIdsExpiringInSeconds(String keyIds, int ttlSeconds) {
+        currentKeyIds = Arrays.asList(keyIds.split(","));
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    @Given("JWKS with key IDs {string} having no expiration date")
+    public void jwksWithKeyIdsHavingNoExpirationDate(String keyIds) {
+        currentKeyIds = Arrays.asList(keyIds.split(","));
+        ttlSeconds = null;
+    }
+
+    @Given("a JWKS-based JWT decoder with fallback refresh interval of {int} milliseconds")
+    public void aJwksBasedJwtDecoderWithFallbackRefreshIntervalOfMilliseconds(int millis) {
+        decoder = new JwkSetJwtDecoder(this::fetchJwkSet, Duration.ofMillis(millis),
+                JwkSetJwtDecoder.DEFAULT_ON_DEMAND_REFRESH_INTERVAL);
+    }
+
+    @Given("a JWKS-based JWT decoder")
+    public void aJwksBasedJwtDecoder() {
+        decoder = new JwkSetJwtDecoder(this::fetchJwkSet);
+    }
+
+    @When("a JWKS-based JWT decoder is created with a failing fetcher")
+    public void aJwksBasedJwtDecoderIsCreatedWithAFailingFetcher() {
+        textWorld.setLastException(catchThrowable(() -> new JwkSetJwtDecoder(() -> {
+            throw new IllegalStateException("JWKS endpoint is down");
+        })));
+    }
+
+    @When("JWKS key IDs change to {string}")
+    public void jwksKeyIdsChangeTo(String keyIds) {
+        currentKeyIds = Arrays.asList(keyIds.split(","));
+    }
+
+    @When("the JWKS-based JWT decoder is refreshed")
+    public void theJwksBasedJwtDecoderIsRefreshed() {
+        decoder.refresh();
+    }
+
+    @When("a token signed with key {string} is decoded")
+    public void aTokenSignedWithKeyIsDecoded(String keyId) throws JOSEException {
+        String token = signToken(keyId);
+        textWorld.setLastException(catchThrowable(() ->
+                decodedJwt = decoder.decode(token)));
+    }
+
+    @When("a token signed with an unknown key {string} is decoded")
+    public void aTokenSignedWithAnUnknownKeyIsDecoded(String keyId) throws JOSEException {
+        aTokenSignedWithKeyIsDecoded(keyId);
+    }
+
+    @When("the token {string} is decoded by the JWKS-based decoder")
+    public void theTokenIsDecodedByTheJwksBasedDecoder(String token) {
+        textWorld.setLastException(catchThrowable(() ->
+                decodedJwt = decoder.decode(token)));
+    }
+
+    @When("{int} milliseconds pass")
+    public void millisecondsPass(int millis) throws InterruptedException {
+        Thread.sleep(millis);
+    }
+
+    @Then("the decoded token subject should be {string}")
+    public void theDecodedTokenSubjectShouldBe(String subject) {
+        assertThat(decodedJwt.getSubject())
+                .as("subject")
+                .isEqualTo(subject);
+    }
+
+    @Then("the JWKS should have been fetched {int} times")
+    public void theJwksShouldHaveBeenFetchedTimes(int times) {
+        assertThat(fetchCount.get())
+                .as("fetchCount")
+                .isEqualTo(times);
+    }
+
+    @Then("the JWKS should have been fetched at least {int} times")
+    public void theJwksShouldHaveBeenFetchedAtLeastTimes(int times) {
+        assertThat(fetchCount.get())
+                .as("fetchCount")
+                .isGreaterThanOrEqualTo(times);
+    }
+
+    @Then("the JWKS-based JWT decoder key IDs should be {string}")
+    public void theJwksBasedJwtDecoderKeyIdsShouldBe(String keyIds) {
+        assertThat(decoder.getKeyIds())
+                .as("keyIds")
+                .containsExactlyElementsOf(Arrays.asList(keyIds.split(",")));
+    }
+
+    private JwkInfo fetchJwkSet() {
+        fetchCount.incrementAndGet();
+
+        List<JWK> jwks = currentKeyIds.stream()
+                .map(this::getOrCreateKey)
+                .map(JWK.class::cast)
+                .toList();
+
+        return JwkInfo.builder()
+                .authProviderId("test")
+                .keys(new JWKSet(jwks))
+                .expirationDate((ttlSeconds == null)
+                        ? null
+                        : Instant.now().plusSeconds(ttlSeconds))
+                .build();
+    }
+
+    private String signToken(String keyId) throws JOSEException {
+        RSAKey key = getOrCreateKey(keyId);
+        Instant now = Instant.now();
+
+        var jwt = new SignedJWT(
+                new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(keyId).build(),
+                new JWTClaimsSet.Builder()
+                        .subject("user")
+                        .issueTime(Date.from(now))
+                        .expirationTime(Date.from(now.plusSeconds(60)))
+                        .build());
+        jwt.sign(new RSASSASigner(key));
+
+        return jwt.serialize();
+    }
+
+    private synchronized RSAKey getOrCreateKey(String keyId) {
+        return keysById.computeIfAbsent(keyId, id -> {
+            try {
+                return new RSAKeyGenerator(2048).keyID(id).generate();
+            } catch (JOSEException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,127 @@
+package guru.nicks.commons.cucumber.auth;
+
+import guru.nicks.commons.auth.JwtClaimsProjectionCache;
+import guru.nicks.commons.auth.domain.CustomJwtClaim;
+import guru.nicks.commons.auth.domain.JwtClaimsProjection;
+import guru.nicks.commons.cucumber.world.TextWorld;
+
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Step definitions for testing {@link JwtClaimsProjectionCache}.
+ */
+@RequiredArgsConstructor
+public class JwtClaimsProjectionCacheSteps {
+
+    // DI
+    private final TextWorld textWorld;
+
+    private final List<JwtClaimsProjection> projections = new ArrayList<>();
+
+    private JwtClaimsProjectionCache cache;
+    private Jwt jwt;
+
+    @Given("a claims projection cache with capacity {int}")
+    public void aClaimsProjectionCacheWithCapacity(int capacity) {
+        cache = new JwtClaimsProjectionCache(capacity);
+    }
+
+    @Given("a JWT {string} with subject {string}, username {string}, roles {string} and locale {string}")
+    public void aJwtWithSubjectUsernameRolesAndLocale(String token, String subject, String username, String roles,
+            String locale) {
+        jwt = createJwtBuilder(token, subject, roles)
+                .claim(CustomJwtClaim.PREFERRED_USERNAME.getJwtName(), username)
+                .claim(CustomJwtClaim.LOCALE.getJwtName(), locale)
+                .build();
+    }
+
+    @Given("a JWT {string} issued by {string} with subject {string} and roles {string}")
+    public void aJwtIssuedByWithSubjectAndRoles(String token, String issuer, String subject, String roles) {
+        jwt = createJwtBuilder(token, subject, roles)
+                .claim(JwtClaimNames.ISS, issuer)
+                .build();
+    }
+
+    @When("the claims projection is retrieved {int} times")
+    public void theClaimsProjectionIsRetrievedTimes(int times) {
+        projections.clear();
+
+        textWorld.setLastException(catchThrowable(() -> {
+            for (int i = 0; i < times; i++) {
+                projections.add(cache.get(jwt));
+            }
+        }));
+    }
+
+    @Then("the projected user ID should be {string}")
+    public void theProjectedUserIdShouldBe(String userId) {
+        assertThat(projections.getFirst().userId())
+                .as("userId")
+                .isEqualTo(userId);
+    }
+
+    @Then("the projected username should be {string}")
+    public void theProjectedUsernameShouldBe(String username) {
+        assertThat(projections.getFirst().username())
+                .as("username")
+                .isEqualTo(username);
+    }
+
+    @Then("the projected authorities should be {string}")
+    public void theProjectedAuthoritiesShouldBe(String authorities) {
+        assertThat(projections.getFirst().authorities())
+                .as("authorities")
+                .containsExactlyInAnyOrder(StringUtils.isBlank(authorities)
+                        ? new String[0]
+                        : authorities.split(","));
+    }
+
+    @Then("the projected locale should be {string}")
+    public void theProjectedLocaleShouldBe(String locale) {
+        assertThat(projections.getFirst().locale())
+                .as("locale")
+                .hasToString(locale);
+    }
+
+    @Then("the claims projection cache hit count should be {int}")
+    public void theClaimsProjectionCacheHitCountShouldBe(int hitCount) {
+        assertThat(cache.getCacheStats().hitCount())
+                .as("hitCount")
+                .isEqualTo(hitCount);
+    }
+
+    @Then("all retrieved claims projections should be the same instance")
+    public void allRetrievedClaimsProjectionsShouldBeTheSameInstance() {
+        assertThat(projections)
+                .as("projections")
+                .allSatisfy(projection -> assertThat(projection).isSameAs(projections.getFirst()));
+    }
+
+    private static Jwt.Builder createJwtBuilder(String token, String subject, String roles) {
+        Instant now = Instant.now();
+
+        return Jwt.withTokenValue(token)
+                .header("alg", "RS256")
+                .subject(subject)
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(3600))
+                .claim(CustomJwtClaim.KEYCLOAK_REALM_ACCESS.getJwtName(),
+                        Map.of(CustomJwtClaim.KEYCLOAK_ROLES.getJwtName(), Arrays.asList(roles.split(","))));
+    }
+
+}
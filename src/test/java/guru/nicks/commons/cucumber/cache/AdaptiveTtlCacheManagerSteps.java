@@ -0,0 +1,80 @@
+package guru.nicks.commons.cucumber.cache;
+
+import guru.nicks.commons.cache.AdaptiveTtlCacheManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Step definitions for testing {@link AdaptiveTtlCacheManager}.
+ */
+public class AdaptiveTtlCacheManagerSteps {
+
+    private Cache<Object, Object> cache;
+
+    @Given("an adaptive TTL cache manager with TTL from {int} to {int} minutes")
+    public void anAdaptiveTtlCacheManagerWithTtlFromToMinutes(int minMinutes, int maxMinutes) {
+        var cacheManager = new AdaptiveTtlCacheManager(
+                Duration.ofMinutes(minMinutes), Duration.ofMinutes(maxMinutes), 1000);
+        cache = ((CaffeineCache) cacheManager.getCache("test")).getNativeCache();
+    }
+
+    @When("adaptive cache key {string} is loaded")
+    public void adaptiveCacheKeyIsLoaded(String key) {
+        cache.get(key, theKey -> "value");
+    }
+
+    @When("adaptive cache key {string} is read {int} times")
+    public void adaptiveCacheKeyIsReadTimes(String key, int times) {
+        for (int i = 0; i < times; i++) {
+            cache.getIfPresent(key);
+        }
+    }
+
+    @When("adaptive cache key {string} is updated {int} times")
+    public void adaptiveCacheKeyIsUpdatedTimes(String key, int times) {
+        for (int i = 0; i < times; i++) {
+            cache.put(key, "value-" + i);
+        }
+    }
+
+    @When("adaptive cache key {string} is evicted and loaded again")
+    public void adaptiveCacheKeyIsEvictedAndLoadedAgain(String key) {
+        cache.invalidate(key);
+        adaptiveCacheKeyIsLoaded(key);
+    }
+
+    @Then("TTL of adaptive cache key {string} should be between {long} and {long} minutes")
+    public void ttlOfAdaptiveCacheKeyShouldBeBetweenAndMinutes(String key, long minMinutes, long maxMinutes) {
+        // 'between' is inclusive, and the remaining TTL is slightly less than the assigned one
+        assertThat(getRemainingTtlMillis(key))
+                .as("ttl")
+                .isBetween(TimeUnit.MINUTES.toMillis(minMinutes) - 1000, TimeUnit.MINUTES.toMillis(maxMinutes));
+    }
+
+    @Then("TTL of adaptive cache key {string} should be less than TTL of adaptive cache key {string}")
+    public void ttlOfAdaptiveCacheKeyShouldBeLessThanTtlOfAdaptiveCacheKey(String key1, String key2) {
+        assertThat(getRemainingTtlMillis(key1))
+                .as("ttl")
+                .isLessThan(getRemainingTtlMillis(key2));
+    }
+
+    private long getRemainingTtlMillis(String key) {
+        // 'expireAfter' is configured, so the variable expiration policy is present
+        //noinspection OptionalGetWithoutIsPresent
+        return cache.policy()
+                .expireVariably()
+                .get()
+                .getExpiresAfter(key, TimeUnit.MILLISECONDS)
+                .getAsLong();
+    }
+
+}
@@ -0,0 +1,110 @@
+package guru.nicks.commons.cucumber.cache;
+
+import guru.nicks.commons.cache.CacheSnapshotter;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.cucumber.java.After;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Step definitions for testing {@link CacheSnapshotter}.
+ */
+public class CacheSnapshotterSteps {
+
+    private Path directory;
+    private Duration ttl;
+    private List<String> cacheNames;
+
+    private CaffeineCacheManager cacheManager;
+    private CacheSnapshotter snapshotter;
+
+    @After
+    public void afterEachScenario() throws IOException {
+        if ((snapshotter != null) && snapshotter.isRunning()) {
+            snapshotter.stop();
+        }
+
+        if (directory != null) {
+            FileUtils.deleteDirectory(directory.toFile());
+        }
+    }
+
+    @Given("a Caffeine cache manager with TTL {long} milliseconds")
+    public void aCaffeineCacheManagerWithTtlMilliseconds(long ttlMillis) throws IOException {
+        directory = Files.createTempDirectory("cache-snapshots");
+        ttl = Duration.ofMillis(ttlMillis);
+        createCacheManager();
+    }
+
+    @Given("a cache snapshotter for cache {string}")
+    public void aCacheSnapshotterForCache(String cacheName) {
+        cacheNames = List.of(cacheName);
+        startSnapshotter();
+    }
+
+    @When("value {string} is put into Caffeine cache {string} under key {string}")
+    public void valueIsPutIntoCaffeineCacheUnderKey(String value, String cacheName, String key) {
+        getCache(cacheName).put(key, value);
+    }
+
+    @When("the cache snapshotter is restarted with a new Caffeine cache manager")
+    public void theCacheSnapshotterIsRestartedWithANewCaffeineCacheManager() {
+        theCacheSnapshotterIsStopped();
+        theCacheSnapshotterIsStartedWithANewCaffeineCacheManager();
+    }
+
+    @When("the cache snapshotter is stopped")
+    public void theCacheSnapshotterIsStopped() {
+        snapshotter.stop();
+    }
+
+    @When("the cache snapshotter is started with a new Caffeine cache manager")
+    public void theCacheSnapshotterIsStartedWithANewCaffeineCacheManager() {
+        createCacheManager();
+        startSnapshotter();
+    }
+
+    @Then("Caffeine cache {string} should have value {string} under key {string}")
+    public void caffeineCacheShouldHaveValueUnderKey(String cacheName, String value, String key) {
+        assertThat(getCache(cacheName).get(key, String.class))
+                .as("value")
+                .isEqualTo(value);
+    }
+
+    @Then("Caffeine cache {string} should have no value under key {string}")
+    public void caffeineCacheShouldHaveNoValueUnderKey(String cacheName, String key) {
+        assertThat(getCache(cacheName).get(key))
+                .as("valueWrapper")
+                .isNull();
+    }
+
+    private void createCacheManager() {
+        cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(100)
+                .expireAfterWrite(ttl));
+    }
+
+    private void startSnapshotter() {
+        snapshotter = new CacheSnapshotter(cacheManager, cacheNames, directory, 100, null);
+        snapshotter.start();
+    }
+
+    private Cache getCache(String cacheName) {
+        return cacheManager.getCache(cacheName);
+    }
+
+}
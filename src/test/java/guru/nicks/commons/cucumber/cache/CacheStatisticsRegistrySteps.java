@@ -0,0 +1,102 @@
+package guru.nicks.commons.cucumber.cache;
+
+import guru.nicks.commons.cache.CacheStatisticsRegistry;
+import guru.nicks.commons.cache.domain.CacheStatisticsSnapshot;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.cucumber.java.After;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Step definitions for testing {@link CacheStatisticsRegistry}.
+ */
+public class CacheStatisticsRegistrySteps {
+
+    /**
+     * Strong references - the registry references caches weakly.
+     */
+    private final List<Object> createdCaches = new ArrayList<>();
+
+    private Cache<String, String> lastCache;
+
+    @After
+    public void afterEachScenario() {
+        CacheStatisticsRegistry.setRecordingEnabled(false);
+    }
+
+    @Given("cache statistics recording is {booleanValue}")
+    public void cacheStatisticsRecordingIs(boolean enabled) {
+        CacheStatisticsRegistry.setRecordingEnabled(enabled);
+    }
+
+    @When("a registered cache {string} is built")
+    public void aRegisteredCacheIsBuilt(String cacheName) {
+        lastCache = CacheStatisticsRegistry.build(cacheName, Caffeine.newBuilder().maximumSize(10));
+        createdCaches.add(lastCache);
+    }
+
+    @When("registered cache {string} is queried for {int} missing and {int} present keys")
+    public void registeredCacheIsQueriedForMissingAndPresentKeys(String cacheName, int missing, int present) {
+        for (int i = 0; i < missing; i++) {
+            lastCache.getIfPresent("missing-" + i);
+        }
+
+        for (int i = 0; i < present; i++) {
+            lastCache.put("present-" + i, "value");
+            lastCache.getIfPresent("present-" + i);
+        }
+    }
+
+    @When("a cache manager {string} with cache {string} is registered")
+    public void aCacheManagerWithCacheIsRegistered(String cacheManagerName, String cacheName) {
+        var cacheManager = new CaffeineCacheManager(cacheName);
+        createdCaches.add(cacheManager);
+        CacheStatisticsRegistry.registerCacheManager(cacheManagerName, cacheManager);
+    }
+
+    @Then("statistics of registered cache {string} should show recording {booleanValue}")
+    public void statisticsOfRegisteredCacheShouldShowRecording(String cacheName, boolean recording) {
+        assertThat(findSnapshot(cacheName).recordingStats())
+                .as("recordingStats")
+                .isEqualTo(recording);
+    }
+
+    @Then("statistics of registered cache {string} should show {long} hits and {long} misses")
+    public void statisticsOfRegisteredCacheShouldShowHitsAndMisses(String cacheName, long hits, long misses) {
+        CacheStatisticsSnapshot snapshot = findSnapshot(cacheName);
+
+        assertThat(snapshot.hitCount())
+                .as("hitCount")
+                .isEqualTo(hits);
+        assertThat(snapshot.missCount())
+                .as("missCount")
+                .isEqualTo(misses);
+    }
+
+    @Then("registered cache names should include {string} and {string}")
+    public void registeredCacheNamesShouldIncludeAnd(String name1, String name2) {
+        assertThat(CacheStatisticsRegistry.snapshot())
+                .as("snapshot")
+                .containsKeys(name1, name2);
+    }
+
+    private static CacheStatisticsSnapshot findSnapshot(String cacheName) {
+        CacheStatisticsSnapshot snapshot = CacheStatisticsRegistry.snapshot().get(cacheName);
+
+        assertThat(snapshot)
+                .as("snapshot")
+                .isNotNull();
+
+        return snapshot;
+    }
+
+}
@@ -0,0 +1,112 @@
+package guru.nicks.commons.cucumber.cache;
+
+import guru.nicks.commons.cache.CompactCacheKeyGenerator;
+import guru.nicks.commons.cache.domain.CompactCacheKey;
+
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Step definitions for testing {@link CompactCacheKeyGenerator}.
+ */
+public class CompactCacheKeyGeneratorSteps {
+
+    private final CompactCacheKeyGenerator keyGenerator = new CompactCacheKeyGenerator();
+    private final Object opaqueObject = new Object();
+
+    private Object firstKey;
+    private Object secondKey;
+
+    @When("compact cache keys are generated for arguments {string} and {string}")
+    public void compactCacheKeysAreGeneratedForArguments(String first, String second) {
+        firstKey = keyGenerator.generate(this, null, createArguments(first));
+        secondKey = keyGenerator.generate(this, null, createArguments(second));
+    }
+
+    @When("a compact cache key is generated with no arguments")
+    public void aCompactCacheKeyIsGeneratedWithNoArguments() {
+        firstKey = keyGenerator.generate(this, null);
+    }
+
+    @Then("the compact cache keys should be equal: {booleanValue}")
+    public void theCompactCacheKeysShouldBeEqual(boolean equal) {
+        assertThat(firstKey)
+                .as("firstKey")
+                .isInstanceOf(CompactCacheKey.class);
+
+        if (equal) {
+            assertThat(firstKey)
+                    .as("firstKey")
+                    .isEqualTo(secondKey)
+                    .hasSameHashCodeAs(secondKey);
+        } else {
+            assertThat(firstKey)
+                    .as("firstKey")
+                    .isNotEqualTo(secondKey);
+        }
+    }
+
+    @Then("the compact cache key part should be a digest: {booleanValue}")
+    public void theCompactCacheKeyPartShouldBeADigest(boolean digest) {
+        // the digest is rendered as 64 hex digits
+        assertThat(firstKey.toString().matches("[0-9a-f]{64}"))
+                .as("digest")
+                .isEqualTo(digest);
+    }
+
+    @Then("the compact cache key should be the empty key")
+    public void theCompactCacheKeyShouldBeTheEmptyKey() {
+        assertThat(firstKey)
+                .as("firstKey")
+                .isSameAs(CompactCacheKey.EMPTY);
+    }
+
+    private Object[] createArguments(String name) {
+        return switch (name) {
+            case "strings" -> new Object[]{"a", "b"};
+            case "swapped strings" -> new Object[]{"b", "a"};
+            case "integer" -> new Object[]{1};
+            case "long" -> new Object[]{1L};
+            case "null" -> new Object[]{null};
+            case "empty string" -> new Object[]{""};
+            case "list" -> new Object[]{List.of("x", "y", "z")};
+            case "reversed list" -> new Object[]{List.of("z", "y", "x")};
+            case "list with integers" -> new Object[]{List.of(1, 2, 3)};
+            case "set" -> new Object[]{new LinkedHashSet<>(List.of("x", "y", "z"))};
+            case "reordered set" -> new Object[]{new LinkedHashSet<>(List.of("z", "x", "y"))};
+            case "larger set" -> new Object[]{new LinkedHashSet<>(List.of("x", "y", "z", "w"))};
+            case "map" -> new Object[]{orderedMap("k1", 1, "k2", 2)};
+            case "reordered map" -> new Object[]{orderedMap("k2", 2, "k1", 1)};
+            case "other map" -> new Object[]{orderedMap("k1", 2, "k2", 1)};
+            case "record" -> new Object[]{new Query("name", 10, List.of("tag"))};
+            case "other record" -> new Object[]{new Query("name", 11, List.of("tag"))};
+            case "int array" -> new Object[]{new int[]{1, 2, 3}};
+            case "nested structure" -> new Object[]{Map.of(
+                    "queries", List.of(new Query("q", 1, List.of()), new Query("r", 2, List.of("s"))),
+                    "ids", Set.of(1L, 2L),
+                    "optional", Optional.of("value"))};
+            case "opaque object" -> new Object[]{opaqueObject};
+            default -> throw new IllegalArgumentException("Unknown arguments: " + name);
+        };
+    }
+
+    private static Map<String, Integer> orderedMap(String key1, int value1, String key2, int value2) {
+        var map = new LinkedHashMap<String, Integer>();
+        map.put(key1, value1);
+        map.put(key2, value2);
+        return map;
+    }
+
+    private record Query(String name, int limit, List<String> tags) {
+    }
+
+}
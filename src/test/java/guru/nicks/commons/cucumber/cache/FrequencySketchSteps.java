@@ -0,0 +1,51 @@
+package guru.nicks.commons.cucumber.cache;
+
+import guru.nicks.commons.cache.FrequencySketch;
+
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Step definitions for testing {@link FrequencySketch}.
+ */
+public class FrequencySketchSteps {
+
+    private FrequencySketch sketch;
+
+    @Given("a frequency sketch for {long} keys")
+    public void aFrequencySketchForKeys(long expectedKeys) {
+        sketch = new FrequencySketch(expectedKeys);
+    }
+
+    @When("key {string} is counted {int} times in the frequency sketch")
+    public void keyIsCountedTimesInTheFrequencySketch(String key, int count) {
+        for (int i = 0; i < count; i++) {
+            sketch.increment(key);
+        }
+    }
+
+    @When("{int} distinct keys are counted once in the frequency sketch")
+    public void distinctKeysAreCountedOnceInTheFrequencySketch(int count) {
+        for (int i = 0; i < count; i++) {
+            sketch.increment("key-" + i);
+        }
+    }
+
+    @Then("frequency of key {string} should be {int}")
+    public void frequencyOfKeyShouldBe(String key, int frequency) {
+        assertThat(sketch.frequency(key))
+                .as("frequency")
+                .isEqualTo(frequency);
+    }
+
+    @Then("frequency of key {string} should be less than {int}")
+    public void frequencyOfKeyShouldBeLessThan(String key, int frequency) {
+        assertThat(sketch.frequency(key))
+                .as("frequency")
+                .isLessThan(frequency);
+    }
+
+}
@@ -0,0 +1,103 @@
+package guru.nicks.commons.cucumber.cache;
+
+import guru.nicks.commons.cache.MemoryBudget;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Step definitions for testing {@link MemoryBudget}.
+ */
+public class MemoryBudgetSteps {
+
+    private final List<CaffeineCacheManager> cacheManagers = new ArrayList<>();
+    private final AtomicInteger keyCounter = new AtomicInteger();
+
+    private MemoryBudget memoryBudget;
+
+    @Given("a memory budget of {long} bytes shared by {int} cache managers whose caches may weigh {long} bytes each")
+    public void aMemoryBudgetSharedByCacheManagers(long maxBytes, int cacheManagerCount, long maxBytesPerCache) {
+        memoryBudget = new MemoryBudget(maxBytes);
+
+        for (int i = 0; i < cacheManagerCount; i++) {
+            var cacheManager = new CaffeineCacheManager();
+            cacheManager.setCaffeine(Caffeine.newBuilder()
+                    .maximumWeight(maxBytesPerCache)
+                    .weigher((Object key, Object value) -> ((byte[]) value).length)
+                    // evict synchronously, so weights can be checked right away
+                    .executor(Runnable::run));
+
+            cacheManagers.add(cacheManager);
+            memoryBudget.register(cacheManager, maxBytesPerCache);
+        }
+    }
+
+    @When("{int} entries weighing {int} bytes each are put into cache {string} of each cache manager")
+    public void entriesArePutIntoCacheOfEachCacheManager(int count, int weight, String cacheName) {
+        for (CaffeineCacheManager cacheManager : cacheManagers) {
+            for (int i = 0; i < count; i++) {
+                cacheManager.getCache(cacheName).put("key-" + keyCounter.incrementAndGet(), new byte[weight]);
+            }
+        }
+    }
+
+    @When("the memory budget is rebalanced")
+    public void theMemoryBudgetIsRebalanced() {
+        memoryBudget.rebalance();
+    }
+
+    @When("the memory budget is rebalanced {int} times, with {int} more entries put into cache {string} each time")
+    public void theMemoryBudgetIsRebalancedTimesWithMoreEntriesPutIntoCache(int times, int count, String cacheName) {
+        for (int i = 0; i < times; i++) {
+            memoryBudget.rebalance();
+            entriesArePutIntoCacheOfEachCacheManager(count, 10, cacheName);
+        }
+    }
+
+    @Then("all caches together should weigh at most {long} bytes")
+    public void allCachesTogetherShouldWeighAtMostBytes(long maxBytes) {
+        long totalBytes = 0;
+
+        for (CaffeineCacheManager cacheManager : cacheManagers) {
+            for (String cacheName : cacheManager.getCacheNames()) {
+                totalBytes += weigh(cacheManager, cacheName);
+            }
+        }
+
+        assertThat(totalBytes)
+                .as("total weight")
+                .isLessThanOrEqualTo(maxBytes);
+    }
+
+    @Then("cache {string} should weigh more than cache {string}")
+    public void cacheShouldWeighMoreThanCache(String heavierCacheName, String lighterCacheName) {
+        CaffeineCacheManager cacheManager = cacheManagers.getFirst();
+
+        assertThat(weigh(cacheManager, heavierCacheName))
+                .as("weight of " + heavierCacheName)
+                .isGreaterThan(weigh(cacheManager, lighterCacheName));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long weigh(CaffeineCacheManager cacheManager, String cacheName) {
+        var cache = (Cache<Object, Object>) cacheManager.getCache(cacheName).getNativeCache();
+        cache.cleanUp();
+
+        return cache.policy()
+                .eviction()
+                .orElseThrow()
+                .weightedSize()
+                .orElseThrow();
+    }
+
+}
@@ -0,0 +1,202 @@
+package guru.nicks.commons.cucumber.cache;
+
+import guru.nicks.commons.cache.OffHeapCache;
+import guru.nicks.commons.cache.OffHeapCacheManager;
+import guru.nicks.commons.serializer.OneNioSerializer;
+
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Step definitions for testing {@link OffHeapCache}.
+ */
+public class OffHeapCacheSteps {
+
+    private final AtomicInteger loaderCalls = new AtomicInteger();
+    private final List<Throwable> callerFailures = new ArrayList<>();
+
+    private OffHeapCache cache;
+
+    @Given("an off-heap cache with budget {long} bytes and TTL {long} milliseconds")
+    public void anOffHeapCacheWithBudgetBytesAndTtlMilliseconds(long maxBytes, long ttlMillis) {
+        cache = new OffHeapCache("test", Duration.ofMillis(ttlMillis), maxBytes,
+                OffHeapCacheManager.DEFAULT_CHUNK_SIZE, new OneNioSerializer(), true);
+    }
+
+    @When("off-heap value of {int} characters is put under key {string}")
+    public void offHeapValueOfCharactersIsPutUnderKey(int length, String key) {
+        cache.put(key, StringUtils.repeat('x', length));
+    }
+
+    @When("off-heap null value is put under key {string}")
+    public void offHeapNullValueIsPutUnderKey(String key) {
+        cache.put(key, null);
+    }
+
+    @When("{int} off-heap values of {int} characters are put")
+    public void offHeapValuesOfCharactersArePut(int count, int length) {
+        for (int i = 0; i < count; i++) {
+            cache.put(String.valueOf(i), StringUtils.repeat('x', length));
+        }
+    }
+
+    @When("{int} off-heap null values are put")
+    public void offHeapNullValuesArePut(int count) {
+        for (int i = 0; i < count; i++) {
+            cache.put(String.valueOf(i), null);
+        }
+    }
+
+    @When("off-heap value of key {string} is retrieved with a loader")
+    public void offHeapValueOfKeyIsRetrievedWithALoader(String key) {
+        cache.get(key, () -> {
+            loaderCalls.incrementAndGet();
+            return "loaded-" + key;
+        });
+    }
+
+    @When("{int} callers concurrently retrieve off-heap value of key {string} with a loader throwing an error")
+    public void callersConcurrentlyRetrieveOffHeapValueWithALoaderThrowingAnError(int callerCount, String key)
+            throws InterruptedException {
+        var loaderStarted = new CountDownLatch(1);
+        var loaderReleased = new CompletableFuture<Void>();
+        List<Future<?>> futures = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            futures.add(executor.submit(() -> cache.get(key, () -> {
+                loaderStarted.countDown();
+                loaderReleased.join();
+                throw new StackOverflowError("Loader failed");
+            })));
+
+            assertThat(loaderStarted.await(5, TimeUnit.SECONDS))
+                    .as("loader started")
+                    .isTrue();
+
+            for (int i = 1; i < callerCount; i++) {
+                futures.add(executor.submit(() -> cache.get(key, () -> "not expected")));
+            }
+
+            // let the other callers join the load in flight
+            Thread.sleep(100);
+            loaderReleased.complete(null);
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get(5, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    callerFailures.add(e.getCause());
+                } catch (TimeoutException e) {
+                    callerFailures.add(e);
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
+    @When("off-heap cache is cleared")
+    public void offHeapCacheIsCleared() {
+        cache.clear();
+    }
+
+    @Then("off-heap cache should have value of {int} characters under key {string}")
+    public void offHeapCacheShouldHaveValueOfCharactersUnderKey(int length, String key) {
+        Cache.ValueWrapper valueWrapper = cache.get(key);
+
+        assertThat(valueWrapper)
+                .as("valueWrapper")
+                .isNotNull();
+        assertThat(valueWrapper.get())
+                .as("value")
+                .isEqualTo(StringUtils.repeat('x', length));
+    }
+
+    @Then("off-heap cache should have a cached null under key {string}")
+    public void offHeapCacheShouldHaveACachedNullUnderKey(String key) {
+        Cache.ValueWrapper valueWrapper = cache.get(key);
+
+        assertThat(valueWrapper)
+                .as("valueWrapper")
+                .isNotNull();
+        assertThat(valueWrapper.get())
+                .as("value")
+                .isNull();
+    }
+
+    @Then("off-heap cache should have no value under key {string}")
+    public void offHeapCacheShouldHaveNoValueUnderKey(String key) {
+        assertThat(cache.get(key))
+                .as("valueWrapper")
+                .isNull();
+    }
+
+    @Then("off-heap cache should occupy {long} bytes")
+    public void offHeapCacheShouldOccupyBytes(long bytes) {
+        cache.getNativeCache().cleanUp();
+
+        assertThat(cache.getUsedBytes())
+                .as("usedBytes")
+                .isEqualTo(bytes);
+    }
+
+    @Then("off-heap cache should occupy at most {long} bytes")
+    public void offHeapCacheShouldOccupyAtMostBytes(long bytes) {
+        cache.getNativeCache().cleanUp();
+
+        assertThat(cache.getUsedBytes())
+                .as("usedBytes")
+                .isLessThanOrEqualTo(bytes);
+    }
+
+    @Then("off-heap cache should have at least {int} entries")
+    public void offHeapCacheShouldHaveAtLeastEntries(int count) {
+        assertThat(cache.getNativeCache().estimatedSize())
+                .as("estimatedSize")
+                .isGreaterThanOrEqualTo(count);
+    }
+
+    @Then("both off-heap callers should have failed with the loader error")
+    public void bothOffHeapCallersShouldHaveFailedWithTheLoaderError() {
+        assertThat(callerFailures)
+                .as("callerFailures")
+                .hasSize(2)
+                .allSatisfy(failure -> assertThat(failure)
+                        .isInstanceOf(StackOverflowError.class)
+                        .hasMessage("Loader failed"));
+    }
+
+    @Then("off-heap cache should have at most {int} entries")
+    public void offHeapCacheShouldHaveAtMostEntries(int count) {
+        cache.getNativeCache().cleanUp();
+
+        assertThat(cache.getNativeCache().estimatedSize())
+                .as("estimatedSize")
+                .isLessThanOrEqualTo(count);
+    }
+
+    @Then("off-heap loader should have been called {int} times")
+    public void offHeapLoaderShouldHaveBeenCalledTimes(int times) {
+        assertThat(loaderCalls.get())
+                .as("loaderCalls")
+                .isEqualTo(times);
+    }
+
+}
@@ -0,0 +1,188 @@
+package guru.nicks.commons.cucumber.cache;
+
+import guru.nicks.commons.cache.RefreshAheadValue;
+import guru.nicks.commons.cache.domain.RefreshStatistics;
+import guru.nicks.commons.cucumber.world.TextWorld;
+
+import io.cucumber.java.After;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Step definitions for testing {@link RefreshAheadValue}.
+ */
+@RequiredArgsConstructor
+public class RefreshAheadValueSteps {
+
+    // DI
+    private final TextWorld textWorld;
+
+    private final AtomicInteger loaderCalls = new AtomicInteger();
+    private final List<CompletableFuture<TestValue>> refreshFutures = new ArrayList<>();
+
+    private volatile CountDownLatch loaderLatch;
+
+    private RefreshAheadValue<TestValue> refreshAheadValue;
+    private TestValue retrievedValue;
+
+    @After
+    public void afterEachScenario() {
+        if (loaderLatch != null) {
+            loaderLatch.countDown();
+        }
+
+        if (refreshAheadValue != null) {
+            refreshAheadValue.close();
+        }
+    }
+
+    @Given("a refresh-ahead value whose loader produces values expiring in {int} seconds")
+    public void aRefreshAheadValueWhoseLoaderProducesValuesExpiringInSeconds(int ttlSeconds) {
+        refreshAheadValue = new RefreshAheadValue<>("test", () -> {
+            awaitLoaderLatch();
+            int call = loaderCalls.incrementAndGet();
+            return new TestValue("value-" + call, Instant.now().plusSeconds(ttlSeconds));
+        }, TestValue::expirationDate);
+    }
+
+    @Given("a refresh-ahead value whose loader fails")
+    public void aRefreshAheadValueWhoseLoaderFails() {
+        refreshAheadValue = new RefreshAheadValue<>("test", () -> {
+            loaderCalls.incrementAndGet();
+            throw new IllegalStateException("Source is down");
+        }, TestValue::expirationDate);
+    }
+
+    @Given("a refresh-ahead value whose loader throws an error on the first call")
+    public void aRefreshAheadValueWhoseLoaderThrowsAnErrorOnTheFirstCall() {
+        refreshAheadValue = new RefreshAheadValue<>("test", () -> {
+            int call = loaderCalls.incrementAndGet();
+
+            if (call == 1) {
+                throw new StackOverflowError("Serializer recursion");
+            }
+
+            return new TestValue("value-" + call, Instant.now().plusSeconds(3600));
+        }, TestValue::expirationDate);
+    }
+
+    @Given("a refresh-ahead value whose expiration date getter fails")
+    public void aRefreshAheadValueWhoseExpirationDateGetterFails() {
+        refreshAheadValue = new RefreshAheadValue<>("test", () -> {
+            int call = loaderCalls.incrementAndGet();
+            return new TestValue("value-" + call, Instant.now().plusSeconds(3600));
+        }, value -> {
+            throw new IllegalStateException("Expiration date is unknown");
+        });
+    }
+
+    @Given("the refresh-ahead loader is blocked")
+    public void theRefreshAheadLoaderIsBlocked() {
+        loaderLatch = new CountDownLatch(1);
+    }
+
+    @When("the refresh-ahead loader is released")
+    public void theRefreshAheadLoaderIsReleased() {
+        loaderLatch.countDown();
+        refreshFutures.forEach(CompletableFuture::join);
+    }
+
+    @When("the refresh-ahead value is retrieved {int} times")
+    public void theRefreshAheadValueIsRetrievedTimes(int times) {
+        textWorld.setLastException(catchThrowable(() -> {
+            for (int i = 0; i < times; i++) {
+                retrievedValue = refreshAheadValue.get();
+            }
+        }));
+    }
+
+    @When("a refresh is requested")
+    public void aRefreshIsRequested() {
+        refreshFutures.add(refreshAheadValue.createCacheRefreshFuture());
+    }
+
+    @When("{int} refreshes are requested concurrently")
+    public void refreshesAreRequestedConcurrently(int count) {
+        List<CompletableFuture<CompletableFuture<TestValue>>> requests = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            requests.add(CompletableFuture.supplyAsync(refreshAheadValue::createCacheRefreshFuture));
+        }
+
+        requests.forEach(request -> refreshFutures.add(request.join()));
+    }
+
+    @Then("all refresh futures should be the same instance")
+    public void allRefreshFuturesShouldBeTheSameInstance() {
+        assertThat(refreshFutures)
+                .as("refreshFutures")
+                .isNotEmpty()
+                .allSatisfy(future -> assertThat(future).isSameAs(refreshFutures.getFirst()));
+    }
+
+    @Then("the retrieved refresh-ahead value should be {string}")
+    public void theRetrievedRefreshAheadValueShouldBe(String expected) {
+        assertThat(retrievedValue.value())
+                .as("value")
+                .isEqualTo(expected);
+    }
+
+    @Then("the refresh-ahead loader should have been called {int} times")
+    public void theRefreshAheadLoaderShouldHaveBeenCalledTimes(int times) {
+        assertThat(loaderCalls.get())
+                .as("loaderCalls")
+                .isEqualTo(times);
+    }
+
+    @Then("the refresh-ahead loader should have been called at least {int} times")
+    public void theRefreshAheadLoaderShouldHaveBeenCalledAtLeastTimes(int times) {
+        assertThat(loaderCalls.get())
+                .as("loaderCalls")
+                .isGreaterThanOrEqualTo(times);
+    }
+
+    @Then("the refresh-ahead statistics should report {int} refreshes and {int} failures")
+    public void theRefreshAheadStatisticsShouldReportRefreshesAndFailures(int refreshes, int failures) {
+        RefreshStatistics statistics = refreshAheadValue.getStatistics();
+
+        assertThat(statistics.refreshCount())
+                .as("refreshCount")
+                .isEqualTo(refreshes);
+        assertThat(statistics.failureCount())
+                .as("failureCount")
+                .isEqualTo(failures);
+    }
+
+    private void awaitLoaderLatch() {
+        CountDownLatch latch = loaderLatch;
+        if (latch == null) {
+            return;
+        }
+
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Loader latch timed out");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record TestValue(String value, Instant expirationDate) {
+    }
+
+}
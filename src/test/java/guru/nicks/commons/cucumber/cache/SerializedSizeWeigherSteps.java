@@ -0,0 +1,66 @@
+package guru.nicks.commons.cucumber.cache;
+
+import guru.nicks.commons.cache.SerializedSizeWeigher;
+import guru.nicks.commons.serializer.OneNioSerializer;
+
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Step definitions for testing {@link SerializedSizeWeigher}.
+ */
+public class SerializedSizeWeigherSteps {
+
+    private final List<Integer> weights = new ArrayList<>();
+
+    private SerializedSizeWeigher weigher;
+
+    @Given("a serialized size weigher")
+    public void aSerializedSizeWeigher() {
+        weigher = new SerializedSizeWeigher(new OneNioSerializer());
+    }
+
+    @When("a string of {int} characters is weighed")
+    public void aStringOfCharactersIsWeighed(int length) {
+        weights.add(weigher.weigh("key", "x".repeat(length)));
+    }
+
+    @When("a non-serializable value is weighed")
+    public void aNonSerializableValueIsWeighed() {
+        weights.add(weigher.weigh("key", new NotSerializable()));
+    }
+
+    @Then("the second weight should exceed the first one by at least {int}")
+    public void theSecondWeightShouldExceedTheFirstOneByAtLeast(int delta) {
+        assertThat(weights.get(1) - weights.get(0))
+                .as("weight difference")
+                .isGreaterThanOrEqualTo(delta);
+    }
+
+    @Then("the last weight should be at least {int}")
+    public void theLastWeightShouldBeAtLeast(int weight) {
+        assertThat(weights.getLast())
+                .as("weight")
+                .isGreaterThanOrEqualTo(weight);
+    }
+
+    @Then("the last weight should be {int}")
+    public void theLastWeightShouldBe(int weight) {
+        assertThat(weights.getLast())
+                .as("weight")
+                .isEqualTo(weight);
+    }
+
+    /**
+     * OneNio only serializes {@link java.io.Serializable} classes.
+     */
+    private static class NotSerializable {
+    }
+
+}
@@ -0,0 +1,195 @@
+package guru.nicks.commons.cucumber.cache;
+
+import guru.nicks.commons.cache.FileL2CacheStore;
+import guru.nicks.commons.cache.L2CacheStore;
+import guru.nicks.commons.cache.TwoTierCacheManager;
+import guru.nicks.commons.serializer.OneNioSerializer;
+import guru.nicks.commons.utils.InMemoryCacheUtils;
+
+import io.cucumber.java.After;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Step definitions for testing {@link TwoTierCacheManager}.
+ */
+public class TwoTierCacheManagerSteps {
+
+    private final AtomicInteger loaderCalls = new AtomicInteger();
+
+    private Path directory;
+    private boolean compress;
+
+    private L2CacheStore l2Store;
+    private CacheManager cacheManager;
+    private String retrievedValue;
+
+    @After
+    public void afterEachScenario() throws IOException {
+        if (directory != null) {
+            FileUtils.deleteDirectory(directory.toFile());
+        }
+    }
+
+    @Given("a two-tier cache manager with compression {booleanValue}")
+    public void aTwoTierCacheManagerWithCompression(boolean compress) throws IOException {
+        directory = Files.createTempDirectory("l2-cache");
+        this.compress = compress;
+        createCacheManager();
+    }
+
+    @Given("a file L2 store")
+    public void aFileL2Store() throws IOException {
+        directory = Files.createTempDirectory("l2-cache");
+        l2Store = new FileL2CacheStore(directory);
+    }
+
+    @Given("a file L2 store limited to {long} bytes")
+    public void aFileL2StoreLimitedToBytes(long maxTotalBytes) throws IOException {
+        directory = Files.createTempDirectory("l2-cache");
+        l2Store = new FileL2CacheStore(directory, maxTotalBytes, FileL2CacheStore.DEFAULT_SWEEP_INTERVAL);
+    }
+
+    @When("the two-tier cache manager is restarted")
+    public void theTwoTierCacheManagerIsRestarted() {
+        createCacheManager();
+    }
+
+    @When("value {string} is put into cache {string} under key {string}")
+    public void valueIsPutIntoCacheUnderKey(String value, String cacheName, String key) {
+        getCache(cacheName).put(key, value);
+    }
+
+    @When("value {string} is put into cache {string} under a simple key of {string}")
+    public void valueIsPutIntoCacheUnderASimpleKeyOf(String value, String cacheName, String keyPart) {
+        getCache(cacheName).put(new SimpleKey(keyPart), value);
+    }
+
+    @When("value {string} is put into cache {string} under a simple key of {string} and {string}")
+    public void valueIsPutIntoCacheUnderASimpleKeyOfAnd(String value, String cacheName, String keyPart1,
+            String keyPart2) {
+        getCache(cacheName).put(new SimpleKey(keyPart1, keyPart2), value);
+    }
+
+    @When("value of key {string} is retrieved from cache {string} with a loader")
+    public void valueOfKeyIsRetrievedFromCacheWithALoader(String key, String cacheName) {
+        retrievedValue = getCache(cacheName).get(key, () -> {
+            loaderCalls.incrementAndGet();
+            return "loaded-" + key;
+        });
+    }
+
+    @When("cache {string} is cleared")
+    public void cacheIsCleared(String cacheName) {
+        getCache(cacheName).clear();
+    }
+
+    @When("key {string} is evicted from cache {string}")
+    public void keyIsEvictedFromCache(String key, String cacheName) {
+        getCache(cacheName).evict(key);
+    }
+
+    @When("value {string} is stored in L2 under key {string} for {int} milliseconds")
+    public void valueIsStoredInL2UnderKeyForMilliseconds(String value, String key, int millis) {
+        l2Store.put(key, value.getBytes(StandardCharsets.UTF_8), Duration.ofMillis(millis));
+    }
+
+    @When("{int} values of {int} bytes are stored in L2")
+    public void valuesOfBytesAreStoredInL2(int count, int size) {
+        for (int i = 0; i < count; i++) {
+            l2Store.put("key-" + i, new byte[size], Duration.ofHours(1));
+        }
+    }
+
+    @When("the L2 store is swept")
+    public void theL2StoreIsSwept() {
+        ((FileL2CacheStore) l2Store).sweep();
+    }
+
+    @Then("L2 files should take at most {long} bytes")
+    public void l2FilesShouldTakeAtMostBytes(long maxTotalBytes) {
+        assertThat(FileUtils.sizeOfDirectory(directory.toFile()))
+                .as("L2 files size")
+                .isLessThanOrEqualTo(maxTotalBytes);
+    }
+
+    @Then("the retrieved two-tier value should be {string}")
+    public void theRetrievedTwoTierValueShouldBe(String expected) {
+        assertThat(retrievedValue)
+                .as("retrievedValue")
+                .isEqualTo(expected);
+    }
+
+    @Then("the two-tier loader should have been called {int} times")
+    public void theTwoTierLoaderShouldHaveBeenCalledTimes(int times) {
+        assertThat(loaderCalls.get())
+                .as("loaderCalls")
+                .isEqualTo(times);
+    }
+
+    @Then("cache {string} should have no value under key {string}")
+    public void cacheShouldHaveNoValueUnderKey(String cacheName, String key) {
+        assertThat(getCache(cacheName).get(key))
+                .as("cached value")
+                .isNull();
+    }
+
+    @Then("cache {string} should have value {string} under key {string}")
+    public void cacheShouldHaveValueUnderKey(String cacheName, String value, String key) {
+        assertThat(getCache(cacheName).get(key, String.class))
+                .as("cached value")
+                .isEqualTo(value);
+    }
+
+    @Then("cache {string} should have value {string} under a simple key of {string}")
+    public void cacheShouldHaveValueUnderASimpleKeyOf(String cacheName, String value, String keyPart) {
+        assertThat(getCache(cacheName).get(new SimpleKey(keyPart), String.class))
+                .as("cached value")
+                .isEqualTo(value);
+    }
+
+    @Then("cache {string} should have value {string} under a simple key of {string} and {string}")
+    public void cacheShouldHaveValueUnderASimpleKeyOfAnd(String cacheName, String value, String keyPart1,
+            String keyPart2) {
+        assertThat(getCache(cacheName).get(new SimpleKey(keyPart1, keyPart2), String.class))
+                .as("cached value")
+                .isEqualTo(value);
+    }
+
+    @Then("L2 store should have no value under key {string}")
+    public void l2StoreShouldHaveNoValueUnderKey(String key) {
+        assertThat(l2Store.get(key))
+                .as("L2 value")
+                .isNull();
+    }
+
+    private void createCacheManager() {
+        l2Store = new FileL2CacheStore(directory);
+        cacheManager = InMemoryCacheUtils.createTwoTierCacheManager(Duration.ofMinutes(5), 100, l2Store,
+                new OneNioSerializer(), compress);
+    }
+
+    private Cache getCache(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+
+        assertThat(cache)
+                .as("cache")
+                .isNotNull();
+        return cache;
+    }
+
+}
@@ -0,0 +1,201 @@
+package guru.nicks.commons.cucumber.cache;
+
+import guru.nicks.commons.cache.XFetchCacheManager;
+import guru.nicks.commons.cache.XFetchExpiry;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Step definitions for testing {@link XFetchExpiry} and {@link XFetchCacheManager}.
+ */
+public class XFetchExpirySteps {
+
+    private static final String CACHE_NAME = "test";
+
+    private XFetchExpiry<Object, Object> expiry;
+    private XFetchCacheManager cacheManager;
+    private double earlyRefreshShare;
+    private int misses;
+
+    @Given("an XFetch expiry with TTL of {int} minutes and beta {double}")
+    public void anXFetchExpiryWithTtlOfMinutesAndBeta(int minutes, double beta) {
+        expiry = XFetchExpiry.ofTimeToLive(Duration.ofMinutes(minutes), beta);
+    }
+
+    @Given("XFetch recompute time of {int} milliseconds is recorded")
+    public void xFetchRecomputeTimeOfMillisecondsIsRecorded(int millis) {
+        expiry.recordRecomputeTime(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Given("an XFetch cache manager with TTL of {int} minutes")
+    public void anXFetchCacheManagerWithTtlOfMinutes(int minutes) {
+        cacheManager = new XFetchCacheManager(
+                () -> Caffeine.newBuilder().maximumSize(100),
+                () -> XFetchExpiry.ofTimeToLive(Duration.ofMinutes(minutes), XFetchExpiry.DEFAULT_BETA),
+                XFetchExpiry.DEFAULT_BETA);
+    }
+
+    @Given("an XFetch cache manager with TTL of {int} minutes in async mode")
+    public void anXFetchCacheManagerWithTtlOfMinutesInAsyncMode(int minutes) {
+        anXFetchCacheManagerWithTtlOfMinutes(minutes);
+        cacheManager.setAsyncCacheMode(true);
+    }
+
+    @Given("XFetch recompute time of {int} seconds is recorded by the cache manager")
+    public void xFetchRecomputeTimeOfSecondsIsRecordedByTheCacheManager(int seconds) {
+        // creates the cache along with its expiry
+        getCache();
+        cacheManager.getExpiry(CACHE_NAME).recordRecomputeTime(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    @When("early refresh is checked {int} times with {long} milliseconds left")
+    public void earlyRefreshIsCheckedTimesWithMillisecondsLeft(int times, long millisLeft) {
+        int earlyRefreshes = 0;
+
+        for (int i = 0; i < times; i++) {
+            if (expiry.shouldRefreshEarly(TimeUnit.MILLISECONDS.toNanos(millisLeft))) {
+                earlyRefreshes++;
+            }
+        }
+
+        earlyRefreshShare = (double) earlyRefreshes / times;
+    }
+
+    @When("XFetch cache key {string} is computed in {int} milliseconds by the cache loader")
+    public void xFetchCacheKeyIsComputedInMillisecondsByTheCacheLoader(String key, int millis) {
+        getCache().get(key, () -> {
+            Thread.sleep(millis);
+            return "value";
+        });
+    }
+
+    @When("XFetch cache key {string} is computed in {int} milliseconds between miss and put")
+    public void xFetchCacheKeyIsComputedInMillisecondsBetweenMissAndPut(String key, int millis)
+            throws InterruptedException {
+        Cache cache = getCache();
+        // this is what Spring does for @Cacheable(sync = false)
+        assertThat(cache.get(key))
+                .as("cached value")
+                .isNull();
+
+        Thread.sleep(millis);
+        cache.put(key, "value");
+    }
+
+    @When("XFetch cache key {string} is computed in {int} milliseconds by the async cache loader")
+    public void xFetchCacheKeyIsComputedInMillisecondsByTheAsyncCacheLoader(String key, int millis) {
+        getCache().retrieve(key, () -> CompletableFuture.supplyAsync(() -> {
+            sleep(millis);
+            return "value";
+        })).join();
+    }
+
+    @When("XFetch cache key {string} is computed in {int} milliseconds between async miss and put")
+    public void xFetchCacheKeyIsComputedInMillisecondsBetweenAsyncMissAndPut(String key, int millis) {
+        Cache cache = getCache();
+        // this is what Spring does for @Cacheable(sync = false) methods returning CompletableFuture
+        assertThat(cache.retrieve(key))
+                .as("cached value")
+                .isNull();
+
+        sleep(millis);
+        cache.put(key, "value");
+    }
+
+    @When("XFetch cache key {string} is computed in {int} milliseconds between async miss and put elsewhere")
+    public void xFetchCacheKeyIsComputedInMillisecondsBetweenAsyncMissAndPutElsewhere(String key, int millis) {
+        Cache cache = getCache();
+        assertThat(cache.retrieve(key))
+                .as("cached value")
+                .isNull();
+
+        // Spring puts the result in the thread completing the future
+        CompletableFuture
+                .runAsync(() -> {
+                    sleep(millis);
+                    cache.put(key, "value");
+                })
+                .join();
+    }
+
+    @When("XFetch cache key {string} is looked up {int} times without putting a value")
+    public void xFetchCacheKeyIsLookedUpTimesWithoutPuttingAValue(String key, int times) {
+        Cache cache = getCache();
+        misses = 0;
+
+        for (int i = 0; i < times; i++) {
+            Cache.ValueWrapper valueWrapper = cache.get(key);
+
+            if (valueWrapper == null) {
+                misses++;
+            } else {
+                assertThat(valueWrapper.get())
+                        .as("cached value")
+                        .isEqualTo("value");
+            }
+        }
+    }
+
+    @When("XFetch cache key {string} is retrieved {int} times without putting a value")
+    public void xFetchCacheKeyIsRetrievedTimesWithoutPuttingAValue(String key, int times) {
+        Cache cache = getCache();
+        misses = 0;
+
+        for (int i = 0; i < times; i++) {
+            CompletableFuture<?> future = cache.retrieve(key);
+
+            if (future == null) {
+                misses++;
+            } else {
+                assertThat(future.join())
+                        .as("cached value")
+                        .isEqualTo("value");
+            }
+        }
+    }
+
+    @Then("the share of early refreshes should be between {double} and {double}")
+    public void theShareOfEarlyRefreshesShouldBeBetween(double min, double max) {
+        assertThat(earlyRefreshShare)
+                .as("earlyRefreshShare")
+                .isBetween(min, max);
+    }
+
+    @Then("XFetch recompute time should be at least {int} milliseconds")
+    public void xFetchRecomputeTimeShouldBeAtLeastMilliseconds(int millis) {
+        assertThat(cacheManager.getExpiry(CACHE_NAME).getAverageRecomputeTime())
+                .as("averageRecomputeTime")
+                .isGreaterThanOrEqualTo(Duration.ofMillis(millis));
+    }
+
+    @Then("exactly {int} XFetch lookup(s) should be a miss")
+    public void exactlyXFetchLookupsShouldBeAMiss(int expected) {
+        assertThat(misses)
+                .as("misses")
+                .isEqualTo(expected);
+    }
+
+    private Cache getCache() {
+        return cacheManager.getCache(CACHE_NAME);
+    }
+
+    private static void sleep(int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
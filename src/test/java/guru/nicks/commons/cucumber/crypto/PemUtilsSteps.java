@@ -26,7 +26,9 @@ public class PemUtilsSteps {
     private String pemString;
     private String fixedPem;
     private PrivateKey privateKey;
+    private PrivateKey anotherPrivateKey;
     private PublicKey publicKey;
+    private PublicKey anotherPublicKey;
 
     @Given("a PEM string {string}")
     public void aPemString(String pem) {
@@ -96,6 +98,26 @@ public class PemUtilsSteps {
         textWorld.setLastException(thrown);
     }
 
+    @When("the public key is parsed twice")
+    public void thePublicKeyIsParsedTwice() {
+        Throwable thrown = catchThrowable(() -> {
+            publicKey = PemUtils.parsePublicKey(pemString);
+            anotherPublicKey = PemUtils.parsePublicKey(pemString);
+        });
+
+        textWorld.setLastException(thrown);
+    }
+
+    @When("the private key is retrieved from the key pair twice")
+    public void thePrivateKeyIsRetrievedFromTheKeyPairTwice() {
+        Throwable thrown = catchThrowable(() -> {
+            privateKey = PemUtils.retrievePrivateKeyFromKeyPair(pemString);
+            anotherPrivateKey = PemUtils.retrievePrivateKeyFromKeyPair(pemString);
+        });
+
+        textWorld.setLastException(thrown);
+    }
+
     @Then("the fixed PEM should be {string}")
     public void theFixedPemShouldBe(String expected) {
         assertThat(fixedPem)
@@ -124,4 +146,23 @@ public class PemUtilsSteps {
                 .as("publicKey.algorithm")
                 .isEqualTo("RSA");
     }
+
+    @Then("both parsed public keys should be the same instance")
+    public void bothParsedPublicKeysShouldBeTheSameInstance() {
+        aPublicKeyShouldBeReturned();
+
+        assertThat(anotherPublicKey)
+                .as("anotherPublicKey")
+                .isSameAs(publicKey);
+    }
+
+    @Then("both retrieved private keys should be the same instance")
+    public void bothRetrievedPrivateKeysShouldBeTheSameInstance() {
+        aPrivateKeyShouldBeReturned();
+
+        assertThat(anotherPrivateKey)
+                .as("anotherPrivateKey")
+                .isSameAs(privateKey);
+    }
+
 }
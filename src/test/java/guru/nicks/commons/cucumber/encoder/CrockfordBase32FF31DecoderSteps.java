@@ -0,0 +1,135 @@
+package guru.nicks.commons.cucumber.encoder;
+
+import guru.nicks.commons.cucumber.world.TextWorld;
+import guru.nicks.commons.encoder.CrockfordBase32FF31Decoder;
+import guru.nicks.commons.encoder.CrockfordBase32FF31Supplier;
+
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Step definitions for testing {@link CrockfordBase32FF31Decoder}.
+ */
+@RequiredArgsConstructor
+public class CrockfordBase32FF31DecoderSteps {
+
+    // DI
+    private final TextWorld textWorld;
+
+    private final List<String> generatedIds = new ArrayList<>();
+    private final List<Long> decodedNumbers = new ArrayList<>();
+
+    private CrockfordBase32FF31Supplier supplier;
+    private CrockfordBase32FF31Decoder decoder;
+    private Map<String, Long> bulkDecoded;
+
+    @Given("a Crockford Base32 FF3-1 supplier with sequence starting at {long}")
+    public void aCrockfordBase32FF31SupplierWithSequenceStartingAt(long firstSequenceNumber) {
+        var sequence = new AtomicLong(firstSequenceNumber);
+        supplier = new TestSupplier(sequence::getAndIncrement);
+    }
+
+    @When("a decoder caching up to {int} IDs is created from the supplier")
+    public void aDecoderCachingUpToIdsIsCreatedFromTheSupplier(int maxCachedIds) {
+        textWorld.setLastException(catchThrowable(() ->
+                decoder = supplier.createDecoder(maxCachedIds)));
+    }
+
+    @When("{int} IDs are generated by the supplier")
+    public void idsAreGeneratedByTheSupplier(int count) {
+        for (int i = 0; i < count; i++) {
+            generatedIds.add(supplier.get());
+        }
+    }
+
+    @When("each generated ID is decoded twice")
+    public void eachGeneratedIdIsDecodedTwice() {
+        textWorld.setLastException(catchThrowable(() -> {
+            for (String id : generatedIds) {
+                decodedNumbers.add(decoder.decode(id));
+            }
+
+            for (String id : generatedIds) {
+                assertThat(decoder.decode(id))
+                        .as("second decoding of '%s'", id)
+                        .isEqualTo(decodedNumbers.get(generatedIds.indexOf(id)));
+            }
+        }));
+    }
+
+    @When("all generated IDs are decoded in bulk, duplicates included")
+    public void allGeneratedIdsAreDecodedInBulkDuplicatesIncluded() {
+        var ids = new ArrayList<>(generatedIds);
+        ids.add(generatedIds.getFirst());
+
+        textWorld.setLastException(catchThrowable(() ->
+                bulkDecoded = decoder.decodeAll(ids)));
+    }
+
+    @When("the ID {string} is decoded")
+    public void theIdIsDecoded(String id) {
+        textWorld.setLastException(catchThrowable(() ->
+                decoder.decode(id)));
+    }
+
+    @Then("decoded sequence numbers should start at {long}")
+    public void decodedSequenceNumbersShouldStartAt(long firstSequenceNumber) {
+        assertThat(decodedNumbers)
+                .as("decodedNumbers")
+                .containsExactlyElementsOf(expectedNumbers(firstSequenceNumber));
+    }
+
+    @Then("bulk-decoded sequence numbers should start at {long} and keep the input order")
+    public void bulkDecodedSequenceNumbersShouldStartAtAndKeepTheInputOrder(long firstSequenceNumber) {
+        assertThat(bulkDecoded.keySet())
+                .as("bulkDecoded keys")
+                .containsExactlyElementsOf(generatedIds);
+
+        assertThat(bulkDecoded.values())
+                .as("bulkDecoded values")
+                .containsExactlyElementsOf(expectedNumbers(firstSequenceNumber));
+    }
+
+    @Then("the decoder cache should report {long} hits and {long} misses")
+    public void theDecoderCacheShouldReportHitsAndMisses(long hits, long misses) {
+        var stats = decoder.getCacheStats();
+
+        assertThat(stats.hitCount())
+                .as("hitCount")
+                .isEqualTo(hits);
+
+        assertThat(stats.missCount())
+                .as("missCount")
+                .isEqualTo(misses);
+    }
+
+    private List<Long> expectedNumbers(long firstSequenceNumber) {
+        return LongStream.range(firstSequenceNumber, firstSequenceNumber + generatedIds.size())
+                .boxed()
+                .toList();
+    }
+
+    private static class TestSupplier extends CrockfordBase32FF31Supplier {
+
+        TestSupplier(LongSupplier nextValueSupplier) {
+            super(nextValueSupplier, 6,
+                    "secretkey16bytes".getBytes(StandardCharsets.UTF_8),
+                    "7bytes!".getBytes(StandardCharsets.UTF_8));
+        }
+
+    }
+
+}
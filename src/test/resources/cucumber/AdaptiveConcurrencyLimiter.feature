@@ -0,0 +1,43 @@
+@utils #@disabled
+Feature: Adaptive concurrency limiter
+
+  Scenario: AIMD grows the limit while it's in use and the calls succeed
+    Given adaptive concurrency limiter AIMD with initial limit 10 and max. limit 100
+    When permits are acquired up to the limit, held for 0 milliseconds, and then succeed
+    Then the adaptive concurrency limit should be greater than 10
+
+  Scenario: AIMD shrinks the limit when the calls are dropped
+    Given adaptive concurrency limiter AIMD with initial limit 10 and max. limit 100
+    When permits are acquired up to the limit, held for 0 milliseconds, and then dropped
+    Then the adaptive concurrency limit should be less than 10
+
+  Scenario: Ignored calls don't change the limit
+    Given adaptive concurrency limiter AIMD with initial limit 10 and max. limit 100
+    When permits are acquired up to the limit, held for 0 milliseconds, and then ignored
+    Then the adaptive concurrency limit should be 10
+    And the adaptive concurrency limiter should have 0 calls in flight
+
+  Scenario: Vegas grows the limit while latency is stable and shrinks it when latency grows
+    Given adaptive concurrency limiter VEGAS with initial limit 10 and max. limit 100
+    When permits are acquired up to the limit, held for 20 milliseconds, and then succeed
+    Then the adaptive concurrency limit should be greater than 10
+    When permits are acquired up to the limit, held for 200 milliseconds, and then succeed
+    Then the adaptive concurrency limit should have decreased
+
+  Scenario: No permit is available beyond the limit
+    Given adaptive concurrency limiter AIMD with initial limit 2 and max. limit 100
+    When permits are acquired up to the limit
+    Then one more permit should not be available
+
+  Scenario: Guarded call failure counts as a drop
+    Given adaptive concurrency limiter AIMD with initial limit 10 and max. limit 100
+    When a failing call is guarded by the adaptive concurrency limiter
+    Then an exception should be thrown
+    And the adaptive concurrency limit should be less than 10
+
+  Scenario: Guarded call failure caused by interruption doesn't change the limit
+    Given adaptive concurrency limiter AIMD with initial limit 10 and max. limit 100
+    When an interrupted call is guarded by the adaptive concurrency limiter
+    Then an exception should be thrown
+    And the adaptive concurrency limit should be 10
+    And the adaptive concurrency limiter should have 0 calls in flight
@@ -0,0 +1,50 @@
+@utils #@disabled
+Feature: Duration statistics
+
+  Scenario Outline: Statistics are formatted
+    Given duration statistics for 10 keys retained for 1 hour with sliding windows <slidingWindows>
+    When durations 2, 4, and 6 milliseconds are accumulated for key "GET /"
+    Then the last duration statistics message should contain "4ms average (p50 4ms"
+    And the last duration statistics message should contain "max 6ms"
+    And the last duration statistics message should contain "last 1/5/15 minutes: 4/4/4ms average": <slidingWindows>
+    Examples:
+      | slidingWindows |
+      | true           |
+      | false          |
+
+  Scenario: Accumulator is not created by lookups
+    Given duration statistics for 10 keys retained for 1 hour with sliding windows false
+    Then duration statistics for key "GET /missing" should be absent
+
+  Scenario: Recording without formatting, then taking a snapshot
+    Given duration statistics for 10 keys retained for 1 hour with sliding windows false
+    When durations 2, 4, and 6 milliseconds are recorded for key "GET /" via a recorder
+    And durations 2, 4, and 6 milliseconds are recorded for key "GET /" without formatting
+    Then duration statistics snapshot for key "GET /" should have 6 calls, 24 total milliseconds, and max. 6
+    And formatted duration statistics for key "GET /" should contain "4ms average"
+
+  Scenario: Kept recorder starts a new accumulator once the retention period passes
+    Given duration statistics for 10 keys retained for 100 milliseconds
+    When a duration statistics recorder is kept for key "GET /"
+    And the kept duration statistics recorder records 100 durations of 5 milliseconds
+    And 200 milliseconds pass
+    And the kept duration statistics recorder records 32 durations of 5 milliseconds
+    Then duration statistics snapshot for key "GET /" should have between 1 and 32 calls
+
+  Scenario: Keys are normalized to URI templates, and the most frequent ones are tracked
+    Given duration statistics for 10 keys retained for 1 hour normalizing URIs and tracking 5 heavy hitters
+    When durations 2, 4, and 6 milliseconds are recorded for key "GET /users/1" without formatting
+    And a duration statistics recorder is kept for key "GET /users/2?details=true"
+    And the kept duration statistics recorder records 32 durations of 5 milliseconds
+    And durations 2, 4, and 6 milliseconds are accumulated for key "GET /about"
+    Then duration statistics snapshot for key "GET /users/{number}" should have 35 calls, 172 total milliseconds, and max. 6
+    And duration statistics snapshot for key "GET /users/3" should have 35 calls, 172 total milliseconds, and max. 6
+    And duration statistics heavy hitters should be "GET /users/{number}=35,GET /about=3"
+
+  Scenario: Recorder offers its calls to heavy hitters in batches
+    Given duration statistics for 10 keys retained for 1 hour normalizing URIs and tracking 5 heavy hitters
+    When durations 2, 4, and 6 milliseconds are accumulated for key "GET /about"
+    And a duration statistics recorder is kept for key "GET /users/1"
+    And the kept duration statistics recorder records 20 durations of 5 milliseconds
+    Then duration statistics snapshot for key "GET /users/{number}" should have 20 calls, 100 total milliseconds, and max. 5
+    And duration statistics heavy hitters should be "GET /users/{number}=16,GET /about=3"
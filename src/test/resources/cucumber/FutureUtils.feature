@@ -48,3 +48,72 @@ Feature: Parallel execution of tasks using FutureUtils
     When the runnable is executed in parallel
     Then the runnable should have access to the MDC context
     And no exception should be thrown
+
+  Scenario Outline: Structured execution of tasks some of which fail
+    Given 3 suppliers that fail after 50 milliseconds and 3 suppliers that sleep for 5 seconds
+    When the suppliers are executed in parallel with policy <policy> and timeout of 10 seconds
+    Then an exception should be thrown
+    And the exception should have <suppressed> suppressed exceptions
+    And the suppliers should have taken less than <maxSeconds> seconds
+    Examples:
+      | policy             | suppressed | maxSeconds |
+      | FAIL_FAST          | 0          | 2          |
+      | COLLECT_ALL_ERRORS | 2          | 10         |
+
+  Scenario: Structured execution of tasks times out
+    Given 3 suppliers that fail after 50 milliseconds and 3 suppliers that sleep for 5 seconds
+    When the suppliers are executed in parallel with policy COLLECT_ALL_ERRORS and timeout of 1 seconds
+    Then an exception should be thrown
+    And the exception cause should be a timeout
+    And the suppliers should have taken less than 2 seconds
+
+  Scenario: First successful result is returned
+    Given 3 suppliers that fail after 50 milliseconds and 3 suppliers that sleep for 5 seconds
+    And a supplier that returns 42 after 100 milliseconds
+    When the first successful supplier result is awaited with timeout of 10 seconds
+    Then no exception should be thrown
+    And the first successful supplier result should be 42
+    And the suppliers should have taken less than 2 seconds
+
+  Scenario: First successful result is not returned if all tasks fail
+    Given 3 suppliers that fail after 50 milliseconds and 0 suppliers that sleep for 5 seconds
+    When the first successful supplier result is awaited with timeout of 10 seconds
+    Then an exception should be thrown
+    And the exception should have 2 suppressed exceptions
+
+  Scenario Outline: Streaming parallel map
+    When 100 numbers are doubled by streaming parallel map with concurrency 8 preserving order <preserveOrder>
+    Then no exception should be thrown
+    And the streaming parallel map results should be the doubled numbers in order <preserveOrder>
+    And no more than 8 numbers should have been mapped at a time
+    Examples:
+      | preserveOrder |
+      | true          |
+      | false         |
+
+  Scenario: Streaming parallel map pulls an unbounded source lazily
+    When the first 20 results are taken from streaming parallel map of an infinite source with concurrency 4
+    Then no exception should be thrown
+    And no more than 24 source elements should have been pulled
+
+  Scenario: Streaming parallel map reports failures when results are consumed
+    When 10 numbers are mapped by streaming parallel map failing on number 3
+    Then an exception should be thrown
+
+  Scenario: Supplying values in parallel with an adaptive concurrency limit
+    Given 20 suppliers that return their index
+    When the suppliers are executed in parallel with an adaptive concurrency limit
+    Then 20 results should be collected in the original order
+    And no exception should be thrown
+
+  Scenario: Empty MDC context is not propagated to child threads
+    Given a supplier that checks MDC context
+    And MDC context is set with key "testKey" and value "testValue"
+    And MDC context is cleared before the supplier is executed
+    When the supplier is executed in parallel
+    Then the supplier should not have access to the MDC context
+    And no exception should be thrown
+
+  Scenario: Empty MDC context captured for child threads clears the MDC context they inherit
+    When a child thread executor is captured with empty MDC context and then MDC key "testKey" is set to "testValue"
+    Then the child thread should not see the MDC context set after capturing
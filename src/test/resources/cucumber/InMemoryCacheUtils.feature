@@ -0,0 +1,46 @@
+@cache #@disabled
+Feature: In-memory cache utils
+
+  Scenario Outline: Memory budget per cache manager (4 cache managers in total)
+    Given in-memory cache properties with memory per cache manager "<perManager>" and total memory "<total>"
+    When the memory budget per cache manager is calculated
+    Then the memory budget per cache manager should be "<expected>"
+    Examples:
+      | perManager | total | expected |
+      |            |       |          |
+      | 10MB       |       | 10485760 |
+      |            | 4MB   | 1048576  |
+      | 512KB      | 4MB   | 524288   |
+      | 2MB        | 4MB   | 1048576  |
+
+  Scenario Outline: Off-heap cache managers
+    Given in-memory cache properties with memory per cache manager "<perManager>" and total memory "<total>"
+    And off-heap in-memory storage is enabled
+    When additional in-memory cache managers are configured
+    Then no exception should be thrown
+    And in-memory cache manager "memory-1minutes" should be off-heap
+    Examples:
+      | perManager | total |
+      | 10MB       |       |
+      |            | 4MB   |
+
+  Scenario: Off-heap storage requires a memory budget
+    Given in-memory cache properties with memory per cache manager "" and total memory ""
+    And off-heap in-memory storage is enabled
+    When additional in-memory cache managers are configured
+    Then an exception should be thrown
+    And the exception message should contain "requires a memory budget"
+
+  Scenario: Negative results expire sooner, and concurrent loads are coalesced
+    Given in-memory cache properties with memory per cache manager "" and total memory ""
+    And negative results of in-memory caches expire in 300 milliseconds
+    When additional in-memory cache managers are configured
+    And 10 threads concurrently load key "missing" as null from in-memory cache manager "memory-1minutes"
+    And key "present" is loaded as "value" from in-memory cache manager "memory-1minutes"
+    Then no exception should be thrown
+    And the in-memory cache loader should have been called 2 times
+    And in-memory cache manager "memory-1minutes" should contain key "missing": true
+    And in-memory cache manager "memory-1minutes" should contain key "present": true
+    When 500 milliseconds pass
+    Then in-memory cache manager "memory-1minutes" should contain key "missing": false
+    And in-memory cache manager "memory-1minutes" should contain key "present": true
@@ -0,0 +1,47 @@
+@utils #@disabled
+Feature: Per-key stamped locks
+
+  Scenario Outline: Stripe count is rounded up to a power of 2
+    Given striped stamped locks with <requested> stripes
+    Then the striped stamped locks should have <actual> stripes
+    Examples:
+      | requested | actual |
+      | 1         | 1      |
+      | 3         | 4      |
+      | 64        | 64     |
+      | 100       | 128    |
+
+  Scenario Outline: The same key always yields the same lock
+    Given <type> stamped locks
+    Then the lock of key "user-1" should be the same on each call
+    And the lock of a null key should be the same on each call
+    Examples:
+      | type    |
+      | striped |
+      | weak    |
+
+  Scenario: Sequential numeric keys are spread over stripes
+    Given striped stamped locks with 16 stripes
+    Then 160 sequential numeric keys should use all 16 stripes
+
+  Scenario: Weak locks are distinct for distinct keys
+    Given weak stamped locks
+    Then the locks of keys "user-1" and "user-2" should be different
+
+  Scenario Outline: Writes are serialized per key
+    Given <type> stamped locks
+    When 8 threads increment counters of 4 keys 1000 times each under exclusive per-key locks
+    Then each of the 4 per-key counters should be 2000
+    Examples:
+      | type    |
+      | striped |
+      | weak    |
+
+  Scenario Outline: Named per-key locks are counted in lock statistics
+    Given <type> stamped locks named "<name>"
+    When 8 threads increment counters of 4 keys 1000 times each under exclusive per-key locks
+    Then the per-key locks should be instrumented, and lock statistics "<name>" should count 8000 exclusive locks
+    Examples:
+      | type    | name                               |
+      | striped | KeyedStampedLocksTest.stripedLocks |
+      | weak    | KeyedStampedLocksTest.weakLocks    |
@@ -43,3 +43,21 @@ Feature: LockUtils functionality
     Given a StampedLock instance
     When the optimistic read lock is used with null code
     Then the exception message should contain "resultSupplier"
+
+  Scenario: Instrumented lock counts optimistic reads and exclusive locks
+    Given an instrumented StampedLock named "orders"
+    When the instrumented lock is read 3 times allowing 2 optimistic attempts
+    And the instrumented lock is written 2 times
+    Then the instrumented lock should report 3 optimistic reads, 0 pessimistic reads and 2 exclusive locks
+    And the lock statistics registry should contain the instrumented lock under "orders"
+
+  Scenario: Instrumented lock falls back to a read lock while a slow writer holds the lock
+    Given an instrumented StampedLock named "inventory"
+    When the instrumented lock is read allowing 3 optimistic attempts while a slow writer holds it
+    Then the operation should complete successfully
+    And the instrumented lock should report 0 optimistic reads, 1 pessimistic reads and 0 exclusive locks
+
+  Scenario: Number of optimistic attempts must be positive
+    Given a StampedLock instance
+    When the optimistic read lock is used allowing 0 optimistic attempts
+    Then the exception message should contain "maxOptimisticAttempts"
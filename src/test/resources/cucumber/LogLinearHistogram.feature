@@ -0,0 +1,48 @@
+@utils #@disabled
+Feature: Log-linear histogram
+
+  Scenario: Empty histogram
+    Given an empty log-linear histogram
+    Then histogram count should be 0
+    And histogram max. should be 0
+    And histogram value at percentile 99.0 should be between 0 and 0
+
+  Scenario Outline: Percentiles of values 1..1000 are reported within 3.125%
+    Given an empty log-linear histogram
+    When values from 1 to 1000 are recorded in the histogram
+    Then histogram count should be 1000
+    And histogram max. should be 1000
+    And histogram value at percentile <percentile> should be between <min> and <max>
+    Examples:
+      | percentile | min | max  |
+      | 0.0        | 1   | 1    |
+      | 50.0       | 500 | 516  |
+      | 90.0       | 900 | 928  |
+      | 99.0       | 990 | 1000 |
+      | 99.9       | 999 | 1000 |
+      | 100.0      | 999 | 1000 |
+
+  Scenario: Small values are exact, negative ones are ignored
+    Given an empty log-linear histogram
+    When values from 0 to 31 are recorded in the histogram
+    And value -5 is recorded in the histogram
+    Then histogram count should be 32
+    And histogram value at percentile 50.0 should be between 15 and 15
+
+  Scenario: Huge values are counted, max. is exact
+    Given an empty log-linear histogram
+    When value 9000000000000 is recorded in the histogram
+    Then histogram count should be 1
+    And histogram max. should be 9000000000000
+    And histogram used bucket count should be 992
+
+  Scenario: Only buckets up to the max. value are in use
+    Given an empty log-linear histogram
+    When values from 1 to 100 are recorded in the histogram
+    Then histogram used bucket count should be 83
+    And histogram value at percentile 99.0 should be between 99 and 100
+
+  Scenario: Concurrent recording
+    Given an empty log-linear histogram
+    When 8 threads record 10000 values each in the histogram
+    Then histogram count should be 80000
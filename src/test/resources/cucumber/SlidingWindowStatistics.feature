@@ -0,0 +1,24 @@
+@utils #@disabled
+Feature: Sliding window statistics
+
+  Background:
+    Given sliding window statistics with 4 slots of 200 milliseconds
+
+  Scenario: Recent values are reported
+    When value 10 is recorded 100 times in the sliding window
+    And value 1000 is recorded 1 times in the sliding window
+    Then sliding window of 200 milliseconds should have 101 values with average between 19.0 and 20.0
+    And sliding window of 200 milliseconds should have p50 10, p99 10, and max. 1000
+    And sliding window of 200 milliseconds should have a positive rate
+
+  Scenario: Old values leave short windows first
+    When value 10 is recorded 100 times in the sliding window
+    And 500 milliseconds pass
+    And value 1000 is recorded 10 times in the sliding window
+    Then sliding window of 200 milliseconds should have 10 values with average between 1000.0 and 1000.0
+    And sliding window of 600 milliseconds should have 110 values with average between 99.0 and 100.0
+
+  Scenario: Values older than the ring are forgotten
+    When value 10 is recorded 100 times in the sliding window
+    And 1000 milliseconds pass
+    Then sliding window of 600 milliseconds should have 0 values with average between 0.0 and 0.0
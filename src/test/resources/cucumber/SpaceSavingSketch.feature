@@ -0,0 +1,33 @@
+@utils #@disabled
+Feature: Space-Saving heavy hitters sketch
+
+  Scenario: Frequent items are tracked exactly while capacity is not exceeded
+    Given Space-Saving sketch with capacity 3
+    When items "a,b,a,c,a,b" are offered to the sketch
+    Then heavy hitters should be "a=3+0,b=2+0,c=1+0"
+    And total count of the sketch should be 6
+
+  Scenario: Least frequent item is replaced and its count becomes the error bound
+    Given Space-Saving sketch with capacity 2
+    When items "a,a,a,b,c" are offered to the sketch
+    Then heavy hitters should be "a=3+0,c=2+1"
+    And total count of the sketch should be 5
+
+  Scenario: Weighted occurrences are counted at once
+    Given Space-Saving sketch with capacity 2
+    When item "a" is offered to the sketch with count 5
+    And items "b,c" are offered to the sketch
+    And item "c" is offered to the sketch with count 3
+    Then heavy hitters should be "a=5+0,c=5+1"
+    And total count of the sketch should be 10
+
+  Scenario: Heavy hitter survives a flood of unique items
+    Given Space-Saving sketch with capacity 10
+    When item "hot" is offered to the sketch 1000 times interleaved with 1000 unique items
+    Then the most frequent heavy hitter should be "hot" with at least 1000 occurrences
+
+  Scenario: Heavy hitters are merged from the stripes of concurrent threads
+    Given Space-Saving sketch with capacity 10 and 4 stripes
+    When item "hot" is offered to the sketch 1000 times interleaved with 1000 unique items by each of 8 threads
+    Then the most frequent heavy hitter should be "hot" with at least 8000 occurrences
+    And total count of the sketch should be 16000
@@ -0,0 +1,20 @@
+@utils #@disabled
+Feature: URI template normalizer
+
+  Scenario Outline: ID-like path segments are replaced with placeholders
+    When URI "<uri>" is normalized to a template
+    Then the URI template should be "<template>"
+    Examples:
+      | uri                                         | template                            |
+      | GET /users/123                              | GET /users/{number}                 |
+      | GET /users/123/orders/45?details=true       | GET /users/{number}/orders/{number} |
+      | /files/0189f7ea-ae2c-7e4b-8c3a-2b1d4f5e6a7b | /files/{uuid}                       |
+      | /files/0189f7eaae2c7e4b8c3a2b1d4f5e6a7b     | /files/{uuid}                       |
+      | /files/01H9VYNB4G7MQ2XSZJ8T5KCR3D           | /files/{uuid}                       |
+      | /orders/0G4R5T7V9B1050                      | /orders/{id}                        |
+      | /commits/3f2a9c1d8e7b6a5f4c3d2e1f           | /commits/{id}                       |
+      | /users/me/settings#theme                    | /users/me/settings                  |
+      | /api/v2/users/ABCDEFGHJKMNPQ                | /api/v2/users/ABCDEFGHJKMNPQ        |
+      | /api/v2/users/profile                       | /api/v2/users/profile               |
+      | /                                           | /                                   |
+      |                                             |                                     |
@@ -0,0 +1,42 @@
+@security #@disabled
+Feature: Caching JWT decoder
+
+  Scenario: Repeatedly decoded token is verified once
+    Given a caching JWT decoder with capacity 10
+    And the delegate JWT decoder accepts tokens expiring in 3600 seconds
+    When the token "header.payload.signature" is decoded 3 times
+    Then no exception should be thrown
+    And the delegate JWT decoder should be called 1 times
+    And the caching JWT decoder hit count should be 2
+
+  Scenario: Different tokens are verified separately
+    Given a caching JWT decoder with capacity 10
+    And the delegate JWT decoder accepts tokens expiring in 3600 seconds
+    When the token "header.payload.signature1" is decoded 2 times
+    And the token "header.payload.signature2" is decoded 2 times
+    Then the delegate JWT decoder should be called 2 times
+
+  Scenario: Expired token is not cached
+    Given a caching JWT decoder with capacity 10
+    And the delegate JWT decoder accepts tokens expiring in -60 seconds
+    When the token "header.payload.signature" is decoded 2 times
+    Then the delegate JWT decoder should be called 2 times
+
+  Scenario: Rejected token is not cached
+    Given a caching JWT decoder with capacity 10
+    And the delegate JWT decoder rejects tokens
+    When the token "header.payload.signature" is decoded 2 times
+    Then the exception message should contain "Invalid signature"
+    And the delegate JWT decoder should be called 2 times
+
+  Scenario: Invalidated cache verifies token again
+    Given a caching JWT decoder with capacity 10
+    And the delegate JWT decoder accepts tokens expiring in 3600 seconds
+    When the token "header.payload.signature" is decoded 1 times
+    And the caching JWT decoder cache is invalidated
+    And the token "header.payload.signature" is decoded 1 times
+    Then the delegate JWT decoder should be called 2 times
+
+  Scenario: Zero capacity is rejected
+    When a caching JWT decoder with capacity 0 is created
+    Then the exception message should contain "maxCachedTokens"
@@ -0,0 +1,78 @@
+@security #@disabled
+Feature: JWKS-based JWT decoder
+
+  Scenario: Token is verified with the key matching its key ID
+    Given JWKS with key IDs "key-1,key-2" expiring in 3600 seconds
+    And a JWKS-based JWT decoder
+    When a token signed with key "key-2" is decoded
+    Then no exception should be thrown
+    And the decoded token subject should be "user"
+    And the JWKS should have been fetched 1 times
+
+  Scenario: Token signed with an unknown key is rejected
+    Given JWKS with key IDs "key-1" expiring in 3600 seconds
+    And a JWKS-based JWT decoder
+    When a token signed with an unknown key "key-9" is decoded
+    Then the exception message should contain "Unknown key ID 'key-9'"
+    And the JWKS should have been fetched 2 times
+
+  Scenario: Rotated key is picked up by re-fetching the JWKS on demand
+    Given JWKS with key IDs "key-1" expiring in 3600 seconds
+    And a JWKS-based JWT decoder
+    When JWKS key IDs change to "key-1,key-2"
+    And a token signed with key "key-2" is decoded
+    Then no exception should be thrown
+    And the decoded token subject should be "user"
+    And the JWKS should have been fetched 2 times
+
+  Scenario: Re-fetches triggered by unknown key IDs are rate-limited
+    Given JWKS with key IDs "key-1" expiring in 3600 seconds
+    And a JWKS-based JWT decoder
+    When a token signed with an unknown key "key-8" is decoded
+    And a token signed with an unknown key "key-9" is decoded
+    And JWKS key IDs change to "key-1,key-2"
+    And a token signed with key "key-2" is decoded
+    Then the exception message should contain "Unknown key ID 'key-2'"
+    And the JWKS should have been fetched 2 times
+
+  Scenario: Malformed token is rejected
+    Given JWKS with key IDs "key-1" expiring in 3600 seconds
+    And a JWKS-based JWT decoder
+    When the token "not-a-jwt" is decoded by the JWKS-based decoder
+    Then the exception message should contain "Malformed token"
+
+  Scenario: Refresh swaps keys atomically
+    Given JWKS with key IDs "key-1" expiring in 3600 seconds
+    And a JWKS-based JWT decoder
+    When JWKS key IDs change to "key-2"
+    And the JWKS-based JWT decoder is refreshed
+    Then the JWKS-based JWT decoder key IDs should be "key-2"
+    When a token signed with key "key-2" is decoded
+    Then no exception should be thrown
+
+  Scenario: JWKS is refreshed in background before it expires
+    Given JWKS with key IDs "key-1" expiring in 1 seconds
+    And a JWKS-based JWT decoder
+    When 1500 milliseconds pass
+    Then the JWKS should have been fetched at least 2 times
+
+  Scenario: JWKS having no expiration date is refreshed in background at fallback interval
+    Given JWKS with key IDs "key-1" having no expiration date
+    And a JWKS-based JWT decoder with fallback refresh interval of 1000 milliseconds
+    When 1500 milliseconds pass
+    Then the JWKS should have been fetched at least 2 times
+
+  Scenario: JWKS served with max-age=0 is used and refreshed in background
+    Given JWKS with key IDs "key-1" expiring in 0 seconds
+    And a JWKS-based JWT decoder
+    When a token signed with key "key-1" is decoded
+    Then no exception should be thrown
+    And the JWKS should have been fetched 1 times
+    When 4500 milliseconds pass
+    Then the JWKS should have been fetched at least 2 times
+    When a token signed with key "key-1" is decoded
+    Then no exception should be thrown
+
+  Scenario: Initial fetch failure is reported
+    When a JWKS-based JWT decoder is created with a failing fetcher
+    Then the exception message should contain "Refresh operation failed"
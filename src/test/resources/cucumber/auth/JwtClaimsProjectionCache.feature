@@ -0,0 +1,28 @@
+@security #@disabled
+Feature: JWT claims projection cache
+
+  Scenario: Claims are projected once per token
+    Given a claims projection cache with capacity 10
+    And a JWT "token-1" with subject "123", username "john.doe", roles "admin,user" and locale "de_DE"
+    When the claims projection is retrieved 3 times
+    Then no exception should be thrown
+    And the projected user ID should be "123"
+    And the projected username should be "john.doe"
+    And the projected authorities should be "admin,user"
+    And the projected locale should be "de_DE"
+    And the claims projection cache hit count should be 2
+    And all retrieved claims projections should be the same instance
+
+  Scenario: Projection of external JWT provider token has no authorities
+    Given a claims projection cache with capacity 10
+    And a JWT "token-2" issued by "https://accounts.google.com" with subject "456" and roles "admin"
+    When the claims projection is retrieved 1 times
+    Then no exception should be thrown
+    And the projected user ID should be "google_456"
+    And the projected authorities should be ""
+
+  Scenario: Token without subject is not projected
+    Given a claims projection cache with capacity 10
+    And a JWT "token-3" with subject "", username "john.doe", roles "admin" and locale "en"
+    When the claims projection is retrieved 1 times
+    Then the exception should be of type "BadJwtException"
@@ -0,0 +1,24 @@
+@cache #@disabled
+Feature: Adaptive TTL cache manager
+
+  Background:
+    Given an adaptive TTL cache manager with TTL from 1 to 1440 minutes
+
+  Scenario: Cold entry gets nearly min. TTL
+    When adaptive cache key "cold" is loaded
+    Then TTL of adaptive cache key "cold" should be between 1 and 2 minutes
+
+  Scenario: Hot entry gets a longer TTL when reloaded
+    When adaptive cache key "hot" is loaded
+    And adaptive cache key "hot" is read 20 times
+    And adaptive cache key "hot" is evicted and loaded again
+    Then TTL of adaptive cache key "hot" should be between 1000 and 1440 minutes
+
+  Scenario: Volatile entry gets a shorter TTL than a stable one
+    When adaptive cache key "stable" is loaded
+    And adaptive cache key "stable" is read 20 times
+    And adaptive cache key "stable" is evicted and loaded again
+    And adaptive cache key "volatile" is loaded
+    And adaptive cache key "volatile" is read 20 times
+    And adaptive cache key "volatile" is updated 10 times
+    Then TTL of adaptive cache key "volatile" should be less than TTL of adaptive cache key "stable"
@@ -0,0 +1,51 @@
+@cache #@disabled
+Feature: Cache snapshotter
+
+  Scenario: Entries survive restart
+    Given a Caffeine cache manager with TTL 60000 milliseconds
+    And a cache snapshotter for cache "users"
+    When value "hello" is put into Caffeine cache "users" under key "42"
+    And the cache snapshotter is restarted with a new Caffeine cache manager
+    Then Caffeine cache "users" should have value "hello" under key "42"
+
+  Scenario: Only the configured caches are snapshotted
+    Given a Caffeine cache manager with TTL 60000 milliseconds
+    And a cache snapshotter for cache "users"
+    When value "hello" is put into Caffeine cache "users" under key "42"
+    And value "world" is put into Caffeine cache "orders" under key "42"
+    And the cache snapshotter is restarted with a new Caffeine cache manager
+    Then Caffeine cache "orders" should have no value under key "42"
+
+  Scenario: Restored entries keep their original expiration date
+    Given a Caffeine cache manager with TTL 600 milliseconds
+    And a cache snapshotter for cache "users"
+    When value "hello" is put into Caffeine cache "users" under key "42"
+    And 400 milliseconds pass
+    And the cache snapshotter is restarted with a new Caffeine cache manager
+    Then Caffeine cache "users" should have value "hello" under key "42"
+    When 300 milliseconds pass
+    Then Caffeine cache "users" should have no value under key "42"
+
+  Scenario: Restored entry replaced after restart is kept after its original expiration date
+    Given a Caffeine cache manager with TTL 600 milliseconds
+    And a cache snapshotter for cache "users"
+    When value "hello" is put into Caffeine cache "users" under key "42"
+    And 400 milliseconds pass
+    And the cache snapshotter is restarted with a new Caffeine cache manager
+    And value "bye" is put into Caffeine cache "users" under key "42"
+    And 300 milliseconds pass
+    Then Caffeine cache "users" should have value "bye" under key "42"
+
+  Scenario: Expired entries are not restored
+    Given a Caffeine cache manager with TTL 100 milliseconds
+    And a cache snapshotter for cache "users"
+    When value "hello" is put into Caffeine cache "users" under key "42"
+    And the cache snapshotter is stopped
+    And 200 milliseconds pass
+    And the cache snapshotter is started with a new Caffeine cache manager
+    Then Caffeine cache "users" should have no value under key "42"
+
+  Scenario: Missing snapshot is not an error
+    Given a Caffeine cache manager with TTL 60000 milliseconds
+    And a cache snapshotter for cache "users"
+    Then Caffeine cache "users" should have no value under key "42"
@@ -0,0 +1,24 @@
+@cache #@disabled
+Feature: Cache statistics registry
+
+  Scenario Outline: Statistics are recorded only if enabled
+    Given cache statistics recording is <enabled>
+    When a registered cache "<name>" is built
+    And registered cache "<name>" is queried for 3 missing and 2 present keys
+    Then statistics of registered cache "<name>" should show recording <enabled>
+    And statistics of registered cache "<name>" should show <hits> hits and <misses> misses
+    Examples:
+      | name                      | enabled | hits | misses |
+      | RegistryTest.recording    | true    | 2    | 3      |
+      | RegistryTest.notRecording | false   | 0    | 0      |
+
+  Scenario: Name clash is resolved with a suffix
+    Given cache statistics recording is false
+    When a registered cache "RegistryTest.clash" is built
+    And a registered cache "RegistryTest.clash" is built
+    Then registered cache names should include "RegistryTest.clash" and "RegistryTest.clash#2"
+
+  Scenario: Caches of a registered cache manager are included
+    Given cache statistics recording is true
+    When a cache manager "registryTestManager" with cache "users" is registered
+    Then registered cache names should include "registryTestManager:users" and "registryTestManager:users"
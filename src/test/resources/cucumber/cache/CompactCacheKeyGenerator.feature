@@ -0,0 +1,42 @@
+@cache #@disabled
+Feature: CompactCacheKeyGenerator
+
+  Scenario Outline: Compact cache keys are equal only for equal arguments
+    When compact cache keys are generated for arguments "<first>" and "<second>"
+    Then the compact cache keys should be equal: <equal>
+    Examples:
+      | first            | second             | equal |
+      | strings          | strings            | true  |
+      | strings          | swapped strings    | false |
+      | integer          | long               | false |
+      | null             | null               | true  |
+      | null             | empty string       | false |
+      | list             | list               | true  |
+      | list             | reversed list      | false |
+      | set              | reordered set      | true  |
+      | set              | larger set         | false |
+      | map              | reordered map      | true  |
+      | map              | other map          | false |
+      | record           | record             | true  |
+      | record           | other record       | false |
+      | int array        | int array          | true  |
+      | nested structure | nested structure   | true  |
+      | list             | list with integers | false |
+
+  Scenario Outline: Complex arguments are replaced with digests
+    When compact cache keys are generated for arguments "<argument>" and "<argument>"
+    Then the compact cache key part should be a digest: <digest>
+    Examples:
+      | argument         | digest |
+      | strings          | false  |
+      | integer          | false  |
+      | list             | true   |
+      | map              | true   |
+      | record           | true   |
+      | int array        | true   |
+      | nested structure | true   |
+      | opaque object    | false  |
+
+  Scenario: No arguments produce the empty key
+    When a compact cache key is generated with no arguments
+    Then the compact cache key should be the empty key
@@ -0,0 +1,21 @@
+@cache #@disabled
+Feature: Frequency sketch
+
+  Scenario Outline: Frequency is estimated and saturated
+    Given a frequency sketch for 1000 keys
+    When key "<key>" is counted <count> times in the frequency sketch
+    Then frequency of key "<key>" should be <frequency>
+    And frequency of key "other" should be 0
+    Examples:
+      | key | count | frequency |
+      | a   | 0     | 0         |
+      | b   | 1     | 1         |
+      | c   | 7     | 7         |
+      | d   | 15    | 15        |
+      | e   | 100   | 15        |
+
+  Scenario: Old popularity is forgotten
+    Given a frequency sketch for 8 keys
+    When key "a" is counted 15 times in the frequency sketch
+    And 1000 distinct keys are counted once in the frequency sketch
+    Then frequency of key "a" should be less than 15
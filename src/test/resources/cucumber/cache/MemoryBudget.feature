@@ -0,0 +1,17 @@
+@cache #@disabled
+Feature: Memory budget shared by caches
+
+  Scenario: Caches together don't exceed the budget after rebalancing
+    Given a memory budget of 1000 bytes shared by 2 cache managers whose caches may weigh 1000 bytes each
+    When 100 entries weighing 10 bytes each are put into cache "a" of each cache manager
+    And the memory budget is rebalanced
+    Then all caches together should weigh at most 1000 bytes
+
+  Scenario: Growing cache gets the memory given up by an idle one
+    Given a memory budget of 1000 bytes shared by 1 cache managers whose caches may weigh 1000 bytes each
+    When 50 entries weighing 10 bytes each are put into cache "idle" of each cache manager
+    And the memory budget is rebalanced
+    And 100 entries weighing 10 bytes each are put into cache "busy" of each cache manager
+    And the memory budget is rebalanced 20 times, with 100 more entries put into cache "busy" each time
+    Then all caches together should weigh at most 1000 bytes
+    And cache "busy" should weigh more than cache "idle"
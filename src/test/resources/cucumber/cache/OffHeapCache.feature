@@ -0,0 +1,62 @@
+@cache #@disabled
+Feature: Off-heap cache
+
+  Scenario: Value is stored off-heap and read back as a copy
+    Given an off-heap cache with budget 65536 bytes and TTL 60000 milliseconds
+    When off-heap value of 1000 characters is put under key "42"
+    Then off-heap cache should have value of 1000 characters under key "42"
+    And off-heap cache should occupy 1024 bytes
+
+  Scenario: Null value is cached
+    Given an off-heap cache with budget 65536 bytes and TTL 60000 milliseconds
+    When off-heap null value is put under key "42"
+    Then off-heap cache should have a cached null under key "42"
+
+  Scenario: Replaced value frees its memory
+    Given an off-heap cache with budget 65536 bytes and TTL 60000 milliseconds
+    When off-heap value of 1000 characters is put under key "42"
+    And off-heap value of 10 characters is put under key "42"
+    Then off-heap cache should have value of 10 characters under key "42"
+    And off-heap cache should occupy 256 bytes
+
+  Scenario: Memory budget is honored
+    Given an off-heap cache with budget 65536 bytes and TTL 60000 milliseconds
+    When 1000 off-heap values of 1000 characters are put
+    Then off-heap cache should occupy at most 65536 bytes
+    And off-heap cache should have at least 1 entries
+
+  Scenario: Value bigger than the budget is not cached
+    Given an off-heap cache with budget 4096 bytes and TTL 60000 milliseconds
+    When off-heap value of 10000 characters is put under key "42"
+    Then off-heap cache should have no value under key "42"
+    And off-heap cache should occupy 0 bytes
+
+  Scenario: Expired value is removed
+    Given an off-heap cache with budget 65536 bytes and TTL 100 milliseconds
+    When off-heap value of 1000 characters is put under key "42"
+    And 300 milliseconds pass
+    Then off-heap cache should have no value under key "42"
+
+  Scenario: Loader is called once on cache miss
+    Given an off-heap cache with budget 65536 bytes and TTL 60000 milliseconds
+    When off-heap value of key "1" is retrieved with a loader
+    And off-heap value of key "1" is retrieved with a loader
+    Then off-heap loader should have been called 1 times
+
+  Scenario: Cleared cache frees its memory
+    Given an off-heap cache with budget 65536 bytes and TTL 60000 milliseconds
+    When 10 off-heap values of 1000 characters are put
+    And off-heap cache is cleared
+    Then off-heap cache should have no value under key "1"
+    And off-heap cache should occupy 0 bytes
+
+
+  Scenario: Loader error is propagated to concurrent callers instead of hanging them
+    Given an off-heap cache with budget 65536 bytes and TTL 60000 milliseconds
+    When 2 callers concurrently retrieve off-heap value of key "1" with a loader throwing an error
+    Then both off-heap callers should have failed with the loader error
+
+  Scenario: Cached nulls count towards the memory budget
+    Given an off-heap cache with budget 65536 bytes and TTL 60000 milliseconds
+    When 10000 off-heap null values are put
+    Then off-heap cache should have at most 512 entries
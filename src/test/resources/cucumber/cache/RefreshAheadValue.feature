@@ -0,0 +1,57 @@
+@cache #@disabled
+Feature: Refresh-ahead value
+
+  Scenario: Value is loaded once and then served from memory
+    Given a refresh-ahead value whose loader produces values expiring in 3600 seconds
+    When the refresh-ahead value is retrieved 3 times
+    Then no exception should be thrown
+    And the retrieved refresh-ahead value should be "value-1"
+    And the refresh-ahead loader should have been called 1 times
+    And the refresh-ahead statistics should report 1 refreshes and 0 failures
+
+  Scenario: Concurrent refresh requests share one in-flight refresh
+    Given a refresh-ahead value whose loader produces values expiring in 3600 seconds
+    And the refresh-ahead loader is blocked
+    When 5 refreshes are requested concurrently
+    Then all refresh futures should be the same instance
+    When the refresh-ahead loader is released
+    Then the refresh-ahead loader should have been called 1 times
+
+  Scenario: Stale value is served while refreshing
+    Given a refresh-ahead value whose loader produces values expiring in 3600 seconds
+    And the refresh-ahead value is retrieved 1 times
+    And the refresh-ahead loader is blocked
+    When a refresh is requested
+    And the refresh-ahead value is retrieved 1 times
+    Then the retrieved refresh-ahead value should be "value-1"
+    When the refresh-ahead loader is released
+    And the refresh-ahead value is retrieved 1 times
+    Then the retrieved refresh-ahead value should be "value-2"
+
+  Scenario: Value is refreshed in background before it expires
+    Given a refresh-ahead value whose loader produces values expiring in 1 seconds
+    And the refresh-ahead value is retrieved 1 times
+    When 1500 milliseconds pass
+    Then the refresh-ahead loader should have been called at least 2 times
+
+  Scenario: Failed initial load is reported
+    Given a refresh-ahead value whose loader fails
+    When the refresh-ahead value is retrieved 1 times
+    Then the exception message should contain "Refresh operation failed"
+    And the refresh-ahead statistics should report 0 refreshes and 1 failures
+
+  Scenario: Loader error doesn't stop subsequent refreshes
+    Given a refresh-ahead value whose loader throws an error on the first call
+    When the refresh-ahead value is retrieved 1 times
+    Then the exception message should contain "Refresh operation failed"
+    When the refresh-ahead value is retrieved 1 times
+    Then no exception should be thrown
+    And the retrieved refresh-ahead value should be "value-2"
+    And the refresh-ahead statistics should report 1 refreshes and 1 failures
+
+  Scenario: Failed expiration date getter doesn't count as a refresh failure
+    Given a refresh-ahead value whose expiration date getter fails
+    When the refresh-ahead value is retrieved 1 times
+    Then no exception should be thrown
+    And the retrieved refresh-ahead value should be "value-1"
+    And the refresh-ahead statistics should report 1 refreshes and 0 failures
@@ -0,0 +1,18 @@
+@cache #@disabled
+Feature: Serialized size weigher
+
+  Scenario: Bigger values weigh more
+    Given a serialized size weigher
+    When a string of 10 characters is weighed
+    And a string of 10000 characters is weighed
+    Then the second weight should exceed the first one by at least 9990
+
+  Scenario: Weight includes entry overhead
+    Given a serialized size weigher
+    When a string of 1 characters is weighed
+    Then the last weight should be at least 128
+
+  Scenario: Value that can't be serialized weighs the fallback weight
+    Given a serialized size weigher
+    When a non-serializable value is weighed
+    Then the last weight should be 1024
@@ -0,0 +1,68 @@
+@cache #@disabled
+Feature: Two-tier cache manager
+
+  Scenario Outline: Value survives restart via L2
+    Given a two-tier cache manager with compression <compress>
+    When value "hello" is put into cache "users" under key "42"
+    And the two-tier cache manager is restarted
+    And value of key "42" is retrieved from cache "users" with a loader
+    Then the retrieved two-tier value should be "hello"
+    And the two-tier loader should have been called 0 times
+    Examples:
+      | compress |
+      | false    |
+      | true     |
+
+  Scenario: Loader is called once on cache miss
+    Given a two-tier cache manager with compression false
+    When value of key "1" is retrieved from cache "users" with a loader
+    And value of key "1" is retrieved from cache "users" with a loader
+    Then the retrieved two-tier value should be "loaded-1"
+    And the two-tier loader should have been called 1 times
+
+  Scenario: Cleared cache is cleared in L2 too
+    Given a two-tier cache manager with compression false
+    When value "hello" is put into cache "users" under key "42"
+    And value "world" is put into cache "orders" under key "42"
+    And cache "users" is cleared
+    And the two-tier cache manager is restarted
+    Then cache "users" should have no value under key "42"
+    And cache "orders" should have value "world" under key "42"
+
+  Scenario: Evicted value is evicted in L2 too
+    Given a two-tier cache manager with compression false
+    When value "hello" is put into cache "users" under key "42"
+    And key "42" is evicted from cache "users"
+    And the two-tier cache manager is restarted
+    Then cache "users" should have no value under key "42"
+
+  Scenario: Expired L2 value is not returned
+    Given a file L2 store
+    When value "hello" is stored in L2 under key "k" for 50 milliseconds
+    And 100 milliseconds pass
+    Then L2 store should have no value under key "k"
+
+  Scenario: Keys with equal string representations don't share L2 entries
+    Given a two-tier cache manager with compression false
+    When value "one" is put into cache "users" under a simple key of "a, b"
+    And value "two" is put into cache "users" under a simple key of "a" and "b"
+    And the two-tier cache manager is restarted
+    Then cache "users" should have value "one" under a simple key of "a, b"
+    And cache "users" should have value "two" under a simple key of "a" and "b"
+
+  Scenario: Clearing a cache doesn't clear caches whose names start with its name
+    Given a two-tier cache manager with compression false
+    When value "hello" is put into cache "a" under key "b::42"
+    And value "world" is put into cache "a::b" under key "42"
+    And cache "a" is cleared
+    And the two-tier cache manager is restarted
+    Then cache "a" should have no value under key "b::42"
+    And cache "a::b" should have value "world" under key "42"
+
+  Scenario: Sweep deletes expired files and keeps the total size within the limit
+    Given a file L2 store limited to 1000 bytes
+    When value "hello" is stored in L2 under key "short-lived" for 50 milliseconds
+    And 5 values of 300 bytes are stored in L2
+    And 100 milliseconds pass
+    And the L2 store is swept
+    Then L2 files should take at most 1000 bytes
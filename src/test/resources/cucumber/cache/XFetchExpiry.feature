@@ -0,0 +1,52 @@
+@cache #@disabled
+Feature: Probabilistic early refresh (XFetch)
+
+  Scenario: Entries aren't refreshed early until recompute time is known
+    Given an XFetch expiry with TTL of 10 minutes and beta 1.0
+    When early refresh is checked 1000 times with 1 milliseconds left
+    Then the share of early refreshes should be between 0.0 and 0.0
+
+  Scenario Outline: Early refresh probability depends on time left and recompute time
+    Given an XFetch expiry with TTL of 10 minutes and beta <beta>
+    And XFetch recompute time of 100 milliseconds is recorded
+    When early refresh is checked 10000 times with <left> milliseconds left
+    Then the share of early refreshes should be between <min> and <max>
+    Examples:
+      | beta | left   | min  | max  |
+      | 1.0  | 1      | 0.97 | 1.0  |
+      | 1.0  | 100    | 0.32 | 0.42 |
+      | 2.0  | 100    | 0.55 | 0.66 |
+      | 1.0  | 100000 | 0.0  | 0.0  |
+
+  Scenario Outline: Cache manager measures recompute time
+    Given an XFetch cache manager with TTL of 10 minutes
+    When XFetch cache key "key" is computed in 50 milliseconds <how>
+    Then XFetch recompute time should be at least 50 milliseconds
+    Examples:
+      | how                  |
+      | by the cache loader  |
+      | between miss and put |
+
+  Scenario Outline: Cache manager measures recompute time in async mode
+    Given an XFetch cache manager with TTL of 10 minutes in async mode
+    When XFetch cache key "key" is computed in 50 milliseconds <how>
+    Then XFetch recompute time should be at least 50 milliseconds
+    Examples:
+      | how                                  |
+      | by the async cache loader            |
+      | between async miss and put           |
+      | between async miss and put elsewhere |
+
+  Scenario: Only one reader refreshes an entry early, the others get the cached value
+    Given an XFetch cache manager with TTL of 1 minutes
+    And XFetch recompute time of 30 seconds is recorded by the cache manager
+    And XFetch cache key "key" is computed in 1 milliseconds between miss and put
+    When XFetch cache key "key" is looked up 1000 times without putting a value
+    Then exactly 1 XFetch lookup should be a miss
+
+  Scenario: Only one reader refreshes an entry early in async mode, the others get the cached value
+    Given an XFetch cache manager with TTL of 1 minutes in async mode
+    And XFetch recompute time of 30 seconds is recorded by the cache manager
+    And XFetch cache key "key" is computed in 1 milliseconds between async miss and put
+    When XFetch cache key "key" is retrieved 1000 times without putting a value
+    Then exactly 1 XFetch lookup should be a miss
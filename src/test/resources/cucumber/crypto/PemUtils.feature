@@ -36,3 +36,13 @@ Feature: PEM Utils
     Given a valid public key PEM
     When the public key is parsed
     Then a public key should be returned
+
+  Scenario: Parsed public key is reused for the same PEM
+    Given a valid public key PEM
+    When the public key is parsed twice
+    Then both parsed public keys should be the same instance
+
+  Scenario: Parsed private key is reused for the same PEM
+    Given a valid key pair PEM
+    When the private key is retrieved from the key pair twice
+    Then both retrieved private keys should be the same instance
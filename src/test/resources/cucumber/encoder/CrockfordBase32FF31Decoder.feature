@@ -0,0 +1,40 @@
+@encoder #@disabled
+Feature: Crockford Base32 FF3-1 decoder
+
+  Scenario Outline: Decoding generated IDs
+    Given a Crockford Base32 FF3-1 supplier with sequence starting at <firstSequenceNumber>
+    And a decoder caching up to <maxCachedIds> IDs is created from the supplier
+    And no exception should be thrown
+    When 3 IDs are generated by the supplier
+    And each generated ID is decoded twice
+    Then no exception should be thrown
+    And decoded sequence numbers should start at <firstSequenceNumber>
+    And the decoder cache should report <hits> hits and <misses> misses
+    Examples:
+      | firstSequenceNumber | maxCachedIds | hits | misses |
+      | 1                   | 100          | 3    | 3      |
+      | 123456789           | 100          | 3    | 3      |
+      | 1                   | 0            | 0    | 0      |
+
+  Scenario Outline: Bulk decoding of generated IDs
+    Given a Crockford Base32 FF3-1 supplier with sequence starting at 1000
+    And a decoder caching up to <maxCachedIds> IDs is created from the supplier
+    When 5 IDs are generated by the supplier
+    And all generated IDs are decoded in bulk, duplicates included
+    Then no exception should be thrown
+    And bulk-decoded sequence numbers should start at 1000 and keep the input order
+    Examples:
+      | maxCachedIds |
+      | 100          |
+      | 0            |
+
+  Scenario: Decoding an invalid ID
+    Given a Crockford Base32 FF3-1 supplier with sequence starting at 1
+    And a decoder caching up to 100 IDs is created from the supplier
+    When the ID "U@" is decoded
+    Then the exception message should contain "Input character is missing from the alphabet"
+
+  Scenario: Creating a decoder with a negative cache size
+    Given a Crockford Base32 FF3-1 supplier with sequence starting at 1
+    When a decoder caching up to -1 IDs is created from the supplier
+    Then an exception should be thrown